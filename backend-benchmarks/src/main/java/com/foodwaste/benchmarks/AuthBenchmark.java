@@ -0,0 +1,107 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.service.JwtService;
+import com.foodwaste.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// What authenticating one request costs, cycling through USERS callers:
+//   jwtParse / jwtVerifyCached - JwtService without and with the verified-token cache
+//   sessionLookup              - session auth as Tomcat's in-memory session manager does it:
+//                                session id -> session -> security context attribute
+//   userServiceFindById        - the old scheme, re-reading the user named in the request
+//                                (through the users cache)
+//   userRepositoryFindById     - the same without the cache, one query on H2
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+    
+    private static final int USERS = 1_000;
+    private static final String SECURITY_CONTEXT = "SPRING_SECURITY_CONTEXT";
+    
+    private JwtService jwtService;
+    private UserService userService;
+    private UserRepository userRepository;
+    
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<String> sessionIds = new ArrayList<>();
+    private final Map<String, Map<String, Object>> sessions = new ConcurrentHashMap<>();
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp(BackendState backend) {
+        jwtService = backend.getBean(JwtService.class);
+        userService = backend.getBean(UserService.class);
+        userRepository = backend.getBean(UserRepository.class);
+        
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("Auth " + i, "auth_" + i, "auth_" + i + "@benchmark.example",
+                    "not-a-password-hash", UserRole.DONOR);
+            user = userRepository.save(user);
+            userIds.add(user.getId());
+            tokens.add(jwtService.issueAccessToken(user));
+            
+            String sessionId = UUID.randomUUID().toString();
+            Map<String, Object> attributes = new ConcurrentHashMap<>();
+            attributes.put(SECURITY_CONTEXT, jwtService.parse(tokens.get(i)));
+            sessions.put(sessionId, attributes);
+            sessionIds.add(sessionId);
+        }
+    }
+    
+    @Benchmark
+    public AuthenticatedUser jwtParse() {
+        return jwtService.parse(tokens.get(advance()));
+    }
+    
+    @Benchmark
+    public AuthenticatedUser jwtVerifyCached() {
+        return jwtService.verify(tokens.get(advance()));
+    }
+    
+    @Benchmark
+    public Object sessionLookup() {
+        return sessions.get(sessionIds.get(advance())).get(SECURITY_CONTEXT);
+    }
+    
+    @Benchmark
+    public Object userServiceFindById() {
+        return userService.findById(userIds.get(advance()));
+    }
+    
+    @Benchmark
+    public Object userRepositoryFindById() {
+        return userRepository.findById(userIds.get(advance()));
+    }
+    
+    private int advance() {
+        int current = next;
+        next = (next + 1) % USERS;
+        return current;
+    }
+}
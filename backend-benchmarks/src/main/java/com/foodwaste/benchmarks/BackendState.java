@@ -0,0 +1,43 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.FoodWasteManagementApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+
+// The backend's Spring context on an in-memory H2 database, started once per fork
+@State(Scope.Benchmark)
+public class BackendState {
+    
+    private ConfigurableApplicationContext context;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(FoodWasteManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                // Arguments, unlike default properties, override the dev profile's settings
+                .run("--jwt.secret=" + UUID.randomUUID() + UUID.randomUUID(),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.h2.console.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.foodwaste=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,89 @@
+package com.foodwaste.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.controller.DonationController;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// What GET /donations/available spends after the query: mapping entities to
+// DonationResponse and writing the list as JSON. Entities are built in memory
+// so only the mapping and serialization are measured.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DonationResponseBenchmark {
+    
+    @Param({"100", "1000"})
+    private int size;
+    
+    private List<Donation> donations;
+    private List<DonationController.DonationResponse> responses;
+    
+    // Configured like Spring Boot's auto-configured mapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        donations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User donor = new User("Donor " + i, "donor" + i, "donor" + i + "@example.com", "x", UserRole.DONOR);
+            Donation donation = new Donation(
+                    donor,
+                    SeededData.FOOD_TYPES[random.nextInt(SeededData.FOOD_TYPES.length)],
+                    1.0 + random.nextInt(50),
+                    SeededData.UNITS[random.nextInt(SeededData.UNITS.length)],
+                    LocalDateTime.now().plusHours(1 + random.nextInt(48)),
+                    SeededData.area(random.nextInt(SeededData.CITIES.length), random),
+                    "Freshly prepared, packed for pickup");
+            donation.setId((long) i + 1);
+            donation.setStatus(DonationStatus.PENDING);
+            donation.setLatitude(28.6 + random.nextDouble());
+            donation.setLongitude(77.2 + random.nextDouble());
+            donations.add(donation);
+        }
+        responses = toResponses();
+    }
+    
+    @Benchmark
+    public List<DonationController.DonationResponse> toResponses() {
+        return donations.stream()
+                .map(DonationController.DonationResponse::new)
+                .toList();
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+    
+    @Benchmark
+    public byte[] toResponsesAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(toResponses());
+    }
+}
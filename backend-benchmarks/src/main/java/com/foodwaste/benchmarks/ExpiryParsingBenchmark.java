@@ -0,0 +1,43 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.controller.DonationController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// DonationRequest.getExpiryTime() for each format the frontend sends
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpiryParsingBenchmark {
+    
+    @Param({"2025-10-23T15:05:00.000Z", "2025-10-23T15:05:00.000", "2025-10-23T15:05:00"})
+    private String expiryTime;
+    
+    private final DonationController.DonationRequest request = new DonationController.DonationRequest();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        request.setExpiryTime(expiryTime);
+    }
+    
+    @Benchmark
+    public LocalDateTime getExpiryTime() {
+        return request.getExpiryTime();
+    }
+}
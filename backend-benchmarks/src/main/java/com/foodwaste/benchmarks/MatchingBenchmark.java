@@ -0,0 +1,54 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.service.DonationService;
+import com.foodwaste.service.FoodRequestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// FoodRequestService.findMatchingDonations over the seeded requests, cycling
+// through them so the request lookup is not served from a single cached row.
+// "geo" requests have coordinates; "text" ones fall back to the search index.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchingBenchmark {
+    
+    @Param({"geo", "text"})
+    private String path;
+    
+    private FoodRequestService foodRequestService;
+    private DonationService donationService;
+    private List<Long> requestIds;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp(BackendState backend, SeededData data) {
+        foodRequestService = backend.getBean(FoodRequestService.class);
+        donationService = backend.getBean(DonationService.class);
+        requestIds = path.equals("geo") ? data.getGeoRequestIds() : data.getTextRequestIds();
+    }
+    
+    @Benchmark
+    public List<Donation> findMatchingDonations() {
+        Long requestId = requestIds.get(next);
+        next = (next + 1) % requestIds.size();
+        return foodRequestService.findMatchingDonations(requestId, donationService);
+    }
+}
@@ -0,0 +1,49 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// UserService.checkPassword with the application's PasswordEncoder bean, i.e.
+// the CPU cost of every login
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordBenchmark {
+    
+    private static final String PASSWORD = "correct horse battery";
+    
+    private UserService userService;
+    private String encoded;
+    
+    @Setup(Level.Trial)
+    public void setUp(BackendState backend) {
+        userService = backend.getBean(UserService.class);
+        encoded = backend.getBean(PasswordEncoder.class).encode(PASSWORD);
+    }
+    
+    @Benchmark
+    public boolean checkPassword() {
+        return userService.checkPassword(PASSWORD, encoded);
+    }
+    
+    @Benchmark
+    public boolean checkWrongPassword() {
+        return userService.checkPassword("wrong password", encoded);
+    }
+}
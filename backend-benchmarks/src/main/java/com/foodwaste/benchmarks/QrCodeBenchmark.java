@@ -0,0 +1,61 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.dto.OrderRequest;
+import com.foodwaste.model.Order;
+import com.foodwaste.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// OrderService.generateQRCodeData for a typical five-item order. The method
+// uses none of the service's collaborators, so no Spring context is needed.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QrCodeBenchmark {
+    
+    private final OrderService orderService = new OrderService(null);
+    private final Order order = new Order();
+    private final OrderRequest orderRequest = new OrderRequest();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        order.setOrderId("ORD-1760000000000");
+        order.setDeliveryLocation("Sector 12, Delhi");
+        
+        OrderRequest.DeliveryDetailsRequest details = new OrderRequest.DeliveryDetailsRequest();
+        details.setDeliveryLocation("Sector 12, Delhi");
+        details.setDeliveryDate("2025-10-23");
+        details.setDeliveryTime("18:30");
+        orderRequest.setDeliveryDetails(details);
+        
+        List<OrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setId(id);
+            item.setRequestedQuantity(5.0);
+            items.add(item);
+        }
+        orderRequest.setItems(items);
+    }
+    
+    @Benchmark
+    public String generateQRCodeData() {
+        return orderService.generateQRCodeData(order, orderRequest);
+    }
+}
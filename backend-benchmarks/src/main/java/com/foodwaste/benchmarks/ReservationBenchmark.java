@@ -0,0 +1,60 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.service.DonationReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// DonationReservationService.reserve on one donation that never runs out,
+// from a single claimer and from 64 claimers contending for the same row
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationBenchmark {
+    
+    private DonationReservationService reservationService;
+    private Long donationId;
+    
+    @Setup(Level.Trial)
+    public void setUp(BackendState backend) {
+        reservationService = backend.getBean(DonationReservationService.class);
+        
+        User donor = backend.getBean(UserRepository.class).save(new User("Reservation donor",
+                "reservation-donor", "reservation-donor@example.com", "benchmark", UserRole.DONOR));
+        Donation donation = new Donation(donor, "Rice", 1e12, "kg",
+                LocalDateTime.now().plusDays(1), "Sector 1, Delhi", "Benchmark stock");
+        donationId = backend.getBean(DonationRepository.class).save(donation).getId();
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public double reserveUncontended() {
+        return reservationService.reserve(donationId, 1.0);
+    }
+    
+    @Benchmark
+    @Threads(64)
+    public double reserveContended() {
+        return reservationService.reserve(donationId, 1.0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.foodwaste.benchmarks;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.service.DonationService;
+import com.foodwaste.service.FoodRequestService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fills the benchmark database with production-like volumes: donations clustered
+// around a few city centres from a long tail of donors, and food requests of which
+// most carry coordinates (geo matching) and the rest only an address (text matching).
+// Rows go through the services so the geo and search indexes are built as in production.
+@State(Scope.Benchmark)
+public class SeededData {
+    
+    static final int DONORS = 500;
+    static final int NGOS = 100;
+    static final int DONATIONS = 20_000;
+    static final int REQUESTS = 2_000;
+    static final double GEO_REQUEST_SHARE = 0.8;
+    
+    static final String[] FOOD_TYPES = {
+        "Rice", "Dal", "Chapati", "Vegetable Biryani", "Bread", "Fruits",
+        "Milk", "Paneer Curry", "Sandwiches", "Cooked Meals"
+    };
+    static final String[] UNITS = {"kg", "servings", "packets", "liters"};
+    static final String[] CITIES = {"Delhi", "Mumbai", "Bengaluru", "Kolkata"};
+    private static final double[][] CITY_CENTRES = {
+        {28.6139, 77.2090}, {19.0760, 72.8777}, {12.9716, 77.5946}, {22.5726, 88.3639}
+    };
+    private static final int AREAS_PER_CITY = 40;
+    
+    // Roughly 5 km standard deviation around each centre
+    private static final double SPREAD_DEGREES = 0.045;
+    
+    private final List<Long> geoRequestIds = new ArrayList<>();
+    private final List<Long> textRequestIds = new ArrayList<>();
+    
+    @Setup(Level.Trial)
+    public void seed(BackendState backend) {
+        Random random = new Random(42);
+        String password = backend.getBean(PasswordEncoder.class).encode("benchmark");
+        UserRepository userRepository = backend.getBean(UserRepository.class);
+        
+        List<User> donors = userRepository.saveAll(users("donor", DONORS, UserRole.DONOR, password, random));
+        List<User> ngos = userRepository.saveAll(users("ngo", NGOS, UserRole.NGO, password, random));
+        
+        DonationService donationService = backend.getBean(DonationService.class);
+        for (int i = 0; i < DONATIONS; i++) {
+            int city = random.nextInt(CITIES.length);
+            Donation donation = new Donation(
+                    donors.get(skewedIndex(DONORS, random)),
+                    FOOD_TYPES[random.nextInt(FOOD_TYPES.length)],
+                    1.0 + random.nextInt(50),
+                    UNITS[random.nextInt(UNITS.length)],
+                    LocalDateTime.now().plusHours(1 + random.nextInt(48)),
+                    area(city, random),
+                    "Freshly prepared, packed for pickup");
+            donation.setLatitude(CITY_CENTRES[city][0] + random.nextGaussian() * SPREAD_DEGREES);
+            donation.setLongitude(CITY_CENTRES[city][1] + random.nextGaussian() * SPREAD_DEGREES);
+            donationService.createDonation(donation);
+        }
+        
+        FoodRequestService foodRequestService = backend.getBean(FoodRequestService.class);
+        for (int i = 0; i < REQUESTS; i++) {
+            int city = random.nextInt(CITIES.length);
+            FoodRequest request = new FoodRequest(
+                    ngos.get(random.nextInt(NGOS)),
+                    FOOD_TYPES[random.nextInt(FOOD_TYPES.length)],
+                    5.0 + random.nextInt(100),
+                    UNITS[random.nextInt(UNITS.length)],
+                    area(city, random),
+                    "Evening meal for shelter residents",
+                    LocalDateTime.now().plusHours(2 + random.nextInt(72)),
+                    10 + random.nextInt(200));
+            boolean geo = random.nextDouble() < GEO_REQUEST_SHARE;
+            if (geo) {
+                request.setLatitude(CITY_CENTRES[city][0] + random.nextGaussian() * SPREAD_DEGREES);
+                request.setLongitude(CITY_CENTRES[city][1] + random.nextGaussian() * SPREAD_DEGREES);
+            }
+            FoodRequest saved = foodRequestService.createFoodRequest(request);
+            (geo ? geoRequestIds : textRequestIds).add(saved.getId());
+        }
+    }
+    
+    public List<Long> getGeoRequestIds() { return geoRequestIds; }
+    public List<Long> getTextRequestIds() { return textRequestIds; }
+    
+    private static List<User> users(String prefix, int count, UserRole role, String password, Random random) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = new User(prefix + " " + i, prefix + i, prefix + i + "@example.com", password, role);
+            user.setPhone("98" + (10_000_000 + random.nextInt(89_999_999)));
+            user.setAddress(area(random.nextInt(CITIES.length), random));
+            users.add(user);
+        }
+        return users;
+    }
+    
+    static String area(int city, Random random) {
+        return "Sector " + (1 + random.nextInt(AREAS_PER_CITY)) + ", " + CITIES[city];
+    }
+    
+    // A few donors account for most donations
+    private static int skewedIndex(int size, Random random) {
+        return (int) (size * Math.pow(random.nextDouble(), 3));
+    }
+}
@@ -0,0 +1,513 @@
+package com.foodwaste.loadtest;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Bulk-loads synthetic users, donations, food requests, orders and deliveries
+// over plain JDBC batches. Shapes follow production: a few donors post most
+// donations, activity clusters around city centres weighted by size, rows are
+// created at meal-time peaks over the last --days days, and statuses follow
+// each row's age (old unclaimed donations are EXPIRED, past requests settled).
+//
+// Run it against a schema created by the backend (Flyway on MySQL, or
+// ddl-auto on a file-based H2 database) before starting the backend, since its
+// in-memory indexes and counters are seeded at startup.
+public class DataGenerator {
+    
+    // Rows per entity at --scale 1
+    private static final int USERS = 100_000;
+    private static final int DONATIONS = 1_000_000;
+    private static final int REQUESTS = 250_000;
+    private static final int ORDERS = 150_000;
+    
+    private static final int MANIFEST_SAMPLE = 1_000;
+    
+    // Matches the allocationSize of the pooled donations_seq and order_items_seq generators
+    private static final int SEQUENCE_ALLOCATION = 50;
+    
+    static final String[] CITIES = {"Delhi", "Mumbai", "Bengaluru", "Kolkata", "Chennai", "Hyderabad", "Pune", "Jaipur"};
+    static final double[][] CITY_CENTRES = {
+        {28.6139, 77.2090}, {19.0760, 72.8777}, {12.9716, 77.5946}, {22.5726, 88.3639},
+        {13.0827, 80.2707}, {17.3850, 78.4867}, {18.5204, 73.8567}, {26.9124, 75.7873}
+    };
+    private static final double[] CITY_WEIGHTS = {0.24, 0.22, 0.15, 0.11, 0.09, 0.09, 0.06, 0.04};
+    static final String[] FOOD_TYPES = {
+        "Rice", "Dal", "Chapati", "Vegetable Biryani", "Bread", "Fruits", "Milk",
+        "Paneer Curry", "Sandwiches", "Cooked Meals", "Vegetables", "Snacks"
+    };
+    static final String[] UNITS = {"kg", "servings", "packets", "liters"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "URGENT"};
+    private static final double[] PRIORITY_WEIGHTS = {0.2, 0.45, 0.25, 0.1};
+    
+    // Share of activity per hour of day: lunch and dinner surplus peaks
+    private static final double[] HOURLY_WEIGHTS = {
+        0.5, 0.3, 0.2, 0.2, 0.3, 0.6, 1.2, 2.0, 2.6, 3.0, 3.6, 4.6,
+        6.4, 7.2, 6.0, 4.4, 3.8, 4.2, 5.4, 7.0, 7.6, 6.2, 3.6, 1.6
+    };
+    
+    // About 5 km standard deviation around a city centre
+    static final double SPREAD_DEGREES = 0.045;
+    
+    // Generated users are lt_user_<id> and all share this password
+    static final String USERNAME_PREFIX = "lt_user_";
+    static final String PASSWORD = "password";
+    
+    private final Connection connection;
+    private final SplittableRandom random;
+    private final int batchSize;
+    private final int days;
+    private final LocalDateTime now = LocalDateTime.now();
+    
+    private final List<Long> donors = new ArrayList<>();
+    private final List<Long> ngos = new ArrayList<>();
+    private final List<Long> volunteers = new ArrayList<>();
+    private byte[] userCities;
+    private long firstUserId;
+    
+    private long firstDonationId;
+    private byte[] donationUnits;
+    
+    DataGenerator(Connection connection, long seed, int batchSize, int days) {
+        this.connection = connection;
+        this.random = new SplittableRandom(seed);
+        this.batchSize = batchSize;
+        this.days = days;
+    }
+    
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        double scale = args.getDouble("scale", 1.0);
+        
+        try (Connection connection = DriverManager.getConnection(
+                args.require("jdbc-url"), args.get("user", "root"), args.get("password", ""))) {
+            connection.setAutoCommit(false);
+            DataGenerator generator = new DataGenerator(connection, args.getLong("seed", 42),
+                    args.getInt("batch-size", 1000), args.getInt("days", 90));
+            
+            Manifest manifest = generator.generate(
+                    (int) (USERS * scale), (int) (DONATIONS * scale),
+                    (int) (REQUESTS * scale), (int) (ORDERS * scale));
+            Path manifestPath = Path.of(args.get("manifest", "loadtest-manifest.properties"));
+            manifest.write(manifestPath);
+            System.out.println("Manifest written to " + manifestPath.toAbsolutePath());
+        }
+    }
+    
+    Manifest generate(int users, int donations, int requests, int orders) throws SQLException {
+        Manifest manifest = new Manifest();
+        
+        long started = System.nanoTime();
+        insertUsers(users);
+        report("users", users, started);
+        
+        started = System.nanoTime();
+        int deliveries = insertDonations(donations);
+        report("donations (+" + deliveries + " deliveries)", donations, started);
+        manifest.firstDonationId = firstDonationId;
+        manifest.lastDonationId = firstDonationId + donations - 1;
+        
+        started = System.nanoTime();
+        manifest.firstRequestId = insertRequests(requests);
+        manifest.lastRequestId = manifest.firstRequestId + requests - 1;
+        report("food requests", requests, started);
+        
+        started = System.nanoTime();
+        insertOrders(orders, donations);
+        report("orders", orders, started);
+        
+        resetIdGenerators();
+        manifest.donorIds = sample(donors);
+        manifest.ngoIds = sample(ngos);
+        return manifest;
+    }
+    
+    private void insertUsers(int count) throws SQLException {
+        firstUserId = nextId("users");
+        userCities = new byte[count];
+        // Hashing once keeps generation fast; every generated user logs in with PASSWORD
+        String password = new BCryptPasswordEncoder().encode(PASSWORD);
+        
+        String sql = "insert into users (id, name, username, email, password, phone, address, latitude, longitude, "
+                + "role, enabled, points, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                long id = firstUserId + i;
+                int city = weighted(CITY_WEIGHTS);
+                userCities[i] = (byte) city;
+                
+                double roll = random.nextDouble();
+                String role = roll < 0.7 ? "DONOR" : roll < 0.8 ? "NGO" : "VOLUNTEER";
+                (role.equals("DONOR") ? donors : role.equals("NGO") ? ngos : volunteers).add(id);
+                
+                Timestamp created = Timestamp.valueOf(createdAt());
+                insert.setLong(1, id);
+                insert.setString(2, (role.equals("NGO") ? "Food Bank " : "User ") + id);
+                insert.setString(3, USERNAME_PREFIX + id);
+                insert.setString(4, USERNAME_PREFIX + id + "@loadtest.example");
+                insert.setString(5, password);
+                insert.setString(6, "9" + (100_000_000L + random.nextLong(899_999_999L)));
+                insert.setString(7, area(city));
+                insert.setDouble(8, latitude(city));
+                insert.setDouble(9, longitude(city));
+                insert.setString(10, role);
+                insert.setBoolean(11, true);
+                insert.setInt(12, 0);
+                insert.setTimestamp(13, created);
+                insert.setTimestamp(14, created);
+                addBatch(insert, i);
+            }
+            flush(insert);
+        }
+    }
+    
+    // Returns the number of deliveries created alongside the donations
+    private int insertDonations(int count) throws SQLException {
+        firstDonationId = nextId("donations");
+        long deliveryId = nextId("deliveries");
+        donationUnits = new byte[count];
+        int deliveries = 0;
+        
+        String donationSql = "insert into donations (id, donor_id, food_type, quantity, remaining_quantity, unit, expiry_time, "
+                + "pickup_location, latitude, longitude, description, status, assigned_ngo_id, assigned_volunteer_id, "
+                + "pickup_time, delivered_time, created_at, updated_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String deliverySql = "insert into deliveries (id, donation_id, volunteer_id, pickup_location, delivery_location, "
+                + "pickup_latitude, pickup_longitude, delivery_latitude, delivery_longitude, scheduled_pickup_time, "
+                + "actual_pickup_time, estimated_delivery_time, actual_delivery_time, status, notes, created_at, updated_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement donation = connection.prepareStatement(donationSql);
+             PreparedStatement delivery = connection.prepareStatement(deliverySql)) {
+            for (int i = 0; i < count; i++) {
+                long id = firstDonationId + i;
+                long donorId = donors.get(skewed(donors.size()));
+                int city = userCities[(int) (donorId - firstUserId)];
+                int unit = random.nextInt(UNITS.length);
+                donationUnits[i] = (byte) unit;
+                String location = area(city);
+                double latitude = latitude(city);
+                double longitude = longitude(city);
+                
+                LocalDateTime created = createdAt();
+                LocalDateTime expiry = created.plusHours(2 + random.nextInt(47));
+                LocalDateTime pickup = created.plusMinutes(30 + random.nextInt(150));
+                LocalDateTime delivered = pickup.plusMinutes(20 + random.nextInt(70));
+                
+                // 55% get claimed and delivered, 8% are cancelled, the rest wait for an NGO
+                double outcome = random.nextDouble();
+                String status;
+                if (outcome < 0.55) {
+                    status = delivered.isBefore(now) ? "DELIVERED" : pickup.isBefore(now) ? "PICKED_UP" : "ACCEPTED";
+                } else if (outcome < 0.63) {
+                    status = "CANCELLED";
+                } else {
+                    status = expiry.isBefore(now) ? "EXPIRED" : "PENDING";
+                }
+                boolean claimed = outcome < 0.55;
+                boolean moving = status.equals("DELIVERED") || status.equals("PICKED_UP");
+                long ngoId = claimed ? ngos.get(random.nextInt(ngos.size())) : 0;
+                long volunteerId = moving ? volunteers.get(random.nextInt(volunteers.size())) : 0;
+                
+                donation.setLong(1, id);
+                donation.setLong(2, donorId);
+                donation.setString(3, FOOD_TYPES[random.nextInt(FOOD_TYPES.length)]);
+                double quantity = 1 + random.nextInt(60);
+                donation.setDouble(4, quantity);
+                donation.setDouble(5, quantity);
+                donation.setString(6, UNITS[unit]);
+                donation.setTimestamp(7, Timestamp.valueOf(expiry));
+                donation.setString(8, location);
+                donation.setDouble(9, latitude);
+                donation.setDouble(10, longitude);
+                donation.setString(11, "Surplus from today's service, packed and labelled");
+                donation.setString(12, status);
+                setId(donation, 13, ngoId);
+                setId(donation, 14, volunteerId);
+                setTime(donation, 15, moving ? pickup : null);
+                setTime(donation, 16, status.equals("DELIVERED") ? delivered : null);
+                donation.setTimestamp(17, Timestamp.valueOf(created));
+                donation.setTimestamp(18, Timestamp.valueOf(moving ? pickup : created));
+                donation.addBatch();
+                
+                if (moving) {
+                    int ngoCity = userCities[(int) (ngoId - firstUserId)];
+                    delivery.setLong(1, deliveryId++);
+                    delivery.setLong(2, id);
+                    delivery.setLong(3, volunteerId);
+                    delivery.setString(4, location);
+                    delivery.setString(5, area(ngoCity));
+                    delivery.setDouble(6, latitude);
+                    delivery.setDouble(7, longitude);
+                    delivery.setDouble(8, latitude(ngoCity));
+                    delivery.setDouble(9, longitude(ngoCity));
+                    delivery.setTimestamp(10, Timestamp.valueOf(pickup));
+                    delivery.setTimestamp(11, Timestamp.valueOf(pickup));
+                    delivery.setTimestamp(12, Timestamp.valueOf(delivered));
+                    setTime(delivery, 13, status.equals("DELIVERED") ? delivered : null);
+                    delivery.setString(14, status.equals("DELIVERED") ? "DELIVERED" : "PICKED_UP");
+                    delivery.setString(15, null);
+                    delivery.setTimestamp(16, Timestamp.valueOf(created));
+                    delivery.setTimestamp(17, Timestamp.valueOf(pickup));
+                    delivery.addBatch();
+                    deliveries++;
+                }
+                
+                // Deliveries reference donations, so donations go first
+                if ((i + 1) % batchSize == 0) {
+                    donation.executeBatch();
+                    delivery.executeBatch();
+                    connection.commit();
+                }
+            }
+            donation.executeBatch();
+            delivery.executeBatch();
+            connection.commit();
+        }
+        return deliveries;
+    }
+    
+    private long insertRequests(int count) throws SQLException {
+        long firstId = nextId("food_requests");
+        String sql = "insert into food_requests (id, ngo_id, food_type_needed, quantity_needed, remaining_quantity, unit, "
+                + "delivery_location, latitude, longitude, description, priority, status, needed_by, people_served, "
+                + "created_at, updated_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                long ngoId = ngos.get(random.nextInt(ngos.size()));
+                int city = userCities[(int) (ngoId - firstUserId)];
+                LocalDateTime created = createdAt();
+                LocalDateTime neededBy = created.plusHours(4 + random.nextInt(68));
+                
+                String status;
+                if (neededBy.isBefore(now)) {
+                    status = random.nextDouble() < 0.7 ? "FULFILLED" : "CANCELLED";
+                } else {
+                    status = random.nextDouble() < 0.8 ? "OPEN" : "MATCHED";
+                }
+                
+                insert.setLong(1, firstId + i);
+                insert.setLong(2, ngoId);
+                insert.setString(3, FOOD_TYPES[random.nextInt(FOOD_TYPES.length)]);
+                double quantity = 5 + random.nextInt(150);
+                insert.setDouble(4, quantity);
+                insert.setDouble(5, status.equals("OPEN") ? quantity : 0);
+                insert.setString(6, UNITS[random.nextInt(UNITS.length)]);
+                insert.setString(7, area(city));
+                // One in ten requests has only an address
+                if (random.nextDouble() < 0.9) {
+                    insert.setDouble(8, latitude(city));
+                    insert.setDouble(9, longitude(city));
+                } else {
+                    insert.setNull(8, Types.DOUBLE);
+                    insert.setNull(9, Types.DOUBLE);
+                }
+                insert.setString(10, "Meals for shelter residents");
+                insert.setString(11, PRIORITIES[weighted(PRIORITY_WEIGHTS)]);
+                insert.setString(12, status);
+                insert.setTimestamp(13, Timestamp.valueOf(neededBy));
+                insert.setInt(14, 10 + random.nextInt(300));
+                insert.setTimestamp(15, Timestamp.valueOf(created));
+                insert.setTimestamp(16, Timestamp.valueOf(created));
+                addBatch(insert, i);
+            }
+            flush(insert);
+        }
+        return firstId;
+    }
+    
+    private void insertOrders(int count, int donations) throws SQLException {
+        long firstId = nextId("orders");
+        long itemId = nextId("order_items");
+        
+        String orderSql = "insert into orders (id, order_id, ngo_id, delivery_location, delivery_date, delivery_time, "
+                + "special_instructions, qr_code, status, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String itemSql = "insert into order_items (id, order_id, donation_id, requested_quantity, unit) values (?, ?, ?, ?, ?)";
+        try (PreparedStatement order = connection.prepareStatement(orderSql);
+             PreparedStatement item = connection.prepareStatement(itemSql)) {
+            for (int i = 0; i < count; i++) {
+                long id = firstId + i;
+                long ngoId = ngos.get(random.nextInt(ngos.size()));
+                LocalDateTime created = createdAt();
+                LocalDateTime deliveryDate = created.plusHours(2 + random.nextInt(46)).withSecond(0).withNano(0);
+                String status = deliveryDate.isBefore(now)
+                        ? (random.nextDouble() < 0.9 ? "DELIVERED" : "CANCELLED")
+                        : (random.nextDouble() < 0.6 ? "CONFIRMED" : "PENDING");
+                String orderId = "ORD-LT-" + id;
+                String location = area(userCities[(int) (ngoId - firstUserId)]);
+                String time = deliveryDate.toLocalTime().toString();
+                int items = 1 + random.nextInt(4);
+                
+                order.setLong(1, id);
+                order.setString(2, orderId);
+                order.setLong(3, ngoId);
+                order.setString(4, location);
+                order.setTimestamp(5, Timestamp.valueOf(deliveryDate));
+                order.setString(6, time);
+                order.setString(7, null);
+                order.setString(8, qrCode(orderId, location, deliveryDate.toLocalDate(), time, items, created));
+                order.setString(9, status);
+                order.setTimestamp(10, Timestamp.valueOf(created));
+                order.setTimestamp(11, Timestamp.valueOf(created));
+                order.addBatch();
+                
+                for (int j = 0; j < items; j++) {
+                    int donation = random.nextInt(donations);
+                    item.setLong(1, itemId++);
+                    item.setLong(2, id);
+                    item.setLong(3, firstDonationId + donation);
+                    item.setDouble(4, 1 + random.nextInt(20));
+                    item.setString(5, UNITS[donationUnits[donation]]);
+                    item.addBatch();
+                }
+                
+                if ((i + 1) % batchSize == 0) {
+                    order.executeBatch();
+                    item.executeBatch();
+                    connection.commit();
+                }
+            }
+            order.executeBatch();
+            item.executeBatch();
+            connection.commit();
+        }
+    }
+    
+    // Explicit ids advance MySQL's AUTO_INCREMENT but not H2's identity columns,
+    // and neither moves the pooled donations and order_items sequences
+    private void resetIdGenerators() throws SQLException {
+        boolean h2 = connection.getMetaData().getDatabaseProductName().startsWith("H2");
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[] {"users", "food_requests", "orders", "deliveries"}) {
+                if (h2) {
+                    statement.execute("alter table " + table + " alter column id restart with " + nextId(table));
+                }
+            }
+            // Sequence tables on both databases: the dev profile builds H2 from the migrations
+            for (String table : new String[] {"donations", "order_items"}) {
+                statement.executeUpdate("update " + table + "_seq set next_val = "
+                        + (nextId(table) + SEQUENCE_ALLOCATION));
+            }
+        }
+        connection.commit();
+    }
+    
+    private long nextId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select coalesce(max(id), 0) + 1 from " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+    
+    // Same layout as OrderService.generateQRCodeData
+    private static String qrCode(String orderId, String location, LocalDate date, String time, int items,
+                                 LocalDateTime created) {
+        return String.format(
+            "{\"orderId\":\"%s\",\"deliveryLocation\":\"%s\",\"deliveryDate\":\"%s\",\"deliveryTime\":\"%s\",\"items\":%d,\"timestamp\":\"%s\"}",
+            orderId, location, date, time, items, created);
+    }
+    
+    // Uniform day within the window, hour drawn from the diurnal profile
+    private LocalDateTime createdAt() {
+        LocalDateTime time;
+        do {
+            time = now.toLocalDate().minusDays(random.nextInt(days + 1)).atStartOfDay()
+                    .plusHours(weighted(HOURLY_WEIGHTS))
+                    .plusSeconds(random.nextInt(3600));
+        } while (time.isAfter(now));
+        return time;
+    }
+    
+    private String area(int city) {
+        return "Sector " + (1 + random.nextInt(60)) + ", " + CITIES[city];
+    }
+    
+    private double latitude(int city) {
+        return CITY_CENTRES[city][0] + gaussian() * SPREAD_DEGREES;
+    }
+    
+    private double longitude(int city) {
+        return CITY_CENTRES[city][1] + gaussian() * SPREAD_DEGREES;
+    }
+    
+    // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+    private double gaussian() {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+    
+    // Cubing a uniform draw puts about half the rows on the first 12% of donors
+    private int skewed(int size) {
+        double u = random.nextDouble();
+        return (int) (size * u * u * u);
+    }
+    
+    private int weighted(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double roll = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+    
+    private List<Long> sample(List<Long> ids) {
+        List<Long> sample = new ArrayList<>();
+        for (int i = 0; i < Math.min(MANIFEST_SAMPLE, ids.size()); i++) {
+            sample.add(ids.get(random.nextInt(ids.size())));
+        }
+        return sample;
+    }
+    
+    private void addBatch(PreparedStatement statement, int index) throws SQLException {
+        statement.addBatch();
+        if ((index + 1) % batchSize == 0) {
+            flush(statement);
+        }
+    }
+    
+    private void flush(PreparedStatement statement) throws SQLException {
+        statement.executeBatch();
+        connection.commit();
+    }
+    
+    private static void setId(PreparedStatement statement, int index, long id) throws SQLException {
+        if (id > 0) {
+            statement.setLong(index, id);
+        } else {
+            statement.setNull(index, Types.BIGINT);
+        }
+    }
+    
+    private static void setTime(PreparedStatement statement, int index, LocalDateTime time) throws SQLException {
+        if (time != null) {
+            statement.setTimestamp(index, Timestamp.valueOf(time));
+        } else {
+            statement.setNull(index, Types.TIMESTAMP);
+        }
+    }
+    
+    private static void report(String what, int count, long startedNanos) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        System.out.printf("%,d %s in %.1f s (%,.0f rows/s)%n", count, what, seconds, count / seconds);
+    }
+}
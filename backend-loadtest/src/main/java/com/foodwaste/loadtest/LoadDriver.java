@@ -0,0 +1,405 @@
+package com.foodwaste.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Closed-loop HTTP load against a running backend: --threads workers each pick
+// the next operation from a weighted mix and wait for its response. Latencies
+// are recorded per operation in HdrHistograms (microseconds); the warm-up
+// period is discarded. Override weights with --mix name=weight,... (0 disables).
+// Writes are sent as the donor or NGO they are for, logged in on first use
+// (a bcrypt check per user, which mostly falls into the warm-up).
+public class LoadDriver {
+    
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final int CREATED_DONATIONS_KEPT = 1024;
+    
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Manifest manifest;
+    private final Duration timeout;
+    
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    
+    // Donations this run created, still PENDING unless ordered since; orders draw from them
+    private final AtomicLongArray createdDonations = new AtomicLongArray(CREATED_DONATIONS_KEPT);
+    private final AtomicLong createdCount = new AtomicLong();
+    
+    // Access token per generated user
+    private final Map<Long, String> tokens = new ConcurrentHashMap<>();
+    
+    LoadDriver(String baseUrl, Manifest manifest, Duration timeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.manifest = manifest;
+        this.timeout = timeout;
+        
+        add("GET /donations/{id}", 20, () -> get("/donations/" + randomDonationId()));
+        add("GET /donations?limit", 12, () -> get("/donations?limit=50"));
+        add("GET /donations/available", 6, () -> get("/donations/available"));
+        add("GET /requests/{id}", 10, () -> get("/requests/" + randomRequestId()));
+        add("GET /requests/active", 6, () -> get("/requests/active"));
+        add("GET /orders/ngo/{id}", 4, () -> {
+            long ngoId = pick(manifest.ngoIds);
+            return getAs(ngoId, "/orders/ngo/" + ngoId);
+        });
+        add("GET /stats/dashboard", 14, () -> get("/stats/dashboard"));
+        add("GET /stats/impact", 6, () -> get("/stats/impact"));
+        add("POST /donations", 10, this::createDonation);
+        add("POST /requests", 6, this::createRequest);
+        add("POST /orders", 6, this::placeOrder);
+        add("POST /auth/login", 2, this::login);
+    }
+    
+    public static void main(String[] argv) throws Exception {
+        Args args = new Args(argv);
+        Manifest manifest = Manifest.read(Path.of(args.get("manifest", "loadtest-manifest.properties")));
+        LoadDriver driver = new LoadDriver(args.get("base-url", "http://localhost:8081/api"), manifest,
+                Duration.ofSeconds(args.getInt("timeout-seconds", 30)));
+        if (args.get("mix", null) != null) {
+            driver.applyMix(args.get("mix", null));
+        }
+        
+        String hgrmDir = args.get("hgrm-dir", null);
+        driver.run(args.getInt("threads", 32),
+                Duration.ofSeconds(args.getInt("warmup-seconds", 30)),
+                Duration.ofSeconds(args.getInt("duration-seconds", 120)),
+                hgrmDir != null ? Path.of(hgrmDir) : null);
+    }
+    
+    void run(int threads, Duration warmup, Duration duration, Path hgrmDir) throws Exception {
+        List<Operation> mix = operations.values().stream().filter(op -> op.weight > 0).toList();
+        int totalWeight = mix.stream().mapToInt(op -> op.weight).sum();
+        
+        long warmupEnds = System.nanoTime() + warmup.toNanos();
+        long runEnds = warmupEnds + duration.toNanos();
+        
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < runEnds) {
+                    Operation operation = choose(mix, totalWeight);
+                    long started = System.nanoTime();
+                    boolean ok;
+                    try {
+                        ok = operation.call.get();
+                    } catch (RuntimeException e) {
+                        ok = false;
+                    }
+                    long micros = (System.nanoTime() - started) / 1_000;
+                    operation.recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                    (ok ? operation.successes : operation.errors).incrementAndGet();
+                }
+            });
+        }
+        
+        System.out.printf("Warming up for %ds with %d threads against %s%n", warmup.toSeconds(), threads, baseUrl);
+        sleepUntil(warmupEnds);
+        for (Operation operation : mix) {
+            operation.reset();
+        }
+        long measuredFrom = System.nanoTime();
+        
+        System.out.printf("Measuring for %ds%n", duration.toSeconds());
+        while (System.nanoTime() < runEnds) {
+            sleepUntil(Math.min(runEnds, System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+            long calls = mix.stream().mapToLong(op -> op.successes.get() + op.errors.get()).sum();
+            double elapsed = (System.nanoTime() - measuredFrom) / 1e9;
+            System.out.printf("  %5.0fs  %,d requests  %,.0f req/s%n", elapsed, calls, calls / elapsed);
+        }
+        workers.shutdown();
+        workers.awaitTermination(timeout.toSeconds() + 5, TimeUnit.SECONDS);
+        
+        report(mix, (System.nanoTime() - measuredFrom) / 1e9, hgrmDir);
+    }
+    
+    private void report(List<Operation> mix, double seconds, Path hgrmDir) throws Exception {
+        System.out.printf("%n%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+        for (Operation operation : mix) {
+            Histogram histogram = operation.recorder.getIntervalHistogram();
+            total.add(histogram);
+            totalErrors += operation.errors.get();
+            printRow(operation.name, histogram, operation.errors.get(), seconds);
+            
+            if (hgrmDir != null) {
+                Files.createDirectories(hgrmDir);
+                String file = operation.name.replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+                try (PrintStream out = new PrintStream(new FileOutputStream(hgrmDir.resolve(file).toFile()))) {
+                    histogram.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+        printRow("TOTAL", total, totalErrors, seconds);
+    }
+    
+    private static void printRow(String name, Histogram histogram, long errors, double seconds) {
+        System.out.printf("%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+    
+    private void applyMix(String mix) {
+        for (String entry : mix.split(",")) {
+            int equals = entry.lastIndexOf('=');
+            Operation operation = operations.get(entry.substring(0, equals).trim());
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation '" + entry.substring(0, equals).trim()
+                        + "'; known: " + operations.keySet());
+            }
+            operation.weight = Integer.parseInt(entry.substring(equals + 1).trim());
+        }
+    }
+    
+    private boolean createDonation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int city = random.nextInt(DataGenerator.CITIES.length);
+        long donorId = pick(manifest.donorIds);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("donorId", donorId);
+        body.put("foodType", DataGenerator.FOOD_TYPES[random.nextInt(DataGenerator.FOOD_TYPES.length)]);
+        body.put("quantity", 1 + random.nextInt(60));
+        body.put("unit", DataGenerator.UNITS[random.nextInt(DataGenerator.UNITS.length)]);
+        body.put("expiryTime", LocalDateTime.now().plusHours(2 + random.nextInt(24)).withNano(0).format(ISO));
+        body.put("pickupLocation", "Sector " + (1 + random.nextInt(60)) + ", " + DataGenerator.CITIES[city]);
+        body.put("latitude", DataGenerator.CITY_CENTRES[city][0] + random.nextGaussian() * DataGenerator.SPREAD_DEGREES);
+        body.put("longitude", DataGenerator.CITY_CENTRES[city][1] + random.nextGaussian() * DataGenerator.SPREAD_DEGREES);
+        body.put("description", "Load test donation");
+        
+        HttpResponse<String> response = post(donorId, "/donations", body);
+        if (response.statusCode() / 100 != 2) {
+            return false;
+        }
+        JsonNode id = readTree(response.body()).get("id");
+        if (id != null) {
+            long slot = createdCount.getAndIncrement() % CREATED_DONATIONS_KEPT;
+            createdDonations.set((int) slot, id.asLong());
+        }
+        return true;
+    }
+    
+    private boolean createRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int city = random.nextInt(DataGenerator.CITIES.length);
+        long ngoId = pick(manifest.ngoIds);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ngoId", ngoId);
+        body.put("foodTypeNeeded", DataGenerator.FOOD_TYPES[random.nextInt(DataGenerator.FOOD_TYPES.length)]);
+        body.put("quantityNeeded", 5 + random.nextInt(150));
+        body.put("unit", DataGenerator.UNITS[random.nextInt(DataGenerator.UNITS.length)]);
+        body.put("deliveryLocation", "Sector " + (1 + random.nextInt(60)) + ", " + DataGenerator.CITIES[city]);
+        body.put("latitude", DataGenerator.CITY_CENTRES[city][0] + random.nextGaussian() * DataGenerator.SPREAD_DEGREES);
+        body.put("longitude", DataGenerator.CITY_CENTRES[city][1] + random.nextGaussian() * DataGenerator.SPREAD_DEGREES);
+        body.put("description", "Load test request");
+        body.put("neededBy", LocalDateTime.now().plusHours(4 + random.nextInt(48)).withNano(0).format(ISO));
+        body.put("priority", "MEDIUM");
+        body.put("peopleServed", 10 + random.nextInt(300));
+        return post(ngoId, "/requests", body).statusCode() / 100 == 2;
+    }
+    
+    // Orders one to three of the donations this run created
+    private boolean placeOrder() {
+        long created = Math.min(createdCount.get(), CREATED_DONATIONS_KEPT);
+        if (created == 0) {
+            return createDonation();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0, n = 1 + random.nextInt(3); i < n; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", createdDonations.get(random.nextInt((int) created)));
+            item.put("requestedQuantity", 1 + random.nextInt(5));
+            items.add(item);
+        }
+        LocalDateTime delivery = LocalDateTime.now().plusHours(3);
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("deliveryLocation", "Sector " + (1 + random.nextInt(60)) + ", " + DataGenerator.CITIES[0]);
+        details.put("deliveryDate", delivery.toLocalDate().toString());
+        details.put("deliveryTime", delivery.toLocalTime().withSecond(0).withNano(0).toString());
+        
+        long ngoId = pick(manifest.ngoIds);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ngoId", ngoId);
+        body.put("items", items);
+        body.put("deliveryDetails", details);
+        return post(ngoId, "/orders", body).statusCode() / 100 == 2;
+    }
+    
+    // A full login, bcrypt check included, as a random generated donor
+    private boolean login() {
+        Map<String, Object> credentials = new LinkedHashMap<>();
+        credentials.put("username", DataGenerator.USERNAME_PREFIX + pick(manifest.donorIds));
+        credentials.put("password", DataGenerator.PASSWORD);
+        return send(postRequest("/auth/login", credentials).build()).statusCode() / 100 == 2;
+    }
+    
+    private boolean get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET()
+                .build();
+        return send(request).statusCode() / 100 == 2;
+    }
+    
+    private boolean getAs(long userId, String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET();
+        return sendAs(userId, request).statusCode() / 100 == 2;
+    }
+    
+    private HttpResponse<String> post(long userId, String path, Object body) {
+        return sendAs(userId, postRequest(path, body));
+    }
+    
+    private HttpRequest.Builder postRequest(String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    // Retries once with a fresh login when the token has expired
+    private HttpResponse<String> sendAs(long userId, HttpRequest.Builder request) {
+        HttpResponse<String> response = send(request.copy()
+                .header("Authorization", "Bearer " + token(userId))
+                .build());
+        if (response.statusCode() == 401) {
+            tokens.remove(userId);
+            response = send(request.header("Authorization", "Bearer " + token(userId)).build());
+        }
+        return response;
+    }
+    
+    private String token(long userId) {
+        String token = tokens.get(userId);
+        if (token != null) {
+            return token;
+        }
+        Map<String, Object> credentials = new LinkedHashMap<>();
+        credentials.put("username", DataGenerator.USERNAME_PREFIX + userId);
+        credentials.put("password", DataGenerator.PASSWORD);
+        HttpResponse<String> response = send(postRequest("/auth/login", credentials).build());
+        if (response.statusCode() / 100 != 2) {
+            throw new RuntimeException("Login failed for user " + userId + ": HTTP " + response.statusCode());
+        }
+        token = readTree(response.body()).get("token").asText();
+        tokens.put(userId, token);
+        return token;
+    }
+    
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private long randomDonationId() {
+        return ThreadLocalRandom.current().nextLong(manifest.firstDonationId, manifest.lastDonationId + 1);
+    }
+    
+    private long randomRequestId() {
+        return ThreadLocalRandom.current().nextLong(manifest.firstRequestId, manifest.lastRequestId + 1);
+    }
+    
+    private static long pick(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+    
+    private static Operation choose(List<Operation> mix, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : mix) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+    
+    private void add(String name, int weight, Supplier<Boolean> call) {
+        operations.put(name, new Operation(name, weight, call));
+    }
+    
+    private static void sleepUntil(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+    
+    private static class Operation {
+        private final String name;
+        private final Supplier<Boolean> call;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private int weight;
+        
+        Operation(String name, int weight, Supplier<Boolean> call) {
+            this.name = name;
+            this.weight = weight;
+            this.call = call;
+        }
+        
+        void reset() {
+            recorder.reset();
+            successes.set(0);
+            errors.set(0);
+        }
+    }
+}
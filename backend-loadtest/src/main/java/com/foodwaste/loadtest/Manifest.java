@@ -0,0 +1,59 @@
+package com.foodwaste.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+// What the generator wrote, so the load driver can address existing rows:
+// id ranges for donations and requests, and samples of donor and NGO ids
+class Manifest {
+    
+    long firstDonationId;
+    long lastDonationId;
+    long firstRequestId;
+    long lastRequestId;
+    List<Long> donorIds;
+    List<Long> ngoIds;
+    
+    void write(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("donations.first", Long.toString(firstDonationId));
+        properties.setProperty("donations.last", Long.toString(lastDonationId));
+        properties.setProperty("requests.first", Long.toString(firstRequestId));
+        properties.setProperty("requests.last", Long.toString(lastRequestId));
+        properties.setProperty("donors", join(donorIds));
+        properties.setProperty("ngos", join(ngoIds));
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "Written by DataGenerator");
+        }
+    }
+    
+    static Manifest read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        Manifest manifest = new Manifest();
+        manifest.firstDonationId = Long.parseLong(properties.getProperty("donations.first"));
+        manifest.lastDonationId = Long.parseLong(properties.getProperty("donations.last"));
+        manifest.firstRequestId = Long.parseLong(properties.getProperty("requests.first"));
+        manifest.lastRequestId = Long.parseLong(properties.getProperty("requests.last"));
+        manifest.donorIds = split(properties.getProperty("donors"));
+        manifest.ngoIds = split(properties.getProperty("ngos"));
+        return manifest;
+    }
+    
+    private static String join(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+    
+    private static List<Long> split(String ids) {
+        return Arrays.stream(ids.split(",")).map(Long::valueOf).toList();
+    }
+}
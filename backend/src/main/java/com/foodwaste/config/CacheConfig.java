@@ -0,0 +1,16 @@
+package com.foodwaste.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+// Caches are defined in application.properties (spring.cache.*).
+// The caching advice runs ahead of @Transactional so a cache hit
+// never opens a transaction or borrows a connection.
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+    
+    public static final String USERS_BY_ID = "usersById";
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+}
@@ -0,0 +1,143 @@
+package com.foodwaste.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Per-route meters for GET responses, scraped with the rest from
+// /actuator/prometheus (management port):
+// - http.get.responses: a timer per route, tagged result=full or not_modified
+// - http.get.body.bytes: body bytes sent with full responses
+// - http.get.body.bytes.saved: bytes a 304 saved, priced at the size of the
+//   last full response for the same URL
+// Byte counts are measured before Tomcat's gzip, which happens below the
+// servlet layer.
+@Component
+public class HttpMetricsFilter extends OncePerRequestFilter {
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, RouteMeters> routes = new ConcurrentHashMap<>();
+    
+    // Last full body size per URL, to price a 304
+    private final Cache<String, Long> lastBodySize = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+    
+    public HttpMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        if (!"GET".equals(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        CountingResponse counting = new CountingResponse(response);
+        long start = System.nanoTime();
+        chain.doFilter(request, counting);
+        long elapsed = System.nanoTime() - start;
+        
+        // Streams (SSE, NDJSON export) are still being written; there is nothing to compare them with
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (request.isAsyncStarted() || pattern == null) {
+            return;
+        }
+        
+        String url = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString()
+                : request.getRequestURI();
+        RouteMeters meters = routes.computeIfAbsent(pattern.toString(), RouteMeters::new);
+        int status = counting.getStatus();
+        if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+            meters.notModified.record(elapsed, TimeUnit.NANOSECONDS);
+            Long saved = lastBodySize.getIfPresent(url);
+            if (saved != null) {
+                meters.bytesSaved.increment(saved);
+            }
+        } else if (status == HttpServletResponse.SC_OK) {
+            meters.full.record(elapsed, TimeUnit.NANOSECONDS);
+            meters.bytesSent.increment(counting.getBytes());
+            lastBodySize.put(url, counting.getBytes());
+        }
+    }
+    
+    private class RouteMeters {
+        private final Timer full;
+        private final Timer notModified;
+        private final Counter bytesSent;
+        private final Counter bytesSaved;
+        
+        RouteMeters(String route) {
+            full = meterRegistry.timer("http.get.responses", "route", route, "result", "full");
+            notModified = meterRegistry.timer("http.get.responses", "route", route, "result", "not_modified");
+            bytesSent = meterRegistry.counter("http.get.body.bytes", "route", route);
+            bytesSaved = meterRegistry.counter("http.get.body.bytes.saved", "route", route);
+        }
+    }
+    
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        
+        private long bytes;
+        private ServletOutputStream stream;
+        
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+        
+        long getBytes() { return bytes; }
+        
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytes++;
+                    }
+                    
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytes += len;
+                    }
+                    
+                    @Override
+                    public void flush() throws IOException { delegate.flush(); }
+                    
+                    @Override
+                    public void close() throws IOException { delegate.close(); }
+                    
+                    @Override
+                    public boolean isReady() { return delegate.isReady(); }
+                    
+                    @Override
+                    public void setWriteListener(WriteListener listener) { delegate.setWriteListener(listener); }
+                };
+            }
+            return stream;
+        }
+    }
+}
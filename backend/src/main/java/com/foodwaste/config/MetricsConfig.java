@@ -0,0 +1,111 @@
+package com.foodwaste.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Metrics beyond what Spring Boot records on its own (http.server.requests,
+// spring.data.repository.invocations, hibernate.* statistics): statements per
+// request and rows returned per repository method.
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    
+    @Autowired
+    private SqlStatementMetrics sqlStatementMetrics;
+    
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspector(SqlStatementMetrics metrics) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, metrics);
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementMetrics);
+    }
+    
+    // Static so repositories are post-processed before the rest of the configuration exists
+    @Bean
+    public static BeanPostProcessor repositoryRowMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(new RowCountInterceptor(
+                                    information.getRepositoryInterface(), information.getDomainType(), meterRegistry))));
+                }
+                return bean;
+            }
+        };
+    }
+    
+    // Records spring.data.repository.rows: entities returned, or rows changed by @Modifying queries
+    private static class RowCountInterceptor implements MethodInterceptor {
+        
+        private final Class<?> repository;
+        private final Class<?> domainType;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+        
+        RowCountInterceptor(Class<?> repository, Class<?> domainType, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.repository = repository;
+            this.domainType = domainType;
+            this.meterRegistry = meterRegistry;
+        }
+        
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Object result = invocation.proceed();
+            long rows = rows(invocation.getMethod(), result);
+            if (rows >= 0) {
+                summaries.computeIfAbsent(invocation.getMethod(), method -> DistributionSummary
+                        .builder("spring.data.repository.rows")
+                        .tag("repository", repository.getSimpleName())
+                        .tag("method", method.getName())
+                        .register(meterRegistry.getObject()))
+                        .record(rows);
+            }
+            return result;
+        }
+        
+        // -1 for results that are not rows (counts, sums, streams)
+        private long rows(Method method, Object result) {
+            if (result instanceof Collection<?> collection) {
+                return collection.size();
+            }
+            if (result instanceof Slice<?> slice) {
+                return slice.getNumberOfElements();
+            }
+            if (result instanceof Optional<?> optional) {
+                return optional.isPresent() ? 1 : 0;
+            }
+            if (result instanceof Number number && AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+                return number.longValue();
+            }
+            if (domainType.isAssignableFrom(method.getReturnType())) {
+                return result != null ? 1 : 0;
+            }
+            return -1;
+        }
+    }
+}
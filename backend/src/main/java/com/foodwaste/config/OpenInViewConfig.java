@@ -0,0 +1,29 @@
+package com.foodwaste.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Open-in-view for every endpoint except /auth/** (spring.jpa.open-in-view is
+// off so Spring Boot does not register its own for all paths). Under
+// open-in-view a request keeps its connection from the first query until the
+// response, and the auth endpoints wait on PasswordHashingService's queue in
+// between: a burst of logins held the whole pool while the hashing threads
+// needed a connection of their own to finish them. Their responses use no
+// lazy associations.
+@Configuration
+public class OpenInViewConfig implements WebMvcConfigurer {
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns("/auth/**");
+    }
+}
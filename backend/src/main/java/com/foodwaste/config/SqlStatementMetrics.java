@@ -0,0 +1,60 @@
+package com.foodwaste.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Sees every SQL statement Hibernate prepares. Counts them per request, so
+// http.server.requests.statements shows which endpoints issue N+1 queries,
+// and logs a random sample of statements in place of spring.jpa.show-sql
+// (sql.log.sample-rate; slow statements are logged by Hibernate itself).
+@Component
+public class SqlStatementMetrics implements StatementInspector, HandlerInterceptor {
+    
+    private static final Logger logger = LoggerFactory.getLogger("com.foodwaste.sql");
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${sql.log.sample-rate:0}")
+    private double sampleRate;
+    
+    private final ThreadLocal<int[]> statements = ThreadLocal.withInitial(() -> new int[1]);
+    
+    @Override
+    public String inspect(String sql) {
+        statements.get()[0]++;
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            logger.info("{}", sql);
+        }
+        return sql;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        statements.get()[0] = 0;
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return;
+        }
+        meterRegistry.summary("http.server.requests.statements",
+                        "method", request.getMethod(), "uri", pattern.toString())
+                .record(statements.get()[0]);
+    }
+}
@@ -1,25 +1,83 @@
 package com.foodwaste.config;
 
+import com.foodwaste.service.JwtService;
+import jakarta.servlet.DispatcherType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class WebConfig {
     
+    private static final Logger logger = LoggerFactory.getLogger(WebConfig.class);
+    
+    // The cost hashes had before it was configurable; calibration never goes below it
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 14;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    // 0 = calibrate against auth.bcrypt.target-ms at startup
+    @Value("${auth.bcrypt.strength:0}")
+    private int bcryptStrength;
+    
+    @Value("${auth.bcrypt.target-ms:100}")
+    private long bcryptTargetMs;
+    
+    // New hashes are stored as "{bcrypt}..." at the configured cost. Hashes from
+    // before, which have no prefix, still match and are rehashed on the next
+    // successful login, as are hashes of a lower cost (upgradeEncoding).
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0 ? bcryptStrength : calibrateBcryptStrength(bcryptTargetMs);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(strength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
+    }
+    
+    // Highest cost at which one hash still takes at most targetMs on this machine.
+    // Each step doubles the work, so one measurement at the minimum is enough.
+    private static int calibrateBcryptStrength(long targetMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_BCRYPT_STRENGTH);
+        probe.encode("calibration");
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        
+        double millis = fastest / 1_000_000.0;
+        int strength = MIN_BCRYPT_STRENGTH;
+        while (strength < MAX_BCRYPT_STRENGTH && millis * 2 <= targetMs) {
+            strength++;
+            millis *= 2;
+        }
+        logger.info("bcrypt cost {} (about {} ms per hash, target {} ms)", strength, Math.round(millis), targetMs);
+        return strength;
     }
     
     @Bean
@@ -40,13 +98,38 @@ public class WebConfig {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
+            // Stateless: every request authenticates with its bearer token (JwtAuthenticationFilter)
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .addFilterBefore(new JwtAuthenticationFilter(jwtService), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(authz -> authz
-                .requestMatchers("/auth/**").permitAll()
-                .requestMatchers("/stats/**").permitAll()
-                .requestMatchers("/h2-console/**").permitAll()
-                .requestMatchers("/donations/**").permitAll()
-                .requestMatchers("/requests/**").permitAll()
-                .requestMatchers("/orders/**").permitAll()
+                // Error pages and the second dispatch of streamed responses
+                .dispatcherTypeMatchers(DispatcherType.ERROR, DispatcherType.ASYNC).permitAll()
+                .requestMatchers("/auth/register", "/auth/login", "/auth/refresh", "/auth/logout").permitAll()
+                .requestMatchers("/h2-console/**").hasRole("ADMIN")
+                .requestMatchers("/stream/**").permitAll()
+                // Management port only, which listens on loopback
+                .requestMatchers("/actuator/**").permitAll()
+                // Public reads
+                .requestMatchers(HttpMethod.GET, "/stats/**", "/donations/**", "/requests/**", "/search/**").permitAll()
+                // Roles come from the token; controllers check whose data is being written
+                .requestMatchers("/matching/**").hasRole("ADMIN")
+                .requestMatchers("/audit/**").hasRole("ADMIN")
+                .requestMatchers("/notifications/**").hasRole("ADMIN")
+                // Every NGO's orders; NGOs read their own under /orders/ngo/{id}
+                .requestMatchers(HttpMethod.GET, "/orders", "/orders/export").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.POST, "/donations", "/donations/bulk").hasAnyRole("DONOR", "ADMIN")
+                .requestMatchers(HttpMethod.POST, "/requests").hasAnyRole("NGO", "ADMIN")
+                .requestMatchers(HttpMethod.POST, "/orders").hasRole("NGO")
+                .requestMatchers(HttpMethod.POST, "/deliveries").hasAnyRole("VOLUNTEER", "ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/donations/*/assign-ngo/*").hasAnyRole("DONOR", "NGO", "ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/donations/*/pickup", "/donations/*/deliver")
+                    .hasAnyRole("DONOR", "NGO", "VOLUNTEER", "ADMIN")
+                .requestMatchers(HttpMethod.DELETE, "/donations/*").hasAnyRole("DONOR", "ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/requests/*/*").hasAnyRole("NGO", "ADMIN")
+                .requestMatchers(HttpMethod.DELETE, "/requests/*").hasAnyRole("NGO", "ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/deliveries/*/*").hasAnyRole("VOLUNTEER", "ADMIN")
                 .anyRequest().authenticated()
             )
             .headers(headers -> headers.frameOptions(frameOptions -> frameOptions.disable())); // For H2 console
@@ -0,0 +1,145 @@
+package com.foodwaste.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.model.StateTransition;
+import com.foodwaste.model.StateTransition.EntityType;
+import com.foodwaste.service.TransitionLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Status history from the transition log. Admin only (see WebConfig).
+// {type} is one of donations, requests, orders, deliveries.
+@RestController
+@RequestMapping("/audit")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class AuditController {
+    
+    private static final int REPLAY_PAGE_SIZE = 1000;
+    
+    private static final Map<String, EntityType> TYPES = Map.of(
+        "donations", EntityType.DONATION,
+        "requests", EntityType.FOOD_REQUEST,
+        "orders", EntityType.ORDER,
+        "deliveries", EntityType.DELIVERY
+    );
+    
+    @Autowired
+    private TransitionLog transitionLog;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // The whole lifecycle, or with ?at= the status and transitions as of that time
+    @GetMapping("/{type}/{id}")
+    public ResponseEntity<?> getLifecycle(@PathVariable String type, @PathVariable Long id,
+                                          @RequestParam(required = false)
+                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        EntityType entityType = TYPES.get(type);
+        if (entityType == null) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: Unknown entity type: " + type));
+        }
+        
+        try {
+            List<StateTransition> transitions = transitionLog.history(entityType, id);
+            if (at != null) {
+                transitions = transitions.stream()
+                    .filter(transition -> !transition.getOccurredAt().isAfter(at))
+                    .toList();
+            }
+            if (transitions.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(new LifecycleResponse(entityType, id, at, transitions));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // Entities per status at a point in time, rebuilt by replaying the log
+    @GetMapping("/{type}/status-counts")
+    public ResponseEntity<?> getStatusCounts(@PathVariable String type,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        EntityType entityType = TYPES.get(type);
+        if (entityType == null) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: Unknown entity type: " + type));
+        }
+        
+        try {
+            LocalDateTime until = at != null ? at : LocalDateTime.now();
+            return ResponseEntity.ok(transitionLog.statusCountsAt(entityType, until, REPLAY_PAGE_SIZE));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // The raw log in write order as newline-delimited JSON, for rebuilding
+    // projections elsewhere
+    @GetMapping(value = "/replay", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> replay(@RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until) {
+        LocalDateTime end = until != null ? until : LocalDateTime.now();
+        StreamingResponseBody body = out -> transitionLog.replay(end, REPLAY_PAGE_SIZE, page -> {
+            try {
+                for (StateTransition transition : page) {
+                    out.write(objectMapper.writeValueAsBytes(transition));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+    
+    public static class LifecycleResponse {
+        private EntityType entityType;
+        private Long entityId;
+        private LocalDateTime at;
+        private String status;
+        private List<StateTransition> transitions;
+        
+        public LifecycleResponse(EntityType entityType, Long entityId, LocalDateTime at,
+                                 List<StateTransition> transitions) {
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.at = at;
+            this.status = transitions.get(transitions.size() - 1).getToStatus();
+            this.transitions = transitions;
+        }
+        
+        public EntityType getEntityType() { return entityType; }
+        public Long getEntityId() { return entityId; }
+        public LocalDateTime getAt() { return at; }
+        public String getStatus() { return status; }
+        public List<StateTransition> getTransitions() { return transitions; }
+    }
+    
+    public static class MessageResponse {
+        private String message;
+        
+        public MessageResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -1,16 +1,28 @@
 package com.foodwaste.controller;
 
+import com.foodwaste.dto.AuthenticatedUser;
 import com.foodwaste.model.User;
 import com.foodwaste.model.UserRole;
+import com.foodwaste.service.JwtService;
+import com.foodwaste.service.LoginRateLimiter;
+import com.foodwaste.service.PasswordHashingService;
+import com.foodwaste.service.RefreshTokenService;
 import com.foodwaste.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -20,19 +32,47 @@ public class AuthController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private PasswordHashingService passwordHashing;
+    
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
+    // Password hashing runs on PasswordHashingService's pool; the servlet thread is
+    // released while it waits (the handlers return a CompletableFuture)
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest request) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody RegisterRequest request,
+                                                             HttpServletRequest httpRequest) {
+        long retryAfter = loginRateLimiter.tryAcquire(null, httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(
+                tooManyRequests(retryAfter, "Error: Too many attempts, try again later!"));
+        }
+        
         try {
+            // Administrators are created by DataInitializer or another admin, never self-registered
+            UserRole role = UserRole.valueOf(request.getRole().toUpperCase());
+            if (role == UserRole.ADMIN) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Cannot register as an administrator!")));
+            }
+            
             // Check if username exists
             if (userService.existsByUsername(request.getUsername())) {
-                return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Error: Username is already taken!"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Username is already taken!")));
             }
             
             // Check if email exists
             if (userService.existsByEmail(request.getEmail())) {
-                return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Error: Email is already in use!"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Email is already in use!")));
             }
             
             // Create new user
@@ -41,47 +81,102 @@ public class AuthController {
                 request.getUsername(),
                 request.getEmail(),
                 request.getPassword(),
-                UserRole.valueOf(request.getRole().toUpperCase())
+                role
             );
             
             user.setPhone(request.getPhone());
             user.setAddress(request.getAddress());
+            user.setLatitude(request.getLatitude());
+            user.setLongitude(request.getLongitude());
             
-            User savedUser = userService.createUser(user);
-            
-            return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+            return passwordHashing.encode(request.getPassword())
+                .<ResponseEntity<?>>thenApply(encoded -> {
+                    user.setPassword(encoded);
+                    userService.createUserWithEncodedPassword(user);
+                    return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+                })
+                .exceptionally(this::hashingFailure);
             
         } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                .body(new MessageResponse("Error: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage())));
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> loginUser(@Valid @RequestBody LoginRequest request,
+                                                          HttpServletRequest httpRequest) {
+        long retryAfter = loginRateLimiter.tryAcquire(request.getUsername(), httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(
+                tooManyRequests(retryAfter, "Error: Too many login attempts, try again later!"));
+        }
+        
         try {
             Optional<User> userOpt = userService.findByUsername(request.getUsername());
             
             if (userOpt.isEmpty()) {
-                return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Error: User not found!"));
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: User not found!")));
             }
             
             User user = userOpt.get();
             
+            // Same answer as a wrong password, and no hashing spent on the account
+            if (!user.isEnabled()) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Invalid credentials!")));
+            }
+            
             // Check if password matches
-            if (!userService.checkPassword(request.getPassword(), user.getPassword())) {
-                return ResponseEntity.badRequest()
-                    .body(new MessageResponse("Error: Invalid credentials!"));
+            return passwordHashing.matches(request.getPassword(), user.getPassword())
+                .<ResponseEntity<?>>thenApply(matches -> {
+                    if (!matches) {
+                        return ResponseEntity.badRequest()
+                            .body(new MessageResponse("Error: Invalid credentials!"));
+                    }
+                    
+                    // Rehash at the current cost in the background; skipped while the pool is full
+                    if (passwordHashing.needsUpgrade(user.getPassword())) {
+                        passwordHashing.encode(request.getPassword())
+                            .thenAccept(encoded -> userService.upgradePassword(user.getId(), encoded));
+                    }
+                    
+                    Map<String, Object> response = tokens(user, refreshTokenService.issue(user.getId()));
+                    response.put("message", "Login successful!");
+                    response.put("user", new UserResponse(user, userService.getCurrentPoints(user)));
+                    
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(this::hashingFailure);
+            
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage())));
+        }
+    }
+    
+    // Exchanges a refresh token for a new access token and a new refresh token;
+    // the one presented cannot be used again
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            Optional<RefreshTokenService.Rotation> rotation = request.getRefreshToken() != null
+                    ? refreshTokenService.rotate(request.getRefreshToken())
+                    : Optional.empty();
+            if (rotation.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new MessageResponse("Error: Invalid refresh token!"));
             }
             
-            // In a real application, you would use proper JWT authentication here
-            // For now, we'll return user details for frontend to store
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Login successful!");
-            response.put("user", new UserResponse(user));
+            // The one lookup per refresh, so a new role or a disabled account takes effect here
+            Optional<User> userOpt = userService.findById(rotation.get().getUserId());
+            if (userOpt.isEmpty() || !userOpt.get().isEnabled()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new MessageResponse("Error: User not found!"));
+            }
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(tokens(userOpt.get(), rotation.get().getRefreshToken()));
             
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -89,9 +184,24 @@ public class AuthController {
         }
     }
     
+    // Access tokens stay valid until they expire (jwt.expiration)
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody RefreshRequest request) {
+        if (request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+        return ResponseEntity.ok(new MessageResponse("Logged out successfully!"));
+    }
+    
     @GetMapping("/profile/{id}")
-    public ResponseEntity<?> getUserProfile(@PathVariable Long id) {
+    public ResponseEntity<?> getUserProfile(@PathVariable Long id,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!caller.canActFor(id)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             Optional<User> userOpt = userService.findById(id);
             
             if (userOpt.isEmpty()) {
@@ -99,7 +209,7 @@ public class AuthController {
                     .body(new MessageResponse("Error: User not found!"));
             }
             
-            return ResponseEntity.ok(new UserResponse(userOpt.get()));
+            return ResponseEntity.ok(new UserResponse(userOpt.get(), userService.getCurrentPoints(userOpt.get())));
             
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -107,6 +217,30 @@ public class AuthController {
         }
     }
     
+    private ResponseEntity<?> hashingFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return tooManyRequests(1, "Error: Server is busy, try again shortly!");
+        }
+        return ResponseEntity.badRequest()
+            .body(new MessageResponse("Error: " + cause.getMessage()));
+    }
+    
+    private ResponseEntity<?> tooManyRequests(long retryAfterSeconds, String message) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+            .body(new MessageResponse(message));
+    }
+    
+    private Map<String, Object> tokens(User user, String refreshToken) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", jwtService.issueAccessToken(user));
+        response.put("tokenType", "Bearer");
+        response.put("expiresIn", jwtService.getExpirationSeconds());
+        response.put("refreshToken", refreshToken);
+        return response;
+    }
+    
     // Request/Response classes
     public static class RegisterRequest {
         private String name;
@@ -115,6 +249,8 @@ public class AuthController {
         private String password;
         private String phone;
         private String address;
+        private Double latitude;
+        private Double longitude;
         private String role;
         
         // Getters and Setters
@@ -136,6 +272,12 @@ public class AuthController {
         public String getAddress() { return address; }
         public void setAddress(String address) { this.address = address; }
         
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+        
         public String getRole() { return role; }
         public void setRole(String role) { this.role = role; }
     }
@@ -151,6 +293,13 @@ public class AuthController {
         public void setPassword(String password) { this.password = password; }
     }
     
+    public static class RefreshRequest {
+        private String refreshToken;
+        
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    }
+    
     public static class UserResponse {
         private Long id;
         private String name;
@@ -158,18 +307,22 @@ public class AuthController {
         private String email;
         private String phone;
         private String address;
+        private Double latitude;
+        private Double longitude;
         private String role;
         private Integer points;
         
-        public UserResponse(User user) {
+        public UserResponse(User user, Integer points) {
             this.id = user.getId();
             this.name = user.getName();
             this.username = user.getUsername();
             this.email = user.getEmail();
             this.phone = user.getPhone();
             this.address = user.getAddress();
+            this.latitude = user.getLatitude();
+            this.longitude = user.getLongitude();
             this.role = user.getRole().name();
-            this.points = user.getPoints();
+            this.points = points;
         }
         
         // Getters
@@ -179,6 +332,8 @@ public class AuthController {
         public String getEmail() { return email; }
         public String getPhone() { return phone; }
         public String getAddress() { return address; }
+        public Double getLatitude() { return latitude; }
+        public Double getLongitude() { return longitude; }
         public String getRole() { return role; }
         public Integer getPoints() { return points; }
     }
@@ -0,0 +1,139 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.event.OrderChangedEvent;
+import com.foodwaste.event.UserChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// ETag / Last-Modified validation for the read endpoints. A version counter
+// per collection is bumped by the committed domain events, so list endpoints
+// can answer If-None-Match with a 304 before running any query. Single rows
+// are validated against their updatedAt, and lists that depend on the clock
+// against a fingerprint of what was loaded.
+//
+// ETags are weak (W/"...") because Tomcat will not gzip a response carrying
+// a strong ETag, and the bodies are equivalent rather than byte-identical.
+@Component
+public class ConditionalRequests {
+    
+    public static final String DONATIONS = "donations";
+    public static final String REQUESTS = "requests";
+    public static final String ORDERS = "orders";
+    public static final String USERS = "users";
+    
+    // Versions restart at 0, so tags from before a restart must not match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+    
+    public ConditionalRequests() {
+        for (String collection : List.of(DONATIONS, REQUESTS, ORDERS, USERS)) {
+            versions.put(collection, new Version());
+        }
+    }
+    
+    // True when the client's copy of a response built from these collections is current;
+    // the handler then returns null and the 304 is already set up
+    public boolean checkNotModified(WebRequest request, String... collections) {
+        StringBuilder tag = new StringBuilder(epoch);
+        long lastModified = 0;
+        for (String collection : collections) {
+            Version version = versions.get(collection);
+            tag.append('-').append(version.counter.get());
+            lastModified = Math.max(lastModified, version.lastModified);
+        }
+        return check(request, tag.toString(), lastModified);
+    }
+    
+    public boolean checkNotModified(WebRequest request, Long id, LocalDateTime updatedAt) {
+        long lastModified = toMillis(updatedAt);
+        return check(request, id + "-" + lastModified, lastModified);
+    }
+    
+    // For results that change with time as well as with writes (e.g. "needed by" in the future)
+    public <T> boolean checkNotModified(WebRequest request, List<T> items,
+                                        Function<T, Long> id, Function<T, LocalDateTime> updatedAt) {
+        long hash = 1;
+        long lastModified = 0;
+        for (T item : items) {
+            long modified = toMillis(updatedAt.apply(item));
+            hash = 31 * hash + id.apply(item);
+            hash = 31 * hash + modified;
+            lastModified = Math.max(lastModified, modified);
+        }
+        return check(request, items.size() + "-" + Long.toHexString(hash), lastModified);
+    }
+    
+    // For small derived bodies (dashboard counters) that are cheap to compute. Named
+    // apart from the varargs overload, which a single collection name would not reach
+    public boolean checkContentNotModified(WebRequest request, Object content) {
+        return check(request, Integer.toHexString(content.hashCode()), -1);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        bump(DONATIONS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        bump(DONATIONS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationClaimed(DonationClaimedEvent event) {
+        bump(DONATIONS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodRequestChanged(FoodRequestChangedEvent event) {
+        bump(REQUESTS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        bump(ORDERS);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        bump(USERS);
+    }
+    
+    private void bump(String collection) {
+        Version version = versions.get(collection);
+        version.lastModified = System.currentTimeMillis();
+        version.counter.incrementAndGet();
+    }
+    
+    private boolean check(WebRequest request, String tag, long lastModified) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            // Cacheable, but always revalidated
+            servletRequest.getResponse().setHeader("Cache-Control", "no-cache");
+        }
+        return request.checkNotModified("W/\"" + tag + "\"", lastModified);
+    }
+    
+    private static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+    
+    private static class Version {
+        private final AtomicLong counter = new AtomicLong();
+        private volatile long lastModified = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,325 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.model.*;
+import com.foodwaste.service.DeliveryService;
+import com.foodwaste.service.DonationService;
+import com.foodwaste.service.RouteService;
+import com.foodwaste.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/deliveries")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class DeliveryController {
+    
+    @Autowired
+    private DeliveryService deliveryService;
+    
+    @Autowired
+    private DonationService donationService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @PostMapping
+    public ResponseEntity<?> createDelivery(@RequestBody DeliveryRequest request,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
+        try {
+            // Volunteers sign themselves up; admins may assign anyone
+            Long volunteerId = request.getVolunteerId() != null ? request.getVolunteerId() : caller.getId();
+            if (!caller.canActFor(volunteerId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Cannot create deliveries for another user!"));
+            }
+            
+            Optional<Donation> donationOpt = donationService.findById(request.getDonationId());
+            if (donationOpt.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Donation not found!"));
+            }
+            
+            Optional<User> volunteerOpt = userService.findById(volunteerId);
+            if (volunteerOpt.isEmpty() || volunteerOpt.get().getRole() != UserRole.VOLUNTEER) {
+                return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Volunteer not found!"));
+            }
+            
+            Delivery delivery = new Delivery(
+                donationOpt.get(),
+                volunteerOpt.get(),
+                request.getPickupLocation(),
+                request.getDeliveryLocation(),
+                request.getScheduledPickupTime()
+            );
+            delivery.setPickupLatitude(request.getPickupLatitude());
+            delivery.setPickupLongitude(request.getPickupLongitude());
+            delivery.setDeliveryLatitude(request.getDeliveryLatitude());
+            delivery.setDeliveryLongitude(request.getDeliveryLongitude());
+            delivery.setEstimatedDeliveryTime(request.getEstimatedDeliveryTime());
+            delivery.setNotes(request.getNotes());
+            
+            Delivery savedDelivery = deliveryService.createDelivery(delivery);
+            
+            return ResponseEntity.ok(new DeliveryResponse(savedDelivery));
+        
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // The assigned volunteer's (or an admin's) to read
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getDeliveryById(@PathVariable Long id,
+                                             @AuthenticationPrincipal AuthenticatedUser caller) {
+        Optional<Delivery> delivery = deliveryService.findById(id);
+        
+        if (delivery.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!caller.canActFor(delivery.get().getVolunteer().getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new MessageResponse("Error: Access denied!"));
+        }
+        
+        return ResponseEntity.ok(new DeliveryResponse(delivery.get()));
+    }
+    
+    @GetMapping("/volunteer/{volunteerId}")
+    public ResponseEntity<?> getVolunteerDeliveries(@PathVariable Long volunteerId,
+                                                    @RequestParam(defaultValue = "false") boolean active,
+                                                    @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (!caller.canActFor(volunteerId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new MessageResponse("Error: Access denied!"));
+        }
+        
+        List<Delivery> deliveries = active
+                ? deliveryService.findActiveByVolunteer(volunteerId)
+                : deliveryService.findByVolunteer(volunteerId);
+        List<DeliveryResponse> response = deliveries.stream()
+                .map(DeliveryResponse::new)
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+    
+    // Visiting order for the volunteer's active deliveries with an ETA per stop.
+    // Pass the volunteer's current position to plan from there.
+    @GetMapping("/volunteer/{volunteerId}/route")
+    public ResponseEntity<?> getVolunteerRoute(@PathVariable Long volunteerId,
+                                               @RequestParam(required = false) Double latitude,
+                                               @RequestParam(required = false) Double longitude,
+                                               @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (!caller.canActFor(volunteerId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new MessageResponse("Error: Access denied!"));
+        }
+        
+        return ResponseEntity.ok(routeService.getRoute(volunteerId, latitude, longitude));
+    }
+    
+    @PutMapping("/{id}/in-transit")
+    public ResponseEntity<?> markInTransit(@PathVariable Long id,
+                                           @AuthenticationPrincipal AuthenticatedUser caller) {
+        try {
+            if (!isVolunteer(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
+            return ResponseEntity.ok(new DeliveryResponse(deliveryService.markInTransit(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{id}/pickup")
+    public ResponseEntity<?> markAsPickedUp(@PathVariable Long id,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
+        try {
+            if (!isVolunteer(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
+            return ResponseEntity.ok(new DeliveryResponse(deliveryService.markAsPickedUp(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{id}/deliver")
+    public ResponseEntity<?> markAsDelivered(@PathVariable Long id,
+                                             @AuthenticationPrincipal AuthenticatedUser caller) {
+        try {
+            if (!isVolunteer(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
+            return ResponseEntity.ok(new DeliveryResponse(deliveryService.markAsDelivered(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelDelivery(@PathVariable Long id,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
+        try {
+            if (!isVolunteer(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
+            return ResponseEntity.ok(new DeliveryResponse(deliveryService.cancelDelivery(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // Unknown ids pass, so the service reports them as not found
+    private boolean isVolunteer(Long deliveryId, AuthenticatedUser caller) {
+        return deliveryService.findById(deliveryId)
+                .map(delivery -> caller.canActFor(delivery.getVolunteer().getId()))
+                .orElse(true);
+    }
+    
+    // Request/Response classes
+    public static class DeliveryRequest {
+        private Long donationId;
+        private Long volunteerId;
+        private String pickupLocation;
+        private Double pickupLatitude;
+        private Double pickupLongitude;
+        private String deliveryLocation;
+        private Double deliveryLatitude;
+        private Double deliveryLongitude;
+        private String scheduledPickupTime; // ISO format
+        private String estimatedDeliveryTime; // ISO format
+        private String notes;
+        
+        // Getters and Setters
+        public Long getDonationId() { return donationId; }
+        public void setDonationId(Long donationId) { this.donationId = donationId; }
+        
+        public Long getVolunteerId() { return volunteerId; }
+        public void setVolunteerId(Long volunteerId) { this.volunteerId = volunteerId; }
+        
+        public String getPickupLocation() { return pickupLocation; }
+        public void setPickupLocation(String pickupLocation) { this.pickupLocation = pickupLocation; }
+        
+        public Double getPickupLatitude() { return pickupLatitude; }
+        public void setPickupLatitude(Double pickupLatitude) { this.pickupLatitude = pickupLatitude; }
+        
+        public Double getPickupLongitude() { return pickupLongitude; }
+        public void setPickupLongitude(Double pickupLongitude) { this.pickupLongitude = pickupLongitude; }
+        
+        public String getDeliveryLocation() { return deliveryLocation; }
+        public void setDeliveryLocation(String deliveryLocation) { this.deliveryLocation = deliveryLocation; }
+        
+        public Double getDeliveryLatitude() { return deliveryLatitude; }
+        public void setDeliveryLatitude(Double deliveryLatitude) { this.deliveryLatitude = deliveryLatitude; }
+        
+        public Double getDeliveryLongitude() { return deliveryLongitude; }
+        public void setDeliveryLongitude(Double deliveryLongitude) { this.deliveryLongitude = deliveryLongitude; }
+        
+        public LocalDateTime getScheduledPickupTime() {
+            return scheduledPickupTime != null ? LocalDateTime.parse(scheduledPickupTime) : null;
+        }
+        public void setScheduledPickupTime(String scheduledPickupTime) { this.scheduledPickupTime = scheduledPickupTime; }
+        
+        public LocalDateTime getEstimatedDeliveryTime() {
+            return estimatedDeliveryTime != null ? LocalDateTime.parse(estimatedDeliveryTime) : null;
+        }
+        public void setEstimatedDeliveryTime(String estimatedDeliveryTime) { this.estimatedDeliveryTime = estimatedDeliveryTime; }
+        
+        public String getNotes() { return notes; }
+        public void setNotes(String notes) { this.notes = notes; }
+    }
+    
+    public static class DeliveryResponse {
+        private Long id;
+        private Long donationId;
+        private Long volunteerId;
+        private String pickupLocation;
+        private Double pickupLatitude;
+        private Double pickupLongitude;
+        private String deliveryLocation;
+        private Double deliveryLatitude;
+        private Double deliveryLongitude;
+        private String scheduledPickupTime;
+        private String actualPickupTime;
+        private String estimatedDeliveryTime;
+        private String actualDeliveryTime;
+        private String status;
+        private String notes;
+        
+        public DeliveryResponse(Delivery delivery) {
+            this.id = delivery.getId();
+            this.donationId = delivery.getDonation().getId();
+            this.volunteerId = delivery.getVolunteer().getId();
+            this.pickupLocation = delivery.getPickupLocation();
+            this.pickupLatitude = delivery.getPickupLatitude();
+            this.pickupLongitude = delivery.getPickupLongitude();
+            this.deliveryLocation = delivery.getDeliveryLocation();
+            this.deliveryLatitude = delivery.getDeliveryLatitude();
+            this.deliveryLongitude = delivery.getDeliveryLongitude();
+            this.scheduledPickupTime = format(delivery.getScheduledPickupTime());
+            this.actualPickupTime = format(delivery.getActualPickupTime());
+            this.estimatedDeliveryTime = format(delivery.getEstimatedDeliveryTime());
+            this.actualDeliveryTime = format(delivery.getActualDeliveryTime());
+            this.status = delivery.getStatus().name();
+            this.notes = delivery.getNotes();
+        }
+        
+        private static String format(LocalDateTime time) {
+            return time != null ? time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+        }
+        
+        // Getters
+        public Long getId() { return id; }
+        public Long getDonationId() { return donationId; }
+        public Long getVolunteerId() { return volunteerId; }
+        public String getPickupLocation() { return pickupLocation; }
+        public Double getPickupLatitude() { return pickupLatitude; }
+        public Double getPickupLongitude() { return pickupLongitude; }
+        public String getDeliveryLocation() { return deliveryLocation; }
+        public Double getDeliveryLatitude() { return deliveryLatitude; }
+        public Double getDeliveryLongitude() { return deliveryLongitude; }
+        public String getScheduledPickupTime() { return scheduledPickupTime; }
+        public String getActualPickupTime() { return actualPickupTime; }
+        public String getEstimatedDeliveryTime() { return estimatedDeliveryTime; }
+        public String getActualDeliveryTime() { return actualDeliveryTime; }
+        public String getStatus() { return status; }
+        public String getNotes() { return notes; }
+    }
+    
+    public static class MessageResponse {
+        private String message;
+        
+        public MessageResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
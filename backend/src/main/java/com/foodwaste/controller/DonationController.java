@@ -1,13 +1,35 @@
 package com.foodwaste.controller;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.dto.CursorPage;
+import com.foodwaste.dto.PageCursor;
 import com.foodwaste.model.*;
+import com.foodwaste.service.AvailableDonationsSnapshot;
+import com.foodwaste.service.DonationImportService;
 import com.foodwaste.service.DonationService;
 import com.foodwaste.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -21,13 +43,47 @@ public class DonationController {
     @Autowired
     private DonationService donationService;
     
+    @Autowired
+    private DonationImportService donationImportService;
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private AvailableDonationsSnapshot availableDonations;
+    
+    @Autowired
+    private ConditionalRequests conditionalRequests;
+    
+    private static final int EXPORT_PAGE_SIZE = 500;
+    
+    // Header row names the columns; empty cells are null and unknown columns ignored
+    private static final ObjectReader CSV_READER = CsvMapper.builder()
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL, CsvParser.Feature.TRIM_SPACES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(DonationRequest.class)
+            .with(CsvSchema.emptySchema().withHeader());
+    
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+    private static final List<MediaType> IMPORT_TYPES =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON, TEXT_CSV);
+    
     @PostMapping
-    public ResponseEntity<?> createDonation(@Valid @RequestBody DonationRequest request) {
+    public ResponseEntity<?> createDonation(@Valid @RequestBody DonationRequest request,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
-            Optional<User> donorOpt = userService.findById(request.getDonorId());
+            // The donor defaults to the caller; only admins donate on someone else's behalf
+            Long donorId = request.getDonorId() != null ? request.getDonorId() : caller.getId();
+            if (!caller.canActFor(donorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Cannot create donations for another user!"));
+            }
+            
+            Optional<User> donorOpt = userService.findById(donorId);
             
             if (donorOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
@@ -36,17 +92,7 @@ public class DonationController {
             
             User donor = donorOpt.get();
             
-            Donation donation = new Donation(
-                donor,
-                request.getFoodType(),
-                request.getQuantity(),
-                request.getUnit(),
-                request.getExpiryTime(),
-                request.getPickupLocation(),
-                request.getDescription()
-            );
-            
-            Donation savedDonation = donationService.createDonation(donation);
+            Donation savedDonation = donationService.createDonation(toDonation(donor, request));
             
             return ResponseEntity.ok(new DonationResponse(savedDonation));
             
@@ -56,28 +102,145 @@ public class DonationController {
         }
     }
     
+    // Many donations of one donor in a single streamed body: a JSON array,
+    // newline-delimited JSON, or CSV with a header row naming the fields.
+    // Rows take the same fields as POST /donations; bad rows are reported by
+    // number and the rest are imported. A body without a Content-Type is read as JSON.
+    @PostMapping("/bulk")
+    public ResponseEntity<?> importDonations(HttpServletRequest httpRequest,
+                                             @RequestParam(required = false) Long donorId,
+                                             @AuthenticationPrincipal AuthenticatedUser caller) {
+        MediaType contentType = importType(httpRequest.getContentType());
+        if (contentType == null) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .body(new MessageResponse(
+                    "Error: Content-Type must be application/json, application/x-ndjson or text/csv!"));
+        }
+        
+        try {
+            Long importDonorId = donorId != null ? donorId : caller.getId();
+            if (!caller.canActFor(importDonorId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Cannot create donations for another user!"));
+            }
+            
+            Optional<User> donorOpt = userService.findById(importDonorId);
+            if (donorOpt.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Donor not found!"));
+            }
+            User donor = donorOpt.get();
+            
+            // JSON arrays and NDJSON are both read as a sequence of values
+            ObjectReader reader = TEXT_CSV.includes(contentType) ? CSV_READER : objectMapper.readerFor(DonationRequest.class);
+            MappingIterator<DonationRequest> rows = reader.readValues(httpRequest.getInputStream());
+            DonationImportService.ImportResult result = donationImportService.importDonations(donor, rows, request -> {
+                if (request.getDonorId() != null && !request.getDonorId().equals(donor.getId())) {
+                    throw new IllegalArgumentException("donorId differs from the donor of the import");
+                }
+                return toDonation(donor, request);
+            });
+            try {
+                rows.close();
+            } catch (IOException e) {
+                // A broken body is already reported in the result, which lists what was saved
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // The import format named by a Content-Type header, JSON when there is none,
+    // or null when it is not one the import reads
+    private static MediaType importType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            return IMPORT_TYPES.stream().anyMatch(supported -> supported.includes(type)) ? type : null;
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+    
+    private static Donation toDonation(User donor, DonationRequest request) {
+        Donation donation = new Donation(
+            donor,
+            request.getFoodType(),
+            request.getQuantity(),
+            request.getUnit(),
+            request.getExpiryTime(),
+            request.getPickupLocation(),
+            request.getDescription()
+        );
+        donation.setLatitude(request.getLatitude());
+        donation.setLongitude(request.getLongitude());
+        return donation;
+    }
+    
     @GetMapping
-    public ResponseEntity<List<DonationResponse>> getAllDonations() {
-        List<Donation> donations = donationService.getAllDonations();
-        List<DonationResponse> response = donations.stream()
-                .map(DonationResponse::new)
-                .toList();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getAllDonations(@RequestParam(required = false) String after,
+                                             @RequestParam(required = false) Integer limit,
+                                             WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
+        }
+        
+        try {
+            int pageSize = PageCursor.clampLimit(limit);
+            List<Donation> donations = donationService.getDonationsPage(PageCursor.decode(after), pageSize);
+            return ResponseEntity.ok(toPage(donations, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // Full export as newline-delimited JSON, read and written one page at a time
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportDonations(WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> donationService.forEachDonationPage(EXPORT_PAGE_SIZE, page -> {
+            try {
+                for (Donation donation : page) {
+                    out.write(objectMapper.writeValueAsBytes(new DonationResponse(donation)));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> getDonation(@PathVariable Long id) {
+    public ResponseEntity<?> getDonation(@PathVariable Long id, WebRequest webRequest) {
         Optional<Donation> donationOpt = donationService.findById(id);
         
         if (donationOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (conditionalRequests.checkNotModified(webRequest, id, donationOpt.get().getUpdatedAt())) {
+            return null;
+        }
         
         return ResponseEntity.ok(new DonationResponse(donationOpt.get()));
     }
     
     @GetMapping("/donor/{donorId}")
-    public ResponseEntity<List<DonationResponse>> getDonationsByDonor(@PathVariable Long donorId) {
+    public ResponseEntity<List<DonationResponse>> getDonationsByDonor(@PathVariable Long donorId,
+                                                                      WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
+        }
         List<Donation> donations = donationService.findByDonorId(donorId);
         List<DonationResponse> response = donations.stream()
                 .map(DonationResponse::new)
@@ -85,32 +248,55 @@ public class DonationController {
         return ResponseEntity.ok(response);
     }
     
+    // Answered from the in-memory snapshot; clients revalidate with If-None-Match
     @GetMapping("/available")
-    public ResponseEntity<List<DonationResponse>> getAvailableDonations() {
-        List<Donation> donations = donationService.getAvailableDonations();
-        List<DonationResponse> response = donations.stream()
-                .map(DonationResponse::new)
-                .toList();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> getAvailableDonations(WebRequest webRequest) {
+        AvailableDonationsSnapshot.Snapshot snapshot = availableDonations.get();
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<DonationResponse>> getDonationsByStatus(@PathVariable String status) {
+    public ResponseEntity<?> getDonationsByStatus(@PathVariable String status,
+                                                  @RequestParam(required = false) String after,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
+        }
         try {
             DonationStatus donationStatus = DonationStatus.valueOf(status.toUpperCase());
-            List<Donation> donations = donationService.findByStatus(donationStatus);
-            List<DonationResponse> response = donations.stream()
-                    .map(DonationResponse::new)
-                    .toList();
-            return ResponseEntity.ok(response);
+            int pageSize = PageCursor.clampLimit(limit);
+            List<Donation> donations = donationService.findByStatusPage(
+                donationStatus, PageCursor.decode(after), pageSize);
+            return ResponseEntity.ok(toPage(donations, pageSize));
         } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
+            // An unknown status or a malformed cursor
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
     
+    // By the donor, or by an NGO taking the donation for itself
     @PutMapping("/{id}/assign-ngo/{ngoId}")
-    public ResponseEntity<?> assignToNgo(@PathVariable Long id, @PathVariable Long ngoId) {
+    public ResponseEntity<?> assignToNgo(@PathVariable Long id, @PathVariable Long ngoId,
+                                         @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            boolean ngoForItself = caller.getRole() == UserRole.NGO && caller.getId().equals(ngoId);
+            if (!ngoForItself && !isDonor(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             Donation updated = donationService.assignToNgo(id, ngoId);
             return ResponseEntity.ok(new DonationResponse(updated));
         } catch (Exception e) {
@@ -120,8 +306,14 @@ public class DonationController {
     }
     
     @PutMapping("/{id}/pickup")
-    public ResponseEntity<?> markAsPickedUp(@PathVariable Long id) {
+    public ResponseEntity<?> markAsPickedUp(@PathVariable Long id,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isInvolved(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             Donation updated = donationService.markAsPickedUp(id);
             return ResponseEntity.ok(new DonationResponse(updated));
         } catch (Exception e) {
@@ -131,8 +323,14 @@ public class DonationController {
     }
     
     @PutMapping("/{id}/deliver")
-    public ResponseEntity<?> markAsDelivered(@PathVariable Long id) {
+    public ResponseEntity<?> markAsDelivered(@PathVariable Long id,
+                                             @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isInvolved(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             Donation updated = donationService.markAsDelivered(id);
             return ResponseEntity.ok(new DonationResponse(updated));
         } catch (Exception e) {
@@ -142,8 +340,14 @@ public class DonationController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteDonation(@PathVariable Long id) {
+    public ResponseEntity<?> deleteDonation(@PathVariable Long id,
+                                            @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isDonor(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             donationService.deleteDonation(id);
             return ResponseEntity.ok(new MessageResponse("Donation deleted successfully!"));
         } catch (Exception e) {
@@ -152,6 +356,32 @@ public class DonationController {
         }
     }
     
+    // Unknown ids pass, so the service reports them as not found
+    private boolean isDonor(Long donationId, AuthenticatedUser caller) {
+        return donationService.findById(donationId)
+                .map(donation -> caller.canActFor(donation.getDonor().getId()))
+                .orElse(true);
+    }
+    
+    // The donor, or the NGO or volunteer the donation is assigned to
+    private boolean isInvolved(Long donationId, AuthenticatedUser caller) {
+        return donationService.findById(donationId)
+                .map(donation -> caller.canActFor(donation.getDonor().getId())
+                        || donation.getAssignedNgo() != null && caller.canActFor(donation.getAssignedNgo().getId())
+                        || donation.getAssignedVolunteer() != null
+                                && caller.canActFor(donation.getAssignedVolunteer().getId()))
+                .orElse(true);
+    }
+    
+    private CursorPage<DonationResponse> toPage(List<Donation> donations, int pageSize) {
+        String nextCursor = null;
+        if (donations.size() == pageSize) {
+            Donation last = donations.get(donations.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(donations.stream().map(DonationResponse::new).toList(), nextCursor);
+    }
+    
     // Request/Response classes
     public static class DonationRequest {
         private Long donorId;
@@ -160,6 +390,8 @@ public class DonationController {
         private String unit;
         private String expiryTime; // ISO format
         private String pickupLocation;
+        private Double latitude;
+        private Double longitude;
         private String description;
         
         // Getters and Setters
@@ -201,6 +433,12 @@ public class DonationController {
         public String getPickupLocation() { return pickupLocation; }
         public void setPickupLocation(String pickupLocation) { this.pickupLocation = pickupLocation; }
         
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+        
         public String getDescription() { return description; }
         public void setDescription(String description) { this.description = description; }
     }
@@ -210,9 +448,12 @@ public class DonationController {
         private String donorName;
         private String foodType;
         private Double quantity;
+        private Double remainingQuantity;
         private String unit;
         private String expiryTime;
         private String pickupLocation;
+        private Double latitude;
+        private Double longitude;
         private String description;
         private String status;
         private String createdAt;
@@ -224,10 +465,13 @@ public class DonationController {
             this.donorName = donation.getDonor().getName();
             this.foodType = donation.getFoodType();
             this.quantity = donation.getQuantity();
+            this.remainingQuantity = donation.getRemainingQuantity();
             this.unit = donation.getUnit();
             this.expiryTime = donation.getExpiryTime() != null ? 
                 donation.getExpiryTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
             this.pickupLocation = donation.getPickupLocation();
+            this.latitude = donation.getLatitude();
+            this.longitude = donation.getLongitude();
             this.description = donation.getDescription();
             this.status = donation.getStatus().name();
             this.createdAt = donation.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
@@ -242,9 +486,12 @@ public class DonationController {
         public String getDonorName() { return donorName; }
         public String getFoodType() { return foodType; }
         public Double getQuantity() { return quantity; }
+        public Double getRemainingQuantity() { return remainingQuantity; }
         public String getUnit() { return unit; }
         public String getExpiryTime() { return expiryTime; }
         public String getPickupLocation() { return pickupLocation; }
+        public Double getLatitude() { return latitude; }
+        public Double getLongitude() { return longitude; }
         public String getDescription() { return description; }
         public String getStatus() { return status; }
         public String getCreatedAt() { return createdAt; }
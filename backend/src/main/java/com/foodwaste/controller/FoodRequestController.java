@@ -1,13 +1,24 @@
 package com.foodwaste.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.dto.CursorPage;
+import com.foodwaste.dto.PageCursor;
 import com.foodwaste.model.*;
 import com.foodwaste.service.FoodRequestService;
 import com.foodwaste.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -24,10 +35,26 @@ public class FoodRequestController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ConditionalRequests conditionalRequests;
+    
+    private static final int EXPORT_PAGE_SIZE = 500;
+    
     @PostMapping
-    public ResponseEntity<?> createFoodRequest(@Valid @RequestBody FoodRequestRequest request) {
+    public ResponseEntity<?> createFoodRequest(@Valid @RequestBody FoodRequestRequest request,
+                                               @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
-            Optional<User> ngoOpt = userService.findById(request.getNgoId());
+            // The NGO defaults to the caller; only admins request on someone else's behalf
+            Long ngoId = request.getNgoId() != null ? request.getNgoId() : caller.getId();
+            if (!caller.canActFor(ngoId)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Cannot create requests for another user!"));
+            }
+            
+            Optional<User> ngoOpt = userService.findById(ngoId);
             
             if (ngoOpt.isEmpty()) {
                 return ResponseEntity.badRequest()
@@ -47,6 +74,9 @@ public class FoodRequestController {
                 request.getPeopleServed()
             );
             
+            foodRequest.setLatitude(request.getLatitude());
+            foodRequest.setLongitude(request.getLongitude());
+            
             if (request.getPriority() != null) {
                 foodRequest.setPriority(Priority.valueOf(request.getPriority().toUpperCase()));
             }
@@ -62,27 +92,71 @@ public class FoodRequestController {
     }
     
     @GetMapping
-    public ResponseEntity<List<FoodRequestResponse>> getAllFoodRequests() {
-        List<FoodRequest> requests = foodRequestService.getAllFoodRequests();
-        List<FoodRequestResponse> response = requests.stream()
-                .map(FoodRequestResponse::new)
-                .toList();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> getAllFoodRequests(@RequestParam(required = false) String after,
+                                                @RequestParam(required = false) Integer limit,
+                                                WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.REQUESTS, ConditionalRequests.USERS)) {
+            return null;
+        }
+        
+        try {
+            int pageSize = PageCursor.clampLimit(limit);
+            List<FoodRequest> requests = foodRequestService.getFoodRequestsPage(PageCursor.decode(after), pageSize);
+            String nextCursor = null;
+            if (requests.size() == pageSize) {
+                FoodRequest last = requests.get(requests.size() - 1);
+                nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+            return ResponseEntity.ok(new CursorPage<>(
+                requests.stream().map(FoodRequestResponse::new).toList(), nextCursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // Full export as newline-delimited JSON, read and written one page at a time
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportFoodRequests(WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.REQUESTS, ConditionalRequests.USERS)) {
+            return null;
+        }
+        StreamingResponseBody body = out -> foodRequestService.forEachFoodRequestPage(EXPORT_PAGE_SIZE, page -> {
+            try {
+                for (FoodRequest request : page) {
+                    out.write(objectMapper.writeValueAsBytes(new FoodRequestResponse(request)));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<?> getFoodRequest(@PathVariable Long id) {
+    public ResponseEntity<?> getFoodRequest(@PathVariable Long id, WebRequest webRequest) {
         Optional<FoodRequest> requestOpt = foodRequestService.findById(id);
         
         if (requestOpt.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (conditionalRequests.checkNotModified(webRequest, id, requestOpt.get().getUpdatedAt())) {
+            return null;
+        }
         
         return ResponseEntity.ok(new FoodRequestResponse(requestOpt.get()));
     }
     
     @GetMapping("/ngo/{ngoId}")
-    public ResponseEntity<List<FoodRequestResponse>> getFoodRequestsByNgo(@PathVariable Long ngoId) {
+    public ResponseEntity<List<FoodRequestResponse>> getFoodRequestsByNgo(@PathVariable Long ngoId,
+                                                                          WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.REQUESTS, ConditionalRequests.USERS)) {
+            return null;
+        }
         List<FoodRequest> requests = foodRequestService.findByNgoId(ngoId);
         List<FoodRequestResponse> response = requests.stream()
                 .map(FoodRequestResponse::new)
@@ -91,8 +165,12 @@ public class FoodRequestController {
     }
     
     @GetMapping("/active")
-    public ResponseEntity<List<FoodRequestResponse>> getActiveRequests() {
+    public ResponseEntity<List<FoodRequestResponse>> getActiveRequests(WebRequest webRequest) {
+        // Depends on the clock (neededBy > now), so validated against what was loaded
         List<FoodRequest> requests = foodRequestService.getActiveRequestsByPriority();
+        if (conditionalRequests.checkNotModified(webRequest, requests, FoodRequest::getId, FoodRequest::getUpdatedAt)) {
+            return null;
+        }
         List<FoodRequestResponse> response = requests.stream()
                 .map(FoodRequestResponse::new)
                 .toList();
@@ -100,7 +178,11 @@ public class FoodRequestController {
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<FoodRequestResponse>> getRequestsByStatus(@PathVariable String status) {
+    public ResponseEntity<List<FoodRequestResponse>> getRequestsByStatus(@PathVariable String status,
+                                                                         WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.REQUESTS, ConditionalRequests.USERS)) {
+            return null;
+        }
         try {
             RequestStatus requestStatus = RequestStatus.valueOf(status.toUpperCase());
             List<FoodRequest> requests = foodRequestService.findByStatus(requestStatus);
@@ -114,8 +196,14 @@ public class FoodRequestController {
     }
     
     @PutMapping("/{id}/match")
-    public ResponseEntity<?> markAsMatched(@PathVariable Long id) {
+    public ResponseEntity<?> markAsMatched(@PathVariable Long id,
+                                           @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isOwner(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             FoodRequest updated = foodRequestService.markAsMatched(id);
             return ResponseEntity.ok(new FoodRequestResponse(updated));
         } catch (Exception e) {
@@ -125,8 +213,14 @@ public class FoodRequestController {
     }
     
     @PutMapping("/{id}/fulfill")
-    public ResponseEntity<?> markAsFulfilled(@PathVariable Long id) {
+    public ResponseEntity<?> markAsFulfilled(@PathVariable Long id,
+                                             @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isOwner(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             FoodRequest updated = foodRequestService.markAsFulfilled(id);
             return ResponseEntity.ok(new FoodRequestResponse(updated));
         } catch (Exception e) {
@@ -136,8 +230,14 @@ public class FoodRequestController {
     }
     
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<?> cancelRequest(@PathVariable Long id) {
+    public ResponseEntity<?> cancelRequest(@PathVariable Long id,
+                                           @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isOwner(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             FoodRequest updated = foodRequestService.cancelRequest(id);
             return ResponseEntity.ok(new FoodRequestResponse(updated));
         } catch (Exception e) {
@@ -147,8 +247,14 @@ public class FoodRequestController {
     }
     
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteFoodRequest(@PathVariable Long id) {
+    public ResponseEntity<?> deleteFoodRequest(@PathVariable Long id,
+                                               @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
+            if (!isOwner(id, caller)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Access denied!"));
+            }
+            
             foodRequestService.deleteFoodRequest(id);
             return ResponseEntity.ok(new MessageResponse("Food request deleted successfully!"));
         } catch (Exception e) {
@@ -157,6 +263,13 @@ public class FoodRequestController {
         }
     }
     
+    // Unknown ids pass, so the service reports them as not found
+    private boolean isOwner(Long requestId, AuthenticatedUser caller) {
+        return foodRequestService.findById(requestId)
+                .map(request -> caller.canActFor(request.getNgo().getId()))
+                .orElse(true);
+    }
+    
     // Request/Response classes
     public static class FoodRequestRequest {
         private Long ngoId;
@@ -164,6 +277,8 @@ public class FoodRequestController {
         private Double quantityNeeded;
         private String unit;
         private String deliveryLocation;
+        private Double latitude;
+        private Double longitude;
         private String description;
         private String neededBy; // ISO format
         private String priority;
@@ -185,6 +300,12 @@ public class FoodRequestController {
         public String getDeliveryLocation() { return deliveryLocation; }
         public void setDeliveryLocation(String deliveryLocation) { this.deliveryLocation = deliveryLocation; }
         
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+        
         public String getDescription() { return description; }
         public void setDescription(String description) { this.description = description; }
         
@@ -205,8 +326,11 @@ public class FoodRequestController {
         private String ngoName;
         private String foodTypeNeeded;
         private Double quantityNeeded;
+        private Double remainingQuantity;
         private String unit;
         private String deliveryLocation;
+        private Double latitude;
+        private Double longitude;
         private String description;
         private String neededBy;
         private String priority;
@@ -219,8 +343,11 @@ public class FoodRequestController {
             this.ngoName = request.getNgo().getName();
             this.foodTypeNeeded = request.getFoodTypeNeeded();
             this.quantityNeeded = request.getQuantityNeeded();
+            this.remainingQuantity = request.getRemainingQuantity();
             this.unit = request.getUnit();
             this.deliveryLocation = request.getDeliveryLocation();
+            this.latitude = request.getLatitude();
+            this.longitude = request.getLongitude();
             this.description = request.getDescription();
             this.neededBy = request.getNeededBy() != null ? 
                 request.getNeededBy().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
@@ -235,8 +362,11 @@ public class FoodRequestController {
         public String getNgoName() { return ngoName; }
         public String getFoodTypeNeeded() { return foodTypeNeeded; }
         public Double getQuantityNeeded() { return quantityNeeded; }
+        public Double getRemainingQuantity() { return remainingQuantity; }
         public String getUnit() { return unit; }
         public String getDeliveryLocation() { return deliveryLocation; }
+        public Double getLatitude() { return latitude; }
+        public Double getLongitude() { return longitude; }
         public String getDescription() { return description; }
         public String getNeededBy() { return neededBy; }
         public String getPriority() { return priority; }
@@ -0,0 +1,50 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.service.MatchingEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/matching")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class MatchingController {
+    
+    @Autowired
+    private MatchingEngine matchingEngine;
+    
+    // Admin only, by the role in the caller's token. apply=false returns the plan
+    // without touching any data.
+    @PostMapping("/run")
+    public ResponseEntity<?> run(@AuthenticationPrincipal AuthenticatedUser caller,
+                                 @RequestParam(defaultValue = "false") boolean apply) {
+        try {
+            if (!caller.isAdmin()) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new MessageResponse("Error: Only admins can run batch matching"));
+            }
+            
+            return ResponseEntity.ok(matchingEngine.run(apply));
+        } catch (MatchingEngine.RunInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    public static class MessageResponse {
+        private String message;
+        
+        public MessageResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
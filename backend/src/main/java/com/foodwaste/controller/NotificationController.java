@@ -0,0 +1,42 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.dto.PageCursor;
+import com.foodwaste.service.NotificationDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Dead-lettered notifications; admin only (see WebConfig)
+@RestController
+@RequestMapping("/notifications")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class NotificationController {
+    
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+    
+    @GetMapping("/dead")
+    public ResponseEntity<?> getDeadLetters(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(notificationDispatcher.getDeadLetters(PageCursor.clampLimit(limit)));
+    }
+    
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<?> retry(@PathVariable Long id) {
+        if (!notificationDispatcher.requeue(id)) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: No dead-lettered notification with id " + id));
+        }
+        return ResponseEntity.ok(new MessageResponse("Notification queued for delivery"));
+    }
+    
+    public static class MessageResponse {
+        private String message;
+        
+        public MessageResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
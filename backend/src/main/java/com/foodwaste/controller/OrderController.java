@@ -1,21 +1,30 @@
 package com.foodwaste.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.dto.CursorPage;
 import com.foodwaste.dto.OrderRequest;
 import com.foodwaste.dto.OrderResponse;
+import com.foodwaste.dto.PageCursor;
 import com.foodwaste.model.*;
-import com.foodwaste.repository.DonationRepository;
-import com.foodwaste.repository.OrderItemRepository;
-import com.foodwaste.repository.OrderRepository;
-import com.foodwaste.repository.UserRepository;
-import com.foodwaste.repository.OrderItemRepository;
+import com.foodwaste.service.OrderService;
+import com.foodwaste.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -23,24 +32,29 @@ import java.util.Optional;
 public class OrderController {
 
     @Autowired
-    private OrderRepository orderRepository;
+    private UserService userService;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private OrderService orderService;
 
     @Autowired
-    private UserRepository userRepository;
+    private ConditionalRequests conditionalRequests;
 
     @Autowired
-    private DonationRepository donationRepository;
+    private ObjectMapper objectMapper;
+
+    private static final int EXPORT_PAGE_SIZE = 500;
 
     @PostMapping
-    public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest,
+                                         @AuthenticationPrincipal AuthenticatedUser caller) {
         try {
-            // For now, we'll use a hardcoded NGO user or get from request
-            // In a proper implementation, you would get this from authentication
-            Long ngoId = orderRequest.getNgoId();
-            Optional<User> userOpt = userRepository.findById(ngoId);
+            // Orders are always placed by the calling NGO; ngoId is optional
+            Long ngoId = orderRequest.getNgoId() != null ? orderRequest.getNgoId() : caller.getId();
+            if (!ngoId.equals(caller.getId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Cannot place orders for another user");
+            }
+            Optional<User> userOpt = userService.findById(ngoId);
             
             if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
@@ -51,103 +65,206 @@ public class OrderController {
                 return ResponseEntity.badRequest().body("Only NGOs can place orders");
             }
 
-            // Create the order
-            Order order = new Order();
-            order.setNgo(ngo);
-            order.setDeliveryLocation(orderRequest.getDeliveryDetails().getDeliveryLocation());
-            
-            // Parse delivery date and time
-            LocalDateTime deliveryDateTime = LocalDateTime.parse(
-                orderRequest.getDeliveryDetails().getDeliveryDate() + "T" + 
-                orderRequest.getDeliveryDetails().getDeliveryTime()
-            );
-            order.setDeliveryDate(deliveryDateTime);
-            order.setDeliveryTime(orderRequest.getDeliveryDetails().getDeliveryTime());
-            order.setSpecialInstructions(orderRequest.getDeliveryDetails().getSpecialInstructions());
-            order.setStatus(Order.OrderStatus.PENDING);
-
-            // Generate QR code data
-            String qrCodeData = generateQRCodeData(order, orderRequest);
-            order.setQrCode(qrCodeData);
-
-            // Save the order first
-            Order savedOrder = orderRepository.save(order);
-
-            // Create and save order items
-            List<OrderItem> orderItems = new ArrayList<>();
-            for (OrderRequest.OrderItemRequest itemRequest : orderRequest.getItems()) {
-                Optional<Donation> donationOpt = donationRepository.findById(itemRequest.getId());
-                if (donationOpt.isPresent()) {
-                    Donation donation = donationOpt.get();
-                    
-                    OrderItem orderItem = new OrderItem();
-                    orderItem.setOrder(savedOrder);
-                    orderItem.setDonation(donation);
-                    orderItem.setRequestedQuantity(itemRequest.getRequestedQuantity());
-                    orderItem.setUnit(donation.getUnit());
-                    
-                    // Save each order item
-                    OrderItem savedOrderItem = orderItemRepository.save(orderItem);
-                    orderItems.add(savedOrderItem);
-                }
-            }
-
-            // Update the order with the saved items
-            savedOrder.setOrderItems(orderItems);
+            Order savedOrder = orderService.placeOrder(ngo, orderRequest);
 
             // Create response
             OrderResponse response = new OrderResponse();
             response.setOrderId(savedOrder.getOrderId());
-            response.setQrCode(qrCodeData);
+            response.setQrCode(savedOrder.getQrCode());
             response.setStatus("success");
-            response.setMessage("Order placed successfully");
+            response.setItems(reservedItems(orderRequest, savedOrder));
+            boolean partial = response.getItems().stream()
+                .anyMatch(item -> item.getReservedQuantity() < item.getRequestedQuantity());
+            response.setMessage(partial
+                ? "Order placed; some items could only be reserved in part"
+                : "Order placed successfully");
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Failed to place order: " + e.getMessage());
         }
     }
 
-    private String generateQRCodeData(Order order, OrderRequest orderRequest) {
-        return String.format(
-            "{\"orderId\":\"%s\",\"deliveryLocation\":\"%s\",\"deliveryDate\":\"%s\",\"deliveryTime\":\"%s\",\"items\":%d,\"timestamp\":\"%s\"}",
-            order.getOrderId(),
-            order.getDeliveryLocation(),
-            orderRequest.getDeliveryDetails().getDeliveryDate(),
-            orderRequest.getDeliveryDetails().getDeliveryTime(),
-            orderRequest.getItems().size(),
-            LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
-        );
-    }
-
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
+    public ResponseEntity<?> getAllOrders(@RequestParam(required = false) String after,
+                                          @RequestParam(required = false) Integer limit,
+                                          WebRequest webRequest) {
+        // Orders are rendered with their items' donations and the NGO
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.ORDERS,
+                ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
+        }
+        
         try {
-            List<Order> orders = orderRepository.findAll();
-            return ResponseEntity.ok(orders);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
+            int pageSize = PageCursor.clampLimit(limit);
+            List<Order> orders = orderService.getOrdersPage(PageCursor.decode(after), pageSize);
+            return ResponseEntity.ok(toPage(orders, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // Full export as newline-delimited JSON, read and written one page at a time
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOrders(WebRequest webRequest) {
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.ORDERS,
+                ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
         }
+        StreamingResponseBody body = out -> orderService.forEachOrderPage(EXPORT_PAGE_SIZE, page -> {
+            try {
+                for (Order order : page) {
+                    out.write(objectMapper.writeValueAsBytes(new OrderDetailsResponse(order)));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/ngo/{ngoId}")
-    public ResponseEntity<List<Order>> getUserOrders(@PathVariable Long ngoId) {
+    public ResponseEntity<?> getUserOrders(@PathVariable Long ngoId,
+                                           @RequestParam(required = false) String after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @AuthenticationPrincipal AuthenticatedUser caller,
+                                           WebRequest webRequest) {
+        if (!caller.canActFor(ngoId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(new MessageResponse("Error: Access denied!"));
+        }
+        if (conditionalRequests.checkNotModified(webRequest, ConditionalRequests.ORDERS,
+                ConditionalRequests.DONATIONS, ConditionalRequests.USERS)) {
+            return null;
+        }
+        
         try {
-            Optional<User> userOpt = userRepository.findById(ngoId);
-            
-            if (userOpt.isEmpty()) {
-                return ResponseEntity.badRequest().build();
+            int pageSize = PageCursor.clampLimit(limit);
+            List<Order> orders = orderService.findByNgoPage(ngoId, PageCursor.decode(after), pageSize);
+            return ResponseEntity.ok(toPage(orders, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    // One entry per requested donation, in request order, with repeated ids summed
+    private static List<OrderResponse.ReservedItem> reservedItems(OrderRequest orderRequest, Order order) {
+        Map<Long, Double> requested = new LinkedHashMap<>();
+        Map<Long, String> units = new HashMap<>();
+        for (OrderRequest.OrderItemRequest item : orderRequest.getItems()) {
+            if (item.getId() != null && item.getRequestedQuantity() != null) {
+                requested.merge(item.getId(), item.getRequestedQuantity(), Double::sum);
+                units.putIfAbsent(item.getId(), item.getUnit());
             }
-
-            User user = userOpt.get();
-            List<Order> orders = orderRepository.findByNgoOrderByCreatedAtDesc(user);
-            
-            return ResponseEntity.ok(orders);
-
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
         }
+        // The donation's own unit wherever something was reserved
+        Map<Long, Double> reserved = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            reserved.merge(item.getDonation().getId(), item.getRequestedQuantity(), Double::sum);
+            units.put(item.getDonation().getId(), item.getUnit());
+        }
+        return requested.entrySet().stream()
+            .map(entry -> new OrderResponse.ReservedItem(entry.getKey(), entry.getValue(),
+                reserved.getOrDefault(entry.getKey(), 0.0), units.get(entry.getKey())))
+            .toList();
+    }
+    
+    private CursorPage<OrderDetailsResponse> toPage(List<Order> orders, int pageSize) {
+        String nextCursor = null;
+        if (orders.size() == pageSize) {
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(orders.stream().map(OrderDetailsResponse::new).toList(), nextCursor);
+    }
+    
+    // An order as read back, with its items flattened to the donation fields shown.
+    // The entities themselves are not serializable: Order -> OrderItem -> Order loops.
+    public static class OrderDetailsResponse {
+        private Long id;
+        private String orderId;
+        private Long ngoId;
+        private String ngoName;
+        private String deliveryLocation;
+        private String deliveryDate;
+        private String deliveryTime;
+        private String specialInstructions;
+        private String qrCode;
+        private String status;
+        private String createdAt;
+        private List<ItemResponse> orderItems;
+        
+        public OrderDetailsResponse(Order order) {
+            this.id = order.getId();
+            this.orderId = order.getOrderId();
+            this.ngoId = order.getNgo().getId();
+            this.ngoName = order.getNgo().getName();
+            this.deliveryLocation = order.getDeliveryLocation();
+            this.deliveryDate = order.getDeliveryDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            this.deliveryTime = order.getDeliveryTime();
+            this.specialInstructions = order.getSpecialInstructions();
+            this.qrCode = order.getQrCode();
+            this.status = order.getStatus().name();
+            this.createdAt = order.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            this.orderItems = order.getOrderItems() != null
+                ? order.getOrderItems().stream().map(ItemResponse::new).toList()
+                : List.of();
+        }
+        
+        // Getters
+        public Long getId() { return id; }
+        public String getOrderId() { return orderId; }
+        public Long getNgoId() { return ngoId; }
+        public String getNgoName() { return ngoName; }
+        public String getDeliveryLocation() { return deliveryLocation; }
+        public String getDeliveryDate() { return deliveryDate; }
+        public String getDeliveryTime() { return deliveryTime; }
+        public String getSpecialInstructions() { return specialInstructions; }
+        public String getQrCode() { return qrCode; }
+        public String getStatus() { return status; }
+        public String getCreatedAt() { return createdAt; }
+        public List<ItemResponse> getOrderItems() { return orderItems; }
+    }
+    
+    public static class ItemResponse {
+        private Long donationId;
+        private String foodType;
+        private Double requestedQuantity;
+        private String unit;
+        
+        public ItemResponse(OrderItem item) {
+            this.donationId = item.getDonation().getId();
+            this.foodType = item.getDonation().getFoodType();
+            this.requestedQuantity = item.getRequestedQuantity();
+            this.unit = item.getUnit();
+        }
+        
+        // Getters
+        public Long getDonationId() { return donationId; }
+        public String getFoodType() { return foodType; }
+        public Double getRequestedQuantity() { return requestedQuantity; }
+        public String getUnit() { return unit; }
+    }
+    
+    public static class MessageResponse {
+        private String message;
+        
+        public MessageResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
     }
 }
\ No newline at end of file
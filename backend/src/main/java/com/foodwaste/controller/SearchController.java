@@ -0,0 +1,143 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.model.*;
+import com.foodwaste.service.DonationService;
+import com.foodwaste.service.FoodRequestService;
+import com.foodwaste.service.SearchIndex;
+import com.foodwaste.service.UserService;
+import com.foodwaste.util.TextIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/search")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class SearchController {
+    
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = SearchIndex.MAX_HITS;
+    
+    // Addresses are indexed for matching NGOs and volunteers, not for searching people
+    private static final Set<String> PUBLIC_USER_FIELDS = Set.of(SearchIndex.NAME);
+    
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private DonationService donationService;
+    
+    @Autowired
+    private FoodRequestService foodRequestService;
+    
+    @Autowired
+    private UserService userService;
+    
+    // Tokenized, case-insensitive and typo-tolerant; every word of q must match.
+    // type is donations, requests, users or all; field narrows to one indexed field;
+    // status (donations/requests) and role (users) filter the hits. Users are
+    // only searched for signed-in callers and by name; "all" leaves them out
+    // otherwise.
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue = "all") String type,
+                                    @RequestParam(required = false) String field,
+                                    @RequestParam(required = false) String status,
+                                    @RequestParam(required = false) String role,
+                                    @RequestParam(required = false) Integer limit,
+                                    @AuthenticationPrincipal AuthenticatedUser caller) {
+        if (type.equals("users") && caller == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new MessageResponse("Error: Sign in to search users"));
+        }
+        if (type.equals("users") && field != null && !PUBLIC_USER_FIELDS.contains(field)) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Users can only be searched by " + SearchIndex.NAME));
+        }
+        
+        try {
+            int max = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+            Set<String> fields = field != null ? Set.of(field) : null;
+            Map<String, Object> results = new HashMap<>();
+            
+            if (type.equals("all") || type.equals("donations")) {
+                DonationStatus donationStatus = status != null && type.equals("donations")
+                        ? DonationStatus.valueOf(status.toUpperCase()) : null;
+                List<TextIndex.Hit<Long>> hits = searchIndex.searchDonations(q, fields, donationStatus, max);
+                results.put("donations", donationService.findSearchHits(hits, donationStatus).stream()
+                        .map(DonationController.DonationResponse::new)
+                        .toList());
+            }
+            
+            if (type.equals("all") || type.equals("requests")) {
+                RequestStatus requestStatus = status != null && type.equals("requests")
+                        ? RequestStatus.valueOf(status.toUpperCase()) : null;
+                List<TextIndex.Hit<Long>> hits = searchIndex.searchRequests(q, fields, requestStatus, max);
+                results.put("requests", foodRequestService.findSearchHits(hits, requestStatus).stream()
+                        .map(FoodRequestController.FoodRequestResponse::new)
+                        .toList());
+            }
+            
+            if (caller != null && (type.equals("all") || type.equals("users"))
+                    && (field == null || PUBLIC_USER_FIELDS.contains(field))) {
+                UserRole userRole = role != null ? UserRole.valueOf(role.toUpperCase()) : null;
+                List<TextIndex.Hit<Long>> hits = searchIndex.searchUsers(q, PUBLIC_USER_FIELDS, userRole, max);
+                results.put("users", userService.findSearchHits(hits).stream()
+                        .map(UserResult::new)
+                        .toList());
+            }
+            
+            if (results.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(new MessageResponse("Error: Unknown search type: " + type));
+            }
+            
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Integer>> getIndexSizes() {
+        return ResponseEntity.ok(searchIndex.getSizes());
+    }
+    
+    // Public profile fields only; address and contact details stay behind /auth/profile
+    public static class UserResult {
+        private Long id;
+        private String name;
+        private String role;
+        
+        public UserResult(User user) {
+            this.id = user.getId();
+            this.name = user.getName();
+            this.role = user.getRole().name();
+        }
+        
+        // Getters
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getRole() { return role; }
+    }
+    
+    public static class MessageResponse {
+        private String message;
+        
+        public MessageResponse(String message) {
+            this.message = message;
+        }
+        
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
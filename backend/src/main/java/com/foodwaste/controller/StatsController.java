@@ -1,11 +1,13 @@
 package com.foodwaste.controller;
 
-import com.foodwaste.service.DonationService;
-import com.foodwaste.service.FoodRequestService;
-import com.foodwaste.service.UserService;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.service.StatsAggregate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,46 +17,48 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
 public class StatsController {
     
+    // Served from in-memory counters; see StatsAggregate
     @Autowired
-    private UserService userService;
+    private StatsAggregate statsAggregate;
     
     @Autowired
-    private DonationService donationService;
-    
-    @Autowired
-    private FoodRequestService foodRequestService;
+    private ConditionalRequests conditionalRequests;
     
     @GetMapping("/dashboard")
-    public ResponseEntity<Map<String, Object>> getDashboardStats() {
+    public ResponseEntity<Map<String, Object>> getDashboardStats(WebRequest webRequest) {
         Map<String, Object> stats = new HashMap<>();
         
         // User statistics
-        stats.put("totalDonors", userService.getDonorCount());
-        stats.put("totalNgos", userService.getNgoCount());
-        stats.put("totalVolunteers", userService.getVolunteerCount());
+        stats.put("totalDonors", statsAggregate.getUserCount(UserRole.DONOR));
+        stats.put("totalNgos", statsAggregate.getUserCount(UserRole.NGO));
+        stats.put("totalVolunteers", statsAggregate.getUserCount(UserRole.VOLUNTEER));
         
         // Donation statistics
-        stats.put("totalDonations", donationService.getTotalDonationsCount());
-        stats.put("pendingDonations", donationService.getPendingDonationsCount());
-        stats.put("deliveredDonations", donationService.getDeliveredDonationsCount());
-        stats.put("totalFoodSaved", donationService.getTotalFoodSaved());
+        stats.put("totalDonations", statsAggregate.getTotalDonations());
+        stats.put("pendingDonations", statsAggregate.getDonationCount(DonationStatus.PENDING));
+        stats.put("deliveredDonations", statsAggregate.getDonationCount(DonationStatus.DELIVERED));
+        stats.put("totalFoodSaved", statsAggregate.getTotalFoodSaved());
         
         // Request statistics
-        stats.put("totalRequests", foodRequestService.getTotalRequestsCount());
-        stats.put("openRequests", foodRequestService.getOpenRequestsCount());
-        stats.put("fulfilledRequests", foodRequestService.getFulfilledRequestsCount());
-        stats.put("totalPeopleServed", foodRequestService.getTotalPeopleServed());
+        stats.put("totalRequests", statsAggregate.getTotalRequests());
+        stats.put("openRequests", statsAggregate.getRequestCount(RequestStatus.OPEN));
+        stats.put("fulfilledRequests", statsAggregate.getRequestCount(RequestStatus.FULFILLED));
+        stats.put("totalPeopleServed", statsAggregate.getTotalPeopleServed());
         
+        // Counters are in memory, so the body itself is the validator
+        if (conditionalRequests.checkContentNotModified(webRequest, stats)) {
+            return null;
+        }
         return ResponseEntity.ok(stats);
     }
     
     @GetMapping("/impact")
-    public ResponseEntity<Map<String, Object>> getImpactStats() {
+    public ResponseEntity<Map<String, Object>> getImpactStats(WebRequest webRequest) {
         Map<String, Object> impact = new HashMap<>();
         
-        Double foodSaved = donationService.getTotalFoodSaved();
-        Long peopleServed = foodRequestService.getTotalPeopleServed();
-        Long deliveries = donationService.getDeliveredDonationsCount();
+        Double foodSaved = statsAggregate.getTotalFoodSaved();
+        Long peopleServed = statsAggregate.getTotalPeopleServed();
+        Long deliveries = statsAggregate.getDonationCount(DonationStatus.DELIVERED);
         
         impact.put("foodSavedKg", foodSaved);
         impact.put("mealsProvided", foodSaved != null ? Math.round(foodSaved * 2.5) : 0); // Estimate 2.5 meals per kg
@@ -62,6 +66,9 @@ public class StatsController {
         impact.put("successfulDeliveries", deliveries);
         impact.put("co2Saved", foodSaved != null ? Math.round(foodSaved * 2.1) : 0); // Estimate CO2 savings
         
+        if (conditionalRequests.checkContentNotModified(webRequest, impact)) {
+            return null;
+        }
         return ResponseEntity.ok(impact);
     }
 }
\ No newline at end of file
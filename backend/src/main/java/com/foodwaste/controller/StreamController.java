@@ -0,0 +1,135 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.event.DonationsImportedEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.service.StreamBroadcaster;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Push channel for clients that keep a local copy of the available donations
+// and active requests. Events carry the same body as the REST endpoints:
+//   donation.created / donation.status / donation.updated  -> DonationResponse
+//   request.created / request.status / request.updated     -> FoodRequestResponse
+//   donation.deleted / request.deleted                     -> {"id": ...}
+//   donation.expired                                       -> {"ids": [...]}
+//   donation.imported (one per import batch)               -> {"donorId": ..., "ids": [...]}
+//   donation.claimed (quantity ordered; < 0 when released) -> {"id": ..., "quantity": ...}
+//   resync -> the client missed events and should reload its lists
+@RestController
+@RequestMapping("/stream")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class StreamController {
+    
+    @Autowired
+    private StreamBroadcaster broadcaster;
+    
+    // ?topics=donations,requests (default both); unknown topics are rejected
+    @GetMapping
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) String topics,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Set<String> selected = null;
+        if (topics != null && !topics.isBlank()) {
+            selected = Arrays.stream(topics.split(","))
+                    .map(String::trim)
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toSet());
+            if (!StreamBroadcaster.TOPICS.containsAll(selected)) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(broadcaster.subscribe(selected, lastEventId));
+    }
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStreamStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("subscribers", broadcaster.getSubscriberCount());
+        stats.put("droppedSubscribers", broadcaster.getDroppedCount());
+        return ResponseEntity.ok(stats);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        // Imported donations go out once per batch (below), not one event each
+        if (event.isImported()) {
+            return;
+        }
+        Donation donation = event.getDonation();
+        if (event.isDeleted()) {
+            broadcaster.publish(StreamBroadcaster.DONATIONS, "donation.deleted", Map.of("id", donation.getId()));
+            return;
+        }
+        String name = event.isCreated() ? "donation.created"
+                : event.isStatusChange() ? "donation.status" : "donation.updated";
+        // Changed outside a web request (scheduled matching) with users not loaded;
+        // the client fetches /donations/{id} for the rest
+        Object payload = isLoaded(donation.getDonor(), donation.getAssignedNgo(), donation.getAssignedVolunteer())
+                ? new DonationController.DonationResponse(donation)
+                : Map.of("id", donation.getId(), "status", event.getStatus().name());
+        broadcaster.publish(StreamBroadcaster.DONATIONS, name, payload);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsImported(DonationsImportedEvent event) {
+        if (event.getCount() > 0) {
+            broadcaster.publish(StreamBroadcaster.DONATIONS, "donation.imported",
+                    Map.of("donorId", event.getDonorId(), "ids", event.getDonationIds()));
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        broadcaster.publish(StreamBroadcaster.DONATIONS, "donation.expired", Map.of("ids", event.getDonationIds()));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationClaimed(DonationClaimedEvent event) {
+        broadcaster.publish(StreamBroadcaster.DONATIONS, "donation.claimed",
+                Map.of("id", event.getDonationId(), "quantity", event.getQuantity()));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodRequestChanged(FoodRequestChangedEvent event) {
+        FoodRequest request = event.getRequest();
+        if (event.isDeleted()) {
+            broadcaster.publish(StreamBroadcaster.REQUESTS, "request.deleted", Map.of("id", request.getId()));
+            return;
+        }
+        String name = event.isCreated() ? "request.created"
+                : event.isStatusChange() ? "request.status" : "request.updated";
+        Object payload = isLoaded(request.getNgo())
+                ? new FoodRequestController.FoodRequestResponse(request)
+                : Map.of("id", request.getId(), "status", event.getStatus().name());
+        broadcaster.publish(StreamBroadcaster.REQUESTS, name, payload);
+    }
+    
+    // Whether the response can be rendered: every association is loaded, or its
+    // proxy still has an open session to load it from
+    private static boolean isLoaded(Object... associations) {
+        return Arrays.stream(associations).allMatch(association -> {
+            if (!(association instanceof HibernateProxy proxy)) {
+                return true;
+            }
+            LazyInitializer initializer = proxy.getHibernateLazyInitializer();
+            SharedSessionContractImplementor session = initializer.getSession();
+            return !initializer.isUninitialized() || (session != null && session.isOpen() && session.isConnected());
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package com.foodwaste.dto;
+
+import com.foodwaste.model.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+// The caller, as carried in a verified access token. Controllers receive it
+// through @AuthenticationPrincipal; nothing in it is read from the database.
+public class AuthenticatedUser {
+    
+    private final Long id;
+    private final String username;
+    private final UserRole role;
+    // Epoch seconds, from the token's iat and exp claims
+    private final long issuedAt;
+    private final long expiresAt;
+    
+    public AuthenticatedUser(Long id, String username, UserRole role, long issuedAt, long expiresAt) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public boolean isAdmin() { return role == UserRole.ADMIN; }
+    
+    // Users act for themselves; admins may act for anyone
+    public boolean canActFor(Long userId) {
+        return isAdmin() || id.equals(userId);
+    }
+    
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public UserRole getRole() { return role; }
+    public long getIssuedAt() { return issuedAt; }
+    public long getExpiresAt() { return expiresAt; }
+}
@@ -1,11 +1,14 @@
 package com.foodwaste.dto;
 
+import java.util.List;
+
 public class OrderResponse {
     
     private String orderId;
     private String qrCode;
     private String status;
     private String message;
+    private List<ReservedItem> items;
 
     // Constructors
     public OrderResponse() {}
@@ -29,4 +32,29 @@ public class OrderResponse {
 
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
+
+    public List<ReservedItem> getItems() { return items; }
+    public void setItems(List<ReservedItem> items) { this.items = items; }
+
+    // What was asked for against what could be claimed; reserved is lower when
+    // the donation had less left
+    public static class ReservedItem {
+
+        private final Long donationId;
+        private final Double requestedQuantity;
+        private final Double reservedQuantity;
+        private final String unit;
+
+        public ReservedItem(Long donationId, Double requestedQuantity, Double reservedQuantity, String unit) {
+            this.donationId = donationId;
+            this.requestedQuantity = requestedQuantity;
+            this.reservedQuantity = reservedQuantity;
+            this.unit = unit;
+        }
+
+        public Long getDonationId() { return donationId; }
+        public Double getRequestedQuantity() { return requestedQuantity; }
+        public Double getReservedQuantity() { return reservedQuantity; }
+        public String getUnit() { return unit; }
+    }
 }
\ No newline at end of file
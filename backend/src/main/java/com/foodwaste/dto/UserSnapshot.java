@@ -0,0 +1,64 @@
+package com.foodwaste.dto;
+
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+
+import java.time.LocalDateTime;
+
+// The column values of a users row, as kept in the user caches. It cannot be
+// changed, and toUser() gives each caller a new detached User, so nothing one
+// request sets on its User (or its persistence context flushes) reaches the
+// cache or anyone else's copy. Collections are left out; they load lazily.
+public final class UserSnapshot {
+    
+    private final Long id;
+    private final String name;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final String phone;
+    private final String address;
+    private final Double latitude;
+    private final Double longitude;
+    private final UserRole role;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final boolean enabled;
+    private final Integer points;
+    
+    public UserSnapshot(User user) {
+        this.id = user.getId();
+        this.name = user.getName();
+        this.username = user.getUsername();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.phone = user.getPhone();
+        this.address = user.getAddress();
+        this.latitude = user.getLatitude();
+        this.longitude = user.getLongitude();
+        this.role = user.getRole();
+        this.createdAt = user.getCreatedAt();
+        this.updatedAt = user.getUpdatedAt();
+        this.enabled = user.isEnabled();
+        this.points = user.getPoints();
+    }
+    
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setPhone(phone);
+        user.setAddress(address);
+        user.setLatitude(latitude);
+        user.setLongitude(longitude);
+        user.setRole(role);
+        user.setCreatedAt(createdAt);
+        user.setUpdatedAt(updatedAt);
+        user.setEnabled(enabled);
+        user.setPoints(points);
+        return user;
+    }
+}
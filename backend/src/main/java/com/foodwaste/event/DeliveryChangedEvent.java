@@ -0,0 +1,27 @@
+package com.foodwaste.event;
+
+import com.foodwaste.model.Delivery;
+import com.foodwaste.model.DeliveryStatus;
+
+// Published by DeliveryService on create and status change.
+// previousStatus is null for a new delivery.
+public class DeliveryChangedEvent {
+    
+    private final Delivery delivery;
+    private final DeliveryStatus previousStatus;
+    private final DeliveryStatus status;
+    
+    public DeliveryChangedEvent(Delivery delivery, DeliveryStatus previousStatus, DeliveryStatus status) {
+        this.delivery = delivery;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+    
+    public boolean isCreated() { return previousStatus == null && status != null; }
+    public boolean isStatusChange() { return previousStatus != status; }
+    
+    // Getters
+    public Delivery getDelivery() { return delivery; }
+    public DeliveryStatus getPreviousStatus() { return previousStatus; }
+    public DeliveryStatus getStatus() { return status; }
+}
@@ -0,0 +1,38 @@
+package com.foodwaste.event;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+
+// Published by DonationService on create, update, status change and delete.
+// previousStatus is null for a new donation, status is null for a deleted one.
+// Donations created by a bulk import are flagged as imported; the import also
+// publishes a DonationsImportedEvent per batch.
+public class DonationChangedEvent {
+    
+    private final Donation donation;
+    private final DonationStatus previousStatus;
+    private final DonationStatus status;
+    private final boolean imported;
+    
+    public DonationChangedEvent(Donation donation, DonationStatus previousStatus, DonationStatus status) {
+        this(donation, previousStatus, status, false);
+    }
+    
+    public DonationChangedEvent(Donation donation, DonationStatus previousStatus, DonationStatus status,
+                                boolean imported) {
+        this.donation = donation;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.imported = imported;
+    }
+    
+    public boolean isCreated() { return previousStatus == null && status != null; }
+    public boolean isDeleted() { return status == null; }
+    public boolean isStatusChange() { return previousStatus != status; }
+    
+    // Getters
+    public Donation getDonation() { return donation; }
+    public DonationStatus getPreviousStatus() { return previousStatus; }
+    public DonationStatus getStatus() { return status; }
+    public boolean isImported() { return imported; }
+}
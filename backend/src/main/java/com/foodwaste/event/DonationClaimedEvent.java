@@ -0,0 +1,19 @@
+package com.foodwaste.event;
+
+// Published by DonationReservationService when an order claims quantity from
+// a PENDING donation, and with a negative quantity when a claim is given back.
+// Either is a conditional UPDATE, so no DonationChangedEvent is published for it.
+public class DonationClaimedEvent {
+    
+    private final Long donationId;
+    private final double quantity;
+    
+    public DonationClaimedEvent(Long donationId, double quantity) {
+        this.donationId = donationId;
+        this.quantity = quantity;
+    }
+    
+    // Getters
+    public Long getDonationId() { return donationId; }
+    public double getQuantity() { return quantity; }
+}
@@ -0,0 +1,19 @@
+package com.foodwaste.event;
+
+import java.util.List;
+
+// Published by DonationExpiryService after a batch of PENDING donations
+// has been moved to EXPIRED with a bulk UPDATE
+public class DonationsExpiredEvent {
+    
+    private final List<Long> donationIds;
+    
+    public DonationsExpiredEvent(List<Long> donationIds) {
+        this.donationIds = donationIds;
+    }
+    
+    public int getCount() { return donationIds.size(); }
+    
+    // Getters
+    public List<Long> getDonationIds() { return donationIds; }
+}
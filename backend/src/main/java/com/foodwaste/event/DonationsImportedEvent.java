@@ -0,0 +1,23 @@
+package com.foodwaste.event;
+
+import java.util.List;
+
+// Published by DonationImportService once per batch of imported donations,
+// inside the batch's transaction. Each donation also gets its own
+// DonationChangedEvent, flagged as imported.
+public class DonationsImportedEvent {
+    
+    private final Long donorId;
+    private final List<Long> donationIds;
+    
+    public DonationsImportedEvent(Long donorId, List<Long> donationIds) {
+        this.donorId = donorId;
+        this.donationIds = donationIds;
+    }
+    
+    public int getCount() { return donationIds.size(); }
+    
+    // Getters
+    public Long getDonorId() { return donorId; }
+    public List<Long> getDonationIds() { return donationIds; }
+}
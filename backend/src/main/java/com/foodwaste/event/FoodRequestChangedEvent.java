@@ -0,0 +1,28 @@
+package com.foodwaste.event;
+
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.RequestStatus;
+
+// Published by FoodRequestService on create, update, status change and delete.
+// previousStatus is null for a new request, status is null for a deleted one.
+public class FoodRequestChangedEvent {
+    
+    private final FoodRequest request;
+    private final RequestStatus previousStatus;
+    private final RequestStatus status;
+    
+    public FoodRequestChangedEvent(FoodRequest request, RequestStatus previousStatus, RequestStatus status) {
+        this.request = request;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+    
+    public boolean isCreated() { return previousStatus == null && status != null; }
+    public boolean isDeleted() { return status == null; }
+    public boolean isStatusChange() { return previousStatus != status; }
+    
+    // Getters
+    public FoodRequest getRequest() { return request; }
+    public RequestStatus getPreviousStatus() { return previousStatus; }
+    public RequestStatus getStatus() { return status; }
+}
@@ -0,0 +1,25 @@
+package com.foodwaste.event;
+
+import com.foodwaste.model.Order;
+
+// Published by OrderService when an order is placed or changes status.
+// previousStatus is null for a new order.
+public class OrderChangedEvent {
+    
+    private final Order order;
+    private final Order.OrderStatus previousStatus;
+    private final Order.OrderStatus status;
+    
+    public OrderChangedEvent(Order order, Order.OrderStatus previousStatus, Order.OrderStatus status) {
+        this.order = order;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+    
+    public boolean isCreated() { return previousStatus == null; }
+    
+    // Getters
+    public Order getOrder() { return order; }
+    public Order.OrderStatus getPreviousStatus() { return previousStatus; }
+    public Order.OrderStatus getStatus() { return status; }
+}
@@ -0,0 +1,35 @@
+package com.foodwaste.event;
+
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+
+// Published by UserService on create, update and delete.
+// previousRole is null for a new user, role is null for a deleted one.
+// passwordChanged is set when an update replaced the stored hash.
+public class UserChangedEvent {
+    
+    private final User user;
+    private final UserRole previousRole;
+    private final UserRole role;
+    private final boolean passwordChanged;
+    
+    public UserChangedEvent(User user, UserRole previousRole, UserRole role) {
+        this(user, previousRole, role, false);
+    }
+    
+    public UserChangedEvent(User user, UserRole previousRole, UserRole role, boolean passwordChanged) {
+        this.user = user;
+        this.previousRole = previousRole;
+        this.role = role;
+        this.passwordChanged = passwordChanged;
+    }
+    
+    public boolean isCreated() { return previousRole == null && role != null; }
+    public boolean isDeleted() { return role == null; }
+    
+    // Getters
+    public User getUser() { return user; }
+    public UserRole getPreviousRole() { return previousRole; }
+    public UserRole getRole() { return role; }
+    public boolean isPasswordChanged() { return passwordChanged; }
+}
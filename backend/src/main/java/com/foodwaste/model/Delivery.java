@@ -7,7 +7,11 @@ import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "deliveries")
+@Table(name = "deliveries", indexes = {
+    @Index(name = "idx_deliveries_volunteer_status", columnList = "volunteer_id, status, scheduled_pickup_time"),
+    @Index(name = "idx_deliveries_volunteer_created", columnList = "volunteer_id, created_at"),
+    @Index(name = "idx_deliveries_status", columnList = "status")
+})
 public class Delivery {
     
     @Id
@@ -32,6 +36,19 @@ public class Delivery {
     @Column(name = "delivery_location")
     private String deliveryLocation;
     
+    // Optional coordinates used for route planning
+    @Column(name = "pickup_latitude")
+    private Double pickupLatitude;
+    
+    @Column(name = "pickup_longitude")
+    private Double pickupLongitude;
+    
+    @Column(name = "delivery_latitude")
+    private Double deliveryLatitude;
+    
+    @Column(name = "delivery_longitude")
+    private Double deliveryLongitude;
+    
     @Column(name = "scheduled_pickup_time")
     private LocalDateTime scheduledPickupTime;
     
@@ -97,6 +114,18 @@ public class Delivery {
     public String getDeliveryLocation() { return deliveryLocation; }
     public void setDeliveryLocation(String deliveryLocation) { this.deliveryLocation = deliveryLocation; }
     
+    public Double getPickupLatitude() { return pickupLatitude; }
+    public void setPickupLatitude(Double pickupLatitude) { this.pickupLatitude = pickupLatitude; }
+    
+    public Double getPickupLongitude() { return pickupLongitude; }
+    public void setPickupLongitude(Double pickupLongitude) { this.pickupLongitude = pickupLongitude; }
+    
+    public Double getDeliveryLatitude() { return deliveryLatitude; }
+    public void setDeliveryLatitude(Double deliveryLatitude) { this.deliveryLatitude = deliveryLatitude; }
+    
+    public Double getDeliveryLongitude() { return deliveryLongitude; }
+    public void setDeliveryLongitude(Double deliveryLongitude) { this.deliveryLongitude = deliveryLongitude; }
+    
     public LocalDateTime getScheduledPickupTime() { return scheduledPickupTime; }
     public void setScheduledPickupTime(LocalDateTime scheduledPickupTime) { this.scheduledPickupTime = scheduledPickupTime; }
     
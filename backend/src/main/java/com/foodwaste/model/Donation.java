@@ -4,16 +4,30 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "donations")
+@Table(name = "donations", indexes = {
+    @Index(name = "idx_donations_status_expiry", columnList = "status, expiry_time"),
+    @Index(name = "idx_donations_status_created", columnList = "status, created_at, id"),
+    @Index(name = "idx_donations_donor_created", columnList = "donor_id, created_at"),
+    @Index(name = "idx_donations_created", columnList = "created_at, id")
+})
+@NamedEntityGraph(name = "Donation.response", attributeNodes = {
+    @NamedAttributeNode("donor"),
+    @NamedAttributeNode("assignedNgo"),
+    @NamedAttributeNode("assignedVolunteer")
+})
 public class Donation {
     
+    // Pooled so that bulk imports are inserted in JDBC batches; IDENTITY would
+    // force one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "donations_seq")
+    @SequenceGenerator(name = "donations_seq", sequenceName = "donations_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -25,10 +39,18 @@ public class Donation {
     @Column(name = "food_type")
     private String foodType;
     
+    // Quantity donated
     @NotNull
     @Positive
     private Double quantity;
     
+    // Quantity not yet reserved by orders; starts at quantity and is only
+    // changed by DonationReservationService
+    @NotNull
+    @PositiveOrZero
+    @Column(name = "remaining_quantity")
+    private Double remainingQuantity;
+    
     @Size(max = 20)
     private String unit; // kg, liters, pieces, etc.
     
@@ -40,6 +62,11 @@ public class Donation {
     @Column(name = "pickup_location")
     private String pickupLocation;
     
+    // Pickup coordinates (WGS84)
+    private Double latitude;
+    
+    private Double longitude;
+    
     @Size(max = 500)
     private String description;
     
@@ -79,6 +106,7 @@ public class Donation {
         this.donor = donor;
         this.foodType = foodType;
         this.quantity = quantity;
+        this.remainingQuantity = quantity;
         this.unit = unit;
         this.expiryTime = expiryTime;
         this.pickupLocation = pickupLocation;
@@ -91,6 +119,9 @@ public class Donation {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (remainingQuantity == null) {
+            remainingQuantity = quantity;
+        }
     }
     
     @PreUpdate
@@ -111,6 +142,9 @@ public class Donation {
     public Double getQuantity() { return quantity; }
     public void setQuantity(Double quantity) { this.quantity = quantity; }
     
+    public Double getRemainingQuantity() { return remainingQuantity; }
+    public void setRemainingQuantity(Double remainingQuantity) { this.remainingQuantity = remainingQuantity; }
+    
     public String getUnit() { return unit; }
     public void setUnit(String unit) { this.unit = unit; }
     
@@ -146,4 +180,10 @@ public class Donation {
     
     public String getImagePaths() { return imagePaths; }
     public void setImagePaths(String imagePaths) { this.imagePaths = imagePaths; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
 }
\ No newline at end of file
@@ -4,12 +4,18 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "food_requests")
+@Table(name = "food_requests", indexes = {
+    @Index(name = "idx_food_requests_status_needed_by", columnList = "status, needed_by, priority"),
+    @Index(name = "idx_food_requests_ngo_created", columnList = "ngo_id, created_at"),
+    @Index(name = "idx_food_requests_created", columnList = "created_at, id")
+})
+@NamedEntityGraph(name = "FoodRequest.response", attributeNodes = @NamedAttributeNode("ngo"))
 public class FoodRequest {
     
     @Id
@@ -30,6 +36,12 @@ public class FoodRequest {
     @Column(name = "quantity_needed")
     private Double quantityNeeded;
     
+    // Need not yet covered by batch-matched orders
+    @NotNull
+    @PositiveOrZero
+    @Column(name = "remaining_quantity")
+    private Double remainingQuantity;
+    
     @Size(max = 20)
     private String unit;
     
@@ -38,6 +50,11 @@ public class FoodRequest {
     @Column(name = "delivery_location")
     private String deliveryLocation;
     
+    // Delivery coordinates (WGS84)
+    private Double latitude;
+    
+    private Double longitude;
+    
     @Size(max = 500)
     private String description;
     
@@ -70,6 +87,7 @@ public class FoodRequest {
         this.ngo = ngo;
         this.foodTypeNeeded = foodTypeNeeded;
         this.quantityNeeded = quantityNeeded;
+        this.remainingQuantity = quantityNeeded;
         this.unit = unit;
         this.deliveryLocation = deliveryLocation;
         this.description = description;
@@ -83,6 +101,9 @@ public class FoodRequest {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (remainingQuantity == null) {
+            remainingQuantity = quantityNeeded;
+        }
     }
     
     @PreUpdate
@@ -103,6 +124,9 @@ public class FoodRequest {
     public Double getQuantityNeeded() { return quantityNeeded; }
     public void setQuantityNeeded(Double quantityNeeded) { this.quantityNeeded = quantityNeeded; }
     
+    public Double getRemainingQuantity() { return remainingQuantity; }
+    public void setRemainingQuantity(Double remainingQuantity) { this.remainingQuantity = remainingQuantity; }
+    
     public String getUnit() { return unit; }
     public void setUnit(String unit) { this.unit = unit; }
     
@@ -129,4 +153,10 @@ public class FoodRequest {
     
     public Integer getPeopleServed() { return peopleServed; }
     public void setPeopleServed(Integer peopleServed) { this.peopleServed = peopleServed; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
 }
\ No newline at end of file
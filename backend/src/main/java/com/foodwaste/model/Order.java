@@ -6,7 +6,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_ngo_created", columnList = "ngo_id, created_at"),
+    @Index(name = "idx_orders_created", columnList = "created_at, id"),
+    @Index(name = "idx_orders_status", columnList = "status")
+})
+@NamedEntityGraph(name = "Order.response", attributeNodes = @NamedAttributeNode("ngo"))
 public class Order {
     
     @Id
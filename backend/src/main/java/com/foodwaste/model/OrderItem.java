@@ -6,8 +6,10 @@ import jakarta.persistence.*;
 @Table(name = "order_items")
 public class OrderItem {
     
+    // Pooled sequence ids let Hibernate batch item inserts (IDENTITY disables batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,128 @@
+package com.foodwaste.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Transactional outbox. A DONATION_CREATED row is written in the transaction
+// that creates the donation, a DONATIONS_IMPORTED row in each bulk import
+// batch; NotificationDispatcher later expands them into one EMAIL row per
+// recipient and delivers those with retries.
+@Entity
+@Table(name = "outbox_messages", indexes = {
+    @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_outbox_claim_token", columnList = "claim_token")
+})
+public class OutboxMessage {
+    
+    public enum Type {
+        DONATION_CREATED, DONATIONS_IMPORTED, EMAIL
+    }
+    
+    public enum Status {
+        PENDING, SENT, DEAD
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_messages_seq")
+    @SequenceGenerator(name = "outbox_messages_seq", sequenceName = "outbox_messages_seq", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Type type;
+    
+    // The donation a DONATION_CREATED row is about, the donor of a
+    // DONATIONS_IMPORTED batch, or what an EMAIL row was expanded from
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+    
+    private String recipient;
+    
+    private String subject;
+    
+    // Email text; for DONATIONS_IMPORTED, the comma-separated donation ids
+    @Column(columnDefinition = "TEXT")
+    private String body;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status = Status.PENDING;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    // Due time; while a dispatcher holds the row, the end of its lease
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    // Constructors
+    public OutboxMessage() {}
+    
+    public OutboxMessage(Type type, Long aggregateId, LocalDateTime now) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+    
+    public static OutboxMessage email(Long aggregateId, String recipient, String subject, String body,
+                                      LocalDateTime now) {
+        OutboxMessage message = new OutboxMessage(Type.EMAIL, aggregateId, now);
+        message.recipient = recipient;
+        message.subject = subject;
+        message.body = body;
+        return message;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+    
+    public Long getAggregateId() { return aggregateId; }
+    public void setAggregateId(Long aggregateId) { this.aggregateId = aggregateId; }
+    
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+    
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+    
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
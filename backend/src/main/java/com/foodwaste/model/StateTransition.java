@@ -0,0 +1,87 @@
+package com.foodwaste.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Append-only record of one status change of a donation, request, order or
+// delivery. Written in batches by TransitionLog; ids follow write order.
+@Entity
+@Table(name = "state_transitions", indexes = {
+    @Index(name = "idx_state_transitions_entity", columnList = "entity_type, entity_id, occurred_at"),
+    @Index(name = "idx_state_transitions_occurred", columnList = "occurred_at")
+})
+public class StateTransition {
+    
+    public enum EntityType {
+        DONATION, FOOD_REQUEST, ORDER, DELIVERY
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "state_transitions_seq")
+    @SequenceGenerator(name = "state_transitions_seq", sequenceName = "state_transitions_seq", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private EntityType entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    // Null when the entity was created
+    @Column(name = "from_status", length = 20)
+    private String fromStatus;
+    
+    // Null when the entity was deleted
+    @Column(name = "to_status", length = 20)
+    private String toStatus;
+    
+    // Quantity claimed from a donation (negative when released); claims leave its status unchanged
+    private Double quantity;
+    
+    // Null for system changes such as the expiry sweep
+    @Column(name = "actor_id")
+    private Long actorId;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    // Constructors
+    public StateTransition() {}
+    
+    public StateTransition(EntityType entityType, Long entityId, String fromStatus, String toStatus,
+                           Double quantity, Long actorId, LocalDateTime occurredAt) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+        this.quantity = quantity;
+        this.actorId = actorId;
+        this.occurredAt = occurredAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public EntityType getEntityType() { return entityType; }
+    public void setEntityType(EntityType entityType) { this.entityType = entityType; }
+    
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+    
+    public String getFromStatus() { return fromStatus; }
+    public void setFromStatus(String fromStatus) { this.fromStatus = fromStatus; }
+    
+    public String getToStatus() { return toStatus; }
+    public void setToStatus(String toStatus) { this.toStatus = toStatus; }
+    
+    public Double getQuantity() { return quantity; }
+    public void setQuantity(Double quantity) { this.quantity = quantity; }
+    
+    public Long getActorId() { return actorId; }
+    public void setActorId(Long actorId) { this.actorId = actorId; }
+    
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+}
@@ -14,7 +14,9 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_role_enabled", columnList = "role, enabled")
+})
 public class User implements UserDetails {
     
     @Id
@@ -46,6 +48,11 @@ public class User implements UserDetails {
     @Size(max = 255)
     private String address;
     
+    // Address coordinates (WGS84)
+    private Double latitude;
+    
+    private Double longitude;
+    
     @Enumerated(EnumType.STRING)
     private UserRole role;
     
@@ -57,7 +64,9 @@ public class User implements UserDetails {
     
     private boolean enabled = true;
     
-    // For gamification
+    // For gamification. Only the points ledger changes this (via a relative
+    // UPDATE), so saving a stale User entity can never overwrite credited points
+    @Column(updatable = false)
     private Integer points = 0;
     
     @OneToMany(mappedBy = "donor", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -150,6 +159,12 @@ public class User implements UserDetails {
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
     
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
     public UserRole getRole() { return role; }
     public void setRole(UserRole role) { this.role = role; }
     
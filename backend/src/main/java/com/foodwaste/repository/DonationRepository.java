@@ -3,43 +3,111 @@ package com.foodwaste.repository;
 import com.foodwaste.model.Donation;
 import com.foodwaste.model.DonationStatus;
 import com.foodwaste.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface DonationRepository extends JpaRepository<Donation, Long> {
     
+    // Every list read fetches the users rendered by DonationResponse in the same query
+    String RESPONSE_GRAPH = "Donation.response";
+    
+    @Override
+    @EntityGraph(RESPONSE_GRAPH)
+    List<Donation> findAll();
+    
+    // findAllById with the response graph, for rows that are rendered
+    @EntityGraph(RESPONSE_GRAPH)
+    List<Donation> findAllByIdIn(Collection<Long> ids);
+    
     List<Donation> findByDonor(User donor);
     
+    @EntityGraph(RESPONSE_GRAPH)
     List<Donation> findByStatus(DonationStatus status);
     
     List<Donation> findByAssignedNgo(User ngo);
     
     List<Donation> findByAssignedVolunteer(User volunteer);
     
-    @Query("SELECT d FROM Donation d WHERE d.status = :status AND d.expiryTime > :currentTime")
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT d FROM Donation d WHERE d.status = :status AND d.expiryTime > :currentTime AND d.remainingQuantity > 0")
     List<Donation> findAvailableDonations(@Param("status") DonationStatus status, 
                                         @Param("currentTime") LocalDateTime currentTime);
     
-    @Query("SELECT d FROM Donation d WHERE d.pickupLocation LIKE %:location% AND d.status = :status")
-    List<Donation> findByLocationAndStatus(@Param("location") String location, 
-                                         @Param("status") DonationStatus status);
-    
-    @Query("SELECT d FROM Donation d WHERE d.foodType LIKE %:foodType% AND d.status = :status")
-    List<Donation> findByFoodTypeAndStatus(@Param("foodType") String foodType, 
-                                         @Param("status") DonationStatus status);
-    
     @Query("SELECT SUM(d.quantity) FROM Donation d WHERE d.status = 'DELIVERED'")
     Double getTotalFoodSaved();
     
     @Query("SELECT COUNT(d) FROM Donation d WHERE d.status = :status")
     Long countByStatus(@Param("status") DonationStatus status);
     
+    @Query("SELECT d.status, COUNT(d) FROM Donation d GROUP BY d.status")
+    List<Object[]> countGroupedByStatus();
+    
+    @EntityGraph(RESPONSE_GRAPH)
     @Query("SELECT d FROM Donation d WHERE d.donor.id = :donorId ORDER BY d.createdAt DESC")
     List<Donation> findByDonorIdOrderByCreatedAtDesc(@Param("donorId") Long donorId);
+    
+    // Conditional decrement: only succeeds while enough quantity is left, so
+    // concurrent claimers can never oversubscribe a donation
+    @Modifying
+    @Query("UPDATE Donation d SET d.remainingQuantity = d.remainingQuantity - :quantity, d.updatedAt = :now " +
+           "WHERE d.id = :id AND d.status = :status AND d.remainingQuantity >= :quantity")
+    int claimQuantity(@Param("id") Long id, @Param("quantity") Double quantity, 
+                      @Param("status") DonationStatus status, @Param("now") LocalDateTime now);
+    
+    // Gives back a claim; never raises the remaining quantity above the donated one
+    @Modifying
+    @Query("UPDATE Donation d SET d.remainingQuantity = d.remainingQuantity + :quantity, d.updatedAt = :now " +
+           "WHERE d.id = :id AND d.remainingQuantity + :quantity <= d.quantity")
+    int releaseQuantity(@Param("id") Long id, @Param("quantity") Double quantity, 
+                        @Param("now") LocalDateTime now);
+    
+    // Expiry sweeper: the index is rebuilt from this projection at startup
+    @Query("SELECT d.id, d.expiryTime FROM Donation d WHERE d.status = :status AND d.expiryTime IS NOT NULL")
+    List<Object[]> findIdAndExpiryByStatus(@Param("status") DonationStatus status);
+    
+    // Re-checks status and expiry so stale index entries are harmless
+    @Modifying
+    @Query("UPDATE Donation d SET d.status = :expired, d.updatedAt = :now " +
+           "WHERE d.id IN :ids AND d.status = :pending AND d.expiryTime <= :now")
+    int expireDue(@Param("ids") Collection<Long> ids, @Param("pending") DonationStatus pending,
+                  @Param("expired") DonationStatus expired, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT d.id FROM Donation d WHERE d.id IN :ids AND d.status = :status")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") DonationStatus status);
+    
+    @Query("SELECT d.remainingQuantity FROM Donation d WHERE d.id = :id AND d.status = :status")
+    Double findRemainingQuantityByIdAndStatus(@Param("id") Long id, @Param("status") DonationStatus status);
+    
+    // Keyset pagination, newest first
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT d FROM Donation d ORDER BY d.createdAt DESC, d.id DESC")
+    List<Donation> findFirstPage(Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT d FROM Donation d WHERE d.createdAt < :createdAt OR (d.createdAt = :createdAt AND d.id < :id) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<Donation> findPageAfter(@Param("createdAt") LocalDateTime createdAt, 
+                                 @Param("id") Long id, Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT d FROM Donation d WHERE d.status = :status ORDER BY d.createdAt DESC, d.id DESC")
+    List<Donation> findFirstPageByStatus(@Param("status") DonationStatus status, Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT d FROM Donation d WHERE d.status = :status " +
+           "AND (d.createdAt < :createdAt OR (d.createdAt = :createdAt AND d.id < :id)) " +
+           "ORDER BY d.createdAt DESC, d.id DESC")
+    List<Donation> findPageByStatusAfter(@Param("status") DonationStatus status, 
+                                         @Param("createdAt") LocalDateTime createdAt, 
+                                         @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
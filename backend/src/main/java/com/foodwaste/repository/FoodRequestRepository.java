@@ -4,41 +4,64 @@ import com.foodwaste.model.FoodRequest;
 import com.foodwaste.model.RequestStatus;
 import com.foodwaste.model.Priority;
 import com.foodwaste.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface FoodRequestRepository extends JpaRepository<FoodRequest, Long> {
     
+    // Every list read fetches the NGO rendered by FoodRequestResponse in the same query
+    String RESPONSE_GRAPH = "FoodRequest.response";
+    
+    @Override
+    @EntityGraph(RESPONSE_GRAPH)
+    List<FoodRequest> findAll();
+    
+    // findAllById with the response graph, for rows that are rendered
+    @EntityGraph(RESPONSE_GRAPH)
+    List<FoodRequest> findAllByIdIn(Collection<Long> ids);
+    
     List<FoodRequest> findByNgo(User ngo);
     
+    @EntityGraph(RESPONSE_GRAPH)
     List<FoodRequest> findByStatus(RequestStatus status);
     
     List<FoodRequest> findByPriority(Priority priority);
     
+    @EntityGraph(RESPONSE_GRAPH)
     @Query("SELECT fr FROM FoodRequest fr WHERE fr.status = :status AND fr.neededBy > :currentTime ORDER BY fr.priority DESC, fr.neededBy ASC")
     List<FoodRequest> findActiveRequestsByPriority(@Param("status") RequestStatus status, 
                                                   @Param("currentTime") LocalDateTime currentTime);
     
-    @Query("SELECT fr FROM FoodRequest fr WHERE fr.deliveryLocation LIKE %:location% AND fr.status = :status")
-    List<FoodRequest> findByLocationAndStatus(@Param("location") String location, 
-                                            @Param("status") RequestStatus status);
-    
-    @Query("SELECT fr FROM FoodRequest fr WHERE fr.foodTypeNeeded LIKE %:foodType% AND fr.status = :status")
-    List<FoodRequest> findByFoodTypeAndStatus(@Param("foodType") String foodType, 
-                                            @Param("status") RequestStatus status);
-    
     @Query("SELECT COUNT(fr) FROM FoodRequest fr WHERE fr.status = :status")
     Long countByStatus(@Param("status") RequestStatus status);
     
+    @Query("SELECT fr.status, COUNT(fr) FROM FoodRequest fr GROUP BY fr.status")
+    List<Object[]> countGroupedByStatus();
+    
+    @EntityGraph(RESPONSE_GRAPH)
     @Query("SELECT fr FROM FoodRequest fr WHERE fr.ngo.id = :ngoId ORDER BY fr.createdAt DESC")
     List<FoodRequest> findByNgoIdOrderByCreatedAtDesc(@Param("ngoId") Long ngoId);
     
     @Query("SELECT SUM(fr.peopleServed) FROM FoodRequest fr WHERE fr.status = 'FULFILLED'")
     Long getTotalPeopleServed();
+    
+    // Keyset pagination, newest first
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT fr FROM FoodRequest fr ORDER BY fr.createdAt DESC, fr.id DESC")
+    List<FoodRequest> findFirstPage(Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT fr FROM FoodRequest fr WHERE fr.createdAt < :createdAt OR (fr.createdAt = :createdAt AND fr.id < :id) " +
+           "ORDER BY fr.createdAt DESC, fr.id DESC")
+    List<FoodRequest> findPageAfter(@Param("createdAt") LocalDateTime createdAt, 
+                                    @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
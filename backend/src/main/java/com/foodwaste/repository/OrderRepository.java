@@ -1,18 +1,53 @@
 package com.foodwaste.repository;
 
 import com.foodwaste.model.Order;
-import com.foodwaste.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
-    List<Order> findByNgoOrderByCreatedAtDesc(User ngo);
+    // Pages fetch the NGO with the orders; items and their donations come from
+    // fetchItems, as a collection fetch would make Hibernate page in memory
+    String RESPONSE_GRAPH = "Order.response";
     
     List<Order> findByStatus(Order.OrderStatus status);
     
     List<Order> findByOrderId(String orderId);
+    
+    // Keyset pagination, newest first
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstPage(Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageAfter(@Param("createdAt") LocalDateTime createdAt, 
+                              @Param("id") Long id, Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT o FROM Order o WHERE o.ngo.id = :ngoId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findFirstPageByNgo(@Param("ngoId") Long ngoId, Pageable pageable);
+    
+    @EntityGraph(RESPONSE_GRAPH)
+    @Query("SELECT o FROM Order o WHERE o.ngo.id = :ngoId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByNgoAfter(@Param("ngoId") Long ngoId,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id, Pageable pageable);
+    
+    // Initializes orderItems (with each item's donation) on orders already in the persistence context
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.donation " +
+           "WHERE o IN :orders")
+    List<Order> fetchItems(@Param("orders") Collection<Order> orders);
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.foodwaste.repository;
+
+import com.foodwaste.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    
+    @Query("SELECT m.id FROM OutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now " +
+           "ORDER BY m.nextAttemptAt, m.id")
+    List<Long> findDueIds(@Param("status") OutboxMessage.Status status, @Param("now") LocalDateTime now,
+                          Pageable pageable);
+    
+    // Conditional so that rows another dispatcher claimed in the meantime are skipped;
+    // the claim lapses at leaseUntil if this one dies before finishing
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.claimToken = :token, m.nextAttemptAt = :leaseUntil " +
+           "WHERE m.id IN :ids AND m.status = :status AND m.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") OutboxMessage.Status status,
+              @Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+    
+    List<OutboxMessage> findByClaimTokenOrderById(String claimToken);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.attempts = :attempts, " +
+           "m.nextAttemptAt = :nextAttemptAt, m.lastError = :lastError, m.processedAt = :processedAt, " +
+           "m.claimToken = NULL WHERE m.id = :id")
+    int complete(@Param("id") Long id, @Param("status") OutboxMessage.Status status,
+                 @Param("attempts") int attempts, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                 @Param("lastError") String lastError, @Param("processedAt") LocalDateTime processedAt);
+    
+    List<OutboxMessage> findByStatusOrderByIdDesc(OutboxMessage.Status status, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :pending, m.attempts = 0, m.nextAttemptAt = :now, " +
+           "m.lastError = NULL, m.processedAt = NULL WHERE m.id = :id AND m.status = :dead")
+    int requeue(@Param("id") Long id, @Param("dead") OutboxMessage.Status dead,
+                @Param("pending") OutboxMessage.Status pending, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = :status AND m.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("status") OutboxMessage.Status status, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package com.foodwaste.repository;
+
+import com.foodwaste.model.PointsLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PointsLedgerRepository extends JpaRepository<PointsLedgerEntry, Long> {
+}
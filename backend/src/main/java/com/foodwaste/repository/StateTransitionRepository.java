@@ -0,0 +1,22 @@
+package com.foodwaste.repository;
+
+import com.foodwaste.model.StateTransition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StateTransitionRepository extends JpaRepository<StateTransition, Long> {
+    
+    List<StateTransition> findByEntityTypeAndEntityIdOrderByIdAsc(StateTransition.EntityType entityType, Long entityId);
+    
+    // Keyset pages in write order, for replay
+    @Query("SELECT t FROM StateTransition t WHERE t.id > :afterId AND t.occurredAt <= :until ORDER BY t.id")
+    List<StateTransition> findPageAfter(@Param("afterId") Long afterId,
+                                        @Param("until") LocalDateTime until, Pageable pageable);
+}
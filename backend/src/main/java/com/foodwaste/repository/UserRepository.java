@@ -2,11 +2,14 @@ package com.foodwaste.repository;
 
 import com.foodwaste.model.User;
 import com.foodwaste.model.UserRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,9 +29,37 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.role = :role AND u.enabled = true")
     List<User> findActiveUsersByRole(@Param("role") UserRole role);
     
-    @Query("SELECT u FROM User u WHERE u.address LIKE %:location% AND u.role = :role")
-    List<User> findByLocationAndRole(@Param("location") String location, @Param("role") UserRole role);
+    // Bounding box only; callers narrow it down to a radius
+    @Query("SELECT u FROM User u WHERE u.role = :role AND u.enabled = true " +
+           "AND u.latitude BETWEEN :minLat AND :maxLat AND u.longitude BETWEEN :minLon AND :maxLon")
+    List<User> findActiveUsersByRoleWithin(@Param("role") UserRole role,
+                                           @Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                                           @Param("minLon") double minLon, @Param("maxLon") double maxLon);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     Long countByRole(@Param("role") UserRole role);
+    
+    // Keyset pages in id order; start with id 0
+    @Query("SELECT u FROM User u WHERE u.id > :id ORDER BY u.id")
+    List<User> findPageAfterId(@Param("id") Long id, Pageable pageable);
+    
+    @Query("SELECT u.role FROM User u WHERE u.id = :id")
+    UserRole findRoleById(@Param("id") Long id);
+    
+    @Query("SELECT u.password FROM User u WHERE u.id = :id")
+    String findPasswordById(@Param("id") Long id);
+    
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+    
+    @Query("SELECT u.username FROM User u WHERE u.id IN :ids")
+    List<String> findUsernamesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.points = u.points + :delta WHERE u.id = :id")
+    int addPoints(@Param("id") Long id, @Param("delta") Integer delta);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
\ No newline at end of file
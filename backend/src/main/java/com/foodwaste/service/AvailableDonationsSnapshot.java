@@ -0,0 +1,289 @@
+package com.foodwaste.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.foodwaste.controller.DonationController;
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.LazyInitializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// GET /donations/available served from memory. Every available donation is
+// kept as a pre-serialized DonationResponse, and the response body is
+// assembled from those fragments into an immutable Snapshot with a weak ETag
+// (see ConditionalRequests).
+// Readers only read the published snapshot and never wait for a rebuild. A
+// single rebuilder thread owns the fragments: committed changes are handed to
+// it, and it publishes a new snapshot once per burst of changes, at the
+// earliest expiry time in the current one, and after each database reload.
+@Component
+public class AvailableDonationsSnapshot {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AvailableDonationsSnapshot.class);
+    
+    private static final long FIRST_LOAD_WAIT_SECONDS = 30;
+    private static final long LOAD_RETRY_SECONDS = 5;
+    
+    @Autowired
+    private DonationService donationService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "available-donations");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Only touched on the rebuilder thread; ordered by id so the body is stable between rebuilds
+    private final Map<Long, Entry> entries = new TreeMap<>();
+    private boolean publishQueued;
+    private ScheduledFuture<?> expiryRebuild;
+    
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final CompletableFuture<Snapshot> firstSnapshot = new CompletableFuture<>();
+    private final AtomicLong version = new AtomicLong();
+    
+    // ETags from before a restart never match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    
+    public Snapshot get() {
+        Snapshot snapshot = current.get();
+        if (snapshot == null) {
+            snapshot = awaitFirstSnapshot();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(snapshot.validUntil)) {
+            return snapshot;
+        }
+        
+        // The rebuild scheduled for validUntil has not run yet. Drop what expired
+        // from the published fragments instead of waiting for it.
+        Snapshot trimmed = build(snapshot.entries.stream().filter(entry -> entry.isAvailable(now)).toList());
+        current.compareAndSet(snapshot, trimmed);
+        return trimmed;
+    }
+    
+    // Also runs periodically to pick up rows changed behind the application's back
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${donations.available.reload-interval-ms:300000}",
+               fixedDelayString = "${donations.available.reload-interval-ms:300000}")
+    public void reload() {
+        rebuilder.execute(this::load);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        Donation donation = event.getDonation();
+        Long id = donation.getId();
+        if (event.isDeleted() || donation.getStatus() != DonationStatus.PENDING) {
+            change(() -> entries.remove(id));
+            return;
+        }
+        
+        // Rendered here, while the donor can still be loaded
+        Entry entry;
+        try {
+            entry = render(donation);
+        } catch (LazyInitializationException e) {
+            // Donor not loaded outside a web request; fall back to a full reload
+            reload();
+            return;
+        }
+        change(() -> entries.put(id, entry));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        List<Long> ids = List.copyOf(event.getDonationIds());
+        change(() -> ids.forEach(entries::remove));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationClaimed(DonationClaimedEvent event) {
+        change(() -> {
+            Entry entry = entries.get(event.getDonationId());
+            if (entry == null) {
+                if (event.getQuantity() < 0) {
+                    // A release brought back a donation that had run out
+                    load();
+                }
+                return;
+            }
+            double remaining = entry.quantity - event.getQuantity();
+            if (remaining > 0) {
+                ObjectNode view = entry.view.deepCopy();
+                view.put("remainingQuantity", remaining);
+                entries.put(entry.id, new Entry(entry.id, remaining, entry.expiryTime, view, toJson(view)));
+            } else {
+                entries.remove(entry.id);
+            }
+        });
+    }
+    
+    private Snapshot awaitFirstSnapshot() {
+        try {
+            return firstSnapshot.get(FIRST_LOAD_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for available donations");
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Available donations are still loading");
+        }
+    }
+    
+    // Applies a change on the rebuilder thread; changes queued together are published once
+    private void change(Runnable change) {
+        rebuilder.execute(() -> {
+            change.run();
+            if (!publishQueued) {
+                publishQueued = true;
+                rebuilder.execute(() -> {
+                    publishQueued = false;
+                    publish();
+                });
+            }
+        });
+    }
+    
+    private void load() {
+        List<Donation> donations;
+        try {
+            donations = donationService.getAvailableDonations();
+        } catch (RuntimeException e) {
+            logger.warn("Could not load available donations, retrying in {} s: {}", LOAD_RETRY_SECONDS, e.getMessage());
+            rebuilder.schedule(this::load, LOAD_RETRY_SECONDS, TimeUnit.SECONDS);
+            return;
+        }
+        entries.clear();
+        for (Donation donation : donations) {
+            entries.put(donation.getId(), render(donation));
+        }
+        logger.info("Loaded {} available donations into the snapshot", entries.size());
+        publish();
+    }
+    
+    // Runs on the rebuilder thread
+    private void publish() {
+        LocalDateTime now = LocalDateTime.now();
+        entries.values().removeIf(entry -> !entry.isAvailable(now));
+        Snapshot snapshot = build(List.copyOf(entries.values()));
+        current.set(snapshot);
+        firstSnapshot.complete(snapshot);
+        
+        if (expiryRebuild != null) {
+            expiryRebuild.cancel(false);
+        }
+        expiryRebuild = snapshot.validUntil.equals(LocalDateTime.MAX)
+                ? null
+                : rebuilder.schedule(this::publish,
+                        Math.max(0, Duration.between(now, snapshot.validUntil).toMillis()) + 1, TimeUnit.MILLISECONDS);
+    }
+    
+    private Snapshot build(List<Entry> snapshotEntries) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('[');
+        LocalDateTime validUntil = LocalDateTime.MAX;
+        boolean first = true;
+        for (Entry entry : snapshotEntries) {
+            if (!first) {
+                body.write(',');
+            }
+            body.writeBytes(entry.json);
+            first = false;
+            if (entry.expiryTime.isBefore(validUntil)) {
+                validUntil = entry.expiryTime;
+            }
+        }
+        body.write(']');
+        String etag = "W/\"" + epoch + "-" + version.incrementAndGet() + "\"";
+        return new Snapshot(body.toByteArray(), etag, validUntil, snapshotEntries);
+    }
+    
+    private Entry render(Donation donation) {
+        ObjectNode view = objectMapper.valueToTree(new DonationController.DonationResponse(donation));
+        return new Entry(donation.getId(), donation.getRemainingQuantity() != null ? donation.getRemainingQuantity() : 0.0,
+                donation.getExpiryTime(), view, toJson(view));
+    }
+    
+    private byte[] toJson(ObjectNode view) {
+        try {
+            return objectMapper.writeValueAsBytes(view);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize donation " + view.get("id"), e);
+        }
+    }
+    
+    public static class Snapshot {
+        private final byte[] body;
+        private final String etag;
+        private final LocalDateTime validUntil;
+        private final List<Entry> entries;
+        
+        Snapshot(byte[] body, String etag, LocalDateTime validUntil, List<Entry> entries) {
+            this.body = body;
+            this.etag = etag;
+            this.validUntil = validUntil;
+            this.entries = entries;
+        }
+        
+        // Getters
+        public byte[] getBody() { return body; }
+        public String getEtag() { return etag; }
+    }
+    
+    // Immutable once built; view is copied before a change
+    private static class Entry {
+        private final Long id;
+        private final double quantity;
+        private final LocalDateTime expiryTime;
+        private final ObjectNode view;
+        private final byte[] json;
+        
+        Entry(Long id, double quantity, LocalDateTime expiryTime, ObjectNode view, byte[] json) {
+            this.id = id;
+            this.quantity = quantity;
+            this.expiryTime = expiryTime;
+            this.view = view;
+            this.json = json;
+        }
+        
+        // Same conditions as DonationRepository.findAvailableDonations
+        boolean isAvailable(LocalDateTime now) {
+            return expiryTime != null && expiryTime.isAfter(now) && quantity > 0;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DeliveryChangedEvent;
+import com.foodwaste.model.*;
+import com.foodwaste.repository.DeliveryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Transactional
+public class DeliveryService {
+    
+    // Deliveries still on a volunteer's route
+    public static final List<DeliveryStatus> ACTIVE_STATUSES =
+            List.of(DeliveryStatus.ASSIGNED, DeliveryStatus.IN_TRANSIT, DeliveryStatus.PICKED_UP);
+    
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    public Delivery createDelivery(Delivery delivery) {
+        // Default the pickup point to the donation's own location
+        Donation donation = delivery.getDonation();
+        if (delivery.getPickupLocation() == null) {
+            delivery.setPickupLocation(donation.getPickupLocation());
+        }
+        if (delivery.getPickupLatitude() == null && delivery.getPickupLongitude() == null) {
+            delivery.setPickupLatitude(donation.getLatitude());
+            delivery.setPickupLongitude(donation.getLongitude());
+        }
+        
+        delivery.setStatus(DeliveryStatus.ASSIGNED);
+        Delivery saved = deliveryRepository.save(delivery);
+        eventPublisher.publishEvent(new DeliveryChangedEvent(saved, null, DeliveryStatus.ASSIGNED));
+        return saved;
+    }
+    
+    public Optional<Delivery> findById(Long id) {
+        return deliveryRepository.findById(id);
+    }
+    
+    public List<Delivery> findActiveByVolunteer(Long volunteerId) {
+        return deliveryRepository.findByVolunteerAndStatusIn(volunteerId, ACTIVE_STATUSES);
+    }
+    
+    public List<Delivery> findByVolunteer(Long volunteerId) {
+        return deliveryRepository.findByVolunteerIdOrderByCreatedAtDesc(volunteerId);
+    }
+    
+    public Delivery markInTransit(Long deliveryId) {
+        return changeStatus(findDelivery(deliveryId), DeliveryStatus.IN_TRANSIT);
+    }
+    
+    public Delivery markAsPickedUp(Long deliveryId) {
+        Delivery delivery = findDelivery(deliveryId);
+        delivery.setActualPickupTime(LocalDateTime.now());
+        return changeStatus(delivery, DeliveryStatus.PICKED_UP);
+    }
+    
+    public Delivery markAsDelivered(Long deliveryId) {
+        Delivery delivery = findDelivery(deliveryId);
+        delivery.setActualDeliveryTime(LocalDateTime.now());
+        return changeStatus(delivery, DeliveryStatus.DELIVERED);
+    }
+    
+    public Delivery cancelDelivery(Long deliveryId) {
+        return changeStatus(findDelivery(deliveryId), DeliveryStatus.CANCELLED);
+    }
+    
+    private Delivery findDelivery(Long deliveryId) {
+        return deliveryRepository.findById(deliveryId)
+                .orElseThrow(() -> new RuntimeException("Delivery not found"));
+    }
+    
+    private Delivery changeStatus(Delivery delivery, DeliveryStatus status) {
+        DeliveryStatus previous = delivery.getStatus();
+        delivery.setStatus(status);
+        Delivery saved = deliveryRepository.save(delivery);
+        eventPublisher.publishEvent(new DeliveryChangedEvent(saved, previous, status));
+        return saved;
+    }
+}
@@ -0,0 +1,199 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.repository.DonationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Moves PENDING donations to EXPIRED as soon as their expiryTime passes.
+// A DelayQueue ordered by expiry is rebuilt from the database at startup and
+// fed by donation events; a single sweeper thread blocks on it and expires
+// everything that is due in chunked bulk UPDATEs.
+@Service
+public class DonationExpiryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DonationExpiryService.class);
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Value("${expiry.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${expiry.retry-delay-ms:5000}")
+    private long retryDelayMs;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    
+    // Latest expiry per queued donation; queue entries that no longer match are stale
+    private final Map<Long, LocalDateTime> scheduled = new ConcurrentHashMap<>();
+    
+    private volatile Thread sweeper;
+    
+    public DonationExpiryService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Object[] row : donationRepository.findIdAndExpiryByStatus(DonationStatus.PENDING)) {
+            schedule((Long) row[0], (LocalDateTime) row[1]);
+        }
+        
+        sweeper = new Thread(this::run, "donation-expiry");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        Thread thread = sweeper;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        Donation donation = event.getDonation();
+        if (event.isDeleted() || donation.getStatus() != DonationStatus.PENDING) {
+            scheduled.remove(donation.getId());
+        } else if (donation.getExpiryTime() != null) {
+            schedule(donation.getId(), donation.getExpiryTime());
+        }
+    }
+    
+    public int getQueuedCount() {
+        return scheduled.size();
+    }
+    
+    private void schedule(Long donationId, LocalDateTime expiryTime) {
+        if (!expiryTime.equals(scheduled.put(donationId, expiryTime))) {
+            queue.put(new Expiry(donationId, expiryTime));
+        }
+    }
+    
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Expiry> due = new ArrayList<>();
+            try {
+                due.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(due);
+            
+            List<Expiry> current = new ArrayList<>();
+            for (Expiry expiry : due) {
+                if (expiry.expiryTime.equals(scheduled.get(expiry.donationId))) {
+                    current.add(expiry);
+                }
+            }
+            
+            for (int from = 0; from < current.size(); from += batchSize) {
+                List<Expiry> chunk = current.subList(from, Math.min(from + batchSize, current.size()));
+                try {
+                    Set<Long> stillPending = transactionTemplate.execute(status -> expire(chunk));
+                    List<Expiry> notYetExpired = new ArrayList<>();
+                    for (Expiry expiry : chunk) {
+                        if (!stillPending.contains(expiry.donationId)) {
+                            // Two-arg remove keeps a schedule that was moved while we were expiring
+                            scheduled.remove(expiry.donationId, expiry.expiryTime);
+                        } else if (expiry.expiryTime.equals(scheduled.get(expiry.donationId))) {
+                            notYetExpired.add(expiry);
+                        }
+                    }
+                    // Still PENDING and still due at this time, e.g. the stored expiry
+                    // is a little later than the one we were told about
+                    if (!notYetExpired.isEmpty()) {
+                        retryLater(notYetExpired);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Expiring {} donations failed, will retry: {}", chunk.size(), e.getMessage());
+                    retryLater(chunk);
+                }
+            }
+        }
+    }
+    
+    // Returns the ids the UPDATE left PENDING
+    private Set<Long> expire(List<Expiry> chunk) {
+        List<Long> ids = chunk.stream().map(expiry -> expiry.donationId).toList();
+        LocalDateTime now = LocalDateTime.now();
+        int updated = donationRepository.expireDue(ids, DonationStatus.PENDING, DonationStatus.EXPIRED, now);
+        if (updated > 0) {
+            List<Long> expired = donationRepository.findIdsByIdInAndStatus(ids, DonationStatus.EXPIRED);
+            eventPublisher.publishEvent(new DonationsExpiredEvent(expired));
+        }
+        if (updated == ids.size()) {
+            return Set.of();
+        }
+        return new HashSet<>(donationRepository.findIdsByIdInAndStatus(ids, DonationStatus.PENDING));
+    }
+    
+    private void retryLater(List<Expiry> chunk) {
+        LocalDateTime retryAt = LocalDateTime.now().plusNanos(retryDelayMs * 1_000_000);
+        for (Expiry expiry : chunk) {
+            queue.put(new Expiry(expiry.donationId, expiry.expiryTime, retryAt));
+        }
+    }
+    
+    private static class Expiry implements Delayed {
+        private final Long donationId;
+        private final LocalDateTime expiryTime;
+        private final long dueAtMillis;
+        
+        Expiry(Long donationId, LocalDateTime expiryTime) {
+            this(donationId, expiryTime, expiryTime);
+        }
+        
+        Expiry(Long donationId, LocalDateTime expiryTime, LocalDateTime dueAt) {
+            this.donationId = donationId;
+            this.expiryTime = expiryTime;
+            // Rounded up, so the entry never comes due before the expiry it stands for
+            Instant instant = dueAt.atZone(ZoneId.systemDefault()).toInstant();
+            this.dueAtMillis = instant.toEpochMilli() + (instant.getNano() % 1_000_000 != 0 ? 1 : 0);
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtMillis, ((Expiry) other).dueAtMillis);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// In-memory grid index of PENDING donations that have pickup coordinates.
+// Each cell is cellSizeDegrees wide, so a radius query only visits the
+// handful of cells overlapping the search circle instead of every donation.
+// Changes are applied under one lock; queries read the current grid without it.
+@Component
+public class DonationGeoIndex {
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Value("${geo.index.cell-size-degrees:0.05}")
+    private double cellSizeDegrees;
+
+    private volatile Grid grid = new Grid();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Changes that arrive while a rebuild is loading, replayed onto the new grid
+    // before it is swapped in; null when no rebuild is running. Guarded by writeLock.
+    private List<Consumer<Grid>> changesDuringRebuild;
+
+    // Loads into a fresh grid and swaps it in, so queries never see a half-built index
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        Grid rebuilt = new Grid();
+        try {
+            for (Donation donation : donationRepository.findByStatus(DonationStatus.PENDING)) {
+                rebuilt.update(donation);
+            }
+        } finally {
+            writeLock.lock();
+            try {
+                changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                changesDuringRebuild = null;
+                grid = rebuilt;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getDonation().getId());
+        } else {
+            update(event.getDonation());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        event.getDonationIds().forEach(this::remove);
+    }
+
+    // Adds, moves or removes the donation depending on its current state
+    public void update(Donation donation) {
+        if (donation.getId() != null) {
+            change(target -> target.update(donation));
+        }
+    }
+
+    public void remove(Long donationId) {
+        change(target -> target.remove(donationId));
+    }
+
+    // Returns up to limit donations within radiusKm, nearest first
+    public List<Match> findNearest(double latitude, double longitude, double radiusKm,
+                                   int limit, Predicate<Entry> filter) {
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE;
+        // Longitude degrees widen towards the pole, so size the box at its poleward edge
+        double polewardLatitude = Math.min(90.0, Math.abs(latitude) + latSpan);
+        double lonSpan = radiusKm / (GeoUtils.KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(polewardLatitude))));
+
+        Map<Long, Map<Long, Entry>> cells = grid.cells;
+        long minLatCell = cellIndex(latitude - latSpan);
+        long maxLatCell = cellIndex(latitude + latSpan);
+        long minLonCell = cellIndex(longitude - lonSpan);
+        long maxLonCell = cellIndex(longitude + lonSpan);
+
+        List<Match> matches = new ArrayList<>();
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                Map<Long, Entry> cell = cells.get(cellKey(latCell, lonCell));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell.values()) {
+                    // Cheap bounding-box check before the filter and the haversine
+                    if (Math.abs(entry.getLatitude() - latitude) > latSpan
+                            || Math.abs(entry.getLongitude() - longitude) > lonSpan
+                            || !filter.test(entry)) {
+                        continue;
+                    }
+                    double distance = GeoUtils.distanceKm(latitude, longitude,
+                            entry.getLatitude(), entry.getLongitude());
+                    if (distance <= radiusKm) {
+                        matches.add(new Match(entry, distance));
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::getDistanceKm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public int size() {
+        return grid.entries.size();
+    }
+
+    public boolean contains(Long donationId) {
+        return grid.entries.containsKey(donationId);
+    }
+
+    private void change(Consumer<Grid> change) {
+        writeLock.lock();
+        try {
+            change.accept(grid);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private long cellKey(long latCell, long lonCell) {
+        return (latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    // Written only under writeLock; the concurrent maps let queries read alongside
+    private class Grid {
+        private final Map<Long, Map<Long, Entry>> cells = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        void update(Donation donation) {
+            remove(donation.getId());
+
+            if (donation.getStatus() != DonationStatus.PENDING
+                    || !GeoUtils.isValid(donation.getLatitude(), donation.getLongitude())) {
+                return;
+            }
+
+            Entry entry = new Entry(donation.getId(), donation.getLatitude(), donation.getLongitude(),
+                    donation.getFoodType() != null ? donation.getFoodType().toLowerCase() : "");
+            entries.put(entry.getDonationId(), entry);
+            cells.computeIfAbsent(cellKey(entry.getLatitude(), entry.getLongitude()),
+                    key -> new ConcurrentHashMap<>()).put(entry.getDonationId(), entry);
+        }
+
+        void remove(Long donationId) {
+            Entry previous = entries.remove(donationId);
+            if (previous != null) {
+                // Drop the cell once its last donation leaves, so moved and expired
+                // donations do not leave empty cells behind
+                cells.computeIfPresent(cellKey(previous.getLatitude(), previous.getLongitude()), (key, cell) -> {
+                    cell.remove(donationId);
+                    return cell.isEmpty() ? null : cell;
+                });
+            }
+        }
+    }
+
+    public static class Entry {
+        private final Long donationId;
+        private final double latitude;
+        private final double longitude;
+        private final String foodType;
+
+        public Entry(Long donationId, double latitude, double longitude, String foodType) {
+            this.donationId = donationId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.foodType = foodType;
+        }
+
+        public Long getDonationId() { return donationId; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public String getFoodType() { return foodType; }
+    }
+
+    public static class Match {
+        private final Entry entry;
+        private final double distanceKm;
+
+        public Match(Entry entry, double distanceKm) {
+            this.entry = entry;
+            this.distanceKm = distanceKm;
+        }
+
+        public Entry getEntry() { return entry; }
+        public Long getDonationId() { return entry.getDonationId(); }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
@@ -0,0 +1,227 @@
+package com.foodwaste.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsImportedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.repository.DonationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bulk donation import. Rows are read one at a time from a streaming parser,
+// validated, and saved in batches of donations.import.batch-size: one
+// transaction, JDBC-batched INSERTs and a cleared persistence context per
+// batch, so memory stays flat however long the body is. A bad row is
+// reported by its number and skipped; when a batch fails in the database its
+// rows are saved one by one to find the culprits. The donor's points are
+// awarded with each committed batch, so a body that breaks off partway still
+// earns them for what was saved.
+@Service
+public class DonationImportService {
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${donations.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${donations.import.max-rows:50000}")
+    private int maxRows;
+    
+    // Errors listed in the result; later ones are only counted
+    @Value("${donations.import.max-errors:1000}")
+    private int maxErrors;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public DonationImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    // toDonation maps a parsed row to an unsaved donation of the given donor and
+    // throws IllegalArgumentException for rows it cannot map. Never throws for
+    // the body: a read failure is reported as a row error and ends the import.
+    public <T> ImportResult importDonations(User donor, MappingIterator<T> rows,
+                                            Function<T, Donation> toDonation) {
+        ImportResult result = new ImportResult(maxErrors);
+        List<Donation> batch = new ArrayList<>(batchSize);
+        List<Integer> rowNumbers = new ArrayList<>(batchSize);
+        
+        for (int row = 1; ; row++) {
+            Donation donation;
+            try {
+                if (!rows.hasNextValue()) {
+                    break;
+                }
+                if (row > maxRows) {
+                    result.reject(row, "Too many rows; an import takes at most " + maxRows);
+                    break;
+                }
+                donation = toDonation.apply(rows.nextValue());
+            } catch (JsonMappingException e) {
+                // A bad value; the iterator skips the rest of this row
+                result.reject(row, e.getOriginalMessage());
+                continue;
+            } catch (JsonProcessingException e) {
+                // Malformed input: nothing after this point can be trusted
+                result.reject(row, "Malformed input: " + e.getOriginalMessage());
+                break;
+            } catch (IOException e) {
+                // The body broke off (client gone, connection reset); earlier batches stay saved
+                result.reject(row, "Could not read the rest of the body: " + e.getMessage());
+                break;
+            } catch (IllegalArgumentException e) {
+                result.reject(row, e.getMessage());
+                continue;
+            }
+            
+            donation.setStatus(DonationStatus.PENDING);
+            String invalid = validate(donation);
+            if (invalid != null) {
+                result.reject(row, invalid);
+                continue;
+            }
+            
+            batch.add(donation);
+            rowNumbers.add(row);
+            if (batch.size() == batchSize) {
+                save(donor, batch, rowNumbers, result);
+                batch.clear();
+                rowNumbers.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(donor, batch, rowNumbers, result);
+        }
+        
+        meterRegistry.counter("donations.import.rows", "outcome", "imported").increment(result.getImported());
+        meterRegistry.counter("donations.import.rows", "outcome", "rejected").increment(result.getRejected());
+        return result;
+    }
+    
+    // The same constraints Hibernate checks on persist, checked up front so one
+    // bad row cannot fail its whole batch
+    private String validate(Donation donation) {
+        Set<ConstraintViolation<Donation>> violations = validator.validate(donation);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+    
+    private void save(User donor, List<Donation> batch, List<Integer> rowNumbers, ImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(donor, batch));
+            result.imported(batch.size());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                Donation donation = batch.get(i);
+                // Ids were handed out for the rolled-back batch; persist takes new ones
+                donation.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(donor, List.of(donation)));
+                    result.imported(1);
+                } catch (RuntimeException rowFailure) {
+                    donation.setId(null);
+                    result.reject(rowNumbers.get(i), NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+        }
+    }
+    
+    private void insert(User donor, List<Donation> batch) {
+        donationRepository.saveAll(batch);
+        // Credited when this transaction commits
+        userService.addPoints(donor.getId(), DonationService.DONATION_POINTS * batch.size());
+        for (Donation donation : batch) {
+            eventPublisher.publishEvent(new DonationChangedEvent(donation, null, DonationStatus.PENDING, true));
+        }
+        eventPublisher.publishEvent(new DonationsImportedEvent(donor.getId(),
+                batch.stream().map(Donation::getId).toList()));
+        
+        // Write the batch now and let go of it; listeners run after commit
+        // with the detached donations
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    public static class ImportResult {
+        private final int maxErrors;
+        private int imported;
+        private int rejected;
+        private final List<RowError> errors = new ArrayList<>();
+        
+        public ImportResult(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+        
+        void imported(int count) {
+            imported += count;
+        }
+        
+        void reject(int row, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(row, message));
+            }
+        }
+        
+        public int getImported() { return imported; }
+        public int getRejected() { return rejected; }
+        public List<RowError> getErrors() { return errors; }
+        // True when more rows were rejected than are listed in errors
+        public boolean isErrorsTruncated() { return rejected > errors.size(); }
+    }
+    
+    public static class RowError {
+        private final int row;
+        private final String message;
+        
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+        
+        public int getRow() { return row; }
+        public String getMessage() { return message; }
+    }
+}
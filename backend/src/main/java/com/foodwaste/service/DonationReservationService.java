@@ -0,0 +1,108 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.repository.DonationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Claims donation quantity with conditional UPDATEs instead of locking the row
+// for the whole order. Each attempt is its own short transaction, committed
+// even when the caller has one open, so the donation row is locked only for
+// the UPDATE. A claim that loses a race falls back to whatever is left
+// (partial fill) and backs off with no transaction open. Callers give claims
+// back with release() when the order they were for is not saved.
+@Service
+public class DonationReservationService {
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${reservation.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${reservation.backoff-ms:5}")
+    private long backoffMillis;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DonationReservationService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Returns the quantity actually reserved, between 0 and requested
+    public double reserve(Long donationId, double requested) {
+        if (requested <= 0) {
+            return 0;
+        }
+
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            Double reserved = transactionTemplate.execute(status -> tryClaim(donationId, requested));
+            if (reserved != null) {
+                return reserved;
+            }
+
+            // Lost a race with another claimer - back off before re-reading
+            backoff(attempt);
+        }
+        return 0;
+    }
+
+    public void release(Long donationId, double quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (donationRepository.releaseQuantity(donationId, quantity, LocalDateTime.now()) == 1) {
+                eventPublisher.publishEvent(new DonationClaimedEvent(donationId, -quantity));
+            }
+        });
+    }
+
+    // The quantity claimed, 0 when nothing is left, or null after losing a race
+    private Double tryClaim(Long donationId, double requested) {
+        if (claim(donationId, requested)) {
+            return requested;
+        }
+
+        Double available = donationRepository.findRemainingQuantityByIdAndStatus(donationId, DonationStatus.PENDING);
+        if (available == null || available <= 0) {
+            return 0.0;
+        }
+        if (available < requested && claim(donationId, available)) {
+            return available;
+        }
+        return null;
+    }
+
+    private boolean claim(Long donationId, double quantity) {
+        boolean claimed = donationRepository.claimQuantity(
+            donationId, quantity, DonationStatus.PENDING, LocalDateTime.now()) == 1;
+        if (claimed) {
+            eventPublisher.publishEvent(new DonationClaimedEvent(donationId, quantity));
+        }
+        return claimed;
+    }
+
+    private void backoff(int attempt) {
+        long delay = backoffMillis * (1L << attempt);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reserving donation", e);
+        }
+    }
+}
@@ -1,31 +1,57 @@
 package com.foodwaste.service;
 
+import com.foodwaste.dto.PageCursor;
+import com.foodwaste.event.DonationChangedEvent;
 import com.foodwaste.model.*;
 import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.util.TextIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class DonationService {
     
+    // Gamification points a donor earns per donation
+    public static final int DONATION_POINTS = 10;
+    
     @Autowired
     private DonationRepository donationRepository;
     
     @Autowired
     private UserService userService;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SearchIndex searchIndex;
+    
     public Donation createDonation(Donation donation) {
         donation.setStatus(DonationStatus.PENDING);
         Donation savedDonation = donationRepository.save(donation);
+        eventPublisher.publishEvent(new DonationChangedEvent(savedDonation, null, DonationStatus.PENDING));
         
         // Add points to donor (gamification)
-        userService.addPoints(donation.getDonor().getId(), 10);
+        userService.addPoints(donation.getDonor().getId(), DONATION_POINTS);
         
         return savedDonation;
     }
@@ -34,6 +60,10 @@ public class DonationService {
         return donationRepository.findById(id);
     }
     
+    public List<Donation> findAllById(List<Long> ids) {
+        return donationRepository.findAllByIdIn(ids);
+    }
+    
     public List<Donation> findByDonor(User donor) {
         return donationRepository.findByDonor(donor);
     }
@@ -42,21 +72,33 @@ public class DonationService {
         return donationRepository.findByDonorIdOrderByCreatedAtDesc(donorId);
     }
     
-    public List<Donation> findByStatus(DonationStatus status) {
-        return donationRepository.findByStatus(status);
-    }
-    
     public List<Donation> getAvailableDonations() {
         return donationRepository.findAvailableDonations(
             DonationStatus.PENDING, LocalDateTime.now());
     }
     
     public List<Donation> findByLocationAndStatus(String location, DonationStatus status) {
-        return donationRepository.findByLocationAndStatus(location, status);
+        return findSearchHits(searchIndex.searchDonations(
+            location, Set.of(SearchIndex.LOCATION), status, SearchIndex.MAX_HITS), status);
     }
     
     public List<Donation> findByFoodTypeAndStatus(String foodType, DonationStatus status) {
-        return donationRepository.findByFoodTypeAndStatus(foodType, status);
+        return findSearchHits(searchIndex.searchDonations(
+            foodType, Set.of(SearchIndex.FOOD_TYPE), status, SearchIndex.MAX_HITS), status);
+    }
+    
+    // Loads search hits in rank order, dropping rows whose status changed since indexing
+    public List<Donation> findSearchHits(List<TextIndex.Hit<Long>> hits, DonationStatus status) {
+        Map<Long, Donation> donations = donationRepository.findAllByIdIn(hits.stream()
+                .map(TextIndex.Hit::getKey)
+                .toList())
+                .stream()
+                .collect(Collectors.toMap(Donation::getId, Function.identity()));
+        
+        return hits.stream()
+                .map(hit -> donations.get(hit.getKey()))
+                .filter(donation -> donation != null && (status == null || donation.getStatus() == status))
+                .toList();
     }
     
     public List<Donation> findByAssignedNgo(User ngo) {
@@ -68,7 +110,9 @@ public class DonationService {
     }
     
     public Donation updateDonation(Donation donation) {
-        return donationRepository.save(donation);
+        Donation saved = donationRepository.save(donation);
+        eventPublisher.publishEvent(new DonationChangedEvent(saved, saved.getStatus(), saved.getStatus()));
+        return saved;
     }
     
     public Donation assignToNgo(Long donationId, Long ngoId) {
@@ -78,9 +122,7 @@ public class DonationService {
                 .orElseThrow(() -> new RuntimeException("NGO not found"));
         
         donation.setAssignedNgo(ngo);
-        donation.setStatus(DonationStatus.ACCEPTED);
-        
-        return donationRepository.save(donation);
+        return changeStatus(donation, DonationStatus.ACCEPTED);
     }
     
     public Donation assignToVolunteer(Long donationId, Long volunteerId) {
@@ -91,38 +133,78 @@ public class DonationService {
         
         donation.setAssignedVolunteer(volunteer);
         
-        return donationRepository.save(donation);
+        Donation saved = donationRepository.save(donation);
+        eventPublisher.publishEvent(new DonationChangedEvent(saved, saved.getStatus(), saved.getStatus()));
+        return saved;
     }
     
     public Donation markAsPickedUp(Long donationId) {
         Donation donation = donationRepository.findById(donationId)
                 .orElseThrow(() -> new RuntimeException("Donation not found"));
         
-        donation.setStatus(DonationStatus.PICKED_UP);
         donation.setPickupTime(LocalDateTime.now());
-        
-        return donationRepository.save(donation);
+        return changeStatus(donation, DonationStatus.PICKED_UP);
     }
     
     public Donation markAsDelivered(Long donationId) {
         Donation donation = donationRepository.findById(donationId)
                 .orElseThrow(() -> new RuntimeException("Donation not found"));
         
-        donation.setStatus(DonationStatus.DELIVERED);
         donation.setDeliveredTime(LocalDateTime.now());
         
         // Add bonus points to donor for successful delivery
         userService.addPoints(donation.getDonor().getId(), 20);
         
-        return donationRepository.save(donation);
+        return changeStatus(donation, DonationStatus.DELIVERED);
     }
     
     public void deleteDonation(Long id) {
-        donationRepository.deleteById(id);
-    }
-    
-    public List<Donation> getAllDonations() {
-        return donationRepository.findAll();
+        donationRepository.findById(id).ifPresent(donation -> {
+            donationRepository.delete(donation);
+            eventPublisher.publishEvent(new DonationChangedEvent(donation, donation.getStatus(), null));
+        });
+    }
+    
+    private Donation changeStatus(Donation donation, DonationStatus status) {
+        DonationStatus previous = donation.getStatus();
+        donation.setStatus(status);
+        Donation saved = donationRepository.save(donation);
+        eventPublisher.publishEvent(new DonationChangedEvent(saved, previous, status));
+        return saved;
+    }
+    
+    public List<Donation> getDonationsPage(PageCursor after, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        return after == null
+                ? donationRepository.findFirstPage(page)
+                : donationRepository.findPageAfter(after.getCreatedAt(), after.getId(), page);
+    }
+    
+    public List<Donation> findByStatusPage(DonationStatus status, PageCursor after, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        return after == null
+                ? donationRepository.findFirstPageByStatus(status, page)
+                : donationRepository.findPageByStatusAfter(status, after.getCreatedAt(), after.getId(), page);
+    }
+    
+    // Walks the whole table page by page, detaching each page once consumed
+    // so the persistence context never holds more than one page
+    @Transactional(readOnly = true)
+    public void forEachDonationPage(int pageSize, Consumer<List<Donation>> consumer) {
+        PageCursor cursor = null;
+        while (true) {
+            List<Donation> page = getDonationsPage(cursor, pageSize);
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            Donation last = page.get(page.size() - 1);
+            cursor = new PageCursor(last.getCreatedAt(), last.getId());
+            entityManager.clear();
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
     }
     
     // Statistics methods
@@ -1,14 +1,33 @@
 package com.foodwaste.service;
 
+import com.foodwaste.dto.PageCursor;
+import com.foodwaste.event.FoodRequestChangedEvent;
 import com.foodwaste.model.*;
 import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.util.GeoUtils;
+import com.foodwaste.util.TextIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -20,9 +39,32 @@ public class FoodRequestService {
     @Autowired
     private UserService userService;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private DonationGeoIndex donationGeoIndex;
+    
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${matching.radius-km:10}")
+    private double matchingRadiusKm;
+    
+    @Value("${matching.max-candidates:50}")
+    private int matchingMaxCandidates;
+    
     public FoodRequest createFoodRequest(FoodRequest foodRequest) {
         foodRequest.setStatus(RequestStatus.OPEN);
-        return foodRequestRepository.save(foodRequest);
+        FoodRequest saved = foodRequestRepository.save(foodRequest);
+        eventPublisher.publishEvent(new FoodRequestChangedEvent(saved, null, RequestStatus.OPEN));
+        return saved;
     }
     
     public Optional<FoodRequest> findById(Long id) {
@@ -51,68 +93,199 @@ public class FoodRequestService {
     }
     
     public List<FoodRequest> findByLocationAndStatus(String location, RequestStatus status) {
-        return foodRequestRepository.findByLocationAndStatus(location, status);
+        return findSearchHits(searchIndex.searchRequests(
+            location, Set.of(SearchIndex.LOCATION), status, SearchIndex.MAX_HITS), status);
     }
     
     public List<FoodRequest> findByFoodTypeAndStatus(String foodType, RequestStatus status) {
-        return foodRequestRepository.findByFoodTypeAndStatus(foodType, status);
+        return findSearchHits(searchIndex.searchRequests(
+            foodType, Set.of(SearchIndex.FOOD_TYPE), status, SearchIndex.MAX_HITS), status);
+    }
+    
+    // Loads search hits in rank order, dropping rows whose status changed since indexing
+    public List<FoodRequest> findSearchHits(List<TextIndex.Hit<Long>> hits, RequestStatus status) {
+        Map<Long, FoodRequest> requests = foodRequestRepository.findAllByIdIn(hits.stream()
+                .map(TextIndex.Hit::getKey)
+                .toList())
+                .stream()
+                .collect(Collectors.toMap(FoodRequest::getId, Function.identity()));
+        
+        return hits.stream()
+                .map(hit -> requests.get(hit.getKey()))
+                .filter(request -> request != null && (status == null || request.getStatus() == status))
+                .toList();
     }
     
     public FoodRequest updateFoodRequest(FoodRequest foodRequest) {
-        return foodRequestRepository.save(foodRequest);
+        FoodRequest saved = foodRequestRepository.save(foodRequest);
+        eventPublisher.publishEvent(new FoodRequestChangedEvent(saved, saved.getStatus(), saved.getStatus()));
+        return saved;
     }
     
     public FoodRequest markAsMatched(Long requestId) {
         FoodRequest request = foodRequestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Food request not found"));
         
-        request.setStatus(RequestStatus.MATCHED);
+        return changeStatus(request, RequestStatus.MATCHED);
+    }
+    
+    // Counts quantity ordered for the request; it is MATCHED once nothing is left
+    public FoodRequest recordMatchedQuantity(Long requestId, double quantity) {
+        FoodRequest request = foodRequestRepository.findById(requestId)
+                .orElseThrow(() -> new RuntimeException("Food request not found"));
         
-        return foodRequestRepository.save(request);
+        double remaining = request.getRemainingQuantity() - quantity;
+        if (remaining <= MatchingEngine.QUANTITY_TOLERANCE) {
+            request.setRemainingQuantity(0.0);
+            return changeStatus(request, RequestStatus.MATCHED);
+        }
+        request.setRemainingQuantity(remaining);
+        return updateFoodRequest(request);
     }
     
     public FoodRequest markAsFulfilled(Long requestId) {
         FoodRequest request = foodRequestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Food request not found"));
         
-        request.setStatus(RequestStatus.FULFILLED);
-        
-        return foodRequestRepository.save(request);
+        return changeStatus(request, RequestStatus.FULFILLED);
     }
     
     public FoodRequest cancelRequest(Long requestId) {
         FoodRequest request = foodRequestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Food request not found"));
         
-        request.setStatus(RequestStatus.CANCELLED);
-        
-        return foodRequestRepository.save(request);
+        return changeStatus(request, RequestStatus.CANCELLED);
     }
     
     public void deleteFoodRequest(Long id) {
-        foodRequestRepository.deleteById(id);
+        foodRequestRepository.findById(id).ifPresent(request -> {
+            foodRequestRepository.delete(request);
+            eventPublisher.publishEvent(new FoodRequestChangedEvent(request, request.getStatus(), null));
+        });
     }
     
-    public List<FoodRequest> getAllFoodRequests() {
-        return foodRequestRepository.findAll();
+    private FoodRequest changeStatus(FoodRequest request, RequestStatus status) {
+        RequestStatus previous = request.getStatus();
+        request.setStatus(status);
+        FoodRequest saved = foodRequestRepository.save(request);
+        eventPublisher.publishEvent(new FoodRequestChangedEvent(saved, previous, status));
+        return saved;
     }
     
-    // Matching algorithm - simple implementation
+    public List<FoodRequest> getFoodRequestsPage(PageCursor after, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        return after == null
+                ? foodRequestRepository.findFirstPage(page)
+                : foodRequestRepository.findPageAfter(after.getCreatedAt(), after.getId(), page);
+    }
+    
+    // Walks the whole table page by page, detaching each page once consumed
+    // so the persistence context never holds more than one page
+    @Transactional(readOnly = true)
+    public void forEachFoodRequestPage(int pageSize, Consumer<List<FoodRequest>> consumer) {
+        PageCursor cursor = null;
+        while (true) {
+            List<FoodRequest> page = getFoodRequestsPage(cursor, pageSize);
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            FoodRequest last = page.get(page.size() - 1);
+            cursor = new PageCursor(last.getCreatedAt(), last.getId());
+            entityManager.clear();
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+    }
+    
+    // Matching algorithm - nearest PENDING donations of the requested food type
     public List<Donation> findMatchingDonations(Long requestId, DonationService donationService) {
         FoodRequest request = foodRequestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Food request not found"));
         
-        // Find donations by food type and location
-        List<Donation> matches = donationService.findByFoodTypeAndStatus(
-            request.getFoodTypeNeeded(), DonationStatus.PENDING);
+        boolean geo = GeoUtils.isValid(request.getLatitude(), request.getLongitude());
+        String mode = geo ? "geo" : "text";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Donation> matches = geo
+                ? findNearbyDonations(request, donationService)
+                : findDonationsByText(request, donationService);
+        sample.stop(meterRegistry.timer("matching.find", "mode", mode));
+        meterRegistry.summary("matching.results", "mode", mode).record(matches.size());
+        return matches;
+    }
+    
+    // Nearest first within the radius, then donations that have no coordinates
+    // but whose pickup location matches the delivery location as text
+    private List<Donation> findNearbyDonations(FoodRequest request, DonationService donationService) {
+        String foodType = request.getFoodTypeNeeded().toLowerCase();
+        List<Long> nearest = donationGeoIndex.findNearest(
+                request.getLatitude(), request.getLongitude(), matchingRadiusKm,
+                Integer.MAX_VALUE, entry -> entry.getFoodType().contains(foodType))
+                .stream()
+                .map(DonationGeoIndex.Match::getDonationId)
+                .toList();
+        List<Donation> matches = new ArrayList<>(
+                loadAvailable(nearest, matchingMaxCandidates, donation -> true, donationService));
         
-        // Filter by location proximity (simplified - in real app, use geolocation)
-        return matches.stream()
-                .filter(donation -> donation.getPickupLocation()
-                        .toLowerCase().contains(request.getDeliveryLocation().toLowerCase()))
+        if (matches.size() < matchingMaxCandidates && request.getDeliveryLocation() != null) {
+            // Donations in the geo index were either found above or are out of range
+            List<Long> unplaced = textMatches(request).stream()
+                    .filter(id -> !donationGeoIndex.contains(id))
+                    .toList();
+            matches.addAll(loadAvailable(unplaced, matchingMaxCandidates - matches.size(),
+                    donation -> !GeoUtils.isValid(donation.getLatitude(), donation.getLongitude()),
+                    donationService));
+        }
+        meterRegistry.summary("matching.candidates", "mode", "geo").record(matches.size());
+        return matches;
+    }
+    
+    // No coordinates - fall back to text search: donations whose food type
+    // matches, restricted to those whose pickup location matches the delivery location
+    private List<Donation> findDonationsByText(FoodRequest request, DonationService donationService) {
+        List<Donation> matches = loadAvailable(textMatches(request), matchingMaxCandidates,
+                donation -> true, donationService);
+        meterRegistry.summary("matching.candidates", "mode", "text").record(matches.size());
+        return matches;
+    }
+    
+    // Ids of PENDING donations matching the food type and the delivery location, best first
+    private List<Long> textMatches(FoodRequest request) {
+        Set<Long> nearby = searchIndex.searchDonations(request.getDeliveryLocation(),
+                Set.of(SearchIndex.LOCATION), DonationStatus.PENDING, Integer.MAX_VALUE)
+                .stream()
+                .map(TextIndex.Hit::getKey)
+                .collect(Collectors.toSet());
+        return searchIndex.searchDonations(request.getFoodTypeNeeded(),
+                Set.of(SearchIndex.FOOD_TYPE), DonationStatus.PENDING, Integer.MAX_VALUE)
+                .stream()
+                .map(TextIndex.Hit::getKey)
+                .filter(nearby::contains)
                 .toList();
     }
     
+    // Loads candidates limit ids at a time, in order, until limit of them are
+    // still PENDING with quantity left and pass filter; the indexes do not track
+    // claims, so capping the ids before this check would let claimed donations
+    // crowd out available ones
+    private List<Donation> loadAvailable(List<Long> ids, int limit, Predicate<Donation> filter,
+                                         DonationService donationService) {
+        List<Donation> available = new ArrayList<>();
+        for (int from = 0; from < ids.size() && available.size() < limit; from += limit) {
+            List<Long> chunk = ids.subList(from, Math.min(from + limit, ids.size()));
+            Map<Long, Donation> donations = donationService.findAllById(chunk).stream()
+                    .collect(Collectors.toMap(Donation::getId, Function.identity()));
+            chunk.stream()
+                    .map(donations::get)
+                    .filter(donation -> donation != null && donation.getStatus() == DonationStatus.PENDING
+                            && donation.getRemainingQuantity() > 0 && filter.test(donation))
+                    .limit(limit - available.size())
+                    .forEach(available::add);
+        }
+        return available;
+    }
+    
     // Statistics methods
     public Long getOpenRequestsCount() {
         return foodRequestRepository.countByStatus(RequestStatus.OPEN);
@@ -0,0 +1,159 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.event.UserChangedEvent;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Issues and verifies the HS256 access tokens sent as "Authorization: Bearer".
+// A token carries the user id (sub), username and role, so a request is
+// authorized without loading the user. The key and parser are built once, and
+// verified tokens are cached until they expire: a repeat request costs a map
+// lookup instead of an HMAC and a JSON parse.
+@Service
+public class JwtService {
+    
+    private static final String USERNAME_CLAIM = "username";
+    private static final String ROLE_CLAIM = "role";
+    private static final long CLOCK_SKEW_SECONDS = 30;
+    private static final int MIN_SECRET_BYTES = 32;
+    
+    @Value("${jwt.secret}")
+    private String secret;
+    
+    @Value("${jwt.expiration}")
+    private long expirationMs;
+    
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<String, AuthenticatedUser> verified;
+    
+    // Tokens a user was issued up to this second (epoch seconds) are refused:
+    // set when the user is deleted, disabled, given another role or a new password
+    private final Map<Long, Long> revokedUntil = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        // Anyone who knows or guesses the secret can sign tokens for any user and role
+        if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("jwt.secret (JWT_SECRET) must be set to at least "
+                    + MIN_SECRET_BYTES + " bytes");
+        }
+        // HS256 wants a 256-bit key; hashing lets jwt.secret be any passphrase
+        signingKey = Keys.hmacShaKeyFor(sha256(secret));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .clockSkewSeconds(CLOCK_SKEW_SECONDS)
+                .build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String token, AuthenticatedUser user) ->
+                        Duration.ofSeconds(Math.max(0, user.getExpiresAt() - Instant.now().getEpochSecond()))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwtVerified");
+    }
+    
+    public String issueAccessToken(User user) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .subject(user.getId().toString())
+                .claim(USERNAME_CLAIM, user.getUsername())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusMillis(expirationMs)))
+                .signWith(signingKey)
+                .compact();
+    }
+    
+    public long getExpirationSeconds() {
+        return expirationMs / 1000;
+    }
+    
+    // Null when the token is malformed, forged, expired or revoked
+    public AuthenticatedUser verify(String token) {
+        AuthenticatedUser user = verified.getIfPresent(token);
+        if (user == null) {
+            user = parse(token);
+            if (user == null) {
+                return null;
+            }
+            verified.put(token, user);
+        }
+        
+        Long revoked = revokedUntil.get(user.getId());
+        if (revoked != null && user.getIssuedAt() <= revoked) {
+            verified.invalidate(token);
+            return null;
+        }
+        return user;
+    }
+    
+    // Without a user lookup per request, role changes and deletions have to reach
+    // tokens that were issued before them
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isCreated()) {
+            return;
+        }
+        if (event.isDeleted() || event.getPreviousRole() != event.getRole() || !event.getUser().isEnabled()
+                || event.isPasswordChanged()) {
+            revokedUntil.put(event.getUser().getId(), Instant.now().getEpochSecond());
+        }
+    }
+    
+    // Signature and expiry check without the cache
+    public AuthenticatedUser parse(String token) {
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            return new AuthenticatedUser(
+                Long.valueOf(claims.getSubject()),
+                claims.get(USERNAME_CLAIM, String.class),
+                UserRole.valueOf(claims.get(ROLE_CLAIM, String.class)),
+                claims.getIssuedAt().toInstant().getEpochSecond(),
+                claims.getExpiration().toInstant().getEpochSecond()
+            );
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+    
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
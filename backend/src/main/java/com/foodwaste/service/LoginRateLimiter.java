@@ -0,0 +1,94 @@
+package com.foodwaste.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Token buckets in front of password hashing: one per client address and one
+// per username, each holding a minute's worth of attempts and refilling
+// continuously. Guessing one account is slowed by the username bucket however
+// many addresses it comes from. A bucket idle for a minute is full again, so
+// it is simply dropped.
+@Service
+public class LoginRateLimiter {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Attempts per minute; 0 disables the limit (e.g. for load tests from one address)
+    @Value("${auth.rate-limit.ip-per-minute:60}")
+    private int ipPerMinute;
+    
+    @Value("${auth.rate-limit.username-per-minute:10}")
+    private int usernamePerMinute;
+    
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(1))
+            .build();
+    
+    // 0 when the attempt may go ahead, otherwise the seconds to wait before retrying.
+    // The address is the client's as resolved from the proxy's X-Forwarded-For
+    // (server.forward-headers-strategy), not the proxy's own.
+    public long tryAcquire(String username, String address) {
+        return tryAcquire(username, address, System.currentTimeMillis());
+    }
+    
+    long tryAcquire(String username, String address, long now) {
+        long wait = acquire("ip", address, ipPerMinute, now);
+        if (wait == 0 && username != null) {
+            wait = acquire("username", username.toLowerCase(), usernamePerMinute, now);
+        }
+        return wait;
+    }
+    
+    private long acquire(String scope, String key, int perMinute, long now) {
+        if (perMinute <= 0) {
+            return 0;
+        }
+        TokenBucket bucket = buckets.get(scope + ":" + key, k -> new TokenBucket(perMinute, now));
+        long waitMillis = bucket.tryConsume(now);
+        if (waitMillis == 0) {
+            return 0;
+        }
+        meterRegistry.counter("auth.rate.limited", "scope", scope).increment();
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+    
+    private static class TokenBucket {
+        private final double capacity;
+        private final double tokensPerMilli;
+        private double tokens;
+        private long refilledAt;
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        TokenBucket(int perMinute, long now) {
+            this.capacity = perMinute;
+            this.tokensPerMilli = perMinute / 60_000.0;
+            this.tokens = perMinute;
+            this.refilledAt = now;
+        }
+        
+        // 0 if a token was taken, otherwise milliseconds until one is available
+        long tryConsume(long now) {
+            lock.lock();
+            try {
+                tokens = Math.min(capacity, tokens + Math.max(0, now - refilledAt) * tokensPerMilli);
+                refilledAt = Math.max(refilledAt, now);
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - tokens) / tokensPerMilli);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.OrderRequest;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.Order;
+import com.foodwaste.model.OrderItem;
+import com.foodwaste.model.Priority;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.util.GeoUtils;
+import com.foodwaste.util.TextIndex;
+import com.foodwaste.util.TransportationSolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Batch matching of every open food request against every available donation.
+// Candidate pairs come from the geo index (requests with coordinates) or the
+// search index (food type and delivery location) and are scored in parallel on
+// a dedicated fork-join pool. Quantities are then allocated by an exact
+// maximum-weight transportation solve (TransportationSolver) within each
+// donation's and each request's remaining quantity; connected components of
+// the candidate graph share nothing and are solved in parallel on the same pool.
+@Service
+public class MatchingEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MatchingEngine.class);
+    
+    // Edge weight = sum of these times the matching component score (each 0..1)
+    private static final double DISTANCE_WEIGHT = 0.35;
+    private static final double URGENCY_WEIGHT = 0.25;
+    private static final double EXPIRY_WEIGHT = 0.2;
+    private static final double FIT_WEIGHT = 0.2;
+    
+    // Score given to text-only candidates, whose distance is unknown
+    private static final double UNKNOWN_DISTANCE_SCORE = 0.5;
+    
+    private static final double HOURS_PER_DAY = 24.0;
+    
+    // Quantities below this count as zero
+    static final double QUANTITY_TOLERANCE = 1e-6;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private FoodRequestRepository foodRequestRepository;
+    
+    @Autowired
+    private DonationGeoIndex donationGeoIndex;
+    
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private FoodRequestService foodRequestService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${matching.radius-km:10}")
+    private double radiusKm;
+    
+    @Value("${matching.max-candidates:50}")
+    private int maxCandidates;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    
+    private final ReentrantLock runLock = new ReentrantLock();
+    
+    public MatchingEngine(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+    
+    // Disabled unless matching.batch.cron is set; scheduled runs always apply the plan
+    @Scheduled(cron = "${matching.batch.cron:-}")
+    public void scheduledRun() {
+        MatchingPlan plan = run(true);
+        logger.info("Scheduled matching: {} assignments over {} requests and {} donations in {} ms",
+                plan.getAssignments().size(), plan.getRequestCount(), plan.getDonationCount(), plan.getSolveMillis());
+    }
+    
+    // Plans against the current open requests and available donations and,
+    // when apply is set, places one order per matched request
+    public MatchingPlan run(boolean apply) {
+        if (!runLock.tryLock()) {
+            throw new RunInProgressException();
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<FoodRequest> requests = foodRequestRepository.findActiveRequestsByPriority(RequestStatus.OPEN, now);
+            List<Donation> donations = donationRepository.findAvailableDonations(DonationStatus.PENDING, now);
+            
+            Timer.Sample sample = Timer.start(meterRegistry);
+            MatchingPlan plan = solve(requests, donations, now);
+            if (apply) {
+                apply(plan, requests);
+            }
+            sample.stop(meterRegistry.timer("matching.batch", "apply", Boolean.toString(apply)));
+            meterRegistry.summary("matching.batch.assignments").record(plan.getAssignments().size());
+            return plan;
+        } finally {
+            runLock.unlock();
+        }
+    }
+    
+    public MatchingPlan solve(List<FoodRequest> requests, List<Donation> donations, LocalDateTime now) {
+        long started = System.nanoTime();
+        
+        Map<Long, Donation> donationsById = donations.stream()
+                .collect(Collectors.toMap(Donation::getId, Function.identity()));
+        
+        // Per-donation and per-request terms are computed once, not once per edge
+        Map<Long, Double> expiryScores = new HashMap<>();
+        donations.forEach(donation -> expiryScores.put(donation.getId(), expiryScore(donation, now)));
+        
+        // Requests sharing a food type or a delivery location share one text lookup;
+        // the candidates themselves are picked per request
+        TextLookups textLookups = new TextLookups(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        
+        Edge[] edges;
+        try {
+            edges = pool.submit(() -> requests.parallelStream()
+                    .flatMap(request -> candidateEdges(request, donationsById, expiryScores, textLookups, now).stream())
+                    .toArray(Edge[]::new))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Matching was interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Matching failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        Map<Long, FoodRequest> requestsById = requests.stream()
+                .collect(Collectors.toMap(FoodRequest::getId, Function.identity()));
+        Collection<List<Edge>> components = components(edges);
+        List<Assignment> assignments;
+        try {
+            assignments = pool.submit(() -> components.parallelStream()
+                    .flatMap(component -> allocate(component, donationsById, requestsById).stream())
+                    .sorted(Comparator.comparingDouble(Assignment::getScore).reversed())
+                    .toList())
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Matching was interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Matching failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        
+        Map<Long, Double> allocated = new HashMap<>();
+        assignments.forEach(assignment -> allocated.merge(assignment.getRequestId(), assignment.getQuantity(), Double::sum));
+        long satisfied = requests.stream()
+                .filter(request -> request.getRemainingQuantity() - allocated.getOrDefault(request.getId(), 0.0)
+                        <= QUANTITY_TOLERANCE)
+                .count();
+        long solveMillis = (System.nanoTime() - started) / 1_000_000;
+        return new MatchingPlan(requests.size(), donations.size(), edges.length, assignments,
+                (int) satisfied, solveMillis);
+    }
+    
+    // Optimal quantities for one component, with its donations and requests renumbered from 0
+    private List<Assignment> allocate(List<Edge> component, Map<Long, Donation> donationsById,
+                                      Map<Long, FoodRequest> requestsById) {
+        Map<Long, Integer> donationIndex = new HashMap<>();
+        Map<Long, Integer> requestIndex = new HashMap<>();
+        int[] from = new int[component.size()];
+        int[] to = new int[component.size()];
+        double[] weight = new double[component.size()];
+        for (int i = 0; i < component.size(); i++) {
+            Edge edge = component.get(i);
+            from[i] = donationIndex.computeIfAbsent(edge.donationId(), id -> donationIndex.size());
+            to[i] = requestIndex.computeIfAbsent(edge.requestId(), id -> requestIndex.size());
+            weight[i] = edge.weight();
+        }
+        
+        double[] supply = new double[donationIndex.size()];
+        donationIndex.forEach((id, index) -> supply[index] = donationsById.get(id).getRemainingQuantity());
+        double[] demand = new double[requestIndex.size()];
+        requestIndex.forEach((id, index) -> demand[index] = requestsById.get(id).getRemainingQuantity());
+        
+        double[] flow = new TransportationSolver(supply, demand, from, to, weight).solve();
+        
+        List<Assignment> assignments = new ArrayList<>();
+        for (int i = 0; i < component.size(); i++) {
+            if (flow[i] > QUANTITY_TOLERANCE) {
+                Edge edge = component.get(i);
+                assignments.add(new Assignment(edge.requestId(), edge.donationId(), flow[i], edge.weight(),
+                        edge.distanceKm()));
+            }
+        }
+        return assignments;
+    }
+    
+    // Edges grouped by connected component, by union-find over donations and requests
+    private static Collection<List<Edge>> components(Edge[] edges) {
+        Map<Long, Integer> donationIndex = new HashMap<>();
+        Map<Long, Integer> requestIndex = new HashMap<>();
+        for (Edge edge : edges) {
+            donationIndex.putIfAbsent(edge.donationId(), donationIndex.size());
+            requestIndex.putIfAbsent(edge.requestId(), requestIndex.size());
+        }
+        
+        int offset = donationIndex.size();
+        int[] parent = new int[offset + requestIndex.size()];
+        Arrays.setAll(parent, i -> i);
+        for (Edge edge : edges) {
+            int a = find(parent, donationIndex.get(edge.donationId()));
+            int b = find(parent, offset + requestIndex.get(edge.requestId()));
+            parent[a] = b;
+        }
+        
+        Map<Integer, List<Edge>> byRoot = new HashMap<>();
+        for (Edge edge : edges) {
+            byRoot.computeIfAbsent(find(parent, donationIndex.get(edge.donationId())), root -> new ArrayList<>())
+                    .add(edge);
+        }
+        return byRoot.values();
+    }
+    
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+    
+    private List<Edge> candidateEdges(FoodRequest request, Map<Long, Donation> donationsById,
+                                      Map<Long, Double> expiryScores,
+                                      TextLookups textLookups, LocalDateTime now) {
+        List<Edge> edges = new ArrayList<>();
+        if (request.getRemainingQuantity() == null || request.getRemainingQuantity() <= 0) {
+            return edges;
+        }
+        double urgency = urgencyScore(request, now);
+        
+        if (GeoUtils.isValid(request.getLatitude(), request.getLongitude())) {
+            String foodType = request.getFoodTypeNeeded().toLowerCase();
+            for (DonationGeoIndex.Match match : donationGeoIndex.findNearest(request.getLatitude(),
+                    request.getLongitude(), radiusKm, maxCandidates, entry -> entry.getFoodType().contains(foodType))) {
+                addEdge(edges, request, urgency, donationsById.get(match.getDonationId()), expiryScores,
+                        match.getDistanceKm(), now);
+            }
+        } else if (request.getDeliveryLocation() != null) {
+            // As FoodRequestService.findMatchingDonations: the food type must match and
+            // the pickup location must match the delivery location
+            Set<Long> nearby = textLookups.byLocation().computeIfAbsent(
+                    request.getDeliveryLocation().toLowerCase(),
+                    location -> searchIndex.searchDonations(location, Set.of(SearchIndex.LOCATION),
+                                    DonationStatus.PENDING, Integer.MAX_VALUE)
+                            .stream()
+                            .map(TextIndex.Hit::getKey)
+                            .collect(Collectors.toSet()));
+            List<TextIndex.Hit<Long>> hits = textLookups.byFoodType().computeIfAbsent(
+                    request.getFoodTypeNeeded().toLowerCase(),
+                    foodType -> searchIndex.searchDonations(foodType, Set.of(SearchIndex.FOOD_TYPE),
+                            DonationStatus.PENDING, Integer.MAX_VALUE));
+            hits.stream()
+                    .filter(hit -> nearby.contains(hit.getKey()) && donationsById.containsKey(hit.getKey()))
+                    .limit(maxCandidates)
+                    .forEach(hit -> addEdge(edges, request, urgency, donationsById.get(hit.getKey()),
+                            expiryScores, null, now));
+        }
+        return edges;
+    }
+    
+    private void addEdge(List<Edge> edges, FoodRequest request, double urgency, Donation donation,
+                         Map<Long, Double> expiryScores, Double distanceKm, LocalDateTime now) {
+        if (donation == null || donation.getRemainingQuantity() == null || donation.getRemainingQuantity() <= 0
+                || !sameUnit(request.getUnit(), donation.getUnit())) {
+            return;
+        }
+        if (donation.getExpiryTime() != null && !donation.getExpiryTime().isAfter(now)) {
+            return;
+        }
+        double weight = score(urgency, expiryScores.get(donation.getId()), distanceKm,
+                donation.getQuantity(), request.getRemainingQuantity());
+        edges.add(new Edge(request.getId(), donation.getId(), weight, distanceKm));
+    }
+    
+    double score(double urgency, double expiry, Double distanceKm, double offered, double needed) {
+        double distance = distanceKm == null
+                ? UNKNOWN_DISTANCE_SCORE
+                : 1.0 - Math.min(distanceKm, radiusKm) / radiusKm;
+        double fit = Math.min(offered, needed) / Math.max(offered, needed);
+        return DISTANCE_WEIGHT * distance + URGENCY_WEIGHT * urgency + EXPIRY_WEIGHT * expiry + FIT_WEIGHT * fit;
+    }
+    
+    // Priority and deadline count equally; a deadline a day away scores 0.5
+    static double urgencyScore(FoodRequest request, LocalDateTime now) {
+        double deadline = request.getNeededBy() == null
+                ? 0.0
+                : decay(hoursBetween(now, request.getNeededBy()));
+        return 0.5 * priorityScore(request.getPriority()) + 0.5 * deadline;
+    }
+    
+    // Donations close to expiry should be placed first
+    static double expiryScore(Donation donation, LocalDateTime now) {
+        return donation.getExpiryTime() == null
+                ? 0.0
+                : decay(hoursBetween(now, donation.getExpiryTime()));
+    }
+    
+    private void apply(MatchingPlan plan, List<FoodRequest> requests) {
+        Map<Long, FoodRequest> requestsById = requests.stream()
+                .collect(Collectors.toMap(FoodRequest::getId, Function.identity()));
+        Map<Long, List<Assignment>> byRequest = plan.getAssignments().stream()
+                .collect(Collectors.groupingBy(Assignment::getRequestId, LinkedHashMap::new, Collectors.toList()));
+        
+        int applied = 0;
+        int matched = 0;
+        for (Map.Entry<Long, List<Assignment>> entry : byRequest.entrySet()) {
+            FoodRequest request = requestsById.get(entry.getKey());
+            try {
+                // Each request commits on its own so one failure does not undo the rest.
+                // What the order actually reserved comes off the request's remaining
+                // need; it stays OPEN for later runs until nothing is left.
+                RequestStatus status = transactionTemplate.execute(transaction -> {
+                    Order order = orderService.placeOrder(request.getNgo(), toOrderRequest(request, entry.getValue()));
+                    double reserved = order.getOrderItems().stream()
+                            .mapToDouble(OrderItem::getRequestedQuantity)
+                            .sum();
+                    return foodRequestService.recordMatchedQuantity(request.getId(), reserved).getStatus();
+                });
+                applied++;
+                if (status == RequestStatus.MATCHED) {
+                    matched++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not apply match for request {}: {}", request.getId(), e.getMessage());
+            }
+        }
+        plan.setAppliedRequests(applied);
+        plan.setMatchedRequests(matched);
+    }
+    
+    private OrderRequest toOrderRequest(FoodRequest request, List<Assignment> assignments) {
+        List<OrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (Assignment assignment : assignments) {
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setId(assignment.getDonationId());
+            item.setFoodType(request.getFoodTypeNeeded());
+            item.setRequestedQuantity(assignment.getQuantity());
+            item.setUnit(request.getUnit());
+            items.add(item);
+        }
+        
+        LocalDateTime deliverBy = request.getNeededBy() != null ? request.getNeededBy() : LocalDateTime.now().plusDays(1);
+        OrderRequest.DeliveryDetailsRequest details = new OrderRequest.DeliveryDetailsRequest();
+        details.setDeliveryLocation(request.getDeliveryLocation());
+        details.setDeliveryDate(deliverBy.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        details.setDeliveryTime(deliverBy.format(DateTimeFormatter.ofPattern("HH:mm")));
+        details.setSpecialInstructions("Matched automatically for food request #" + request.getId());
+        
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setNgoId(request.getNgo().getId());
+        orderRequest.setItems(items);
+        orderRequest.setDeliveryDetails(details);
+        return orderRequest;
+    }
+    
+    private static boolean sameUnit(String a, String b) {
+        return a == null || b == null || a.equalsIgnoreCase(b);
+    }
+    
+    private static double priorityScore(Priority priority) {
+        if (priority == null) {
+            return 0.5;
+        }
+        switch (priority) {
+            case URGENT: return 1.0;
+            case HIGH: return 0.75;
+            case LOW: return 0.25;
+            default: return 0.5;
+        }
+    }
+    
+    // 1.0 now, 0.5 a day out, approaching 0 further away
+    private static double decay(double hours) {
+        return HOURS_PER_DAY / (HOURS_PER_DAY + Math.max(0.0, hours));
+    }
+    
+    private static double hoursBetween(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMinutes() / 60.0;
+    }
+    
+    private record Edge(Long requestId, Long donationId, double weight, Double distanceKm) {}
+    
+    // Uncapped search hits by lower-cased food type, and donation ids by lower-cased delivery location
+    private record TextLookups(Map<String, List<TextIndex.Hit<Long>>> byFoodType,
+                               Map<String, Set<Long>> byLocation) {}
+    
+    // Thrown by run() while another run holds the lock
+    public static class RunInProgressException extends RuntimeException {
+        public RunInProgressException() {
+            super("A matching run is already in progress");
+        }
+    }
+    
+    public static class Assignment {
+        private final Long requestId;
+        private final Long donationId;
+        private final double quantity;
+        private final double score;
+        private final Double distanceKm;
+        
+        public Assignment(Long requestId, Long donationId, double quantity, double score, Double distanceKm) {
+            this.requestId = requestId;
+            this.donationId = donationId;
+            this.quantity = quantity;
+            this.score = score;
+            this.distanceKm = distanceKm;
+        }
+        
+        public Long getRequestId() { return requestId; }
+        public Long getDonationId() { return donationId; }
+        public double getQuantity() { return quantity; }
+        public double getScore() { return score; }
+        public Double getDistanceKm() { return distanceKm; }
+    }
+    
+    public static class MatchingPlan {
+        private final int requestCount;
+        private final int donationCount;
+        private final int candidateCount;
+        private final List<Assignment> assignments;
+        private final int satisfiedRequests;
+        private final long solveMillis;
+        private Integer appliedRequests;
+        private Integer matchedRequests;
+        
+        public MatchingPlan(int requestCount, int donationCount, int candidateCount,
+                            List<Assignment> assignments, int satisfiedRequests, long solveMillis) {
+            this.requestCount = requestCount;
+            this.donationCount = donationCount;
+            this.candidateCount = candidateCount;
+            this.assignments = assignments;
+            this.satisfiedRequests = satisfiedRequests;
+            this.solveMillis = solveMillis;
+        }
+        
+        public int getRequestCount() { return requestCount; }
+        public int getDonationCount() { return donationCount; }
+        public int getCandidateCount() { return candidateCount; }
+        public List<Assignment> getAssignments() { return assignments; }
+        public int getSatisfiedRequests() { return satisfiedRequests; }
+        public long getSolveMillis() { return solveMillis; }
+        public Integer getAppliedRequests() { return appliedRequests; }
+        public void setAppliedRequests(Integer appliedRequests) { this.appliedRequests = appliedRequests; }
+        public Integer getMatchedRequests() { return matchedRequests; }
+        public void setMatchedRequests(Integer matchedRequests) { this.matchedRequests = matchedRequests; }
+    }
+}
@@ -0,0 +1,434 @@
+package com.foodwaste.service;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.OutboxMessage;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.OutboxMessageRepository;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Drains the notification outbox. Each poll claims a batch of due rows under
+// a lease, expands DONATION_CREATED rows into one EMAIL row per nearby NGO
+// (a DONATIONS_IMPORTED batch into one digest per nearby NGO), and sends
+// EMAIL rows on a small pool of workers behind a shared rate limit. A failed
+// send is retried with exponential backoff and dead-lettered after
+// notifications.max-attempts; a dispatcher that dies mid-batch leaves its
+// rows to be claimed again once the lease runs out (at-least-once).
+@Component
+public class NotificationDispatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+    private static final DateTimeFormatter EXPIRY_FORMAT = DateTimeFormatter.ofPattern("d MMM yyyy, HH:mm");
+    private static final long MAX_BACKOFF_MS = 3_600_000;
+    // Donations listed by name in an import digest
+    private static final int DIGEST_ITEMS = 10;
+    
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JavaMailSender mailSender;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${notifications.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${notifications.from}")
+    private String from;
+    
+    @Value("${notifications.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${notifications.workers:4}")
+    private int workers;
+    
+    // Emails per second across all workers; 0 for no limit
+    @Value("${notifications.rate-per-second:5}")
+    private double ratePerSecond;
+    
+    @Value("${notifications.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${notifications.backoff-ms:30000}")
+    private long backoffMs;
+    
+    @Value("${notifications.lease-ms:300000}")
+    private long leaseMs;
+    
+    @Value("${notifications.retention-ms:604800000}")
+    private long retentionMs;
+    
+    @Value("${notifications.radius-km:${matching.radius-km:10}}")
+    private double radiusKm;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+    
+    // Start of the next free send slot (System.nanoTime), guarded by sendSlotLock
+    private long nextSendAt;
+    private final ReentrantLock sendSlotLock = new ReentrantLock();
+    
+    private Counter sent;
+    private Counter retried;
+    private Counter dead;
+    private Timer sendTimer;
+    
+    public NotificationDispatcher(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchSize)), task -> {
+                    Thread thread = new Thread(task, "notification-sender-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "notificationSending");
+        sent = meterRegistry.counter("notifications.emails", "outcome", "sent");
+        retried = meterRegistry.counter("notifications.emails", "outcome", "retried");
+        dead = meterRegistry.counter("notifications.emails", "outcome", "dead");
+        sendTimer = meterRegistry.timer("notifications.send");
+    }
+    
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+    
+    // Runs on the shared scheduler thread, so it never waits for a send: it only
+    // claims as many rows as the workers' queue has room for. A full queue drains
+    // in batch-size / rate-per-second seconds, well inside the lease.
+    @Scheduled(initialDelayString = "${notifications.poll-interval-ms:1000}",
+               fixedDelayString = "${notifications.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        int room = Math.min(batchSize, executor.getQueue().remainingCapacity());
+        if (room == 0) {
+            return;
+        }
+        for (OutboxMessage message : claimBatch(room)) {
+            if (message.getType() == OutboxMessage.Type.EMAIL) {
+                executor.execute(() -> send(message));
+            } else {
+                // One row that cannot be expanded must not hold up the rest of the batch
+                try {
+                    expand(message);
+                } catch (RuntimeException e) {
+                    fail(message, message.getAttempts() + 1, isMalformed(e), e);
+                }
+            }
+        }
+    }
+    
+    // Dead letters, newest first
+    public List<OutboxMessage> getDeadLetters(int limit) {
+        return outboxMessageRepository.findByStatusOrderByIdDesc(OutboxMessage.Status.DEAD, PageRequest.of(0, limit));
+    }
+    
+    // Puts a dead letter back in the queue with a fresh set of attempts
+    public boolean requeue(Long id) {
+        Integer updated = transactionTemplate.execute(status -> outboxMessageRepository.requeue(
+                id, OutboxMessage.Status.DEAD, OutboxMessage.Status.PENDING, LocalDateTime.now()));
+        return updated != null && updated > 0;
+    }
+    
+    @Scheduled(initialDelayString = "${notifications.cleanup-interval-ms:3600000}",
+               fixedDelayString = "${notifications.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(retentionMs * 1_000_000);
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxMessageRepository.deleteProcessedBefore(OutboxMessage.Status.SENT, cutoff));
+        if (deleted != null && deleted > 0) {
+            logger.info("Deleted {} sent outbox messages", deleted);
+        }
+    }
+    
+    private List<OutboxMessage> claimBatch(int limit) {
+        String token = UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxMessageRepository.findDueIds(
+                    OutboxMessage.Status.PENDING, now, PageRequest.of(0, limit));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            outboxMessageRepository.claim(ids, OutboxMessage.Status.PENDING, token, now,
+                    now.plusNanos(leaseMs * 1_000_000));
+            return outboxMessageRepository.findByClaimTokenOrderById(token);
+        });
+    }
+    
+    // EMAIL rows for a DONATION_CREATED or DONATIONS_IMPORTED row, written in
+    // the transaction that completes it
+    private void expand(OutboxMessage message) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> emails = message.getType() == OutboxMessage.Type.DONATIONS_IMPORTED
+                    ? importDigests(message, now)
+                    : donationEmails(message, now);
+            outboxMessageRepository.saveAll(emails);
+            outboxMessageRepository.complete(message.getId(), OutboxMessage.Status.SENT,
+                    message.getAttempts() + 1, now, null, now);
+        });
+    }
+    
+    // One email per enabled NGO within radiusKm of the donation
+    private List<OutboxMessage> donationEmails(OutboxMessage message, LocalDateTime now) {
+        Optional<Donation> donation = donationRepository.findById(message.getAggregateId());
+        // Without coordinates there is no "nearby"; nobody is notified
+        if (donation.isEmpty() || !GeoUtils.isValid(donation.get().getLatitude(), donation.get().getLongitude())) {
+            return List.of();
+        }
+        List<OutboxMessage> emails = new ArrayList<>();
+        for (User ngo : ngosWithin(searchBox(donation.get()))) {
+            if (isNear(ngo, donation.get())) {
+                emails.add(OutboxMessage.email(message.getAggregateId(), ngo.getEmail(),
+                        subject(donation.get()), body(donation.get(), ngo), now));
+            }
+        }
+        return emails;
+    }
+    
+    // One digest per NGO near any donation of the batch, with one query for the
+    // NGOs in the box around all of them
+    private List<OutboxMessage> importDigests(OutboxMessage message, LocalDateTime now) {
+        List<Long> ids = Arrays.stream(message.getBody().split(",")).map(Long::valueOf).toList();
+        List<Donation> donations = donationRepository.findAllById(ids).stream()
+                .filter(donation -> GeoUtils.isValid(donation.getLatitude(), donation.getLongitude()))
+                .toList();
+        if (donations.isEmpty()) {
+            return List.of();
+        }
+        
+        double[] box = searchBox(donations.get(0));
+        for (Donation donation : donations) {
+            double[] around = searchBox(donation);
+            box[0] = Math.min(box[0], around[0]);
+            box[1] = Math.max(box[1], around[1]);
+            box[2] = Math.min(box[2], around[2]);
+            box[3] = Math.max(box[3], around[3]);
+        }
+        
+        List<OutboxMessage> emails = new ArrayList<>();
+        for (User ngo : ngosWithin(box)) {
+            List<Donation> near = donations.stream().filter(donation -> isNear(ngo, donation)).toList();
+            if (!near.isEmpty()) {
+                emails.add(OutboxMessage.email(message.getAggregateId(), ngo.getEmail(),
+                        digestSubject(near), digestBody(near, ngo), now));
+            }
+        }
+        return emails;
+    }
+    
+    // {minLat, maxLat, minLon, maxLon} around the donation, radiusKm each way
+    private double[] searchBox(Donation donation) {
+        double latitude = donation.getLatitude();
+        double longitude = donation.getLongitude();
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE;
+        double polewardLatitude = Math.min(90.0, Math.abs(latitude) + latSpan);
+        double lonSpan = radiusKm / (GeoUtils.KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(polewardLatitude))));
+        return new double[] {latitude - latSpan, latitude + latSpan, longitude - lonSpan, longitude + lonSpan};
+    }
+    
+    private List<User> ngosWithin(double[] box) {
+        return userRepository.findActiveUsersByRoleWithin(UserRole.NGO, box[0], box[1], box[2], box[3]).stream()
+                .filter(ngo -> ngo.getEmail() != null)
+                .toList();
+    }
+    
+    private boolean isNear(User ngo, Donation donation) {
+        return GeoUtils.distanceKm(donation.getLatitude(), donation.getLongitude(),
+                ngo.getLatitude(), ngo.getLongitude()) <= radiusKm;
+    }
+    
+    private void send(OutboxMessage message) {
+        awaitSendSlot();
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(from);
+        mail.setTo(message.getRecipient());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        
+        int attempts = message.getAttempts() + 1;
+        try {
+            sendTimer.record(() -> mailSender.send(mail));
+        } catch (MailException e) {
+            fail(message, attempts, isPermanent(e), e);
+            return;
+        }
+        complete(message, OutboxMessage.Status.SENT, attempts, null, null);
+        sent.increment();
+    }
+    
+    // A message that cannot be built, or that the server refused with a 5xx
+    // reply, will fail the same way on every retry
+    private static boolean isPermanent(MailException e) {
+        if (e instanceof MailParseException || e instanceof MailPreparationException) {
+            return true;
+        }
+        if (e instanceof MailSendException sendException) {
+            for (Exception failure : sendException.getFailedMessages().values()) {
+                for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof SMTPSendFailedException smtp && smtp.getReturnCode() >= 500
+                            || cause instanceof SMTPAddressFailedException address && address.getReturnCode() >= 500) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    // A DONATIONS_IMPORTED row whose body is not a list of ids never expands
+    private static boolean isMalformed(RuntimeException e) {
+        return e instanceof NumberFormatException;
+    }
+    
+    private void fail(OutboxMessage message, int attempts, boolean permanent, RuntimeException e) {
+        String error = truncate(e.getMessage());
+        if (permanent || attempts >= maxAttempts) {
+            complete(message, OutboxMessage.Status.DEAD, attempts, null, error);
+            dead.increment();
+            logger.warn("Notification {} ({} to {}) dead-lettered after {} attempts: {}",
+                    message.getId(), message.getType(), message.getRecipient(), attempts, error);
+            return;
+        }
+        long delay = Math.min(MAX_BACKOFF_MS, backoffMs << Math.min(attempts - 1, 20));
+        complete(message, OutboxMessage.Status.PENDING, attempts,
+                LocalDateTime.now().plusNanos(delay * 1_000_000), error);
+        retried.increment();
+    }
+    
+    // nextAttemptAt only for rows going back to PENDING; done rows record when they finished
+    private void complete(OutboxMessage message, OutboxMessage.Status status, int attempts,
+                          LocalDateTime nextAttemptAt, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean done = status != OutboxMessage.Status.PENDING;
+        transactionTemplate.executeWithoutResult(tx -> outboxMessageRepository.complete(message.getId(),
+                status, attempts, done ? now : nextAttemptAt, error, done ? now : null));
+    }
+    
+    // Spaces sends evenly at ratePerSecond however many workers are waiting
+    private void awaitSendSlot() {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long interval = (long) (1_000_000_000L / ratePerSecond);
+        long slot;
+        sendSlotLock.lock();
+        try {
+            long now = System.nanoTime();
+            slot = Math.max(now, nextSendAt);
+            nextSendAt = slot + interval;
+        } finally {
+            sendSlotLock.unlock();
+        }
+        long wait;
+        while ((wait = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+    
+    private static String subject(Donation donation) {
+        return "New donation near you: " + donation.getFoodType();
+    }
+    
+    private static String body(Donation donation, User ngo) {
+        return String.format(
+            "Hello %s,%n%n%s %s of %s has just been donated near you.%n%nPickup: %s%nBest before: %s%n%n" +
+            "Log in to the Food Waste Management System to request it.%n",
+            ngo.getName(), format(donation.getQuantity()), donation.getUnit(), donation.getFoodType(),
+            donation.getPickupLocation(),
+            donation.getExpiryTime() != null ? donation.getExpiryTime().format(EXPIRY_FORMAT) : "not given");
+    }
+    
+    private static String digestSubject(List<Donation> donations) {
+        return donations.size() == 1 ? subject(donations.get(0)) : donations.size() + " new donations near you";
+    }
+    
+    private static String digestBody(List<Donation> donations, User ngo) {
+        if (donations.size() == 1) {
+            return body(donations.get(0), ngo);
+        }
+        StringBuilder body = new StringBuilder(String.format(
+            "Hello %s,%n%n%d donations have just been made near you:%n%n", ngo.getName(), donations.size()));
+        for (Donation donation : donations.subList(0, Math.min(DIGEST_ITEMS, donations.size()))) {
+            body.append(String.format("- %s %s of %s (pickup: %s, best before: %s)%n",
+                format(donation.getQuantity()), donation.getUnit(), donation.getFoodType(),
+                donation.getPickupLocation(),
+                donation.getExpiryTime() != null ? donation.getExpiryTime().format(EXPIRY_FORMAT) : "not given"));
+        }
+        if (donations.size() > DIGEST_ITEMS) {
+            body.append(String.format("- and %d more%n", donations.size() - DIGEST_ITEMS));
+        }
+        body.append(String.format("%nLog in to the Food Waste Management System to request them.%n"));
+        return body.toString();
+    }
+    
+    private static String format(Double quantity) {
+        if (quantity == null) {
+            return "";
+        }
+        return quantity == Math.rint(quantity) ? String.valueOf(quantity.longValue()) : String.valueOf(quantity);
+    }
+    
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+}
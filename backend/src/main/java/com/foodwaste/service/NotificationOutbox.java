@@ -0,0 +1,48 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsImportedEvent;
+import com.foodwaste.model.OutboxMessage;
+import com.foodwaste.repository.OutboxMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+// Writes notification work into the outbox inside the transaction that
+// publishes the event, so a notification exists if and only if the change
+// committed. Nothing here looks up recipients or talks to the mail server:
+// the donation request pays for one extra batched INSERT.
+@Component
+public class NotificationOutbox {
+    
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    
+    @Value("${notifications.enabled:false}")
+    private boolean enabled;
+    
+    // A plain @EventListener runs in the publisher's transaction, unlike
+    // @TransactionalEventListener
+    @EventListener
+    public void onDonationChanged(DonationChangedEvent event) {
+        // Imported donations are announced per batch (below), not one email each
+        if (enabled && event.isCreated() && !event.isImported()) {
+            outboxMessageRepository.save(new OutboxMessage(
+                OutboxMessage.Type.DONATION_CREATED, event.getDonation().getId(), LocalDateTime.now()));
+        }
+    }
+    
+    @EventListener
+    public void onDonationsImported(DonationsImportedEvent event) {
+        if (enabled && event.getCount() > 0) {
+            OutboxMessage message = new OutboxMessage(
+                OutboxMessage.Type.DONATIONS_IMPORTED, event.getDonorId(), LocalDateTime.now());
+            message.setBody(event.getDonationIds().stream().map(String::valueOf).collect(Collectors.joining(",")));
+            outboxMessageRepository.save(message);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.OrderRequest;
+import com.foodwaste.dto.PageCursor;
+import com.foodwaste.event.OrderChangedEvent;
+import com.foodwaste.model.*;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class OrderService {
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private DonationReservationService donationReservationService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    public OrderService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    // Claims commit one by one ahead of the order (DonationReservationService),
+    // so no donation row stays locked while the order is built, and no
+    // connection is held while a claim backs off. Whatever was claimed is given
+    // back if the order, or the transaction of a caller that has one, rolls back.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Order placeOrder(User ngo, OrderRequest orderRequest) {
+        OrderRequest.DeliveryDetailsRequest details = orderRequest.getDeliveryDetails();
+        
+        Order order = new Order();
+        order.setNgo(ngo);
+        order.setDeliveryLocation(details.getDeliveryLocation());
+        order.setDeliveryDate(LocalDateTime.parse(details.getDeliveryDate() + "T" + details.getDeliveryTime()));
+        order.setDeliveryTime(details.getDeliveryTime());
+        order.setSpecialInstructions(details.getSpecialInstructions());
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setQrCode(generateQRCodeData(order, orderRequest));
+        
+        // Claim in donation id order so concurrent orders touch shared rows in the same order
+        List<OrderRequest.OrderItemRequest> itemRequests = orderRequest.getItems().stream()
+                .filter(item -> item.getId() != null && item.getRequestedQuantity() != null)
+                .sorted(Comparator.comparing(OrderRequest.OrderItemRequest::getId))
+                .toList();
+        
+        // Load every referenced donation in one query
+        List<Long> donationIds = itemRequests.stream()
+                .map(OrderRequest.OrderItemRequest::getId)
+                .distinct()
+                .toList();
+        Map<Long, Donation> donations = donationRepository.findAllById(donationIds).stream()
+                .collect(Collectors.toMap(Donation::getId, Function.identity()));
+        List<Long> unknown = donationIds.stream().filter(id -> !donations.containsKey(id)).toList();
+        if (!unknown.isEmpty()) {
+            // Rejected before anything is claimed
+            throw new IllegalArgumentException("Unknown donation ids: " + unknown);
+        }
+        
+        // Reserve before building items so each item records what was actually claimed
+        List<OrderItem> orderItems = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    orderItems.forEach(item -> donationReservationService.release(
+                            item.getDonation().getId(), item.getRequestedQuantity()));
+                }
+            }
+        });
+        for (OrderRequest.OrderItemRequest itemRequest : itemRequests) {
+            Donation donation = donations.get(itemRequest.getId());
+            double reserved = donationReservationService.reserve(donation.getId(), itemRequest.getRequestedQuantity());
+            if (reserved > 0) {
+                orderItems.add(new OrderItem(order, donation, reserved, donation.getUnit()));
+            }
+        }
+        
+        if (orderItems.isEmpty()) {
+            throw new RuntimeException("None of the requested donations are available");
+        }
+        order.setOrderItems(orderItems);
+        
+        // Items are cascaded from the order and flushed as a single JDBC batch
+        return transactionTemplate.execute(status -> {
+            Order saved = orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderChangedEvent(saved, null, saved.getStatus()));
+            return saved;
+        });
+    }
+    
+    // Pages come back with the NGO, items and item donations loaded, ready to render
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersPage(PageCursor after, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        return withItems(after == null
+                ? orderRepository.findFirstPage(page)
+                : orderRepository.findPageAfter(after.getCreatedAt(), after.getId(), page));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Order> findByNgoPage(Long ngoId, PageCursor after, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        return withItems(after == null
+                ? orderRepository.findFirstPageByNgo(ngoId, page)
+                : orderRepository.findPageByNgoAfter(ngoId, after.getCreatedAt(), after.getId(), page));
+    }
+    
+    // Walks the whole table page by page, detaching each page once consumed
+    // so the persistence context never holds more than one page
+    @Transactional(readOnly = true)
+    public void forEachOrderPage(int pageSize, Consumer<List<Order>> consumer) {
+        PageCursor cursor = null;
+        while (true) {
+            List<Order> page = getOrdersPage(cursor, pageSize);
+            if (page.isEmpty()) {
+                return;
+            }
+            consumer.accept(page);
+            Order last = page.get(page.size() - 1);
+            cursor = new PageCursor(last.getCreatedAt(), last.getId());
+            entityManager.clear();
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+    }
+    
+    private List<Order> withItems(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            orderRepository.fetchItems(orders);
+        }
+        return orders;
+    }
+    
+    public String generateQRCodeData(Order order, OrderRequest orderRequest) {
+        return String.format(
+            "{\"orderId\":\"%s\",\"deliveryLocation\":\"%s\",\"deliveryDate\":\"%s\",\"deliveryTime\":\"%s\",\"items\":%d,\"timestamp\":\"%s\"}",
+            order.getOrderId(),
+            order.getDeliveryLocation(),
+            orderRequest.getDeliveryDetails().getDeliveryDate(),
+            orderRequest.getDeliveryDetails().getDeliveryTime(),
+            orderRequest.getItems().size(),
+            LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+        );
+    }
+}
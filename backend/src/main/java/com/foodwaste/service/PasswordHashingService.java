@@ -0,0 +1,129 @@
+package com.foodwaste.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Password hashing (~100 ms of CPU per call) on a small pool of its own, so a
+// burst of logins cannot occupy the servlet threads every other endpoint needs.
+// The queue is bounded: when it is full the returned future fails at once with
+// RejectedExecutionException, which AuthController answers with a 429. By
+// default a hash is only queued if the pool should reach it within
+// auth.hashing.max-wait-ms, judged by how long recent hashes took here, so a
+// login waits at most about that long instead of seconds behind a burst on a
+// small machine.
+@Service
+public class PasswordHashingService {
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // 0 = half the available processors
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+    
+    // 0 = admit by expected wait (max-wait-ms) instead of a fixed size
+    @Value("${auth.hashing.queue-size:0}")
+    private int queueSize;
+    
+    @Value("${auth.hashing.max-wait-ms:1000}")
+    private long maxWaitMs;
+    
+    // Starting estimate of one hash, until hashes have been timed
+    @Value("${auth.bcrypt.target-ms:100}")
+    private long hashMs;
+    
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    
+    // Moving average of the time one hash has taken, in nanoseconds. The bcrypt
+    // cost never drops below 10, and a loaded core stretches each hash further,
+    // so this can sit well above target-ms.
+    private final AtomicLong averageHashNanos = new AtomicLong();
+    
+    @PostConstruct
+    public void start() {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // Without a fixed size the queue is only a backstop to the expected-wait check
+        int capacity = queueSize > 0 ? queueSize : (int) Math.max(1, size * maxWaitMs);
+        averageHashNanos.set(TimeUnit.MILLISECONDS.toNanos(Math.max(1, hashMs)));
+        executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), task -> {
+                    Thread thread = new Thread(task, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
+        rejected = meterRegistry.counter("auth.hashing.rejected");
+    }
+    
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+    
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+    
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+    
+    // True for hashes from an older scheme or a lower cost than the current encoder's
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+    
+    private <T> CompletableFuture<T> submit(Supplier<T> hashing) {
+        if (queueSize <= 0 && expectedWaitNanos() > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+            return reject(new RejectedExecutionException("Password hashing wait would exceed " + maxWaitMs + " ms"));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> timed(hashing), executor);
+        } catch (RejectedExecutionException e) {
+            return reject(e);
+        }
+    }
+    
+    // Until a new hash finishes: every queued one and the new one, shared over the pool
+    private long expectedWaitNanos() {
+        return (executor.getQueue().size() + 1) * averageHashNanos.get() / executor.getCorePoolSize();
+    }
+    
+    private <T> T timed(Supplier<T> hashing) {
+        long started = System.nanoTime();
+        try {
+            return hashing.get();
+        } finally {
+            long took = System.nanoTime() - started;
+            // Rises quickly when hashes slow down, so a burst on a cold or busy machine is not overadmitted
+            averageHashNanos.accumulateAndGet(took, (average, sample) ->
+                    average + (sample - average) / (sample > average ? 2 : 8));
+        }
+    }
+    
+    private <T> CompletableFuture<T> reject(RejectedExecutionException e) {
+        rejected.increment();
+        return CompletableFuture.failedFuture(e);
+    }
+}
@@ -0,0 +1,162 @@
+package com.foodwaste.service;
+
+import com.foodwaste.config.CacheConfig;
+import com.foodwaste.model.PointsLedgerEntry;
+import com.foodwaste.repository.PointsLedgerRepository;
+import com.foodwaste.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Gamification points are accumulated in memory per user and written to the
+// database in batches: one ledger row plus one relative UPDATE per user per
+// flush. Awards made inside a transaction only count once it commits, so the
+// awarding transaction itself never touches the users table.
+@Component
+public class PointsLedger {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PointsLedger.class);
+    
+    @Autowired
+    private PointsLedgerRepository pointsLedgerRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    // Awards since the last flush. Adding and draining both go through
+    // compute on the user's entry, so an award cannot land in an adder the
+    // flush has already taken out of the map.
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    
+    // Drained deltas until they are written and the user caches evicted; a
+    // failed write leaves them here for the next flush. Only the flush changes it.
+    private final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+    
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    public PointsLedger(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    public void award(Long userId, int points) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accumulate(userId, points);
+                }
+            });
+        } else {
+            accumulate(userId, points);
+        }
+    }
+    
+    // Points awarded but not yet flushed to the users table. A flush moves a
+    // delta into inFlight before taking its adder out, and this reads the adder
+    // first, so a delta being flushed may briefly count twice but is never missed.
+    public long getPendingPoints(Long userId) {
+        LongAdder adder = pending.get(userId);
+        long unflushed = adder != null ? adder.sum() : 0L;
+        return unflushed + inFlight.getOrDefault(userId, 0L);
+    }
+    
+    @Scheduled(initialDelayString = "${points.flush-interval-ms:5000}",
+               fixedDelayString = "${points.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            // Idle users' adders go with the drain, so the map only holds users
+            // awarded something since the last flush
+            for (Long userId : pending.keySet()) {
+                pending.computeIfPresent(userId, (id, adder) -> {
+                    long delta = adder.sum();
+                    if (delta != 0) {
+                        inFlight.merge(id, delta, Long::sum);
+                    }
+                    return null;
+                });
+            }
+            if (inFlight.isEmpty()) {
+                return;
+            }
+            
+            Map<Long, Integer> batch = new HashMap<>();
+            inFlight.forEach((userId, delta) -> batch.put(userId, delta.intValue()));
+            
+            List<String> usernames;
+            try {
+                usernames = transactionTemplate.execute(status -> write(batch));
+            } catch (RuntimeException e) {
+                // The deltas stay in flight and are retried by the next flush
+                logger.warn("Points flush failed for {} users, will retry: {}", batch.size(), e.getMessage());
+                return;
+            }
+            
+            // Until the evict, cached users still hold the old points total
+            evict(batch.keySet(), usernames);
+            batch.keySet().forEach(inFlight::remove);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+    
+    private List<String> write(Map<Long, Integer> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PointsLedgerEntry> entries = new ArrayList<>();
+        batch.forEach((userId, delta) -> {
+            // Users deleted since the award have nothing to credit
+            if (userRepository.addPoints(userId, delta) > 0) {
+                entries.add(new PointsLedgerEntry(userId, delta, now));
+            }
+        });
+        pointsLedgerRepository.saveAll(entries);
+        return userRepository.findUsernamesByIdIn(batch.keySet());
+    }
+    
+    private void evict(Iterable<Long> userIds, List<String> usernames) {
+        Cache byId = cacheManager.getCache(CacheConfig.USERS_BY_ID);
+        Cache byUsername = cacheManager.getCache(CacheConfig.USERS_BY_USERNAME);
+        if (byId != null) {
+            userIds.forEach(byId::evict);
+        }
+        if (byUsername != null) {
+            usernames.forEach(byUsername::evict);
+        }
+    }
+    
+    private void accumulate(Long userId, int points) {
+        pending.compute(userId, (id, adder) -> {
+            LongAdder target = adder != null ? adder : new LongAdder();
+            target.add(points);
+            return target;
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.UserChangedEvent;
+import com.foodwaste.model.RefreshToken;
+import com.foodwaste.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+// Long-lived, single-use refresh tokens. Login starts a family; each exchange
+// marks the presented token used and issues its successor. A used token that
+// comes back means two parties hold the family (e.g. a stolen copy), so the
+// whole family is revoked and the user has to log in again.
+@Service
+@Transactional
+public class RefreshTokenService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    
+    @Value("${jwt.refresh-expiration}")
+    private long refreshExpirationMs;
+    
+    private final SecureRandom random = new SecureRandom();
+    
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID().toString(), LocalDateTime.now());
+    }
+    
+    // Empty when the token is unknown, expired, revoked or was already exchanged.
+    // Returns rather than throws so the revocation commits.
+    public Optional<Rotation> rotate(String token) {
+        Optional<RefreshToken> found = refreshTokenRepository.findByTokenHash(hash(token));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        RefreshToken current = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (current.isRevoked() || current.getExpiresAt().isBefore(now)) {
+            return Optional.empty();
+        }
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            logger.warn("Refresh token reused for user {}; revoking its family", current.getUserId());
+            refreshTokenRepository.revokeFamily(current.getFamily());
+            return Optional.empty();
+        }
+        
+        return Optional.of(new Rotation(current.getUserId(), create(current.getUserId(), current.getFamily(), now)));
+    }
+    
+    // Logout: the token and every successor stop working
+    public void revoke(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(current -> refreshTokenRepository.revokeFamily(current.getFamily()));
+    }
+    
+    // A new password ends every session started with the old one. Runs in the
+    // updating transaction, so the revocation commits or rolls back with it.
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isPasswordChanged()) {
+            refreshTokenRepository.revokeByUserId(event.getUser().getId());
+        }
+    }
+    
+    @Scheduled(initialDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}",
+               fixedDelayString = "${jwt.refresh-cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+    
+    private String create(Long userId, String family, LocalDateTime now) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(hash(token), userId, family, now,
+                now.plusNanos(refreshExpirationMs * 1_000_000)));
+        return token;
+    }
+    
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    public static class Rotation {
+        private final Long userId;
+        private final String refreshToken;
+        
+        public Rotation(Long userId, String refreshToken) {
+            this.userId = userId;
+            this.refreshToken = refreshToken;
+        }
+        
+        public Long getUserId() { return userId; }
+        public String getRefreshToken() { return refreshToken; }
+    }
+}
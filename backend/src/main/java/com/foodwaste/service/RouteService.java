@@ -0,0 +1,445 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DeliveryChangedEvent;
+import com.foodwaste.model.Delivery;
+import com.foodwaste.model.DeliveryStatus;
+import com.foodwaste.repository.DeliveryRepository;
+import com.foodwaste.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Plans the order in which a volunteer visits pickup and drop-off points.
+// A nearest-neighbour tour seeds 2-opt and or-opt local search; pickups must
+// precede their drop-off, a stop reached before its scheduled pickup time
+// waits, and arriving after a delivery's estimated time is penalised hard
+// enough to act as a constraint. The optimised order is cached per volunteer
+// and patched (cheapest insertion or removal, then local search) as
+// deliveries are added, picked up, delivered or cancelled.
+@Service
+public class RouteService {
+    
+    // Cost per minute of lateness, against one per minute of route duration
+    private static final double LATE_PENALTY = 1000.0;
+    
+    private static final int MAX_PASSES = 50;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+    private static final double EPSILON = 1e-6;
+    
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+    
+    @Value("${routing.speed-kmh:25}")
+    private double speedKmh;
+    
+    @Value("${routing.service-minutes:5}")
+    private double serviceMinutes;
+    
+    private final Map<Long, CachedRoute> routes = new ConcurrentHashMap<>();
+    
+    // Bumped on every delivery change so a tour built from a stale read is not kept
+    private final AtomicLong changes = new AtomicLong();
+    
+    // With a start position the tour is optimised from there and not cached;
+    // without one it starts at its first stop and is served from the cache
+    public RoutePlan getRoute(Long volunteerId, Double startLatitude, Double startLongitude) {
+        double now = minutes(LocalDateTime.now());
+        double[] start = GeoUtils.isValid(startLatitude, startLongitude)
+                ? new double[] { startLatitude, startLongitude }
+                : null;
+        
+        CachedRoute route = start == null
+                ? cachedRoute(volunteerId, now)
+                : build(volunteerId, start, now);
+        return toPlan(volunteerId, route, start, now);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryChanged(DeliveryChangedEvent event) {
+        Delivery delivery = event.getDelivery();
+        if (delivery.getVolunteer() == null) {
+            return;
+        }
+        double now = minutes(LocalDateTime.now());
+        changes.incrementAndGet();
+        routes.computeIfPresent(delivery.getVolunteer().getId(), (id, route) -> patch(route, event, now));
+    }
+    
+    public void evict(Long volunteerId) {
+        routes.remove(volunteerId);
+    }
+    
+    // Built outside the map so the query never runs under a ConcurrentHashMap bin
+    // lock, which would also pin a virtual thread. A change that lands while the
+    // tour is being built either patches it or gets it dropped again.
+    private CachedRoute cachedRoute(Long volunteerId, double now) {
+        CachedRoute cached = routes.get(volunteerId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        long seen = changes.get();
+        CachedRoute route = build(volunteerId, null, now);
+        cached = routes.putIfAbsent(volunteerId, route);
+        if (cached != null) {
+            return cached;
+        }
+        if (changes.get() != seen) {
+            routes.remove(volunteerId, route);
+        }
+        return route;
+    }
+    
+    private CachedRoute build(Long volunteerId, double[] start, double now) {
+        List<Stop> stops = new ArrayList<>();
+        List<Long> unrouted = new ArrayList<>();
+        for (Delivery delivery : deliveryRepository.findByVolunteerAndStatusIn(volunteerId, DeliveryService.ACTIVE_STATUSES)) {
+            List<Stop> deliveryStops = toStops(delivery);
+            if (deliveryStops.isEmpty()) {
+                unrouted.add(delivery.getId());
+            } else {
+                stops.addAll(deliveryStops);
+            }
+        }
+        return new CachedRoute(optimize(nearestNeighbour(stops, start, now), start, now), unrouted);
+    }
+    
+    private CachedRoute patch(CachedRoute route, DeliveryChangedEvent event, double now) {
+        Delivery delivery = event.getDelivery();
+        Long deliveryId = delivery.getId();
+        List<Stop> stops = new ArrayList<>(route.stops);
+        List<Long> unrouted = new ArrayList<>(route.unrouted);
+        
+        if (event.isCreated()) {
+            List<Stop> added = toStops(delivery);
+            if (added.isEmpty()) {
+                unrouted.add(deliveryId);
+                return new CachedRoute(stops, unrouted);
+            }
+            stops = insertCheapest(stops, added, now);
+        } else if (event.getStatus() == DeliveryStatus.PICKED_UP) {
+            stops.removeIf(stop -> stop.deliveryId.equals(deliveryId) && stop.pickup);
+            stops.replaceAll(stop -> stop.deliveryId.equals(deliveryId) ? stop.unpaired() : stop);
+        } else if (event.getStatus() == DeliveryStatus.DELIVERED || event.getStatus() == DeliveryStatus.CANCELLED) {
+            stops.removeIf(stop -> stop.deliveryId.equals(deliveryId));
+            unrouted.remove(deliveryId);
+        } else {
+            return route;
+        }
+        return new CachedRoute(optimize(stops, null, now), unrouted);
+    }
+    
+    // A delivery not yet picked up contributes a pickup and a drop-off; one
+    // already picked up only its drop-off. Without coordinates it cannot be routed.
+    private List<Stop> toStops(Delivery delivery) {
+        boolean pickedUp = delivery.getStatus() == DeliveryStatus.PICKED_UP;
+        boolean canDrop = GeoUtils.isValid(delivery.getDeliveryLatitude(), delivery.getDeliveryLongitude());
+        boolean canPickup = GeoUtils.isValid(delivery.getPickupLatitude(), delivery.getPickupLongitude());
+        if (!canDrop || (!pickedUp && !canPickup)) {
+            return List.of();
+        }
+        
+        double earliest = delivery.getScheduledPickupTime() != null
+                ? minutes(delivery.getScheduledPickupTime()) : Double.NEGATIVE_INFINITY;
+        double latest = delivery.getEstimatedDeliveryTime() != null
+                ? minutes(delivery.getEstimatedDeliveryTime()) : Double.POSITIVE_INFINITY;
+        
+        List<Stop> stops = new ArrayList<>();
+        if (!pickedUp) {
+            stops.add(new Stop(delivery.getId(), true, delivery.getPickupLocation(),
+                    delivery.getPickupLatitude(), delivery.getPickupLongitude(),
+                    earliest, Double.POSITIVE_INFINITY, false));
+        }
+        stops.add(new Stop(delivery.getId(), false, delivery.getDeliveryLocation(),
+                delivery.getDeliveryLatitude(), delivery.getDeliveryLongitude(),
+                Double.NEGATIVE_INFINITY, latest, !pickedUp));
+        return stops;
+    }
+    
+    private List<Stop> nearestNeighbour(List<Stop> stops, double[] start, double now) {
+        List<Stop> remaining = new ArrayList<>(stops);
+        List<Stop> tour = new ArrayList<>();
+        Set<Long> pickedUp = new HashSet<>();
+        double[] position = start;
+        
+        while (!remaining.isEmpty()) {
+            Stop next = null;
+            double nextDistance = Double.POSITIVE_INFINITY;
+            for (Stop stop : remaining) {
+                if (stop.paired && !pickedUp.contains(stop.deliveryId)) {
+                    continue;
+                }
+                // With no position yet, begin at the earliest scheduled pickup
+                double distance = position == null
+                        ? stop.earliest
+                        : GeoUtils.distanceKm(position[0], position[1], stop.latitude, stop.longitude);
+                if (next == null || distance < nextDistance) {
+                    next = stop;
+                    nextDistance = distance;
+                }
+            }
+            remaining.remove(next);
+            tour.add(next);
+            if (next.pickup) {
+                pickedUp.add(next.deliveryId);
+            }
+            position = new double[] { next.latitude, next.longitude };
+        }
+        return tour;
+    }
+    
+    // Best position for the new pickup and drop-off, keeping the pickup first
+    private List<Stop> insertCheapest(List<Stop> stops, List<Stop> added, double now) {
+        Stop pickup = added.size() == 2 ? added.get(0) : null;
+        Stop drop = added.get(added.size() - 1);
+        
+        List<Stop> best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int i = 0; i <= stops.size(); i++) {
+            for (int j = i; j <= stops.size(); j++) {
+                List<Stop> candidate = new ArrayList<>(stops);
+                if (pickup != null) {
+                    candidate.add(j, drop);
+                    candidate.add(i, pickup);
+                } else {
+                    if (j > i) {
+                        break;
+                    }
+                    candidate.add(i, drop);
+                }
+                double cost = evaluate(candidate, null, now).cost;
+                if (best == null || cost < bestCost) {
+                    best = candidate;
+                    bestCost = cost;
+                }
+            }
+        }
+        return best;
+    }
+    
+    // First-improvement 2-opt (segment reversal) and or-opt (moving runs of
+    // up to three stops) until neither finds a cheaper feasible tour
+    List<Stop> optimize(List<Stop> tour, double[] start, double now) {
+        List<Stop> best = new ArrayList<>(tour);
+        double bestCost = evaluate(best, start, now).cost;
+        int n = best.size();
+        
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_PASSES; pass++) {
+            improved = false;
+            
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    List<Stop> candidate = new ArrayList<>(best);
+                    Collections.reverse(candidate.subList(i, j + 1));
+                    double cost = evaluate(candidate, start, now).cost;
+                    if (cost < bestCost - EPSILON) {
+                        best = candidate;
+                        bestCost = cost;
+                        improved = true;
+                    }
+                }
+            }
+            
+            for (int length = 1; length <= Math.min(MAX_OR_OPT_SEGMENT, n - 1); length++) {
+                for (int i = 0; i + length <= n; i++) {
+                    for (int k = 0; k <= n - length; k++) {
+                        if (k == i) {
+                            continue;
+                        }
+                        List<Stop> candidate = new ArrayList<>(best);
+                        List<Stop> segment = new ArrayList<>(candidate.subList(i, i + length));
+                        candidate.subList(i, i + length).clear();
+                        candidate.addAll(k, segment);
+                        double cost = evaluate(candidate, start, now).cost;
+                        if (cost < bestCost - EPSILON) {
+                            best = candidate;
+                            bestCost = cost;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+    
+    // Route duration in minutes plus lateness penalty; infinite if a drop-off precedes its pickup
+    Evaluation evaluate(List<Stop> tour, double[] start, double now) {
+        double[] arrivals = new double[tour.size()];
+        Set<Long> pickedUp = new HashSet<>();
+        double time = now;
+        double distance = 0.0;
+        double late = 0.0;
+        double[] position = start;
+        
+        for (int i = 0; i < tour.size(); i++) {
+            Stop stop = tour.get(i);
+            if (stop.pickup) {
+                pickedUp.add(stop.deliveryId);
+            } else if (stop.paired && !pickedUp.contains(stop.deliveryId)) {
+                return Evaluation.INFEASIBLE;
+            }
+            
+            if (position != null) {
+                double leg = GeoUtils.distanceKm(position[0], position[1], stop.latitude, stop.longitude);
+                distance += leg;
+                time += leg / speedKmh * 60.0;
+            }
+            time = Math.max(time, stop.earliest);
+            arrivals[i] = time;
+            late += Math.max(0.0, time - stop.latest);
+            time += serviceMinutes;
+            position = new double[] { stop.latitude, stop.longitude };
+        }
+        return new Evaluation((time - now) + LATE_PENALTY * late, distance, time - now, late, arrivals);
+    }
+    
+    private RoutePlan toPlan(Long volunteerId, CachedRoute route, double[] start, double now) {
+        Evaluation evaluation = evaluate(route.stops, start, now);
+        List<RouteStop> stops = new ArrayList<>();
+        for (int i = 0; i < route.stops.size(); i++) {
+            Stop stop = route.stops.get(i);
+            stops.add(new RouteStop(i + 1, stop.deliveryId, stop.pickup ? "PICKUP" : "DROP_OFF",
+                    stop.location, stop.latitude, stop.longitude, toDateTime(evaluation.arrivals[i]),
+                    evaluation.arrivals[i] > stop.latest));
+        }
+        return new RoutePlan(volunteerId, stops, route.unrouted, evaluation.distanceKm,
+                evaluation.durationMinutes, evaluation.lateMinutes);
+    }
+    
+    private static double minutes(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / 60_000.0;
+    }
+    
+    private static LocalDateTime toDateTime(double minutes) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) (minutes * 60_000)), ZoneId.systemDefault());
+    }
+    
+    static class Stop {
+        final Long deliveryId;
+        final boolean pickup;
+        final String location;
+        final double latitude;
+        final double longitude;
+        final double earliest;
+        final double latest;
+        // Drop-off whose pickup is still on the route
+        final boolean paired;
+        
+        Stop(Long deliveryId, boolean pickup, String location, double latitude, double longitude,
+             double earliest, double latest, boolean paired) {
+            this.deliveryId = deliveryId;
+            this.pickup = pickup;
+            this.location = location;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.earliest = earliest;
+            this.latest = latest;
+            this.paired = paired;
+        }
+        
+        Stop unpaired() {
+            return new Stop(deliveryId, pickup, location, latitude, longitude, earliest, latest, false);
+        }
+    }
+    
+    static class Evaluation {
+        static final Evaluation INFEASIBLE = new Evaluation(Double.POSITIVE_INFINITY, 0, 0, 0, new double[0]);
+        
+        final double cost;
+        final double distanceKm;
+        final double durationMinutes;
+        final double lateMinutes;
+        final double[] arrivals;
+        
+        Evaluation(double cost, double distanceKm, double durationMinutes, double lateMinutes, double[] arrivals) {
+            this.cost = cost;
+            this.distanceKm = distanceKm;
+            this.durationMinutes = durationMinutes;
+            this.lateMinutes = lateMinutes;
+            this.arrivals = arrivals;
+        }
+    }
+    
+    private static class CachedRoute {
+        private final List<Stop> stops;
+        private final List<Long> unrouted;
+        
+        CachedRoute(List<Stop> stops, List<Long> unrouted) {
+            this.stops = List.copyOf(stops);
+            this.unrouted = List.copyOf(unrouted);
+        }
+    }
+    
+    public static class RouteStop {
+        private final int sequence;
+        private final Long deliveryId;
+        private final String type;
+        private final String location;
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime eta;
+        private final boolean late;
+        
+        public RouteStop(int sequence, Long deliveryId, String type, String location,
+                         double latitude, double longitude, LocalDateTime eta, boolean late) {
+            this.sequence = sequence;
+            this.deliveryId = deliveryId;
+            this.type = type;
+            this.location = location;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.eta = eta;
+            this.late = late;
+        }
+        
+        public int getSequence() { return sequence; }
+        public Long getDeliveryId() { return deliveryId; }
+        public String getType() { return type; }
+        public String getLocation() { return location; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public LocalDateTime getEta() { return eta; }
+        public boolean isLate() { return late; }
+    }
+    
+    public static class RoutePlan {
+        private final Long volunteerId;
+        private final List<RouteStop> stops;
+        private final List<Long> unroutedDeliveryIds;
+        private final double totalDistanceKm;
+        private final double totalMinutes;
+        private final double lateMinutes;
+        
+        public RoutePlan(Long volunteerId, List<RouteStop> stops, List<Long> unroutedDeliveryIds,
+                         double totalDistanceKm, double totalMinutes, double lateMinutes) {
+            this.volunteerId = volunteerId;
+            this.stops = stops;
+            this.unroutedDeliveryIds = unroutedDeliveryIds;
+            this.totalDistanceKm = totalDistanceKm;
+            this.totalMinutes = totalMinutes;
+            this.lateMinutes = lateMinutes;
+        }
+        
+        public Long getVolunteerId() { return volunteerId; }
+        public List<RouteStop> getStops() { return stops; }
+        public List<Long> getUnroutedDeliveryIds() { return unroutedDeliveryIds; }
+        public double getTotalDistanceKm() { return totalDistanceKm; }
+        public double getTotalMinutes() { return totalMinutes; }
+        public double getLateMinutes() { return lateMinutes; }
+    }
+}
@@ -0,0 +1,248 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.event.UserChangedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.util.TextIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Text search over donations, food requests and user addresses, replacing the
+// LIKE '%x%' scans. Seeded from the database at startup and kept in sync by
+// the committed domain events; rebuilt and swapped in like DonationGeoIndex.
+@Component
+public class SearchIndex {
+    
+    public static final String FOOD_TYPE = "foodType";
+    public static final String DESCRIPTION = "description";
+    public static final String LOCATION = "location";
+    public static final String NAME = "name";
+    public static final String ADDRESS = "address";
+    
+    // Most hits any lookup loads from the database; the ids go into one IN list
+    public static final int MAX_HITS = 100;
+    
+    private static final int SEED_PAGE_SIZE = 500;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private FoodRequestRepository foodRequestRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private volatile Indexes indexes = new Indexes();
+    
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    // Changes that arrive while a rebuild is loading, replayed onto the new
+    // indexes before they are swapped in; null when no rebuild is running.
+    // Guarded by writeLock.
+    private List<Consumer<Indexes>> changesDuringRebuild;
+    
+    // Loads into fresh indexes and swaps them in, so searches never see a
+    // half-built index
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writeLock.lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+        
+        Indexes rebuilt = new Indexes();
+        try {
+            List<Donation> donationPage = donationRepository.findFirstPage(PageRequest.of(0, SEED_PAGE_SIZE));
+            while (!donationPage.isEmpty()) {
+                donationPage.forEach(rebuilt::index);
+                Donation last = donationPage.get(donationPage.size() - 1);
+                donationPage = donationRepository.findPageAfter(last.getCreatedAt(), last.getId(),
+                        PageRequest.of(0, SEED_PAGE_SIZE));
+            }
+            
+            List<FoodRequest> requestPage = foodRequestRepository.findFirstPage(PageRequest.of(0, SEED_PAGE_SIZE));
+            while (!requestPage.isEmpty()) {
+                requestPage.forEach(rebuilt::index);
+                FoodRequest last = requestPage.get(requestPage.size() - 1);
+                requestPage = foodRequestRepository.findPageAfter(last.getCreatedAt(), last.getId(),
+                        PageRequest.of(0, SEED_PAGE_SIZE));
+            }
+            
+            List<User> userPage = userRepository.findPageAfterId(0L, PageRequest.of(0, SEED_PAGE_SIZE));
+            while (!userPage.isEmpty()) {
+                userPage.forEach(rebuilt::index);
+                userPage = userRepository.findPageAfterId(userPage.get(userPage.size() - 1).getId(),
+                        PageRequest.of(0, SEED_PAGE_SIZE));
+            }
+        } finally {
+            writeLock.lock();
+            try {
+                changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                changesDuringRebuild = null;
+                indexes = rebuilt;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        Donation donation = event.getDonation();
+        if (event.isDeleted()) {
+            change(target -> target.removeDonation(donation.getId()));
+        } else {
+            change(target -> target.index(donation));
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        change(target -> event.getDonationIds()
+                .forEach(id -> target.donationStatuses.replace(id, DonationStatus.EXPIRED)));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodRequestChanged(FoodRequestChangedEvent event) {
+        FoodRequest request = event.getRequest();
+        if (event.isDeleted()) {
+            change(target -> target.removeRequest(request.getId()));
+        } else {
+            change(target -> target.index(request));
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (event.isDeleted()) {
+            change(target -> target.removeUser(user.getId()));
+        } else {
+            change(target -> target.index(user));
+        }
+    }
+    
+    // fields == null searches food type, description and location; status == null matches any
+    public List<TextIndex.Hit<Long>> searchDonations(String query, Set<String> fields,
+                                                     DonationStatus status, int limit) {
+        Indexes current = indexes;
+        return current.donations.search(query, fields, limit, matches(current.donationStatuses, status));
+    }
+    
+    public List<TextIndex.Hit<Long>> searchRequests(String query, Set<String> fields,
+                                                    RequestStatus status, int limit) {
+        Indexes current = indexes;
+        return current.requests.search(query, fields, limit, matches(current.requestStatuses, status));
+    }
+    
+    public List<TextIndex.Hit<Long>> searchUsers(String query, Set<String> fields,
+                                                 UserRole role, int limit) {
+        Indexes current = indexes;
+        return current.users.search(query, fields, limit, matches(current.userRoles, role));
+    }
+    
+    public Map<String, Integer> getSizes() {
+        Indexes current = indexes;
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("donations", current.donations.size());
+        sizes.put("requests", current.requests.size());
+        sizes.put("users", current.users.size());
+        return sizes;
+    }
+    
+    private void change(Consumer<Indexes> change) {
+        writeLock.lock();
+        try {
+            change.accept(indexes);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    private static <V> Predicate<Long> matches(Map<Long, V> values, V expected) {
+        return expected == null ? id -> true : id -> expected == values.get(id);
+    }
+    
+    // Written only under writeLock; searches read alongside
+    private static class Indexes {
+        private final TextIndex<Long> donations = new TextIndex<>();
+        private final TextIndex<Long> requests = new TextIndex<>();
+        private final TextIndex<Long> users = new TextIndex<>();
+        
+        // Kept alongside the text so searches can filter without touching the database
+        private final Map<Long, DonationStatus> donationStatuses = new ConcurrentHashMap<>();
+        private final Map<Long, RequestStatus> requestStatuses = new ConcurrentHashMap<>();
+        private final Map<Long, UserRole> userRoles = new ConcurrentHashMap<>();
+        
+        void index(Donation donation) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FOOD_TYPE, donation.getFoodType());
+            fields.put(DESCRIPTION, donation.getDescription());
+            fields.put(LOCATION, donation.getPickupLocation());
+            donations.put(donation.getId(), fields);
+            donationStatuses.put(donation.getId(), donation.getStatus());
+        }
+        
+        void removeDonation(Long id) {
+            donations.remove(id);
+            donationStatuses.remove(id);
+        }
+        
+        void index(FoodRequest request) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FOOD_TYPE, request.getFoodTypeNeeded());
+            fields.put(DESCRIPTION, request.getDescription());
+            fields.put(LOCATION, request.getDeliveryLocation());
+            requests.put(request.getId(), fields);
+            requestStatuses.put(request.getId(), request.getStatus());
+        }
+        
+        void removeRequest(Long id) {
+            requests.remove(id);
+            requestStatuses.remove(id);
+        }
+        
+        void index(User user) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put(NAME, user.getName());
+            fields.put(ADDRESS, user.getAddress());
+            users.put(user.getId(), fields);
+            userRoles.put(user.getId(), user.getRole());
+        }
+        
+        void removeUser(Long id) {
+            users.remove(id);
+            userRoles.remove(id);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.event.UserChangedEvent;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Supplier;
+
+// Dashboard counters kept in memory. Seeded from the database at startup,
+// moved incrementally by committed domain events and periodically
+// reconciled against the database to correct any drift.
+@Component
+public class StatsAggregate {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DonationRepository donationRepository;
+
+    @Autowired
+    private FoodRequestRepository foodRequestRepository;
+
+    private final Map<UserRole, AtomicLong> usersByRole = new EnumMap<>(UserRole.class);
+    private final Map<DonationStatus, AtomicLong> donationsByStatus = new EnumMap<>(DonationStatus.class);
+    private final Map<RequestStatus, AtomicLong> requestsByStatus = new EnumMap<>(RequestStatus.class);
+    private final DoubleAdder foodSaved = new DoubleAdder();
+    private final AtomicLong peopleServed = new AtomicLong();
+
+    public StatsAggregate() {
+        for (UserRole role : UserRole.values()) {
+            usersByRole.put(role, new AtomicLong());
+        }
+        for (DonationStatus status : DonationStatus.values()) {
+            donationsByStatus.put(status, new AtomicLong());
+        }
+        for (RequestStatus status : RequestStatus.values()) {
+            requestsByStatus.put(status, new AtomicLong());
+        }
+    }
+
+    // Each counter moves by the difference between the recount and its value
+    // read just before the query, rather than being set, so events applied
+    // while a query runs are kept on top of it
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${stats.reconcile-interval-ms:300000}",
+               fixedDelayString = "${stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        reconcileCounts(usersByRole, userRepository::countGroupedByRole);
+        reconcileCounts(donationsByStatus, donationRepository::countGroupedByStatus);
+        reconcileCounts(requestsByStatus, foodRequestRepository::countGroupedByStatus);
+
+        double savedBefore = foodSaved.sum();
+        Double saved = donationRepository.getTotalFoodSaved();
+        foodSaved.add((saved != null ? saved : 0.0) - savedBefore);
+
+        long servedBefore = peopleServed.get();
+        Long served = foodRequestRepository.getTotalPeopleServed();
+        peopleServed.addAndGet((served != null ? served : 0L) - servedBefore);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getPreviousRole() == event.getRole()) {
+            return;
+        }
+        if (event.getPreviousRole() != null) {
+            usersByRole.get(event.getPreviousRole()).decrementAndGet();
+        }
+        if (event.getRole() != null) {
+            usersByRole.get(event.getRole()).incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        if (!event.isStatusChange()) {
+            return;
+        }
+        double quantity = event.getDonation().getQuantity() != null ? event.getDonation().getQuantity() : 0.0;
+        if (event.getPreviousStatus() != null) {
+            donationsByStatus.get(event.getPreviousStatus()).decrementAndGet();
+            if (event.getPreviousStatus() == DonationStatus.DELIVERED) {
+                foodSaved.add(-quantity);
+            }
+        }
+        if (event.getStatus() != null) {
+            donationsByStatus.get(event.getStatus()).incrementAndGet();
+            if (event.getStatus() == DonationStatus.DELIVERED) {
+                foodSaved.add(quantity);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        donationsByStatus.get(DonationStatus.PENDING).addAndGet(-event.getCount());
+        donationsByStatus.get(DonationStatus.EXPIRED).addAndGet(event.getCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodRequestChanged(FoodRequestChangedEvent event) {
+        if (!event.isStatusChange()) {
+            return;
+        }
+        long served = event.getRequest().getPeopleServed() != null ? event.getRequest().getPeopleServed() : 0L;
+        if (event.getPreviousStatus() != null) {
+            requestsByStatus.get(event.getPreviousStatus()).decrementAndGet();
+            if (event.getPreviousStatus() == RequestStatus.FULFILLED) {
+                peopleServed.addAndGet(-served);
+            }
+        }
+        if (event.getStatus() != null) {
+            requestsByStatus.get(event.getStatus()).incrementAndGet();
+            if (event.getStatus() == RequestStatus.FULFILLED) {
+                peopleServed.addAndGet(served);
+            }
+        }
+    }
+
+    public long getUserCount(UserRole role) {
+        return usersByRole.get(role).get();
+    }
+
+    public long getDonationCount(DonationStatus status) {
+        return donationsByStatus.get(status).get();
+    }
+
+    public long getTotalDonations() {
+        return donationsByStatus.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public long getRequestCount(RequestStatus status) {
+        return requestsByStatus.get(status).get();
+    }
+
+    public long getTotalRequests() {
+        return requestsByStatus.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public double getTotalFoodSaved() {
+        return foodSaved.sum();
+    }
+
+    public long getTotalPeopleServed() {
+        return peopleServed.get();
+    }
+
+    private <K> void reconcileCounts(Map<K, AtomicLong> counters, Supplier<List<Object[]>> count) {
+        Map<K, Long> before = new HashMap<>();
+        counters.forEach((key, counter) -> before.put(key, counter.get()));
+
+        Map<Object, Long> counted = new HashMap<>();
+        for (Object[] row : count.get()) {
+            counted.put(row[0], (Long) row[1]);
+        }
+        counters.forEach((key, counter) -> counter.addAndGet(counted.getOrDefault(key, 0L) - before.get(key)));
+    }
+}
@@ -0,0 +1,313 @@
+package com.foodwaste.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fans change events out to server-sent event subscribers. Publishing never
+// blocks: each event is serialized once and offered to every subscriber's
+// bounded queue, and a sender task drains the queue onto the connection from
+// a fixed pool of sender threads.
+// A subscriber whose queue overflows is disconnected and can reconnect with
+// Last-Event-ID; recent events are kept so short gaps replay instead of
+// forcing a reload.
+@Component
+public class StreamBroadcaster {
+    
+    public static final String DONATIONS = "donations";
+    public static final String REQUESTS = "requests";
+    public static final Set<String> TOPICS = Set.of(DONATIONS, REQUESTS);
+    
+    // Sent instead of a replay when the client's last event is no longer retained
+    public static final String RESYNC = "resync";
+    
+    private static final Logger logger = LoggerFactory.getLogger(StreamBroadcaster.class);
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${stream.buffer-size:256}")
+    private int bufferSize;
+    
+    @Value("${stream.replay-size:1000}")
+    private int replaySize;
+    
+    @Value("${stream.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    @Value("${stream.retry-ms:3000}")
+    private long retryMs;
+    
+    // A sender blocked on a stalled connection holds its thread until the write
+    // fails, so this caps how many stalled clients can delay the rest
+    @Value("${stream.sender-threads:8}")
+    private int senderThreads;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Event ids are "<epoch>-<sequence>" so ids from before a restart are recognised
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private long sequence;
+    private final ArrayDeque<Event> history = new ArrayDeque<>();
+    private final ReentrantLock publishLock = new ReentrantLock();
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private final AtomicInteger senderCount = new AtomicInteger();
+    private ThreadPoolExecutor senders;
+    
+    @PostConstruct
+    public void start() {
+        // A subscriber has at most one drain task queued, so the queue is bounded
+        // by the number of subscribers
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "stream-sender-" + senderCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ExecutorServiceMetrics.monitor(meterRegistry, senders, "streamSending");
+    }
+    
+    // topics == null subscribes to everything
+    public SseEmitter subscribe(Set<String> topics, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, topics);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> close(subscriber));
+        
+        subscriber.queue.offer(Event.hello());
+        publishLock.lock();
+        try {
+            if (lastEventId != null) {
+                List<Event> missed = missedSince(lastEventId);
+                if (missed == null || missed.size() >= bufferSize) {
+                    subscriber.queue.offer(Event.named(null, RESYNC, "{}"));
+                } else {
+                    missed.stream().filter(subscriber::wants).forEach(subscriber.queue::offer);
+                }
+            }
+            subscribers.add(subscriber);
+        } finally {
+            publishLock.unlock();
+        }
+        schedule(subscriber);
+        return emitter;
+    }
+    
+    public void publish(String topic, String name, Object payload) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize {} event: {}", name, e.getMessage());
+            return;
+        }
+        
+        List<Subscriber> ready = new ArrayList<>();
+        publishLock.lock();
+        try {
+            Event event = Event.named(topic, name, data);
+            event.id = epoch + "-" + (++sequence);
+            history.addLast(event);
+            if (history.size() > replaySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.wants(event) && subscriber.offer(event)) {
+                    ready.add(subscriber);
+                }
+            }
+        } finally {
+            publishLock.unlock();
+        }
+        ready.forEach(this::schedule);
+    }
+    
+    // Keeps idle connections alive through proxies and notices clients that went away
+    @Scheduled(initialDelayString = "${stream.heartbeat-ms:15000}",
+               fixedDelayString = "${stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(Event.heartbeat())) {
+                schedule(subscriber);
+            }
+        }
+    }
+    
+    public int getSubscriberCount() { return subscribers.size(); }
+    public long getDroppedCount() { return dropped.get(); }
+    
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+    
+    // Events after lastEventId, or null when they are no longer all retained
+    private List<Event> missedSince(String lastEventId) {
+        int dash = lastEventId.lastIndexOf('-');
+        if (dash < 0 || !lastEventId.substring(0, dash).equals(epoch)) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = sequence - history.size() + 1;
+        if (last > sequence || last < oldest - 1) {
+            return null;
+        }
+        List<Event> missed = new ArrayList<>();
+        history.stream().skip(last - oldest + 1).forEach(missed::add);
+        return missed;
+    }
+    
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+    
+    private void drain(Subscriber subscriber) {
+        try {
+            Event event;
+            while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(event.toSse(retryMs));
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        
+        if (subscriber.closed) {
+            // Overflowed: end the response so the client reconnects and replays
+            if (subscribers.remove(subscriber)) {
+                subscriber.emitter.complete();
+            }
+        } else if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+    
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+    
+    private class Subscriber {
+        
+        private final SseEmitter emitter;
+        private final Set<String> topics;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        
+        Subscriber(SseEmitter emitter, Set<String> topics) {
+            this.emitter = emitter;
+            this.topics = topics;
+        }
+        
+        boolean wants(Event event) {
+            return topics == null || topics.contains(event.topic);
+        }
+        
+        // Returns true when a sender needs to run; a full queue marks the subscriber closed
+        boolean offer(Event event) {
+            if (closed) {
+                return false;
+            }
+            if (!queue.offer(event)) {
+                closed = true;
+                queue.clear();
+                dropped.incrementAndGet();
+                logger.info("Dropping slow stream subscriber after {} queued events", bufferSize);
+            }
+            return true;
+        }
+    }
+    
+    private static class Event {
+        
+        // First thing on every connection; also tells the client how soon to reconnect
+        private static final Event HELLO = new Event(null, null, null, "connected");
+        private static final Event HEARTBEAT = new Event(null, null, null, "heartbeat");
+        
+        private String id;
+        private final String topic;
+        private final String name;
+        private final String data;
+        private final String comment;
+        
+        private Event(String topic, String name, String data, String comment) {
+            this.topic = topic;
+            this.name = name;
+            this.data = data;
+            this.comment = comment;
+        }
+        
+        static Event named(String topic, String name, String data) {
+            return new Event(topic, name, data, null);
+        }
+        
+        static Event hello() {
+            return HELLO;
+        }
+        
+        static Event heartbeat() {
+            return HEARTBEAT;
+        }
+        
+        SseEmitter.SseEventBuilder toSse(long retryMs) {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event();
+            if (comment != null) {
+                builder.comment(comment);
+                if (this == HELLO) {
+                    builder.reconnectTime(retryMs);
+                }
+                return builder;
+            }
+            if (id != null) {
+                builder.id(id);
+            }
+            return builder.name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.event.DeliveryChangedEvent;
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.event.OrderChangedEvent;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.StateTransition;
+import com.foodwaste.model.StateTransition.EntityType;
+import com.foodwaste.repository.StateTransitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Append-only log of every committed status transition. Listeners only put a
+// row into a bounded in-memory ring; a scheduled flush writes whatever has
+// accumulated as one batched INSERT. When the ring fills up faster than the
+// flush drains it, the thread that finds it full flushes instead of dropping;
+// one that still holds a connection hands the flush to a helper thread and
+// waits briefly for room (see record). Rows whose write failed wait in a
+// bounded retry list; what does not fit is dropped and counted. The log can be
+// replayed in write order to rebuild projections as of any time.
+@Component
+public class TransitionLog {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransitionLog.class);
+    
+    @Autowired
+    private StateTransitionRepository stateTransitionRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${audit.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${audit.retry-limit:8192}")
+    private int retryLimit;
+    
+    @Value("${audit.overflow-wait-ms:500}")
+    private long overflowWaitMs;
+    
+    private final TransactionTemplate transactionTemplate;
+    
+    private final BlockingQueue<StateTransition> ring;
+    
+    // Rows whose write failed, retried ahead of the ring, at most retryLimit of
+    // them; guarded by flushLock
+    private final List<StateTransition> retry = new ArrayList<>();
+    
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    // Flushes on behalf of listeners that found the ring full while holding a connection
+    private final ExecutorService overflowFlusher = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "transition-log-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean overflowFlushQueued = new AtomicBoolean();
+    
+    private Counter written;
+    private Counter overflows;
+    private Counter dropped;
+    
+    public TransitionLog(PlatformTransactionManager transactionManager,
+                         @Value("${audit.buffer-size:8192}") int bufferSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Listeners run after the business transaction has committed, while its
+        // resources are still bound; the log write needs a transaction of its own
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ring = new ArrayBlockingQueue<>(bufferSize);
+    }
+    
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("audit.transitions.pending", ring, BlockingQueue::size);
+        written = meterRegistry.counter("audit.transitions.written");
+        overflows = meterRegistry.counter("audit.transitions.overflows");
+        dropped = meterRegistry.counter("audit.transitions.dropped");
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationChanged(DonationChangedEvent event) {
+        if (event.isStatusChange()) {
+            record(EntityType.DONATION, event.getDonation().getId(),
+                    name(event.getPreviousStatus()), name(event.getStatus()), null);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationClaimed(DonationClaimedEvent event) {
+        String pending = DonationStatus.PENDING.name();
+        record(EntityType.DONATION, event.getDonationId(), pending, pending, event.getQuantity());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDonationsExpired(DonationsExpiredEvent event) {
+        for (Long donationId : event.getDonationIds()) {
+            record(EntityType.DONATION, donationId,
+                    DonationStatus.PENDING.name(), DonationStatus.EXPIRED.name(), null);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFoodRequestChanged(FoodRequestChangedEvent event) {
+        if (event.isStatusChange()) {
+            record(EntityType.FOOD_REQUEST, event.getRequest().getId(),
+                    name(event.getPreviousStatus()), name(event.getStatus()), null);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (event.getPreviousStatus() != event.getStatus()) {
+            record(EntityType.ORDER, event.getOrder().getId(),
+                    name(event.getPreviousStatus()), name(event.getStatus()), null);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryChanged(DeliveryChangedEvent event) {
+        if (event.isStatusChange()) {
+            record(EntityType.DELIVERY, event.getDelivery().getId(),
+                    name(event.getPreviousStatus()), name(event.getStatus()), null);
+        }
+    }
+    
+    // Transitions of one entity, oldest first
+    public List<StateTransition> history(EntityType entityType, Long entityId) {
+        // Unflushed transitions of this entity are written first rather than merged,
+        // so a read never sees a row twice or misses one that is mid-write
+        if (isPending(entityType, entityId)) {
+            flush();
+        }
+        return stateTransitionRepository.findByEntityTypeAndEntityIdOrderByIdAsc(entityType, entityId);
+    }
+    
+    // Feeds every transition up to the given time to the consumer, in write order,
+    // one page at a time
+    public void replay(LocalDateTime until, int pageSize, Consumer<List<StateTransition>> pageConsumer) {
+        flush();
+        long afterId = 0;
+        List<StateTransition> page;
+        do {
+            page = stateTransitionRepository.findPageAfter(afterId, until, PageRequest.of(0, pageSize));
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
+    
+    // A projection rebuilt from the log: how many entities of a type were in each
+    // status at the given time. Only entities created since the log was
+    // introduced are counted.
+    public Map<String, Long> statusCountsAt(EntityType entityType, LocalDateTime at, int pageSize) {
+        Map<Long, String> statusById = new HashMap<>();
+        replay(at, pageSize, page -> {
+            for (StateTransition transition : page) {
+                if (transition.getEntityType() != entityType) {
+                    continue;
+                }
+                if (transition.getToStatus() == null) {
+                    statusById.remove(transition.getEntityId());
+                } else {
+                    statusById.put(transition.getEntityId(), transition.getToStatus());
+                }
+            }
+        });
+        
+        Map<String, Long> counts = new TreeMap<>();
+        statusById.values().forEach(status -> counts.merge(status, 1L, Long::sum));
+        return counts;
+    }
+    
+    @Scheduled(initialDelayString = "${audit.flush-interval-ms:1000}",
+               fixedDelayString = "${audit.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            writePending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        overflowFlusher.shutdownNow();
+        flush();
+    }
+    
+    private void record(EntityType entityType, Long entityId, String fromStatus, String toStatus, Double quantity) {
+        StateTransition transition = new StateTransition(entityType, entityId, fromStatus, toStatus,
+                quantity, currentActorId(), LocalDateTime.now());
+        while (!ring.offer(transition)) {
+            overflows.increment();
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                // Listeners run after commit while the business transaction still holds
+                // its connection. A flush from here would wait for a second one, and
+                // enough such threads hold the whole pool, so the one helper thread
+                // flushes and this thread waits a bounded time for room.
+                overflowWait(transition);
+                return;
+            }
+            
+            // Back-pressure: the caller pays for a batch write instead of losing the row
+            flushLock.lock();
+            try {
+                if (ring.offer(transition)) {
+                    return;
+                }
+                if (!writePending()) {
+                    // The database is refusing writes; keep the row with the failed batch
+                    park(transition);
+                    return;
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+    
+    private void overflowWait(StateTransition transition) {
+        if (overflowFlushQueued.compareAndSet(false, true)) {
+            overflowFlusher.execute(() -> {
+                overflowFlushQueued.set(false);
+                flush();
+            });
+        }
+        try {
+            if (ring.offer(transition, overflowWaitMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            // Still full, most likely because writes are failing; park the row with
+            // the failed batch if the flush lets go of the lock in time
+            if (flushLock.tryLock(overflowWaitMs, TimeUnit.MILLISECONDS)) {
+                try {
+                    park(transition);
+                } finally {
+                    flushLock.unlock();
+                }
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.increment();
+    }
+    
+    // Puts a row that found the ring full into the retry list behind the rows
+    // still in the ring, which are older, so the log keeps record order. When
+    // they do not all fit, the new row is the one dropped. Callers hold flushLock.
+    private void park(StateTransition transition) {
+        ring.drainTo(retry, Math.max(0, retryLimit - retry.size()));
+        if (ring.isEmpty()) {
+            keep(List.of(transition));
+        } else {
+            dropped.increment();
+            logger.warn("Transition log retry list is full, dropped 1 row");
+        }
+    }
+    
+    // Adds rows to the retry list up to retryLimit and drops the rest.
+    // Callers hold flushLock.
+    private void keep(List<StateTransition> rows) {
+        int kept = Math.min(rows.size(), Math.max(0, retryLimit - retry.size()));
+        retry.addAll(rows.subList(0, kept));
+        if (kept < rows.size()) {
+            dropped.increment(rows.size() - kept);
+            logger.warn("Transition log retry list is full, dropped {} rows", rows.size() - kept);
+        }
+    }
+    
+    // Writes the retry list and the ring in batches; false if a write failed.
+    // Callers hold flushLock.
+    private boolean writePending() {
+        List<StateTransition> batch;
+        do {
+            batch = new ArrayList<>(retry);
+            retry.clear();
+            ring.drainTo(batch, Math.max(0, batchSize - batch.size()));
+            if (batch.isEmpty()) {
+                return true;
+            }
+            
+            List<StateTransition> toWrite = batch;
+            try {
+                transactionTemplate.executeWithoutResult(status -> stateTransitionRepository.saveAll(toWrite));
+            } catch (RuntimeException e) {
+                // Ids were handed out for the rolled-back insert; new ones are taken on retry
+                batch.forEach(transition -> transition.setId(null));
+                keep(batch);
+                logger.warn("Transition log flush failed for {} rows, will retry: {}", batch.size(), e.getMessage());
+                return false;
+            }
+            written.increment(batch.size());
+        } while (batch.size() >= batchSize);
+        return true;
+    }
+    
+    private boolean isPending(EntityType entityType, Long entityId) {
+        if (ring.stream().anyMatch(transition -> isOf(transition, entityType, entityId))) {
+            return true;
+        }
+        flushLock.lock();
+        try {
+            return retry.stream().anyMatch(transition -> isOf(transition, entityType, entityId));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    private static boolean isOf(StateTransition transition, EntityType entityType, Long entityId) {
+        return transition.getEntityType() == entityType && transition.getEntityId().equals(entityId);
+    }
+    
+    private static Long currentActorId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser caller) {
+            return caller.getId();
+        }
+        return null;
+    }
+    
+    private static String name(Enum<?> status) {
+        return status != null ? status.name() : null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.foodwaste.service;
+
+import com.foodwaste.config.CacheConfig;
+import com.foodwaste.dto.UserSnapshot;
+import com.foodwaste.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+// Cached id and username lookups behind UserService. What is cached is a
+// UserSnapshot, never the entity a persistence context loaded; UserService
+// turns it into a fresh User per call and owns the evictions.
+@Component
+public class UserLookup {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_ID, key = "#id", unless = "#result == null")
+    public Optional<UserSnapshot> findById(Long id) {
+        return userRepository.findById(id).map(UserSnapshot::new);
+    }
+    
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#username", unless = "#result == null")
+    public Optional<UserSnapshot> findByUsername(String username) {
+        return userRepository.findByUsername(username).map(UserSnapshot::new);
+    }
+}
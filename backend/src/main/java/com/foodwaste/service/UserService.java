@@ -1,18 +1,31 @@
 package com.foodwaste.service;
 
+import com.foodwaste.config.CacheConfig;
+import com.foodwaste.dto.UserSnapshot;
+import com.foodwaste.event.UserChangedEvent;
 import com.foodwaste.model.User;
 import com.foodwaste.model.UserRole;
 import com.foodwaste.repository.UserRepository;
+import com.foodwaste.util.TextIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -24,6 +37,18 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PointsLedger pointsLedger;
+    
+    @Autowired
+    private SearchIndex searchIndex;
+    
+    @Autowired
+    private UserLookup userLookup;
+    
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
@@ -34,23 +59,44 @@ public class UserService implements UserDetailsService {
     public User createUser(User user) {
         // Encode password
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        return createUserWithEncodedPassword(user);
+    }
+    
+    // For passwords already hashed off the request thread (PasswordHashingService)
+    public User createUserWithEncodedPassword(User user) {
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved, null, saved.getRole()));
+        return saved;
+    }
+    
+    // Replaces a hash from an older scheme or cost after a successful login. The
+    // password itself is unchanged, so no UserChangedEvent and no token revocation.
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.USERS_BY_ID, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    })
+    public void upgradePassword(Long id, String encodedPassword) {
+        userRepository.updatePassword(id, encodedPassword);
     }
     
     public boolean checkPassword(String rawPassword, String encodedPassword) {
         return passwordEncoder.matches(rawPassword, encodedPassword);
     }
     
+    // Cached (UserLookup); each call returns its own detached copy. SUPPORTS so a
+    // cache hit outside a transaction does not start one.
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userLookup.findByUsername(username).map(UserSnapshot::toUser);
     }
     
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<User> findById(Long id) {
-        return userRepository.findById(id);
+        return userLookup.findById(id).map(UserSnapshot::toUser);
     }
     
     public List<User> findByRole(UserRole role) {
@@ -62,11 +108,29 @@ public class UserService implements UserDetailsService {
     }
     
     public List<User> findNearbyNGOs(String location) {
-        return userRepository.findByLocationAndRole(location, UserRole.NGO);
+        return findByAddressAndRole(location, UserRole.NGO);
     }
     
     public List<User> findNearbyVolunteers(String location) {
-        return userRepository.findByLocationAndRole(location, UserRole.VOLUNTEER);
+        return findByAddressAndRole(location, UserRole.VOLUNTEER);
+    }
+    
+    public List<User> findSearchHits(List<TextIndex.Hit<Long>> hits) {
+        Map<Long, User> users = userRepository.findAllById(hits.stream()
+                .map(TextIndex.Hit::getKey)
+                .toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        
+        return hits.stream()
+                .map(hit -> users.get(hit.getKey()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+    
+    private List<User> findByAddressAndRole(String location, UserRole role) {
+        return findSearchHits(searchIndex.searchUsers(
+            location, Set.of(SearchIndex.ADDRESS), role, Integer.MAX_VALUE));
     }
     
     public boolean existsByUsername(String username) {
@@ -77,19 +141,43 @@ public class UserService implements UserDetailsService {
         return userRepository.existsByEmail(email);
     }
     
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.USERS_BY_ID, key = "#user.id"),
+        @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    })
     public User updateUser(User user) {
-        return userRepository.save(user);
+        UserRole previousRole = null;
+        String previousPassword = null;
+        if (user.getId() != null) {
+            previousRole = userRepository.findRoleById(user.getId());
+            previousPassword = userRepository.findPasswordById(user.getId());
+        }
+        User saved = userRepository.save(user);
+        boolean passwordChanged = previousPassword != null && !previousPassword.equals(saved.getPassword());
+        eventPublisher.publishEvent(new UserChangedEvent(saved, previousRole, saved.getRole(), passwordChanged));
+        return saved;
+    }
+    
+    // Credited asynchronously through the points ledger; no users row is written here
+    public void addPoints(Long userId, Integer points) {
+        pointsLedger.award(userId, points);
     }
     
-    public User addPoints(Long userId, Integer points) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setPoints(user.getPoints() + points);
-        return userRepository.save(user);
+    // Persisted points plus awards the ledger has not flushed yet
+    public Integer getCurrentPoints(User user) {
+        int persisted = user.getPoints() != null ? user.getPoints() : 0;
+        return persisted + (int) pointsLedger.getPendingPoints(user.getId());
     }
     
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.USERS_BY_ID, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    })
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.delete(user);
+            eventPublisher.publishEvent(new UserChangedEvent(user, user.getRole(), null));
+        });
     }
     
     public List<User> getAllUsers() {
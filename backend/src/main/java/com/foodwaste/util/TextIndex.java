@@ -0,0 +1,260 @@
+package com.foodwaste.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+// In-memory trigram inverted index over named text fields. Text is split into
+// lowercase alphanumeric tokens and each token into padded trigrams ("$ri",
+// "ric", "ice", "ce$"), so a query token finds documents holding the same
+// token, a token containing it, or one within a small edit distance of it.
+// Every query token must match (AND); hits are ranked by summed similarity.
+public class TextIndex<K> {
+    
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.9;
+    private static final double CONTAINS = 0.75;
+    private static final double FUZZY = 0.6;
+    
+    private final Map<String, Set<K>> postings = new ConcurrentHashMap<>();
+    
+    // field -> tokens, per indexed document
+    private final Map<K, Map<String, Set<String>>> documents = new ConcurrentHashMap<>();
+    
+    // Replaces whatever was indexed for key; null field values are skipped.
+    // Runs inside the key's compute, so two updates of one key cannot
+    // interleave their posting changes.
+    public void put(K key, Map<String, String> fields) {
+        Map<String, Set<String>> tokensByField = new HashMap<>();
+        fields.forEach((field, text) -> {
+            Set<String> tokens = tokenize(text);
+            if (!tokens.isEmpty()) {
+                tokensByField.put(field, tokens);
+            }
+        });
+        
+        documents.compute(key, (k, previous) -> {
+            if (previous != null) {
+                removePostings(k, previous);
+            }
+            if (tokensByField.isEmpty()) {
+                return null;
+            }
+            for (String gram : grams(tokensByField)) {
+                postings.compute(gram, (g, keys) -> {
+                    Set<K> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                    updated.add(k);
+                    return updated;
+                });
+            }
+            return tokensByField;
+        });
+    }
+    
+    public void remove(K key) {
+        documents.computeIfPresent(key, (k, previous) -> {
+            removePostings(k, previous);
+            return null;
+        });
+    }
+    
+    public int size() {
+        return documents.size();
+    }
+    
+    // fields == null searches every field
+    public List<Hit<K>> search(String query, Set<String> fields, int limit, Predicate<K> filter) {
+        Set<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<K, Double> scores = null;
+        for (String queryToken : queryTokens) {
+            Map<K, Double> tokenScores = matchToken(queryToken, fields, scores != null ? scores.keySet() : null);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                for (Map.Entry<K, Double> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+        
+        List<Hit<K>> hits = new ArrayList<>();
+        scores.forEach((key, score) -> {
+            if (filter == null || filter.test(key)) {
+                hits.add(new Hit<>(key, score));
+            }
+        });
+        hits.sort(Comparator.comparingDouble((Hit<K> hit) -> hit.getScore()).reversed());
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+    
+    private Map<K, Double> matchToken(String queryToken, Set<String> fields, Set<K> restrictTo) {
+        List<String> queryGrams = trigrams(queryToken);
+        int maxEdits = maxEdits(queryToken);
+        
+        // An insertion, deletion or substitution touches at most 3 trigrams and an
+        // adjacent transposition at most 4 ("bread" and "braed" share only "$br"),
+        // so a token within maxEdits shares at least grams - 4 * maxEdits; one
+        // that merely contains the query loses the two padded end grams
+        int minShared = Math.max(1, queryGrams.size() - Math.max(4 * maxEdits, 2));
+        
+        Map<K, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<K> keys = postings.get(gram);
+            if (keys == null) {
+                continue;
+            }
+            for (K key : keys) {
+                if (restrictTo == null || restrictTo.contains(key)) {
+                    shared.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        
+        Map<K, Double> scores = new HashMap<>();
+        shared.forEach((key, count) -> {
+            if (count < minShared) {
+                return;
+            }
+            Map<String, Set<String>> document = documents.get(key);
+            if (document == null) {
+                return;
+            }
+            double best = 0.0;
+            for (Map.Entry<String, Set<String>> field : document.entrySet()) {
+                if (fields != null && !fields.contains(field.getKey())) {
+                    continue;
+                }
+                for (String token : field.getValue()) {
+                    best = Math.max(best, similarity(queryToken, token, maxEdits));
+                }
+            }
+            if (best > 0) {
+                scores.put(key, best);
+            }
+        });
+        return scores;
+    }
+    
+    private static double similarity(String query, String token, int maxEdits) {
+        if (token.equals(query)) {
+            return EXACT;
+        }
+        if (token.startsWith(query)) {
+            return PREFIX;
+        }
+        if (token.contains(query)) {
+            return CONTAINS;
+        }
+        if (maxEdits > 0 && Math.abs(token.length() - query.length()) <= maxEdits
+                && editDistance(query, token, maxEdits) <= maxEdits) {
+            return FUZZY;
+        }
+        return 0.0;
+    }
+    
+    private static int maxEdits(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return token.length() <= 7 ? 1 : 2;
+    }
+    
+    // Optimal string alignment distance, giving up once every cell in a row exceeds limit
+    private static int editDistance(String a, String b, int limit) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+    
+    // Drops a posting set once its last key leaves, so grams of replaced and
+    // removed text do not accumulate
+    private void removePostings(K key, Map<String, Set<String>> tokensByField) {
+        for (String gram : grams(tokensByField)) {
+            postings.computeIfPresent(gram, (g, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+    
+    private static Set<String> grams(Map<String, Set<String>> tokensByField) {
+        Set<String> grams = new HashSet<>();
+        for (Set<String> tokens : tokensByField.values()) {
+            tokens.forEach(token -> grams.addAll(trigrams(token)));
+        }
+        return grams;
+    }
+    
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
+    private static List<String> trigrams(String token) {
+        String padded = "$" + token + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+    
+    public static class Hit<K> {
+        private final K key;
+        private final double score;
+        
+        public Hit(K key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+        
+        public K getKey() { return key; }
+        public double getScore() { return score; }
+    }
+}
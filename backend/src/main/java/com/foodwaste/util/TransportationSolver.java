@@ -0,0 +1,346 @@
+package com.foodwaste.util;
+
+import java.util.Arrays;
+
+// Maximum-weight transportation problem: ship quantity from supply nodes to
+// demand nodes along weighted edges so that the sum of weight x quantity is as
+// large as possible, without exceeding any supply or demand. Nothing has to be
+// shipped; supply no edge can use profitably stays where it is.
+//
+// Solved exactly as an uncapacitated min-cost flow (edge cost = -weight) with
+// the primal network simplex method. An extra root node takes unshipped supply
+// and covers unmet demand at zero cost, so the all-root starting tree is
+// feasible. The spanning tree is kept as parent / thread / subtree-size
+// arrays, entering arcs are picked by block search and leaving arcs so the
+// tree stays strongly feasible, which rules out cycling on degenerate pivots.
+public final class TransportationSolver {
+
+    // Reduced costs above this are treated as non-negative (rounding in the potentials)
+    private static final double COST_TOLERANCE = 1e-12;
+
+    private static final int STATE_TREE = 0;
+    private static final int STATE_LOWER = 1;
+
+    private static final int DIR_UP = 1;
+    private static final int DIR_DOWN = -1;
+
+    private final int edgeCount;
+    private final int nodeCount;
+    private final int root;
+    private final int arcCount;
+
+    // Arcs 0..E-1 are the edges, E+i is node i's arc to or from the root
+    private final int[] source;
+    private final int[] target;
+    private final double[] cost;
+    private final double[] flow;
+    private final int[] state;
+
+    private final int[] parent;
+    private final int[] pred;
+    private final int[] predDir;
+    private final int[] thread;
+    private final int[] revThread;
+    private final int[] succNum;
+    private final int[] lastSucc;
+    private final double[] pi;
+    private final int[] dirtyRevs;
+
+    private final int blockSize;
+    private int nextArc;
+
+    // Current pivot
+    private int inArc;
+    private int join;
+    private int uIn;
+    private int vIn;
+    private int uOut;
+    private double delta;
+
+    public TransportationSolver(double[] supply, double[] demand,
+                                int[] edgeFrom, int[] edgeTo, double[] weight) {
+        int supplyCount = supply.length;
+        this.edgeCount = edgeFrom.length;
+        this.nodeCount = supplyCount + demand.length;
+        this.root = nodeCount;
+        this.arcCount = edgeCount + nodeCount;
+
+        source = new int[arcCount];
+        target = new int[arcCount];
+        cost = new double[arcCount];
+        flow = new double[arcCount];
+        state = new int[arcCount];
+        for (int e = 0; e < edgeCount; e++) {
+            source[e] = edgeFrom[e];
+            target[e] = supplyCount + edgeTo[e];
+            cost[e] = -weight[e];
+            state[e] = STATE_LOWER;
+        }
+
+        int size = nodeCount + 1;
+        parent = new int[size];
+        pred = new int[size];
+        predDir = new int[size];
+        thread = new int[size];
+        revThread = new int[size];
+        succNum = new int[size];
+        lastSucc = new int[size];
+        pi = new double[size];
+        dirtyRevs = new int[size];
+
+        // Starting tree: every node hangs off the root. Supply nodes send all
+        // of theirs up to the root, the root covers every demand in full.
+        parent[root] = -1;
+        pred[root] = -1;
+        thread[root] = 0;
+        revThread[0] = root;
+        succNum[root] = size;
+        lastSucc[root] = root - 1;
+        for (int u = 0; u < nodeCount; u++) {
+            int e = edgeCount + u;
+            parent[u] = root;
+            pred[u] = e;
+            thread[u] = u + 1;
+            revThread[u + 1] = u;
+            succNum[u] = 1;
+            lastSucc[u] = u;
+            state[e] = STATE_TREE;
+            if (u < supplyCount) {
+                predDir[u] = DIR_UP;
+                source[e] = u;
+                target[e] = root;
+                flow[e] = Math.max(0.0, supply[u]);
+            } else {
+                predDir[u] = DIR_DOWN;
+                source[e] = root;
+                target[e] = u;
+                flow[e] = Math.max(0.0, demand[u - supplyCount]);
+            }
+        }
+
+        blockSize = Math.max(10, (int) Math.sqrt(arcCount));
+    }
+
+    // Returns the optimal quantity per edge, indexed like the edge arrays
+    public double[] solve() {
+        while (findEnteringArc()) {
+            findJoinNode();
+            boolean treeChanges = findLeavingArc();
+            changeFlow(treeChanges);
+            if (treeChanges) {
+                updateTreeStructure();
+                updatePotential();
+            }
+        }
+        return Arrays.copyOf(flow, edgeCount);
+    }
+
+    // Block search: the most negative reduced cost among the next block of
+    // arcs, moving on to further blocks only while none is negative
+    private boolean findEnteringArc() {
+        double min = -COST_TOLERANCE;
+        int found = -1;
+        int count = blockSize;
+        for (int i = 0; i < arcCount; i++) {
+            int e = nextArc + i < arcCount ? nextArc + i : nextArc + i - arcCount;
+            if (state[e] != STATE_TREE) {
+                double reduced = cost[e] + pi[source[e]] - pi[target[e]];
+                if (reduced < min) {
+                    min = reduced;
+                    found = e;
+                }
+            }
+            if (--count == 0) {
+                if (found >= 0) {
+                    nextArc = e + 1 < arcCount ? e + 1 : 0;
+                    break;
+                }
+                count = blockSize;
+            }
+        }
+        inArc = found;
+        return found >= 0;
+    }
+
+    private void findJoinNode() {
+        int u = source[inArc];
+        int v = target[inArc];
+        while (u != v) {
+            if (succNum[u] < succNum[v]) {
+                u = parent[u];
+            } else {
+                v = parent[v];
+            }
+        }
+        join = u;
+    }
+
+    // Flow goes along the entering arc and round the tree path back; the
+    // blocking arc met last from the join node in that direction leaves
+    private boolean findLeavingArc() {
+        int first = source[inArc];
+        int second = target[inArc];
+        delta = Double.POSITIVE_INFINITY;
+        int result = 0;
+
+        for (int u = first; u != join; u = parent[u]) {
+            if (predDir[u] == DIR_UP && flow[pred[u]] < delta) {
+                delta = flow[pred[u]];
+                uOut = u;
+                result = 1;
+            }
+        }
+        for (int u = second; u != join; u = parent[u]) {
+            if (predDir[u] == DIR_DOWN && flow[pred[u]] <= delta) {
+                delta = flow[pred[u]];
+                uOut = u;
+                result = 2;
+            }
+        }
+
+        if (result == 1) {
+            uIn = first;
+            vIn = second;
+        } else {
+            uIn = second;
+            vIn = first;
+        }
+        return result != 0;
+    }
+
+    private void changeFlow(boolean treeChanges) {
+        if (!treeChanges) {
+            // Every arc on the cycle is uncapacitated in that direction, which
+            // would mean a negative-cost cycle; this graph has none
+            throw new IllegalStateException("Transportation problem is unbounded");
+        }
+        if (delta > 0) {
+            flow[inArc] += delta;
+            for (int u = source[inArc]; u != join; u = parent[u]) {
+                flow[pred[u]] -= predDir[u] * delta;
+            }
+            for (int u = target[inArc]; u != join; u = parent[u]) {
+                flow[pred[u]] += predDir[u] * delta;
+            }
+        }
+        state[inArc] = STATE_TREE;
+        int leaving = pred[uOut];
+        flow[leaving] = 0.0;
+        state[leaving] = STATE_LOWER;
+    }
+
+    // Re-hangs the subtree cut off by the leaving arc below vIn, reversing the
+    // stem from uIn up to uOut, and patches thread, subtree sizes and last successors
+    private void updateTreeStructure() {
+        int oldRevThread = revThread[uOut];
+        int oldSuccNum = succNum[uOut];
+        int oldLastSucc = lastSucc[uOut];
+        int vOut = parent[uOut];
+
+        if (uIn == uOut) {
+            parent[uIn] = vIn;
+            pred[uIn] = inArc;
+            predDir[uIn] = uIn == source[inArc] ? DIR_UP : DIR_DOWN;
+
+            if (thread[vIn] != uOut) {
+                int after = thread[oldLastSucc];
+                thread[oldRevThread] = after;
+                revThread[after] = oldRevThread;
+                after = thread[vIn];
+                thread[vIn] = uOut;
+                revThread[uOut] = vIn;
+                thread[oldLastSucc] = after;
+                revThread[after] = oldLastSucc;
+            }
+        } else {
+            // When oldRevThread is vIn, join and vOut are the same node
+            int threadContinue = oldRevThread == vIn ? thread[oldLastSucc] : thread[vIn];
+
+            // Walk the stem from uIn to uOut, moving each subtree into the thread
+            // after its new parent
+            int stem = uIn;
+            int parStem = vIn;
+            int last = lastSucc[uIn];
+            int after = thread[last];
+            int dirty = 0;
+            thread[vIn] = uIn;
+            dirtyRevs[dirty++] = vIn;
+            while (stem != uOut) {
+                int nextStem = parent[stem];
+                thread[last] = nextStem;
+                dirtyRevs[dirty++] = last;
+
+                int before = revThread[stem];
+                thread[before] = after;
+                revThread[after] = before;
+
+                parent[stem] = parStem;
+                parStem = stem;
+                stem = nextStem;
+
+                last = lastSucc[stem] == lastSucc[parStem] ? revThread[parStem] : lastSucc[stem];
+                after = thread[last];
+            }
+            parent[uOut] = parStem;
+            thread[last] = threadContinue;
+            revThread[threadContinue] = last;
+            lastSucc[uOut] = last;
+
+            if (oldRevThread != vIn) {
+                thread[oldRevThread] = after;
+                revThread[after] = oldRevThread;
+            }
+
+            for (int i = 0; i < dirty; i++) {
+                int u = dirtyRevs[i];
+                revThread[thread[u]] = u;
+            }
+
+            // The stem's tree arcs now point the other way
+            int tmpSuccNum = 0;
+            int tmpLastSucc = lastSucc[uOut];
+            for (int u = uOut, p = parent[u]; u != uIn; u = p, p = parent[u]) {
+                pred[u] = pred[p];
+                predDir[u] = -predDir[p];
+                tmpSuccNum += succNum[u] - succNum[p];
+                succNum[u] = tmpSuccNum;
+                lastSucc[p] = tmpLastSucc;
+            }
+            pred[uIn] = inArc;
+            predDir[uIn] = uIn == source[inArc] ? DIR_UP : DIR_DOWN;
+            succNum[uIn] = oldSuccNum;
+        }
+
+        int upLimitOut = lastSucc[join] == vIn ? join : -1;
+        int lastSuccOut = lastSucc[uOut];
+        for (int u = vIn; u != -1 && lastSucc[u] == vIn; u = parent[u]) {
+            lastSucc[u] = lastSuccOut;
+        }
+
+        if (join != oldRevThread && vIn != oldRevThread) {
+            for (int u = vOut; u != upLimitOut && lastSucc[u] == oldLastSucc; u = parent[u]) {
+                lastSucc[u] = oldRevThread;
+            }
+        } else if (lastSuccOut != oldLastSucc) {
+            for (int u = vOut; u != upLimitOut && lastSucc[u] == oldLastSucc; u = parent[u]) {
+                lastSucc[u] = lastSuccOut;
+            }
+        }
+
+        for (int u = vIn; u != join; u = parent[u]) {
+            succNum[u] += oldSuccNum;
+        }
+        for (int u = vOut; u != join; u = parent[u]) {
+            succNum[u] -= oldSuccNum;
+        }
+    }
+
+    // Shifts the moved subtree's potentials so the entering arc has zero reduced cost
+    private void updatePotential() {
+        double sigma = pi[vIn] - pi[uIn] - predDir[uIn] * cost[inArc];
+        int end = thread[lastSucc[uIn]];
+        for (int u = uIn; u != end; u = thread[u]) {
+            pi[u] += sigma;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Need not yet covered by batch-matched orders; a request stays OPEN until it
+-- reaches zero. Requests that are already matched or closed start at zero.
+alter table food_requests add column remaining_quantity float(53);
+update food_requests set remaining_quantity = case when status = 'OPEN' then quantity_needed else 0 end;
+alter table food_requests modify remaining_quantity float(53) not null;
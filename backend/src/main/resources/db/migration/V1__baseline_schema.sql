@@ -0,0 +1,111 @@
+-- Baseline: the schema Hibernate's ddl-auto=update produced for the original
+-- entities, before migrations were introduced. Existing databases are
+-- baselined at this version; everything added since lives in V2 onwards.
+
+create table users (
+    id bigint not null auto_increment,
+    name varchar(100) not null,
+    username varchar(50) not null,
+    email varchar(100) not null,
+    password varchar(120) not null,
+    phone varchar(15),
+    address varchar(255),
+    role enum ('ADMIN','DONOR','NGO','VOLUNTEER'),
+    enabled bit not null,
+    points integer,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table donations (
+    id bigint not null auto_increment,
+    donor_id bigint not null,
+    food_type varchar(100) not null,
+    quantity float(53) not null,
+    unit varchar(20),
+    expiry_time datetime(6),
+    pickup_location varchar(255) not null,
+    description varchar(500),
+    image_paths TEXT,
+    status enum ('ACCEPTED','CANCELLED','DELIVERED','EXPIRED','PENDING','PICKED_UP'),
+    assigned_ngo_id bigint,
+    assigned_volunteer_id bigint,
+    pickup_time datetime(6),
+    delivered_time datetime(6),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table food_requests (
+    id bigint not null auto_increment,
+    ngo_id bigint not null,
+    food_type_needed varchar(100) not null,
+    quantity_needed float(53) not null,
+    unit varchar(20),
+    delivery_location varchar(255) not null,
+    description varchar(500),
+    priority enum ('HIGH','LOW','MEDIUM','URGENT'),
+    status enum ('CANCELLED','FULFILLED','MATCHED','OPEN'),
+    needed_by datetime(6),
+    people_served integer,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table deliveries (
+    id bigint not null auto_increment,
+    donation_id bigint not null,
+    volunteer_id bigint not null,
+    pickup_location varchar(255) not null,
+    delivery_location varchar(255) not null,
+    scheduled_pickup_time datetime(6),
+    actual_pickup_time datetime(6),
+    estimated_delivery_time datetime(6),
+    actual_delivery_time datetime(6),
+    status enum ('ASSIGNED','CANCELLED','DELIVERED','IN_TRANSIT','PICKED_UP'),
+    notes varchar(500),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table orders (
+    id bigint not null auto_increment,
+    order_id varchar(255) not null,
+    ngo_id bigint not null,
+    delivery_location TEXT not null,
+    delivery_date datetime(6) not null,
+    delivery_time varchar(255) not null,
+    special_instructions TEXT,
+    qr_code TEXT,
+    status enum ('CANCELLED','CONFIRMED','DELIVERED','IN_TRANSIT','PENDING') not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table order_items (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    donation_id bigint not null,
+    requested_quantity float(53) not null,
+    unit varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+alter table users add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table orders add constraint UKhmsk25beh6atojvle1xuymjj0 unique (order_id);
+
+alter table donations add constraint FKp8lwp38vg4a0v2y69d2krn562 foreign key (donor_id) references users (id);
+alter table donations add constraint FK1vmab48dyf6hg9w606kpllyl6 foreign key (assigned_ngo_id) references users (id);
+alter table donations add constraint FKiqfi3ee071y1nvn66hglvb71y foreign key (assigned_volunteer_id) references users (id);
+alter table food_requests add constraint FK6bymbscye61ky6brs65bh7xwv foreign key (ngo_id) references users (id);
+alter table deliveries add constraint FK4wh2gr988scht5milg2el2frf foreign key (donation_id) references donations (id);
+alter table deliveries add constraint FKmlns5kag4fnflld4woaaiac8x foreign key (volunteer_id) references users (id);
+alter table orders add constraint FKjg1wbrlaf0l4pgb2hfbjox2cq foreign key (ngo_id) references users (id);
+alter table order_items add constraint FKbioxgbv59vetrxe0ejfubep1w foreign key (order_id) references orders (id);
+alter table order_items add constraint FKe36yymggkjy6xpq2nfntnbjc foreign key (donation_id) references donations (id);
@@ -0,0 +1,27 @@
+-- Additions made while the schema was still managed by ddl-auto: coordinates for
+-- geo matching, pooled order item ids and the points ledger.
+
+alter table users add column latitude float(53);
+alter table users add column longitude float(53);
+alter table donations add column latitude float(53);
+alter table donations add column longitude float(53);
+alter table food_requests add column latitude float(53);
+alter table food_requests add column longitude float(53);
+
+-- Order items move from IDENTITY to a table-backed pooled sequence (MySQL has
+-- no native sequences). The pooled optimizer hands out the 50 ids below the
+-- stored value, so start 51 above the highest existing id.
+alter table order_items modify id bigint not null;
+create table order_items_seq (next_val bigint) engine=InnoDB;
+insert into order_items_seq select coalesce(max(id), 0) + 51 from order_items;
+
+create table points_ledger (
+    id bigint not null,
+    user_id bigint not null,
+    delta integer not null,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table points_ledger_seq (next_val bigint) engine=InnoDB;
+insert into points_ledger_seq values (1);
@@ -0,0 +1,33 @@
+-- Composite indexes matching the repository queries: equality columns first,
+-- then the range or ORDER BY columns so MySQL can seek and read in order.
+
+-- findAvailableDonations, findByStatus, expiry sweeper
+create index idx_donations_status_expiry on donations (status, expiry_time);
+-- keyset pages filtered by status
+create index idx_donations_status_created on donations (status, created_at, id);
+-- findByDonorIdOrderByCreatedAtDesc
+create index idx_donations_donor_created on donations (donor_id, created_at);
+-- keyset pages
+create index idx_donations_created on donations (created_at, id);
+
+-- findActiveRequestsByPriority, findByStatus
+create index idx_food_requests_status_needed_by on food_requests (status, needed_by, priority);
+-- findByNgoIdOrderByCreatedAtDesc
+create index idx_food_requests_ngo_created on food_requests (ngo_id, created_at);
+create index idx_food_requests_created on food_requests (created_at, id);
+
+-- findByVolunteerAndStatusIn
+create index idx_deliveries_volunteer_status on deliveries (volunteer_id, status, scheduled_pickup_time);
+-- findByVolunteerIdOrderByCreatedAtDesc
+create index idx_deliveries_volunteer_created on deliveries (volunteer_id, created_at);
+-- findByStatus, getTotalDeliveries
+create index idx_deliveries_status on deliveries (status);
+
+create index idx_orders_ngo_created on orders (ngo_id, created_at);
+create index idx_orders_created on orders (created_at, id);
+create index idx_orders_status on orders (status);
+
+-- findByRole, findActiveUsersByRole, countByRole, countGroupedByRole
+create index idx_users_role_enabled on users (role, enabled);
+
+create index idx_points_ledger_user on points_ledger (user_id, created_at);
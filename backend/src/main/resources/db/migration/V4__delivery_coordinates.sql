@@ -0,0 +1,5 @@
+-- Pickup and drop-off coordinates for volunteer route planning
+alter table deliveries add column pickup_latitude float(53);
+alter table deliveries add column pickup_longitude float(53);
+alter table deliveries add column delivery_latitude float(53);
+alter table deliveries add column delivery_longitude float(53);
@@ -0,0 +1,16 @@
+-- Rotating refresh tokens (hashes only); see RefreshTokenService
+create table refresh_tokens (
+    id bigint not null auto_increment,
+    token_hash varchar(64) not null,
+    user_id bigint not null,
+    family varchar(36) not null,
+    created_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    used_at datetime(6),
+    revoked bit not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table refresh_tokens add constraint uk_refresh_tokens_token_hash unique (token_hash);
+create index idx_refresh_tokens_family on refresh_tokens (family);
+create index idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
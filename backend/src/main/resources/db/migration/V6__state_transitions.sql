@@ -0,0 +1,18 @@
+-- Append-only status transition log; see TransitionLog
+create table state_transitions (
+    id bigint not null,
+    entity_type varchar(20) not null,
+    entity_id bigint not null,
+    from_status varchar(20),
+    to_status varchar(20),
+    quantity float(53),
+    actor_id bigint,
+    occurred_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table state_transitions_seq (next_val bigint) engine=InnoDB;
+insert into state_transitions_seq values (1);
+
+create index idx_state_transitions_entity on state_transitions (entity_type, entity_id, occurred_at);
+create index idx_state_transitions_occurred on state_transitions (occurred_at);
@@ -0,0 +1,23 @@
+-- Transactional outbox for notifications; see NotificationDispatcher
+create table outbox_messages (
+    id bigint not null,
+    type enum ('DONATION_CREATED','EMAIL') not null,
+    aggregate_id bigint,
+    recipient varchar(255),
+    subject varchar(255),
+    body TEXT,
+    status enum ('DEAD','PENDING','SENT') not null,
+    attempts integer not null,
+    next_attempt_at datetime(6) not null,
+    claim_token varchar(36),
+    last_error varchar(500),
+    created_at datetime(6) not null,
+    processed_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table outbox_messages_seq (next_val bigint) engine=InnoDB;
+insert into outbox_messages_seq values (1);
+
+create index idx_outbox_status_next_attempt on outbox_messages (status, next_attempt_at);
+create index idx_outbox_claim_token on outbox_messages (claim_token);
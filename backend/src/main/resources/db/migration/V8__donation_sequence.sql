@@ -0,0 +1,7 @@
+-- Donations take ids from a pooled sequence (allocationSize 50) so bulk imports
+-- are inserted in JDBC batches. Hibernate's pooled optimizer hands out the 50
+-- ids below the stored value, so start 51 above the highest existing id.
+create table donations_seq (next_val bigint) engine=InnoDB;
+insert into donations_seq select coalesce(max(id), 0) + 51 from donations;
+
+alter table outbox_messages modify type enum ('DONATIONS_IMPORTED','DONATION_CREATED','EMAIL') not null;
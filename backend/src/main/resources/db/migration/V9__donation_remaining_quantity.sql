@@ -0,0 +1,9 @@
+-- Quantity still open to orders, kept apart from the donated quantity that
+-- the stats sum up. Existing rows start from what their live orders have
+-- not taken yet.
+alter table donations add column remaining_quantity float(53);
+update donations d set remaining_quantity = greatest(0, d.quantity - coalesce((
+    select sum(i.requested_quantity)
+    from order_items i join orders o on o.id = i.order_id
+    where i.donation_id = d.id and o.status <> 'CANCELLED'), 0));
+alter table donations modify remaining_quantity float(53) not null;
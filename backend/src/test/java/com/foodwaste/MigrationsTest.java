@@ -0,0 +1,87 @@
+package com.foodwaste;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs db/migration on H2 in MySQL mode, configured as in application.properties
+class MigrationsTest {
+    
+    private static final String URL = "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    
+    @Test
+    void migratesEmptyDatabase() {
+        Flyway flyway = flyway(String.format(URL, "empty"));
+        
+        MigrateResult result = flyway.migrate();
+        
+        assertThat(result.success).isTrue();
+        assertThat(result.migrationsExecuted).isEqualTo(flyway.info().all().length);
+    }
+    
+    // A database created by ddl-auto=update before migrations existed: the V1
+    // schema, rows with IDENTITY ids, and no history table
+    @Test
+    void upgradesDatabaseCreatedBeforeMigrations() throws SQLException {
+        String url = String.format(URL, "legacy");
+        Flyway.configure().dataSource(url, "sa", "").target("1").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop table flyway_schema_history");
+            statement.execute("insert into users (id, name, username, email, password, role, enabled, points) "
+                    + "values (1, 'Donor', 'donor', 'donor@example.com', 'x', 'DONOR', true, 0)");
+            statement.execute("insert into donations (id, donor_id, food_type, quantity, pickup_location, status) "
+                    + "values (120, 1, 'Rice', 5, 'MG Road', 'PENDING')");
+            statement.execute("insert into orders (id, order_id, ngo_id, delivery_location, delivery_date, "
+                    + "delivery_time, status, created_at, updated_at) "
+                    + "values (1, 'ORD-1', 1, 'Shelter', now(), '10:00', 'PENDING', now(), now())");
+            statement.execute("insert into order_items (id, order_id, donation_id, requested_quantity, unit) "
+                    + "values (7, 1, 120, 2, 'kg')");
+            statement.execute("insert into food_requests (id, ngo_id, food_type_needed, quantity_needed, "
+                    + "delivery_location, status) values (5, 1, 'Rice', 8, 'Shelter', 'OPEN'), "
+                    + "(6, 1, 'Rice', 4, 'Shelter', 'MATCHED')");
+        }
+        
+        Flyway flyway = flyway(url);
+        MigrateResult result = flyway.migrate();
+        
+        assertThat(result.success).isTrue();
+        assertThat(result.migrations).first().satisfies(first -> assertThat(first.version).isEqualTo("2"));
+        assertThat(flyway.info().pending()).isEmpty();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            // Pooled sequences start above the ids IDENTITY already handed out
+            assertThat(queryLong(statement, "select next_val from order_items_seq")).isEqualTo(7 + 51);
+            assertThat(queryLong(statement, "select next_val from donations_seq")).isEqualTo(120 + 51);
+            assertThat(queryLong(statement, "select count(*) from donations where id = 120 and latitude is null"))
+                    .isEqualTo(1);
+            // What the live order has not taken is still open
+            assertThat(queryLong(statement, "select remaining_quantity from donations where id = 120")).isEqualTo(3);
+            assertThat(queryLong(statement, "select remaining_quantity from food_requests where id = 5")).isEqualTo(8);
+            assertThat(queryLong(statement, "select remaining_quantity from food_requests where id = 6")).isZero();
+        }
+    }
+    
+    private static Flyway flyway(String url) {
+        return Flyway.configure()
+                .dataSource(url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+    }
+    
+    private static long queryLong(Statement statement, String sql) throws SQLException {
+        try (ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+}
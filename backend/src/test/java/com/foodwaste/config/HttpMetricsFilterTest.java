@@ -0,0 +1,79 @@
+package com.foodwaste.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Per-route bytes and timings of full and 304 responses
+class HttpMetricsFilterTest {
+    
+    private static final String ROUTE = "/api/donations/available";
+    
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpMetricsFilter filter = new HttpMetricsFilter(registry);
+    
+    @Test
+    void fullResponseCountsBodyBytes() throws Exception {
+        serve("GET", HttpServletResponse.SC_OK, "[{\"id\":1}]", ROUTE);
+        
+        assertThat(registry.get("http.get.body.bytes").tag("route", ROUTE).counter().count()).isEqualTo(10);
+        assertThat(registry.get("http.get.responses").tags("route", ROUTE, "result", "full").timer().count())
+                .isEqualTo(1);
+    }
+    
+    @Test
+    void notModifiedCountsLastFullBodyAsSaved() throws Exception {
+        serve("GET", HttpServletResponse.SC_OK, "[{\"id\":1}]", ROUTE);
+        serve("GET", HttpServletResponse.SC_NOT_MODIFIED, "", ROUTE);
+        serve("GET", HttpServletResponse.SC_NOT_MODIFIED, "", ROUTE);
+        
+        assertThat(registry.get("http.get.body.bytes.saved").tag("route", ROUTE).counter().count()).isEqualTo(20);
+        assertThat(registry.get("http.get.body.bytes").tag("route", ROUTE).counter().count()).isEqualTo(10);
+        assertThat(registry.get("http.get.responses").tags("route", ROUTE, "result", "not_modified").timer()
+                .count()).isEqualTo(2);
+    }
+    
+    @Test
+    void notModifiedWithoutEarlierBodySavesNothing() throws Exception {
+        serve("GET", HttpServletResponse.SC_NOT_MODIFIED, "", ROUTE);
+        
+        assertThat(registry.get("http.get.body.bytes.saved").tag("route", ROUTE).counter().count()).isZero();
+    }
+    
+    @Test
+    void unmatchedAndNonGetRequestsAreSkipped() throws Exception {
+        serve("POST", HttpServletResponse.SC_OK, "{}", ROUTE);
+        serve("GET", HttpServletResponse.SC_OK, "{}", null);
+        
+        assertThat(registry.find("http.get.responses").timers()).isEmpty();
+        assertThat(registry.find("http.get.body.bytes").counters()).isEmpty();
+    }
+    
+    private void serve(String method, int status, String body, String pattern) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, ROUTE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res)
+                    throws IOException {
+                if (pattern != null) {
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+                }
+                ((HttpServletResponse) res).setStatus(status);
+                res.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        filter.doFilter(request, response, chain);
+    }
+}
@@ -0,0 +1,127 @@
+package com.foodwaste.config;
+
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.service.DonationGeoIndex;
+import com.foodwaste.service.DonationService;
+import com.foodwaste.service.FoodRequestService;
+import com.foodwaste.service.SearchIndex;
+import com.foodwaste.service.UserService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.data.RepositoryMetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The repository, matching and per-request statement meters, registered in a
+// real registry by the same configuration production uses
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, CompositeMeterRegistryAutoConfiguration.class,
+        SimpleMetricsExportAutoConfiguration.class, RepositoryMetricsAutoConfiguration.class})
+@Import({MetricsConfig.class, SqlStatementMetrics.class, FoodRequestService.class, DonationGeoIndex.class,
+         SearchIndex.class})
+class MetricsConfigTest {
+    
+    private static final String ROUTE = "/api/food-requests/{id}";
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private SqlStatementMetrics sqlStatementMetrics;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private FoodRequestRepository foodRequestRepository;
+    
+    @Autowired
+    private FoodRequestService foodRequestService;
+    
+    @MockitoBean
+    private UserService userService;
+    
+    @MockitoBean
+    private DonationService donationService;
+    
+    @Test
+    void repositoryCallsAreTimedAndTheirRowsCounted() {
+        userRepository.save(user("metrics-ngo"));
+        long before = invocations("findByRole");
+        
+        int found = userRepository.findByRole(UserRole.NGO).size();
+        
+        assertThat(invocations("findByRole")).isEqualTo(before + 1);
+        DistributionSummary rows = meterRegistry.get("spring.data.repository.rows")
+                .tags("repository", "UserRepository", "method", "findByRole").summary();
+        assertThat(rows.count()).isEqualTo(before + 1);
+        assertThat(rows.takeSnapshot().max()).isEqualTo(found);
+        assertThat(found).isPositive();
+    }
+    
+    @Test
+    void matchingIsTimedPerMode() {
+        FoodRequest request = foodRequestRepository.save(new FoodRequest(userRepository.save(user("matching-ngo")),
+                "Rice", 5.0, "kg", "MG Road", null, LocalDateTime.now().plusDays(1), 10));
+        
+        foodRequestService.findMatchingDonations(request.getId(), donationService);
+        foodRequestService.findMatchingDonations(request.getId(), donationService);
+        
+        assertThat(meterRegistry.get("matching.find").tag("mode", "text").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("matching.results").tag("mode", "text").summary().count()).isEqualTo(2);
+    }
+    
+    @Test
+    void statementsAreCountedPerRoute() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/food-requests/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, ROUTE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        sqlStatementMetrics.preHandle(request, response, null);
+        foodRequestRepository.count();
+        userRepository.count();
+        sqlStatementMetrics.afterCompletion(request, response, null, null);
+        
+        // A request that reaches the database no more is recorded as zero
+        sqlStatementMetrics.preHandle(request, response, null);
+        sqlStatementMetrics.afterCompletion(request, response, null, null);
+        
+        DistributionSummary statements = meterRegistry.get("http.server.requests.statements")
+                .tags("method", "GET", "uri", ROUTE).summary();
+        assertThat(statements.count()).isEqualTo(2);
+        assertThat(statements.totalAmount()).isEqualTo(2);
+    }
+    
+    private long invocations(String method) {
+        Timer timer = meterRegistry.find("spring.data.repository.invocations")
+                .tags("repository", "UserRepository", "method", method).timer();
+        return timer != null ? timer.count() : 0;
+    }
+    
+    private static User user(String username) {
+        return new User("Metrics", username, username + "@example.com", "x", UserRole.NGO);
+    }
+}
@@ -0,0 +1,90 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.service.LoginRateLimiter;
+import com.foodwaste.service.PasswordHashingService;
+import com.foodwaste.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// The answers given in front of password hashing
+class AuthControllerTest {
+    
+    private final LoginRateLimiter loginRateLimiter = mock(LoginRateLimiter.class);
+    private final PasswordHashingService passwordHashing = mock(PasswordHashingService.class);
+    private final UserService userService = mock(UserService.class);
+    private final AuthController controller = new AuthController();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "loginRateLimiter", loginRateLimiter);
+        ReflectionTestUtils.setField(controller, "passwordHashing", passwordHashing);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+    }
+    
+    @Test
+    void limitedLoginIsRefusedWithRetryAfterBeforeAnyHashing() throws Exception {
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest();
+        httpRequest.setRemoteAddr("203.0.113.7");
+        when(loginRateLimiter.tryAcquire("alice", "203.0.113.7")).thenReturn(42L);
+        
+        ResponseEntity<?> response = controller.loginUser(login("alice"), httpRequest).get();
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("42");
+        verifyNoInteractions(passwordHashing, userService);
+    }
+    
+    @Test
+    void fullHashingQueueIsAnsweredWith429() throws Exception {
+        User user = new User("Alice", "alice", "alice@example.com", "{bcrypt}hash", UserRole.DONOR);
+        when(loginRateLimiter.tryAcquire(anyString(), any())).thenReturn(0L);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(passwordHashing.matches(anyString(), anyString()))
+            .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("queue full")));
+        
+        ResponseEntity<?> response = controller.loginUser(login("alice"), new MockHttpServletRequest()).get();
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+    
+    @Test
+    void disabledUserIsRefusedLikeAWrongPasswordWithoutHashing() throws Exception {
+        User user = new User("Alice", "alice", "alice@example.com", "{bcrypt}hash", UserRole.DONOR);
+        user.setEnabled(false);
+        when(loginRateLimiter.tryAcquire(anyString(), any())).thenReturn(0L);
+        when(userService.findByUsername("alice")).thenReturn(Optional.of(user));
+        
+        ResponseEntity<?> response = controller.loginUser(login("alice"), new MockHttpServletRequest()).get();
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(((AuthController.MessageResponse) response.getBody()).getMessage())
+            .isEqualTo("Error: Invalid credentials!");
+        verifyNoInteractions(passwordHashing);
+    }
+    
+    private static AuthController.LoginRequest login(String username) {
+        AuthController.LoginRequest request = new AuthController.LoginRequest();
+        request.setUsername(username);
+        request.setPassword("secret");
+        return request;
+    }
+}
@@ -0,0 +1,108 @@
+package com.foodwaste.controller;
+
+import com.foodwaste.event.DonationChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The 304 short-circuit and the headers that go with it
+class ConditionalRequestsTest {
+    
+    private final ConditionalRequests conditionalRequests = new ConditionalRequests();
+    
+    @Test
+    void firstRequestGetsTagAndNoCache() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        boolean notModified = conditionalRequests.checkNotModified(webRequest(null, response),
+                ConditionalRequests.DONATIONS);
+        
+        assertThat(notModified).isFalse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("ETag")).startsWith("W/\"");
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("no-cache");
+    }
+    
+    @Test
+    void matchingTagShortCircuitsWith304() {
+        String etag = firstTag(ConditionalRequests.DONATIONS);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        boolean notModified = conditionalRequests.checkNotModified(webRequest(etag, response),
+                ConditionalRequests.DONATIONS);
+        
+        assertThat(notModified).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader("ETag")).isEqualTo(etag);
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("no-cache");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+    
+    @Test
+    void committedChangeInvalidatesTag() {
+        String etag = firstTag(ConditionalRequests.DONATIONS);
+        conditionalRequests.onDonationChanged(new DonationChangedEvent(null, null, null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        boolean notModified = conditionalRequests.checkNotModified(webRequest(etag, response),
+                ConditionalRequests.DONATIONS);
+        
+        assertThat(notModified).isFalse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("ETag")).isNotEqualTo(etag);
+    }
+    
+    @Test
+    void otherCollectionsDoNotInvalidateTag() {
+        String etag = firstTag(ConditionalRequests.REQUESTS);
+        conditionalRequests.onDonationChanged(new DonationChangedEvent(null, null, null));
+        
+        assertThat(conditionalRequests.checkNotModified(webRequest(etag, new MockHttpServletResponse()),
+                ConditionalRequests.REQUESTS)).isTrue();
+    }
+    
+    @Test
+    void rowTagFollowsUpdatedAt() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        conditionalRequests.checkNotModified(webRequest(null, first), 7L, updatedAt);
+        String etag = first.getHeader("ETag");
+        
+        assertThat(conditionalRequests.checkNotModified(webRequest(etag, new MockHttpServletResponse()),
+                7L, updatedAt)).isTrue();
+        assertThat(conditionalRequests.checkNotModified(webRequest(etag, new MockHttpServletResponse()),
+                7L, updatedAt.plusSeconds(1))).isFalse();
+    }
+    
+    @Test
+    void contentTagFollowsContent() {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        conditionalRequests.checkContentNotModified(webRequest(null, first), Map.of("donations", 3));
+        String etag = first.getHeader("ETag");
+        
+        assertThat(conditionalRequests.checkContentNotModified(webRequest(etag, new MockHttpServletResponse()),
+                Map.of("donations", 3))).isTrue();
+        assertThat(conditionalRequests.checkContentNotModified(webRequest(etag, new MockHttpServletResponse()),
+                Map.of("donations", 4))).isFalse();
+    }
+    
+    private String firstTag(String collection) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        conditionalRequests.checkNotModified(webRequest(null, response), collection);
+        return response.getHeader("ETag");
+    }
+    
+    private static ServletWebRequest webRequest(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/donations");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+}
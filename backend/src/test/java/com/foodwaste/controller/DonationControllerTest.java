@@ -0,0 +1,94 @@
+package com.foodwaste.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.service.DonationImportService;
+import com.foodwaste.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+// Which Content-Types POST /donations/bulk reads
+class DonationControllerTest {
+    
+    private static final long DONOR_ID = 7L;
+    
+    private final DonationImportService donationImportService = mock(DonationImportService.class);
+    private final UserService userService = mock(UserService.class);
+    private final DonationController controller = new DonationController();
+    private final AuthenticatedUser caller = new AuthenticatedUser(DONOR_ID, "donor", UserRole.DONOR, 0, Long.MAX_VALUE);
+    private final List<String> importedFoodTypes = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "donationImportService", donationImportService);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        
+        User donor = new User("Donor", "donor", "donor@example.com", "x", UserRole.DONOR);
+        donor.setId(DONOR_ID);
+        when(userService.findById(DONOR_ID)).thenReturn(Optional.of(donor));
+        when(donationImportService.importDonations(eq(donor), any(), any())).thenAnswer(invocation -> {
+            MappingIterator<DonationController.DonationRequest> rows = invocation.getArgument(1);
+            rows.forEachRemaining(row -> importedFoodTypes.add(row.getFoodType()));
+            return new DonationImportService.ImportResult(10);
+        });
+    }
+    
+    @Test
+    void bodyWithoutContentTypeIsReadAsJson() {
+        ResponseEntity<?> response = controller.importDonations(request(null, "[{\"foodType\":\"Rice\"}]"), null, caller);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(importedFoodTypes).containsExactly("Rice");
+    }
+    
+    @Test
+    void csvIsReadByItsHeaderRow() {
+        ResponseEntity<?> response = controller.importDonations(
+                request("text/csv; charset=UTF-8", "foodType,quantity\nBread,3\n"), null, caller);
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(importedFoodTypes).containsExactly("Bread");
+    }
+    
+    @Test
+    void otherOrMalformedContentTypesAreRefusedWith415() {
+        for (String contentType : List.of("application/xml", "not a media type")) {
+            ResponseEntity<?> response = controller.importDonations(request(contentType, "<x/>"), null, caller);
+            
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+            assertThat(((DonationController.MessageResponse) response.getBody()).getMessage())
+                    .contains("text/csv");
+        }
+        verifyNoInteractions(donationImportService);
+    }
+    
+    private static MockHttpServletRequest request(String contentType, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/donations/bulk");
+        if (contentType != null) {
+            request.setContentType(contentType);
+        }
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
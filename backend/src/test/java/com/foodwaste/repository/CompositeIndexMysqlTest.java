@@ -0,0 +1,36 @@
+package com.foodwaste.repository;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The same queries against the MySQL version production runs, where the plan
+// has to name the composite index itself. Skipped when Docker is not available.
+@Testcontainers(disabledWithoutDocker = true)
+class CompositeIndexMysqlTest extends CompositeIndexTest {
+    
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+    
+    @DynamicPropertySource
+    static void mysql(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.driverClassName", MYSQL::getDriverClassName);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+    
+    @Override
+    protected void assertUsesIndex(String index, String sql, Object[] binds) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + sql, binds);
+        
+        assertThat(plan).as(sql).extracting(row -> row.get("key")).contains(index);
+    }
+}
@@ -0,0 +1,178 @@
+package com.foodwaste.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.controller.DonationController.DonationResponse;
+import com.foodwaste.controller.FoodRequestController.FoodRequestResponse;
+import com.foodwaste.controller.OrderController.OrderDetailsResponse;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.Order;
+import com.foodwaste.model.OrderItem;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Every list read renders its rows, users included, from a single SELECT
+// however many rows there are (the Donation.response and FoodRequest.response
+// entity graphs). Order pages take a second SELECT for their items.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ListReadStatementsTest {
+    
+    private static final int ROWS = 20;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private FoodRequestRepository foodRequestRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private Statistics statistics;
+    private Long donorId;
+    private Long ngoId;
+    private final List<Long> donationIds = new ArrayList<>();
+    private final List<Long> requestIds = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        
+        // Distinct users per row, so a lazy load per association would show up as extra statements
+        for (int i = 0; i < ROWS; i++) {
+            User donor = entityManager.persist(user("donor" + i, UserRole.DONOR));
+            User ngo = entityManager.persist(user("ngo" + i, UserRole.NGO));
+            User volunteer = entityManager.persist(user("volunteer" + i, UserRole.VOLUNTEER));
+            
+            Donation donation = new Donation(donor, "Rice", 5.0, "kg",
+                    LocalDateTime.now().plusDays(1), "MG Road", null);
+            donation.setAssignedNgo(ngo);
+            donation.setAssignedVolunteer(volunteer);
+            entityManager.persist(donation);
+            donationIds.add(donation.getId());
+            
+            FoodRequest request = entityManager.persist(new FoodRequest(ngo, "Rice", 5.0, "kg", "Shelter", null,
+                    LocalDateTime.now().plusDays(1), 10));
+            requestIds.add(request.getId());
+            
+            Order order = new Order("ORD-" + i, ngo, "Shelter", LocalDateTime.now().plusDays(1), "10:00", null);
+            order.setOrderItems(List.of(new OrderItem(order, donation, 2.0, "kg"),
+                    new OrderItem(order, donation, 1.0, "kg")));
+            entityManager.persist(order);
+            donorId = donor.getId();
+            ngoId = ngo.getId();
+        }
+        entityManager.flush();
+    }
+    
+    @Test
+    void donationListReadsAreOneStatement() {
+        assertOneStatement(() -> render(donationRepository.findAll()), ROWS);
+        assertOneStatement(() -> render(donationRepository.findByStatus(DonationStatus.PENDING)), ROWS);
+        assertOneStatement(() -> render(donationRepository.findAvailableDonations(
+                DonationStatus.PENDING, LocalDateTime.now())), ROWS);
+        assertOneStatement(() -> render(donationRepository.findByDonorIdOrderByCreatedAtDesc(donorId)), 1);
+        assertOneStatement(() -> render(donationRepository.findFirstPage(PageRequest.of(0, 10))), 10);
+        assertOneStatement(() -> render(donationRepository.findPageAfter(
+                LocalDateTime.now().plusDays(1), Long.MAX_VALUE, PageRequest.of(0, 10))), 10);
+        assertOneStatement(() -> render(donationRepository.findFirstPageByStatus(
+                DonationStatus.PENDING, PageRequest.of(0, 10))), 10);
+        assertOneStatement(() -> render(donationRepository.findPageByStatusAfter(DonationStatus.PENDING,
+                LocalDateTime.now().plusDays(1), Long.MAX_VALUE, PageRequest.of(0, 10))), 10);
+        // Search hits and matching candidates
+        assertOneStatement(() -> render(donationRepository.findAllByIdIn(donationIds)), ROWS);
+    }
+    
+    @Test
+    void foodRequestListReadsAreOneStatement() {
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findAll()), ROWS);
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findByStatus(RequestStatus.OPEN)), ROWS);
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findActiveRequestsByPriority(
+                RequestStatus.OPEN, LocalDateTime.now())), ROWS);
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findByNgoIdOrderByCreatedAtDesc(ngoId)), 1);
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findFirstPage(PageRequest.of(0, 10))), 10);
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findPageAfter(
+                LocalDateTime.now().plusDays(1), Long.MAX_VALUE, PageRequest.of(0, 10))), 10);
+        assertOneStatement(() -> renderRequests(foodRequestRepository.findAllByIdIn(requestIds)), ROWS);
+    }
+    
+    @Test
+    void orderPagesAreTwoStatements() throws Exception {
+        assertStatements(() -> renderOrders(orderRepository.findFirstPage(PageRequest.of(0, 10))), 10, 2);
+        assertStatements(() -> renderOrders(orderRepository.findPageAfter(
+                LocalDateTime.now().plusDays(1), Long.MAX_VALUE, PageRequest.of(0, 10))), 10, 2);
+        assertStatements(() -> renderOrders(orderRepository.findFirstPageByNgo(ngoId, PageRequest.of(0, 10))), 1, 2);
+        assertStatements(() -> renderOrders(orderRepository.findPageByNgoAfter(ngoId,
+                LocalDateTime.now().plusDays(1), Long.MAX_VALUE, PageRequest.of(0, 10))), 1, 2);
+        
+        // The rendered page serializes flat, without following Order <-> OrderItem
+        entityManager.clear();
+        String json = new ObjectMapper().writeValueAsString(
+                renderOrders(orderRepository.findFirstPageByNgo(ngoId, PageRequest.of(0, 10))));
+        assertThat(json).contains("\"foodType\":\"Rice\"").contains("\"requestedQuantity\":2.0");
+    }
+    
+    private void assertOneStatement(Supplier<List<?>> read, int expectedRows) {
+        assertStatements(read, expectedRows, 1);
+    }
+    
+    // Runs the read on an empty persistence context and counts the statements it prepares
+    private void assertStatements(Supplier<List<?>> read, int expectedRows, int expectedStatements) {
+        entityManager.clear();
+        statistics.clear();
+        
+        List<?> rows = read.get();
+        
+        assertThat(rows).hasSize(expectedRows);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expectedStatements);
+    }
+    
+    private static List<DonationResponse> render(List<Donation> donations) {
+        return donations.stream().map(DonationResponse::new).toList();
+    }
+    
+    private static List<FoodRequestResponse> renderRequests(List<FoodRequest> requests) {
+        return requests.stream().map(FoodRequestResponse::new).toList();
+    }
+    
+    // As OrderService pages do: the items of the whole page in one more query
+    private List<OrderDetailsResponse> renderOrders(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            orderRepository.fetchItems(orders);
+        }
+        return orders.stream().map(OrderDetailsResponse::new).toList();
+    }
+    
+    private static User user(String username, UserRole role) {
+        return new User(username, username, username + "@example.com", "x", role);
+    }
+}
@@ -0,0 +1,123 @@
+package com.foodwaste.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AvailableDonationsSnapshotTest {
+    
+    private final DonationService donationService = mock(DonationService.class);
+    private final User donor = new User("Donor", "donor", "donor@example.com", "x", UserRole.DONOR);
+    private AvailableDonationsSnapshot snapshot;
+    
+    @BeforeEach
+    void setUp() {
+        snapshot = new AvailableDonationsSnapshot();
+        ReflectionTestUtils.setField(snapshot, "donationService", donationService);
+        ReflectionTestUtils.setField(snapshot, "objectMapper", new ObjectMapper());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        snapshot.shutdown();
+    }
+    
+    @Test
+    void readersGetThePublishedSnapshotWhileAReloadIsRunning() throws Exception {
+        when(donationService.getAvailableDonations()).thenReturn(List.of(donation(1L, LocalDateTime.now().plusDays(1))));
+        snapshot.reload();
+        String before = body(snapshot.get());
+        
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(donationService.getAvailableDonations()).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return List.of(donation(1L, LocalDateTime.now().plusDays(1)), donation(2L, LocalDateTime.now().plusDays(1)));
+        });
+        snapshot.reload();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        
+        long started = System.nanoTime();
+        assertThat(body(snapshot.get())).isEqualTo(before);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofMillis(500));
+        
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> body(snapshot.get()).contains("\"id\":2"));
+    }
+    
+    @Test
+    void claimsArePublishedAndExpiredDonationsNeverServed() {
+        when(donationService.getAvailableDonations()).thenReturn(List.of(
+                donation(1L, LocalDateTime.now().plusDays(1)),
+                donation(2L, LocalDateTime.now().plusNanos(200_000_000))));
+        snapshot.reload();
+        assertThat(body(snapshot.get())).contains("\"id\":1", "\"remainingQuantity\":5.0");
+        
+        snapshot.onDonationClaimed(new DonationClaimedEvent(1L, 2.0));
+        await().atMost(Duration.ofSeconds(5)).until(() -> body(snapshot.get()).contains("\"remainingQuantity\":3.0"));
+        
+        await().atMost(Duration.ofSeconds(5)).until(() -> !body(snapshot.get()).contains("\"id\":2"));
+    }
+    
+    @Test
+    void assigningAVolunteerRepublishesTheEntry() {
+        Donation donation = donation(1L, LocalDateTime.now().plusDays(1));
+        when(donationService.getAvailableDonations()).thenReturn(List.of(donation));
+        snapshot.reload();
+        await().atMost(Duration.ofSeconds(5)).until(() -> body(snapshot.get()).contains("\"id\":1"));
+        assertThat(body(snapshot.get())).contains("\"assignedVolunteerName\":null");
+        
+        // The real service, publishing straight to the snapshot as a commit would
+        DonationRepository donationRepository = mock(DonationRepository.class);
+        UserService userService = mock(UserService.class);
+        User volunteer = new User("Ravi", "ravi", "ravi@example.com", "x", UserRole.VOLUNTEER);
+        volunteer.setId(9L);
+        when(donationRepository.findById(1L)).thenReturn(Optional.of(donation));
+        when(donationRepository.save(donation)).thenReturn(donation);
+        when(userService.findById(9L)).thenReturn(Optional.of(volunteer));
+        DonationService assigning = new DonationService();
+        ReflectionTestUtils.setField(assigning, "donationRepository", donationRepository);
+        ReflectionTestUtils.setField(assigning, "userService", userService);
+        ReflectionTestUtils.setField(assigning, "eventPublisher", (ApplicationEventPublisher) event ->
+                snapshot.onDonationChanged((DonationChangedEvent) event));
+        
+        assigning.assignToVolunteer(1L, 9L);
+        
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> body(snapshot.get()).contains("\"assignedVolunteerName\":\"Ravi\""));
+    }
+    
+    private Donation donation(Long id, LocalDateTime expiryTime) {
+        Donation donation = new Donation(donor, "Rice", 5.0, "kg", expiryTime, "MG Road", null);
+        donation.setId(id);
+        donation.setCreatedAt(LocalDateTime.now());
+        return donation;
+    }
+    
+    private static String body(AvailableDonationsSnapshot.Snapshot snapshot) {
+        return new String(snapshot.getBody(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.repository.DonationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The sweeper against a mocked repository: which queue entries reach the
+// UPDATE, and when
+class DonationExpiryServiceTest {
+    
+    private static final long RETRY_DELAY_MS = 100;
+    
+    private final DonationRepository repository = mock(DonationRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final List<Object[]> pending = new ArrayList<>();
+    private DonationExpiryService expiryService;
+    
+    @BeforeEach
+    void setUp() {
+        expiryService = new DonationExpiryService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(expiryService, "donationRepository", repository);
+        ReflectionTestUtils.setField(expiryService, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(expiryService, "batchSize", 1);
+        ReflectionTestUtils.setField(expiryService, "retryDelayMs", RETRY_DELAY_MS);
+        
+        when(repository.findIdAndExpiryByStatus(DonationStatus.PENDING)).thenReturn(pending);
+        // Every id handed to the UPDATE is expired
+        when(repository.expireDue(anyCollection(), eq(DonationStatus.PENDING), eq(DonationStatus.EXPIRED), any()))
+                .thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+        when(repository.findIdsByIdInAndStatus(anyCollection(), eq(DonationStatus.EXPIRED)))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        expiryService.stop();
+    }
+    
+    @Test
+    void rescheduledExpiryIsNotExpiredEarly() {
+        LocalDateTime now = LocalDateTime.now();
+        pending.add(new Object[] {1L, now.plusNanos(200_000_000)});
+        expiryService.start();
+        
+        expiryService.onDonationChanged(changed(1L, DonationStatus.PENDING, now.plusNanos(800_000_000)));
+        
+        // The original time passes without an UPDATE, the new one brings it
+        verify(repository, after(500).never()).expireDue(anyCollection(), any(), any(), any());
+        verify(repository, timeout(2000)).expireDue(eq(List.of(1L)), any(), any(), any());
+        assertThat(LocalDateTime.now()).isAfterOrEqualTo(now.plusNanos(800_000_000));
+    }
+    
+    @Test
+    void staleQueueEntriesAreSkipped() {
+        LocalDateTime due = LocalDateTime.now().plusNanos(100_000_000);
+        pending.add(new Object[] {1L, due});
+        pending.add(new Object[] {2L, due});
+        expiryService.start();
+        
+        // Accepted before it expired: its queue entry stays behind but no longer matches
+        expiryService.onDonationChanged(changed(1L, DonationStatus.ACCEPTED, due));
+        
+        verify(repository, timeout(2000)).expireDue(eq(List.of(2L)), any(), any(), any());
+        verify(repository, after(300).never()).expireDue(eq(List.of(1L)), any(), any(), any());
+        assertThat(expiryService.getQueuedCount()).isZero();
+    }
+    
+    @Test
+    void failedChunkIsRetried() {
+        LocalDateTime due = LocalDateTime.now();
+        pending.add(new Object[] {1L, due});
+        when(repository.expireDue(eq(List.of(1L)), any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(1);
+        expiryService.start();
+        
+        verify(repository, timeout(2000).times(2)).expireDue(eq(List.of(1L)), any(), any(), any());
+        ArgumentCaptor<DonationsExpiredEvent> expired = ArgumentCaptor.forClass(DonationsExpiredEvent.class);
+        verify(eventPublisher, timeout(2000)).publishEvent(expired.capture());
+        assertThat(expired.getValue().getDonationIds()).containsExactly(1L);
+        verify(repository, times(2)).expireDue(anyCollection(), any(), any(), any());
+    }
+    
+    @Test
+    void entryIsNotDueBeforeItsSubMillisecondExpiry() {
+        LocalDateTime base = LocalDateTime.now().plusNanos(100_000_000);
+        for (long id = 1; id <= 5; id++) {
+            pending.add(new Object[] {id, base.plusNanos(id * 200_000_000 + 999_999)});
+        }
+        List<String> early = new ArrayList<>();
+        when(repository.expireDue(anyCollection(), eq(DonationStatus.PENDING), eq(DonationStatus.EXPIRED), any()))
+                .thenAnswer(invocation -> {
+                    Long id = invocation.<List<Long>>getArgument(0).get(0);
+                    LocalDateTime due = base.plusNanos(id * 200_000_000 + 999_999);
+                    if (invocation.<LocalDateTime>getArgument(3).isBefore(due)) {
+                        early.add(id + " ran before " + due);
+                    }
+                    return 1;
+                });
+        expiryService.start();
+        
+        verify(repository, timeout(3000).times(5)).expireDue(anyCollection(), any(), any(), any());
+        assertThat(early).isEmpty();
+    }
+    
+    @Test
+    void entryTheUpdateLeftPendingIsRequeuedNotDropped() {
+        LocalDateTime due = LocalDateTime.now();
+        pending.add(new Object[] {1L, due});
+        // The stored expiry is a little later than the scheduled one
+        when(repository.expireDue(eq(List.of(1L)), any(), any(), any()))
+                .thenReturn(0)
+                .thenReturn(1);
+        when(repository.findIdsByIdInAndStatus(eq(List.of(1L)), eq(DonationStatus.PENDING)))
+                .thenReturn(List.of(1L));
+        expiryService.start();
+        
+        verify(repository, timeout(2000).times(2)).expireDue(eq(List.of(1L)), any(), any(), any());
+        ArgumentCaptor<DonationsExpiredEvent> expired = ArgumentCaptor.forClass(DonationsExpiredEvent.class);
+        verify(eventPublisher, timeout(2000)).publishEvent(expired.capture());
+        assertThat(expired.getValue().getDonationIds()).containsExactly(1L);
+        verify(repository, after(300).times(2)).expireDue(anyCollection(), any(), any(), any());
+        assertThat(expiryService.getQueuedCount()).isZero();
+    }
+    
+    private static DonationChangedEvent changed(Long id, DonationStatus status, LocalDateTime expiryTime) {
+        Donation donation = new Donation();
+        donation.setId(id);
+        donation.setStatus(status);
+        donation.setExpiryTime(expiryTime);
+        return new DonationChangedEvent(donation, DonationStatus.PENDING, status);
+    }
+}
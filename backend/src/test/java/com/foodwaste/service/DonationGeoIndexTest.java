@@ -0,0 +1,127 @@
+package com.foodwaste.service;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.util.GeoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Grid answers against a brute-force haversine scan over the same donations
+class DonationGeoIndexTest {
+    
+    private static final int DONATIONS = 3000;
+    
+    private final DonationRepository repository = mock(DonationRepository.class);
+    private final DonationGeoIndex index = new DonationGeoIndex();
+    private final List<Donation> donations = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "donationRepository", repository);
+        ReflectionTestUtils.setField(index, "cellSizeDegrees", 0.05);
+    }
+    
+    // Centre, spread in degrees, query radius and limit; the 60th parallel is
+    // where longitude cells get narrow
+    @ParameterizedTest
+    @CsvSource({
+        "12.97, 77.59, 0.5, 5, 10",
+        "12.97, 77.59, 0.5, 25, 50",
+        "12.97, 77.59, 2.0, 100, 1000",
+        "60.17, 24.94, 0.5, 10, 20",
+        "-33.87, 151.21, 0.3, 3, 5"
+    })
+    void radiusAndNearestMatchBruteForce(double latitude, double longitude, double spread,
+                                         double radiusKm, int limit) {
+        Random random = new Random(42);
+        for (long id = 1; id <= DONATIONS; id++) {
+            donations.add(donation(id, latitude + (random.nextDouble() * 2 - 1) * spread,
+                    longitude + (random.nextDouble() * 2 - 1) * spread));
+        }
+        when(repository.findByStatus(DonationStatus.PENDING)).thenReturn(donations);
+        index.rebuild();
+        
+        for (int query = 0; query < 20; query++) {
+            double queryLat = latitude + (random.nextDouble() * 2 - 1) * spread;
+            double queryLon = longitude + (random.nextDouble() * 2 - 1) * spread;
+            
+            List<DonationGeoIndex.Match> found = index.findNearest(queryLat, queryLon, radiusKm, limit, entry -> true);
+            List<Long> expected = bruteForce(queryLat, queryLon, radiusKm, limit);
+            
+            assertThat(found).extracting(DonationGeoIndex.Match::getDonationId).containsExactlyElementsOf(expected);
+            assertThat(found).isSortedAccordingTo(Comparator.comparingDouble(DonationGeoIndex.Match::getDistanceKm));
+        }
+    }
+    
+    @Test
+    void removingTheLastDonationOfACellDropsTheCell() {
+        index.update(donation(1L, 12.97, 77.59));
+        index.update(donation(2L, 12.97, 77.59));
+        index.update(donation(3L, 13.50, 77.90));
+        assertThat(cells()).hasSize(2);
+        
+        index.remove(3L);
+        assertThat(cells()).hasSize(1);
+        
+        // Moving away empties the old cell too
+        index.update(donation(1L, 14.00, 78.00));
+        index.update(donation(2L, 14.00, 78.00));
+        assertThat(cells()).hasSize(1);
+        assertThat(index.size()).isEqualTo(2);
+    }
+    
+    @Test
+    void rebuildReplacesTheIndexAndKeepsChangesMadeMeanwhile() {
+        index.update(donation(1L, 12.97, 77.59));
+        when(repository.findByStatus(DonationStatus.PENDING)).thenAnswer(invocation -> {
+            // Committed after the load read its rows
+            index.update(donation(3L, 12.98, 77.60));
+            return List.of(donation(2L, 12.97, 77.59));
+        });
+        
+        index.rebuild();
+        
+        assertThat(index.findNearest(12.97, 77.59, 10, 10, entry -> true))
+                .extracting(DonationGeoIndex.Match::getDonationId)
+                .containsExactlyInAnyOrder(2L, 3L);
+    }
+    
+    private List<Long> bruteForce(double latitude, double longitude, double radiusKm, int limit) {
+        return donations.stream()
+                .filter(donation -> GeoUtils.distanceKm(latitude, longitude,
+                        donation.getLatitude(), donation.getLongitude()) <= radiusKm)
+                .sorted(Comparator.comparingDouble(donation -> GeoUtils.distanceKm(latitude, longitude,
+                        donation.getLatitude(), donation.getLongitude())))
+                .limit(limit)
+                .map(Donation::getId)
+                .toList();
+    }
+    
+    private Map<?, ?> cells() {
+        Object grid = ReflectionTestUtils.getField(index, "grid");
+        return (Map<?, ?>) ReflectionTestUtils.getField(grid, "cells");
+    }
+    
+    private static Donation donation(Long id, double latitude, double longitude) {
+        Donation donation = new Donation();
+        donation.setId(id);
+        donation.setFoodType("Rice");
+        donation.setLatitude(latitude);
+        donation.setLongitude(longitude);
+        return donation;
+    }
+}
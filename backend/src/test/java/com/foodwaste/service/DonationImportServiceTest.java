@@ -0,0 +1,148 @@
+package com.foodwaste.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.controller.DonationController.DonationRequest;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.service.DonationImportService.ImportResult;
+import com.foodwaste.service.DonationImportService.RowError;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verify;
+
+// Batches commit on their own, so the tests do not run inside a transaction
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DonationImportService.class, DonationImportServiceTest.ImportConfig.class})
+@TestPropertySource(properties = "donations.import.batch-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DonationImportServiceTest {
+    
+    private static final String ROW =
+            "{\"foodType\":\"Rice\",\"quantity\":5,\"unit\":\"kg\",\"pickupLocation\":\"MG Road\"}\n";
+    
+    @Autowired
+    private DonationImportService importService;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockitoBean
+    private UserService userService;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private User donor;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        donor = userRepository.save(new User("Donor", "donor" + suffix, "donor" + suffix + "@example.com",
+                "x", UserRole.DONOR));
+    }
+    
+    @Test
+    void badRowsAreReportedByNumberAndTheRestImported() throws IOException {
+        String body = ROW
+                + "{\"foodType\":\"Rice\",\"quantity\":\"lots\",\"pickupLocation\":\"MG Road\"}\n"
+                + "{\"foodType\":\"Rice\",\"quantity\":-1,\"pickupLocation\":\"MG Road\"}\n"
+                + "{\"donorId\":" + (donor.getId() + 1) + ",\"foodType\":\"Rice\",\"quantity\":5,\"pickupLocation\":\"MG Road\"}\n"
+                + ROW;
+        
+        ImportResult result = importDonations(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(RowError::getRow).containsExactly(2, 3, 4);
+        assertThat(result.getErrors().get(1).getMessage()).contains("quantity");
+        assertThat(donationRepository.findByDonorIdOrderByCreatedAtDesc(donor.getId())).hasSize(2);
+        assertThat(pointsAwarded()).isEqualTo(2 * DonationService.DONATION_POINTS);
+    }
+    
+    @Test
+    void bodyThatBreaksOffKeepsWhatWasSavedAndItsPoints() throws IOException {
+        InputStream body = new SequenceInputStream(
+                new ByteArrayInputStream((ROW + ROW + ROW).getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset by peer");
+                    }
+                });
+        
+        ImportResult result = importDonations(body);
+        
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getRow()).isEqualTo(4);
+            assertThat(error.getMessage()).contains("Connection reset by peer");
+        });
+        assertThat(donationRepository.findByDonorIdOrderByCreatedAtDesc(donor.getId())).hasSize(3);
+        assertThat(pointsAwarded()).isEqualTo(3 * DonationService.DONATION_POINTS);
+    }
+    
+    private ImportResult importDonations(InputStream body) throws IOException {
+        MappingIterator<DonationRequest> rows = objectMapper.readerFor(DonationRequest.class).readValues(body);
+        return importService.importDonations(donor, rows, request -> {
+            if (request.getDonorId() != null && !request.getDonorId().equals(donor.getId())) {
+                throw new IllegalArgumentException("donorId differs from the donor of the import");
+            }
+            return new Donation(donor, request.getFoodType(), request.getQuantity(), request.getUnit(),
+                    request.getExpiryTime(), request.getPickupLocation(), request.getDescription());
+        });
+    }
+    
+    private int pointsAwarded() {
+        verify(userService, atLeastOnce()).addPoints(eq(donor.getId()), anyInt());
+        return mockingDetails(userService).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("addPoints"))
+                .mapToInt(invocation -> invocation.getArgument(1))
+                .sum();
+    }
+    
+    @TestConfiguration
+    static class ImportConfig {
+        
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.OrderRequest;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.OrderRepository;
+import com.foodwaste.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Claims run in their own transactions, so the tests commit their rows
+// instead of running inside a rolled-back test transaction
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DonationReservationService.class, OrderService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DonationReservationServiceTest {
+    
+    private static final int CLAIMERS = 64;
+    
+    @Autowired
+    private DonationReservationService reservationService;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private User donor;
+    private User ngo;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        donor = userRepository.save(new User("Donor", "donor" + suffix, "donor" + suffix + "@example.com",
+                "x", UserRole.DONOR));
+        ngo = userRepository.save(new User("NGO", "ngo" + suffix, "ngo" + suffix + "@example.com",
+                "x", UserRole.NGO));
+    }
+    
+    @Test
+    void concurrentClaimsNeverOversell() throws Exception {
+        Long donationId = donation(40.0);
+        
+        List<Double> claimed = claimConcurrently(donationId, 1.0);
+        
+        assertThat(claimed.stream().mapToDouble(Double::doubleValue).sum()).isEqualTo(40.0);
+        assertThat(claimed).allMatch(quantity -> quantity == 0.0 || quantity == 1.0);
+        Donation donation = donationRepository.findById(donationId).orElseThrow();
+        assertThat(donation.getRemainingQuantity()).isZero();
+        assertThat(donation.getQuantity()).isEqualTo(40.0);
+    }
+    
+    @Test
+    void claimBeyondRemainingIsFilledPartially() {
+        Long donationId = donation(5.0);
+        
+        assertThat(reservationService.reserve(donationId, 3.0)).isEqualTo(3.0);
+        assertThat(reservationService.reserve(donationId, 3.0)).isEqualTo(2.0);
+        assertThat(reservationService.reserve(donationId, 3.0)).isZero();
+    }
+    
+    @Test
+    void releaseGivesQuantityBackUpToTheDonatedOne() {
+        Long donationId = donation(5.0);
+        reservationService.reserve(donationId, 4.0);
+        
+        reservationService.release(donationId, 4.0);
+        reservationService.release(donationId, 4.0);
+        
+        assertThat(donationRepository.findById(donationId).orElseThrow().getRemainingQuantity()).isEqualTo(5.0);
+    }
+    
+    @Test
+    void rolledBackOrderReleasesItsClaims() {
+        Long first = donation(5.0);
+        Long second = donation(5.0);
+        long orders = orderRepository.count();
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.placeOrder(ngo, orderRequest(second, 2.0, first, 3.0));
+            status.setRollbackOnly();
+        });
+        
+        assertThat(orderRepository.count()).isEqualTo(orders);
+        assertThat(donationRepository.findById(first).orElseThrow().getRemainingQuantity()).isEqualTo(5.0);
+        assertThat(donationRepository.findById(second).orElseThrow().getRemainingQuantity()).isEqualTo(5.0);
+    }
+    
+    @Test
+    void placedOrderKeepsItsClaims() {
+        Long donationId = donation(5.0);
+        
+        orderService.placeOrder(ngo, orderRequest(donationId, 2.0));
+        
+        assertThat(donationRepository.findById(donationId).orElseThrow().getRemainingQuantity()).isEqualTo(3.0);
+    }
+    
+    @Test
+    void orderWithUnknownDonationIsRejectedBeforeAnythingIsClaimed() {
+        Long donationId = donation(5.0);
+        long orders = orderRepository.count();
+        
+        assertThatThrownBy(() -> orderService.placeOrder(ngo, orderRequest(donationId, 2.0, Long.MAX_VALUE, 1.0)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(String.valueOf(Long.MAX_VALUE));
+        
+        assertThat(orderRepository.count()).isEqualTo(orders);
+        assertThat(donationRepository.findById(donationId).orElseThrow().getRemainingQuantity()).isEqualTo(5.0);
+    }
+    
+    private List<Double> claimConcurrently(Long donationId, double quantity) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLAIMERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Double>> futures = new ArrayList<>();
+            for (int i = 0; i < CLAIMERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return reservationService.reserve(donationId, quantity);
+                }));
+            }
+            start.countDown();
+            
+            List<Double> claimed = new ArrayList<>();
+            for (Future<Double> future : futures) {
+                claimed.add(future.get());
+            }
+            return claimed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private Long donation(double quantity) {
+        return donationRepository.save(new Donation(donor, "Rice", quantity, "kg",
+                LocalDateTime.now().plusDays(1), "MG Road", null)).getId();
+    }
+    
+    // Alternating donation ids and quantities
+    private static OrderRequest orderRequest(Object... items) {
+        List<OrderRequest.OrderItemRequest> itemRequests = new ArrayList<>();
+        for (int i = 0; i < items.length; i += 2) {
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setId((Long) items[i]);
+            item.setRequestedQuantity((Double) items[i + 1]);
+            itemRequests.add(item);
+        }
+        
+        OrderRequest.DeliveryDetailsRequest details = new OrderRequest.DeliveryDetailsRequest();
+        details.setDeliveryLocation("Shelter");
+        details.setDeliveryDate(LocalDateTime.now().plusDays(1).toLocalDate().toString());
+        details.setDeliveryTime("10:00");
+        
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setItems(itemRequests);
+        orderRequest.setDeliveryDetails(details);
+        return orderRequest;
+    }
+}
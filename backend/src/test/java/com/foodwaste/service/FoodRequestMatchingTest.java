@@ -0,0 +1,124 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.repository.FoodRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Candidate selection for a request: the real geo and text indexes, with the
+// rows they point at served from a map
+class FoodRequestMatchingTest {
+    
+    private static final double LATITUDE = 12.97;
+    private static final double LONGITUDE = 77.59;
+    
+    private final FoodRequestRepository foodRequestRepository = mock(FoodRequestRepository.class);
+    private final DonationService donationService = mock(DonationService.class);
+    private final DonationGeoIndex donationGeoIndex = new DonationGeoIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final FoodRequestService foodRequestService = new FoodRequestService();
+    private final Map<Long, Donation> rows = new HashMap<>();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(donationGeoIndex, "cellSizeDegrees", 0.05);
+        ReflectionTestUtils.setField(foodRequestService, "foodRequestRepository", foodRequestRepository);
+        ReflectionTestUtils.setField(foodRequestService, "donationGeoIndex", donationGeoIndex);
+        ReflectionTestUtils.setField(foodRequestService, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(foodRequestService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(foodRequestService, "matchingRadiusKm", 10.0);
+        ReflectionTestUtils.setField(foodRequestService, "matchingMaxCandidates", 2);
+        
+        when(donationService.findAllById(anyList())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0)
+                .stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+    
+    @Test
+    void claimedDonationsDoNotCrowdOutAvailableOnesFurtherAway() {
+        // The three nearest were claimed after they were indexed
+        for (long id = 1; id <= 3; id++) {
+            Donation claimed = donation(id, "Koramangala", LATITUDE + id * 0.001, LONGITUDE);
+            index(claimed);
+            claimed.setRemainingQuantity(0.0);
+        }
+        index(donation(4L, "Koramangala", LATITUDE + 0.01, LONGITUDE));
+        index(donation(5L, "Koramangala", LATITUDE + 0.02, LONGITUDE));
+        
+        assertThat(match(request("Koramangala"))).containsExactly(4L, 5L);
+    }
+    
+    @Test
+    void donationsWithoutCoordinatesFollowByLocationText() {
+        index(donation(1L, "Koramangala", LATITUDE + 0.01, LONGITUDE));
+        index(donation(2L, "Koramangala 5th Block", null, null));
+        // Has coordinates, just outside the radius
+        index(donation(3L, "Koramangala", LATITUDE + 1.0, LONGITUDE));
+        
+        assertThat(match(request("Koramangala"))).containsExactly(1L, 2L);
+    }
+    
+    @Test
+    void textMatchesFillOnlyWhatTheNearbyOnesLeave() {
+        index(donation(1L, "Koramangala", LATITUDE + 0.01, LONGITUDE));
+        index(donation(2L, "Koramangala", LATITUDE + 0.02, LONGITUDE));
+        index(donation(3L, "Koramangala", null, null));
+        
+        assertThat(match(request("Koramangala"))).containsExactly(1L, 2L);
+    }
+    
+    private List<Long> match(FoodRequest request) {
+        when(foodRequestRepository.findById(request.getId())).thenReturn(Optional.of(request));
+        return foodRequestService.findMatchingDonations(request.getId(), donationService).stream()
+                .map(Donation::getId)
+                .toList();
+    }
+    
+    private void index(Donation donation) {
+        rows.put(donation.getId(), donation);
+        DonationChangedEvent event = new DonationChangedEvent(donation, null, DonationStatus.PENDING);
+        donationGeoIndex.onDonationChanged(event);
+        searchIndex.onDonationChanged(event);
+    }
+    
+    private static FoodRequest request(String deliveryLocation) {
+        FoodRequest request = new FoodRequest();
+        request.setId(100L);
+        request.setFoodTypeNeeded("Rice");
+        request.setDeliveryLocation(deliveryLocation);
+        request.setLatitude(LATITUDE);
+        request.setLongitude(LONGITUDE);
+        return request;
+    }
+    
+    private static Donation donation(Long id, String pickupLocation, Double latitude, Double longitude) {
+        Donation donation = new Donation();
+        donation.setId(id);
+        donation.setFoodType("Rice");
+        donation.setPickupLocation(pickupLocation);
+        donation.setStatus(DonationStatus.PENDING);
+        donation.setRemainingQuantity(5.0);
+        donation.setLatitude(latitude);
+        donation.setLongitude(longitude);
+        return donation;
+    }
+}
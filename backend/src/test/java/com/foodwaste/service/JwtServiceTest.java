@@ -0,0 +1,88 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.AuthenticatedUser;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+    
+    private static final String SECRET = "test-secret-test-secret-test-secret";
+    
+    private final User donor = new User("Donor", "donor", "donor@example.com", "x", UserRole.DONOR);
+    private JwtService jwtService;
+    
+    @BeforeEach
+    void setUp() {
+        donor.setId(7L);
+        jwtService = jwtService(SECRET);
+    }
+    
+    @Test
+    void issuedTokenVerifies() {
+        AuthenticatedUser user = jwtService.verify(jwtService.issueAccessToken(donor));
+        
+        assertThat(user).isNotNull();
+        assertThat(user.getId()).isEqualTo(7L);
+        assertThat(user.getRole()).isEqualTo(UserRole.DONOR);
+    }
+    
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() {
+        String forged = jwtService("another-secret-another-secret-another").issueAccessToken(donor);
+        
+        assertThat(jwtService.verify(forged)).isNull();
+    }
+    
+    @Test
+    void tokenWithChangedClaimsIsRejected() {
+        String[] parts = jwtService.issueAccessToken(donor).split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("\"DONOR\"", "\"ADMIN\"");
+        String tampered = parts[0] + "." + encode(payload) + "." + parts[2];
+        
+        assertThat(jwtService.verify(tampered)).isNull();
+    }
+    
+    @Test
+    void unsignedTokenIsRejected() {
+        String header = encode("{\"alg\":\"none\"}");
+        String payload = encode("{\"sub\":\"7\",\"username\":\"donor\",\"role\":\"ADMIN\",\"iat\":"
+                + Instant.now().getEpochSecond() + ",\"exp\":" + Instant.now().plusSeconds(600).getEpochSecond() + "}");
+        
+        assertThat(jwtService.verify(header + "." + payload + ".")).isNull();
+    }
+    
+    @Test
+    void shortSecretFailsStartup() {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secret", "mySecretKey");
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        
+        assertThatThrownBy(service::init).isInstanceOf(IllegalStateException.class);
+    }
+    
+    private static JwtService jwtService(String secret) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "expirationMs", 900_000L);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+    
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
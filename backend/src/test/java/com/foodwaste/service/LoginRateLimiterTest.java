@@ -0,0 +1,74 @@
+package com.foodwaste.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Time is passed in, so refill is checked without sleeping
+class LoginRateLimiterTest {
+    
+    private static final long START = 1_000_000L;
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginRateLimiter limiter;
+    
+    @BeforeEach
+    void setUp() {
+        limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(limiter, "ipPerMinute", 2);
+        ReflectionTestUtils.setField(limiter, "usernamePerMinute", 1);
+    }
+    
+    @Test
+    void addressBucketEmptiesAndSaysHowLongToWait() {
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", START)).isZero();
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", START)).isZero();
+        
+        // Two a minute: the next token is 30 s away
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", START)).isEqualTo(30);
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", START + 20_000)).isEqualTo(10);
+        assertThat(meterRegistry.counter("auth.rate.limited", "scope", "ip").count()).isEqualTo(2);
+        
+        // Another address has a bucket of its own
+        assertThat(limiter.tryAcquire(null, "10.0.0.2", START)).isZero();
+    }
+    
+    @Test
+    void bucketRefillsOverTimeUpToItsCapacity() {
+        limiter.tryAcquire(null, "10.0.0.1", START);
+        limiter.tryAcquire(null, "10.0.0.1", START);
+        
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", START + 30_000)).isZero();
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", START + 30_000)).isPositive();
+        
+        // Idle for ten minutes still only holds a minute's worth
+        long later = START + 600_000;
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", later)).isZero();
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", later)).isZero();
+        assertThat(limiter.tryAcquire(null, "10.0.0.1", later)).isPositive();
+    }
+    
+    @Test
+    void usernameIsLimitedAcrossAddressesAndCase() {
+        assertThat(limiter.tryAcquire("Alice", "10.0.0.1", START)).isZero();
+        
+        assertThat(limiter.tryAcquire("alice", "10.0.0.2", START)).isEqualTo(60);
+        assertThat(meterRegistry.counter("auth.rate.limited", "scope", "username").count()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("bob", "10.0.0.2", START)).isZero();
+    }
+    
+    @Test
+    void zeroDisablesTheLimit() {
+        ReflectionTestUtils.setField(limiter, "ipPerMinute", 0);
+        ReflectionTestUtils.setField(limiter, "usernamePerMinute", 0);
+        
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire("alice", "10.0.0.1", START)).isZero();
+        }
+    }
+}
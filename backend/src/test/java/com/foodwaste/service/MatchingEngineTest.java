@@ -0,0 +1,144 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.OrderRequest;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.Order;
+import com.foodwaste.model.OrderItem;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.util.TextIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Requests without coordinates are matched through the search index
+class MatchingEngineTest {
+    
+    private final SearchIndex searchIndex = mock(SearchIndex.class);
+    private final FoodRequestRepository foodRequestRepository = mock(FoodRequestRepository.class);
+    private final DonationRepository donationRepository = mock(DonationRepository.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final FoodRequestService foodRequestService = mock(FoodRequestService.class);
+    private final LocalDateTime now = LocalDateTime.now();
+    private MatchingEngine matchingEngine;
+    
+    @BeforeEach
+    void setUp() {
+        matchingEngine = new MatchingEngine(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(matchingEngine, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(matchingEngine, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(matchingEngine, "radiusKm", 10.0);
+        ReflectionTestUtils.setField(matchingEngine, "maxCandidates", 1);
+        ReflectionTestUtils.setField(matchingEngine, "foodRequestRepository", foodRequestRepository);
+        ReflectionTestUtils.setField(matchingEngine, "donationRepository", donationRepository);
+        ReflectionTestUtils.setField(matchingEngine, "orderService", orderService);
+        ReflectionTestUtils.setField(matchingEngine, "foodRequestService", foodRequestService);
+        
+        // The first rice donation is in Andheri, the second in Bandra
+        when(searchIndex.searchDonations(eq("rice"), eq(Set.of(SearchIndex.FOOD_TYPE)),
+                eq(DonationStatus.PENDING), anyInt()))
+                .thenReturn(List.of(new TextIndex.Hit<>(1L, 2.0), new TextIndex.Hit<>(2L, 1.0)));
+        when(searchIndex.searchDonations(eq("andheri"), eq(Set.of(SearchIndex.LOCATION)),
+                eq(DonationStatus.PENDING), anyInt()))
+                .thenReturn(List.of(new TextIndex.Hit<>(1L, 1.0)));
+        when(searchIndex.searchDonations(eq("bandra"), eq(Set.of(SearchIndex.LOCATION)),
+                eq(DonationStatus.PENDING), anyInt()))
+                .thenReturn(List.of(new TextIndex.Hit<>(2L, 1.0)));
+    }
+    
+    @Test
+    void textCandidatesAreRestrictedToTheDeliveryLocationAndPickedPerRequest() {
+        List<FoodRequest> requests = List.of(request(10L, "Andheri"), request(20L, "Bandra"));
+        List<Donation> donations = List.of(donation(1L), donation(2L));
+        
+        MatchingEngine.MatchingPlan plan = matchingEngine.solve(requests, donations, now);
+        
+        // With one candidate per request, a shared list would hand both requests donation 1
+        Map<Long, Long> donationByRequest = plan.getAssignments().stream()
+                .collect(Collectors.toMap(MatchingEngine.Assignment::getRequestId,
+                        MatchingEngine.Assignment::getDonationId));
+        assertThat(donationByRequest).containsExactlyInAnyOrderEntriesOf(Map.of(10L, 1L, 20L, 2L));
+    }
+    
+    @Test
+    void textRequestIsNotMatchedToDonationsElsewhere() {
+        MatchingEngine.MatchingPlan plan = matchingEngine.solve(List.of(request(10L, "Bandra")), List.of(donation(1L)), now);
+        
+        assertThat(plan.getAssignments()).isEmpty();
+    }
+    
+    @Test
+    void requestIsOnlyCreditedWithWhatTheOrderReserved() {
+        FoodRequest request = request(10L, "Andheri");
+        when(foodRequestRepository.findActiveRequestsByPriority(eq(RequestStatus.OPEN), any()))
+                .thenReturn(List.of(request));
+        when(donationRepository.findAvailableDonations(eq(DonationStatus.PENDING), any()))
+                .thenReturn(List.of(donation(1L)));
+        // Planned 5, but a concurrent order left only 3
+        when(orderService.placeOrder(any(), any(OrderRequest.class))).thenReturn(order(donation(1L), 3.0));
+        when(foodRequestService.recordMatchedQuantity(anyLong(), eq(3.0))).thenReturn(request);
+        
+        MatchingEngine.MatchingPlan plan = matchingEngine.run(true);
+        
+        verify(foodRequestService).recordMatchedQuantity(10L, 3.0);
+        verify(foodRequestService, never()).markAsMatched(anyLong());
+        assertThat(plan.getAppliedRequests()).isEqualTo(1);
+        assertThat(plan.getMatchedRequests()).isZero();
+    }
+    
+    @Test
+    void partialNeedIsMatchedAgainstWhatIsLeft() {
+        FoodRequest request = request(10L, "Andheri");
+        request.setRemainingQuantity(2.0);
+        
+        MatchingEngine.MatchingPlan plan = matchingEngine.solve(List.of(request), List.of(donation(1L)), now);
+        
+        assertThat(plan.getAssignments()).singleElement()
+                .satisfies(assignment -> assertThat(assignment.getQuantity()).isEqualTo(2.0));
+        assertThat(plan.getSatisfiedRequests()).isEqualTo(1);
+    }
+    
+    private Order order(Donation donation, double reserved) {
+        Order order = new Order();
+        order.setOrderItems(List.of(new OrderItem(order, donation, reserved, "kg")));
+        return order;
+    }
+    
+    private FoodRequest request(Long id, String deliveryLocation) {
+        User ngo = new User("Shelter", "shelter", "shelter@example.com", "x", UserRole.NGO);
+        ngo.setId(100L);
+        FoodRequest request = new FoodRequest(ngo, "Rice", 5.0, "kg", deliveryLocation, null,
+                now.plusDays(1), 10);
+        request.setId(id);
+        return request;
+    }
+    
+    private Donation donation(Long id) {
+        Donation donation = new Donation(null, "Rice", 5.0, "kg", now.plusDays(1), "Pickup", null);
+        donation.setId(id);
+        return donation;
+    }
+}
@@ -0,0 +1,169 @@
+package com.foodwaste.service;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.OutboxMessage;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.OutboxMessageRepository;
+import com.foodwaste.repository.UserRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Sends through GreenMail's SMTP server. The dispatcher commits in its own
+// transactions, so the tests do not run inside one.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({NotificationDispatcher.class, NotificationDispatcherTest.MailConfig.class})
+@TestPropertySource(properties = {
+    "notifications.enabled=true",
+    "notifications.from=noreply@example.com",
+    "notifications.rate-per-second=0",
+    "notifications.backoff-ms=60000",
+    "notifications.radius-km=10"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationDispatcherTest {
+    
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+    
+    @Autowired
+    private NotificationDispatcher dispatcher;
+    
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private User ngo;
+    private Donation donation;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        User donor = userRepository.save(new User("Donor", "donor" + suffix, "donor" + suffix + "@example.com",
+                "x", UserRole.DONOR));
+        ngo = new User("Food Bank", "ngo" + suffix, "ngo" + suffix + "@example.com", "x", UserRole.NGO);
+        ngo.setLatitude(12.971);
+        ngo.setLongitude(77.594);
+        ngo = userRepository.save(ngo);
+        
+        donation = new Donation(donor, "Rice", 5.0, "kg", LocalDateTime.now().plusDays(1), "MG Road", null);
+        donation.setLatitude(12.972);
+        donation.setLongitude(77.595);
+        donation = donationRepository.save(donation);
+    }
+    
+    @Test
+    void donationIsMailedToNearbyNgo() throws Exception {
+        OutboxMessage created = outbox(OutboxMessage.Type.DONATION_CREATED, donation.getId(), null);
+        
+        dispatcher.poll();
+        assertThat(status(created)).isEqualTo(OutboxMessage.Status.SENT);
+        dispatcher.poll();
+        
+        // Rows left by earlier tests in this database may be sent in the same poll
+        await().atMost(Duration.ofSeconds(5)).until(() -> mailTo(ngo.getEmail()) != null);
+        assertThat(mailTo(ngo.getEmail()).getSubject()).isEqualTo("New donation near you: Rice");
+    }
+    
+    @Test
+    void malformedRowIsDeadLetteredWithoutHoldingUpTheBatch() {
+        OutboxMessage malformed = outbox(OutboxMessage.Type.DONATIONS_IMPORTED, donation.getDonor().getId(),
+                donation.getId() + ",not-an-id");
+        OutboxMessage created = outbox(OutboxMessage.Type.DONATION_CREATED, donation.getId(), null);
+        
+        dispatcher.poll();
+        
+        OutboxMessage dead = outboxMessageRepository.findById(malformed.getId()).orElseThrow();
+        assertThat(dead.getStatus()).isEqualTo(OutboxMessage.Status.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(1);
+        assertThat(dead.getLastError()).contains("not-an-id");
+        assertThat(status(created)).isEqualTo(OutboxMessage.Status.SENT);
+    }
+    
+    @Test
+    void unreachableServerIsRetriedLater() {
+        greenMail.stop();
+        OutboxMessage email = outboxMessageRepository.save(OutboxMessage.email(donation.getId(), ngo.getEmail(),
+                "Subject", "Body", LocalDateTime.now()));
+        
+        dispatcher.poll();
+        
+        await().atMost(Duration.ofSeconds(10)).until(() -> attempts(email) == 1);
+        OutboxMessage retried = outboxMessageRepository.findById(email.getId()).orElseThrow();
+        assertThat(retried.getStatus()).isEqualTo(OutboxMessage.Status.PENDING);
+        assertThat(retried.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+    }
+    
+    private OutboxMessage outbox(OutboxMessage.Type type, Long aggregateId, String body) {
+        OutboxMessage message = new OutboxMessage(type, aggregateId, LocalDateTime.now());
+        message.setBody(body);
+        return outboxMessageRepository.save(message);
+    }
+    
+    private OutboxMessage.Status status(OutboxMessage message) {
+        return outboxMessageRepository.findById(message.getId()).orElseThrow().getStatus();
+    }
+    
+    private static MimeMessage mailTo(String recipient) throws MessagingException {
+        for (MimeMessage mail : greenMail.getReceivedMessages()) {
+            if (mail.getAllRecipients()[0].toString().equals(recipient)) {
+                return mail;
+            }
+        }
+        return null;
+    }
+    
+    private int attempts(OutboxMessage message) {
+        return outboxMessageRepository.findById(message.getId()).orElseThrow().getAttempts();
+    }
+    
+    @TestConfiguration
+    static class MailConfig {
+        
+        @Bean
+        JavaMailSender mailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+            mailSender.setPort(ServerSetupTest.SMTP.getPort());
+            return mailSender;
+        }
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.foodwaste.service;
+
+import com.foodwaste.dto.OrderRequest;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.Order;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.OrderRepository;
+import com.foodwaste.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// placeOrder end to end on H2: statements per order, and claims given back
+// when the order insert fails. Claims commit on their own, so the test does too.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({DonationReservationService.class, OrderService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceTest {
+    
+    private static final int ITEMS = 6;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    private User donor;
+    private User ngo;
+    
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        
+        String suffix = String.valueOf(System.nanoTime());
+        donor = userRepository.save(new User("Donor", "donor" + suffix, "donor" + suffix + "@example.com",
+                "x", UserRole.DONOR));
+        ngo = userRepository.save(new User("NGO", "ngo" + suffix, "ngo" + suffix + "@example.com",
+                "x", UserRole.NGO));
+    }
+    
+    // One SELECT for the donations, one UPDATE per claim, one INSERT for the
+    // order and one batched INSERT for all of its items, plus a sequence call
+    // when the pooled block of 50 item ids runs out. Unbatched items would
+    // take one INSERT each.
+    @Test
+    void orderTakesOneClaimPerItemAndOneBatchForItsItems() {
+        List<Long> donationIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            donationIds.add(donation(5.0));
+        }
+        statistics.clear();
+        
+        Order order = orderService.placeOrder(ngo, orderRequest("Shelter", donationIds, 2.0));
+        
+        assertThat(order.getOrderItems()).hasSize(ITEMS);
+        assertThat(statistics.getPrepareStatementCount()).isBetween(1L + ITEMS + 1 + 1, 1L + ITEMS + 1 + 1 + 1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + ITEMS);
+        assertThat(donationRepository.findAllById(donationIds))
+                .allSatisfy(donation -> assertThat(donation.getRemainingQuantity()).isEqualTo(3.0));
+    }
+    
+    @Test
+    void failedOrderInsertReleasesEveryClaim() {
+        Long first = donation(5.0);
+        Long second = donation(5.0);
+        long orders = orderRepository.count();
+        
+        // delivery_location is NOT NULL; the claims have committed by the time the INSERT fails
+        assertThatThrownBy(() -> orderService.placeOrder(ngo, orderRequest(null, List.of(first, second), 2.0)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        
+        assertThat(orderRepository.count()).isEqualTo(orders);
+        assertThat(donationRepository.findById(first).orElseThrow().getRemainingQuantity()).isEqualTo(5.0);
+        assertThat(donationRepository.findById(second).orElseThrow().getRemainingQuantity()).isEqualTo(5.0);
+    }
+    
+    private Long donation(double quantity) {
+        return donationRepository.save(new Donation(donor, "Rice", quantity, "kg",
+                LocalDateTime.now().plusDays(1), "MG Road", null)).getId();
+    }
+    
+    private static OrderRequest orderRequest(String deliveryLocation, List<Long> donationIds, double quantity) {
+        List<OrderRequest.OrderItemRequest> itemRequests = new ArrayList<>();
+        for (Long donationId : donationIds) {
+            OrderRequest.OrderItemRequest item = new OrderRequest.OrderItemRequest();
+            item.setId(donationId);
+            item.setRequestedQuantity(quantity);
+            itemRequests.add(item);
+        }
+        
+        OrderRequest.DeliveryDetailsRequest details = new OrderRequest.DeliveryDetailsRequest();
+        details.setDeliveryLocation(deliveryLocation);
+        details.setDeliveryDate(LocalDateTime.now().plusDays(1).toLocalDate().toString());
+        details.setDeliveryTime("10:00");
+        
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setItems(itemRequests);
+        orderRequest.setDeliveryDetails(details);
+        return orderRequest;
+    }
+}
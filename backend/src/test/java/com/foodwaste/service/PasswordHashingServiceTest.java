@@ -0,0 +1,128 @@
+package com.foodwaste.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// One hashing thread held on a latch, so what is queued and what is refused is exact
+class PasswordHashingServiceTest {
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private PasswordHashingService hashing;
+    
+    @BeforeEach
+    void setUp() {
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "{bcrypt}" + invocation.getArgument(0);
+        });
+        hashing = new PasswordHashingService();
+        ReflectionTestUtils.setField(hashing, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(hashing, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(hashing, "threads", 1);
+        ReflectionTestUtils.setField(hashing, "maxWaitMs", 1000L);
+        ReflectionTestUtils.setField(hashing, "hashMs", 100L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        hashing.stop();
+    }
+    
+    @Test
+    void fullQueueFailsAtOnceAndIsCounted() throws Exception {
+        ReflectionTestUtils.setField(hashing, "queueSize", 1);
+        hashing.start();
+        
+        CompletableFuture<String> running = hashing.encode("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = hashing.encode("second");
+        CompletableFuture<String> refused = hashing.encode("third");
+        
+        assertThat(refused).isCompletedExceptionally();
+        assertThatThrownBy(refused::get).isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("auth.hashing.rejected").count()).isEqualTo(1);
+        
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("{bcrypt}first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("{bcrypt}second");
+    }
+    
+    @Test
+    void defaultQueueHoldsWhatThePoolHashesWithinTheWaitBudget() throws Exception {
+        // 1 thread x 1000 ms / 100 ms per hash = 10 queued behind the running one
+        ReflectionTestUtils.setField(hashing, "queueSize", 0);
+        hashing.start();
+        
+        assertAdmitsQueued(10);
+    }
+    
+    @Test
+    void slowerMeasuredHashesAdmitFewer() throws Exception {
+        ReflectionTestUtils.setField(hashing, "queueSize", 0);
+        hashing.start();
+        averageHashNanos().set(TimeUnit.MILLISECONDS.toNanos(250));
+        
+        assertAdmitsQueued(4);
+    }
+    
+    @Test
+    void averageFollowsTheMeasuredHashTime() throws Exception {
+        release.countDown();
+        ReflectionTestUtils.setField(hashing, "queueSize", 0);
+        hashing.start();
+        
+        for (int i = 0; i < 50; i++) {
+            hashing.encode("fast" + i).get(5, TimeUnit.SECONDS);
+        }
+        
+        assertThat(averageHashNanos().get()).isLessThan(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    
+    // With the one thread held, exactly this many wait behind it and the next is refused
+    private void assertAdmitsQueued(int queued) throws Exception {
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        accepted.add(hashing.encode("running"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < queued; i++) {
+            accepted.add(hashing.encode("queued" + i));
+        }
+        CompletableFuture<String> refused = hashing.encode("one too many");
+        
+        assertThat(accepted).noneMatch(CompletableFuture::isCompletedExceptionally);
+        assertThat(refused).isCompletedExceptionally();
+        assertThat(meterRegistry.counter("auth.hashing.rejected").count()).isEqualTo(1);
+        
+        release.countDown();
+        CompletableFuture.allOf(accepted.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+    }
+    
+    private AtomicLong averageHashNanos() {
+        return (AtomicLong) ReflectionTestUtils.getField(hashing, "averageHashNanos");
+    }
+}
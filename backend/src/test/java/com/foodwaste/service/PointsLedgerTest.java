@@ -0,0 +1,119 @@
+package com.foodwaste.service;
+
+import com.foodwaste.config.CacheConfig;
+import com.foodwaste.repository.PointsLedgerRepository;
+import com.foodwaste.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// What getPendingPoints reports while a flush is writing and evicting. No
+// transaction synchronization is active, so awards accumulate at once.
+class PointsLedgerTest {
+    
+    private static final Long USER_ID = 1L;
+    
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PointsLedgerRepository pointsLedgerRepository = mock(PointsLedgerRepository.class);
+    private final CacheManager cacheManager = mock(CacheManager.class);
+    private final Cache usersById = mock(Cache.class);
+    private final Cache usersByUsername = mock(Cache.class);
+    private PointsLedger ledger;
+    
+    @BeforeEach
+    void setUp() {
+        ledger = new PointsLedger(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(ledger, "userRepository", userRepository);
+        ReflectionTestUtils.setField(ledger, "pointsLedgerRepository", pointsLedgerRepository);
+        ReflectionTestUtils.setField(ledger, "cacheManager", cacheManager);
+        when(cacheManager.getCache(CacheConfig.USERS_BY_ID)).thenReturn(usersById);
+        when(cacheManager.getCache(CacheConfig.USERS_BY_USERNAME)).thenReturn(usersByUsername);
+        when(userRepository.findUsernamesByIdIn(any())).thenReturn(List.of("alice"));
+        when(userRepository.addPoints(anyLong(), anyInt())).thenReturn(1);
+    }
+    
+    @Test
+    void pointsBeingFlushedStayVisibleUntilTheCacheIsEvicted() {
+        ledger.award(USER_ID, 5);
+        
+        List<Long> seenDuringWrite = new ArrayList<>();
+        List<Long> seenAtEvict = new ArrayList<>();
+        when(userRepository.addPoints(USER_ID, 5)).thenAnswer(invocation -> {
+            seenDuringWrite.add(ledger.getPendingPoints(USER_ID));
+            return 1;
+        });
+        doAnswer(invocation -> {
+            seenAtEvict.add(ledger.getPendingPoints(USER_ID));
+            return null;
+        }).when(usersById).evict(USER_ID);
+        
+        ledger.flush();
+        
+        assertThat(seenDuringWrite).containsExactly(5L);
+        assertThat(seenAtEvict).containsExactly(5L);
+        assertThat(ledger.getPendingPoints(USER_ID)).isZero();
+        verify(usersByUsername).evict("alice");
+    }
+    
+    @Test
+    void awardsMadeDuringAFlushAreKeptForTheNextOne() {
+        ledger.award(USER_ID, 5);
+        when(userRepository.addPoints(USER_ID, 5)).thenAnswer(invocation -> {
+            ledger.award(USER_ID, 3);
+            return 1;
+        });
+        
+        ledger.flush();
+        assertThat(ledger.getPendingPoints(USER_ID)).isEqualTo(3);
+        
+        ledger.flush();
+        verify(userRepository).addPoints(USER_ID, 3);
+        assertThat(ledger.getPendingPoints(USER_ID)).isZero();
+    }
+    
+    @Test
+    void failedWriteStaysPendingAndIsRetriedWithLaterAwards() {
+        ledger.award(USER_ID, 5);
+        when(userRepository.addPoints(USER_ID, 5)).thenThrow(new IllegalStateException("database down"));
+        
+        ledger.flush();
+        assertThat(ledger.getPendingPoints(USER_ID)).isEqualTo(5);
+        
+        ledger.award(USER_ID, 2);
+        assertThat(ledger.getPendingPoints(USER_ID)).isEqualTo(7);
+        
+        ledger.flush();
+        verify(userRepository).addPoints(eq(USER_ID), eq(7));
+        assertThat(ledger.getPendingPoints(USER_ID)).isZero();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushedUsersLeaveNothingBehind() {
+        for (long userId = 1; userId <= 100; userId++) {
+            ledger.award(userId, 1);
+        }
+        
+        ledger.flush();
+        
+        assertThat((Map<Long, ?>) ReflectionTestUtils.getField(ledger, "pending")).isEmpty();
+        assertThat((Map<Long, ?>) ReflectionTestUtils.getField(ledger, "inFlight")).isEmpty();
+    }
+}
@@ -0,0 +1,55 @@
+package com.foodwaste.service;
+
+import com.foodwaste.service.RefreshTokenService.Rotation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Each exchange commits on its own, as it does behind /auth/refresh
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(RefreshTokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Test
+    void exchangedTokenIsRefusedAndItsFamilyRevoked() {
+        String first = refreshTokenService.issue(1L);
+        Optional<Rotation> rotation = refreshTokenService.rotate(first);
+        assertThat(rotation).isPresent();
+        assertThat(rotation.get().getUserId()).isEqualTo(1L);
+        String second = rotation.get().getRefreshToken();
+        
+        // Presenting the first token again means someone else holds a copy
+        assertThat(refreshTokenService.rotate(first)).isEmpty();
+        assertThat(refreshTokenService.rotate(second)).isEmpty();
+    }
+    
+    @Test
+    void loggedOutTokenIsRefused() {
+        String token = refreshTokenService.issue(2L);
+        refreshTokenService.revoke(token);
+        
+        assertThat(refreshTokenService.rotate(token)).isEmpty();
+    }
+    
+    @Test
+    void unknownTokenIsRefused() {
+        refreshTokenService.issue(3L);
+        
+        assertThat(refreshTokenService.rotate("not-a-token")).isEmpty();
+    }
+}
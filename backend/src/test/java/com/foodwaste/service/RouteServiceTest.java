@@ -0,0 +1,172 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DeliveryChangedEvent;
+import com.foodwaste.model.Delivery;
+import com.foodwaste.model.DeliveryStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.repository.DeliveryRepository;
+import com.foodwaste.service.RouteService.RoutePlan;
+import com.foodwaste.service.RouteService.RouteStop;
+import com.foodwaste.service.RouteService.Stop;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Stops lie on the equator, where a degree of longitude is about 111 km. At
+// 60 km/h with no time at a stop, a kilometre takes a minute.
+class RouteServiceTest {
+    
+    private static final Long VOLUNTEER_ID = 7L;
+    private static final double KM = 1 / 111.195;
+    
+    private final DeliveryRepository deliveryRepository = mock(DeliveryRepository.class);
+    private RouteService routeService;
+    
+    @BeforeEach
+    void setUp() {
+        routeService = new RouteService();
+        ReflectionTestUtils.setField(routeService, "deliveryRepository", deliveryRepository);
+        ReflectionTestUtils.setField(routeService, "speedKmh", 60.0);
+        ReflectionTestUtils.setField(routeService, "serviceMinutes", 0.0);
+    }
+    
+    @Test
+    void everyPickupComesBeforeItsDropOff() {
+        // Delivery 1 drops off where the volunteer stands, but its pickup is 10 km away
+        givenActiveDeliveries(
+            delivery(1L, 10, 0, null),
+            delivery(2L, -1, -2, null),
+            delivery(3L, 4, -3, null));
+        
+        RoutePlan plan = routeService.getRoute(VOLUNTEER_ID, 0.0, 0.0);
+        
+        assertThat(plan.getStops()).hasSize(6);
+        for (long id = 1; id <= 3; id++) {
+            assertThat(indexOf(plan, id, "PICKUP")).isLessThan(indexOf(plan, id, "DROP_OFF"));
+        }
+        
+        Stop pickup = new Stop(1L, true, "A", 0, 10 * KM, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false);
+        Stop drop = new Stop(1L, false, "B", 0, 0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+        assertThat(routeService.evaluate(List.of(drop, pickup), null, 0).cost).isInfinite();
+        assertThat(routeService.evaluate(List.of(pickup, drop), null, 0).cost).isFinite();
+    }
+    
+    @Test
+    void deadlineOutweighsAShorterRoute() {
+        // Dropping B first is 28 km against 29, but reaches A's drop-off 13 minutes late
+        LocalDateTime now = LocalDateTime.now();
+        givenActiveDeliveries(
+            delivery(1L, 0, -10, now.plusMinutes(15)),
+            delivery(2L, 0, 9, null));
+        
+        RoutePlan plan = routeService.getRoute(VOLUNTEER_ID, 0.0, 0.0);
+        
+        assertThat(indexOf(plan, 1L, "DROP_OFF")).isLessThan(indexOf(plan, 2L, "DROP_OFF"));
+        assertThat(plan.getLateMinutes()).isZero();
+        assertThat(plan.getStops()).noneMatch(RouteStop::isLate);
+        assertThat(plan.getTotalDistanceKm()).isBetween(28.5, 29.5);
+    }
+    
+    @Test
+    void unavoidableLatenessIsReportedPerStop() {
+        givenActiveDeliveries(delivery(1L, 0, 20, LocalDateTime.now().plusMinutes(5)));
+        
+        RoutePlan plan = routeService.getRoute(VOLUNTEER_ID, 0.0, 0.0);
+        
+        assertThat(plan.getLateMinutes()).isBetween(14.0, 16.0);
+        assertThat(plan.getStops().get(1).isLate()).isTrue();
+    }
+    
+    @Test
+    void stopBeforeItsScheduledPickupWaits() {
+        LocalDateTime scheduled = LocalDateTime.now().plusMinutes(30);
+        Delivery delivery = delivery(1L, 0, 5, null);
+        delivery.setScheduledPickupTime(scheduled);
+        givenActiveDeliveries(delivery);
+        
+        RoutePlan plan = routeService.getRoute(VOLUNTEER_ID, 0.0, 0.0);
+        
+        assertThat(plan.getStops().get(0).getEta()).isAfter(scheduled.minusSeconds(1));
+        assertThat(plan.getTotalMinutes()).isBetween(34.0, 36.0);
+    }
+    
+    @Test
+    void cachedRouteIsPatchedOnCreateAndCancelWithoutRequerying() {
+        Delivery first = delivery(1L, 0, 5, null);
+        givenActiveDeliveries(first);
+        assertThat(routeService.getRoute(VOLUNTEER_ID, null, null).getStops()).hasSize(2);
+        
+        Delivery second = delivery(2L, 2, 3, null);
+        routeService.onDeliveryChanged(new DeliveryChangedEvent(second, null, DeliveryStatus.ASSIGNED));
+        RoutePlan withSecond = routeService.getRoute(VOLUNTEER_ID, null, null);
+        assertThat(withSecond.getStops()).extracting(RouteStop::getDeliveryId).containsOnly(1L, 2L).hasSize(4);
+        assertThat(indexOf(withSecond, 2L, "PICKUP")).isLessThan(indexOf(withSecond, 2L, "DROP_OFF"));
+        
+        first.setStatus(DeliveryStatus.CANCELLED);
+        routeService.onDeliveryChanged(new DeliveryChangedEvent(first, DeliveryStatus.ASSIGNED, DeliveryStatus.CANCELLED));
+        assertThat(routeService.getRoute(VOLUNTEER_ID, null, null).getStops())
+            .extracting(RouteStop::getDeliveryId).containsExactly(2L, 2L);
+        
+        second.setStatus(DeliveryStatus.PICKED_UP);
+        routeService.onDeliveryChanged(new DeliveryChangedEvent(second, DeliveryStatus.ASSIGNED, DeliveryStatus.PICKED_UP));
+        assertThat(routeService.getRoute(VOLUNTEER_ID, null, null).getStops())
+            .extracting(RouteStop::getType).containsExactly("DROP_OFF");
+        
+        verify(deliveryRepository, times(1)).findByVolunteerAndStatusIn(eq(VOLUNTEER_ID), any());
+    }
+    
+    @Test
+    void deliveryWithoutCoordinatesIsListedAsUnrouted() {
+        Delivery delivery = delivery(1L, 0, 5, null);
+        delivery.setDeliveryLatitude(null);
+        givenActiveDeliveries(delivery);
+        
+        RoutePlan plan = routeService.getRoute(VOLUNTEER_ID, null, null);
+        
+        assertThat(plan.getStops()).isEmpty();
+        assertThat(plan.getUnroutedDeliveryIds()).containsExactly(1L);
+    }
+    
+    private void givenActiveDeliveries(Delivery... deliveries) {
+        when(deliveryRepository.findByVolunteerAndStatusIn(eq(VOLUNTEER_ID), any())).thenReturn(List.of(deliveries));
+    }
+    
+    // Pickup and drop-off given as kilometres east of the origin
+    private static Delivery delivery(Long id, double pickupKm, double dropKm, LocalDateTime deadline) {
+        User volunteer = new User();
+        volunteer.setId(VOLUNTEER_ID);
+        Delivery delivery = new Delivery();
+        delivery.setId(id);
+        delivery.setVolunteer(volunteer);
+        delivery.setStatus(DeliveryStatus.ASSIGNED);
+        delivery.setPickupLocation("Pickup " + id);
+        delivery.setPickupLatitude(0.0);
+        delivery.setPickupLongitude(pickupKm * KM);
+        delivery.setDeliveryLocation("Drop-off " + id);
+        delivery.setDeliveryLatitude(0.0);
+        delivery.setDeliveryLongitude(dropKm * KM);
+        delivery.setEstimatedDeliveryTime(deadline);
+        return delivery;
+    }
+    
+    private static int indexOf(RoutePlan plan, Long deliveryId, String type) {
+        List<RouteStop> stops = plan.getStops();
+        for (int i = 0; i < stops.size(); i++) {
+            if (stops.get(i).getDeliveryId().equals(deliveryId) && stops.get(i).getType().equals(type)) {
+                return i;
+            }
+        }
+        throw new AssertionError("No " + type + " for delivery " + deliveryId);
+    }
+}
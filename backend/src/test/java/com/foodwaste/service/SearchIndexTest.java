@@ -0,0 +1,151 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.DonationsExpiredEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.event.UserChangedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.repository.UserRepository;
+import com.foodwaste.util.TextIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The index kept by domain events, and a rebuild that runs alongside them
+class SearchIndexTest {
+    
+    private final DonationRepository donationRepository = mock(DonationRepository.class);
+    private final FoodRequestRepository foodRequestRepository = mock(FoodRequestRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SearchIndex searchIndex = new SearchIndex();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchIndex, "donationRepository", donationRepository);
+        ReflectionTestUtils.setField(searchIndex, "foodRequestRepository", foodRequestRepository);
+        ReflectionTestUtils.setField(searchIndex, "userRepository", userRepository);
+        when(donationRepository.findFirstPage(any())).thenReturn(List.of());
+        when(foodRequestRepository.findFirstPage(any())).thenReturn(List.of());
+        when(userRepository.findPageAfterId(anyLong(), any())).thenReturn(List.of());
+    }
+    
+    @Test
+    void donationEventsIndexUpdateAndRemove() {
+        searchIndex.onDonationChanged(new DonationChangedEvent(
+                donation(1L, "Rice", DonationStatus.PENDING), null, DonationStatus.PENDING));
+        assertThat(donationIds("rice", null)).containsExactly(1L);
+        
+        searchIndex.onDonationChanged(new DonationChangedEvent(
+                donation(1L, "Bread", DonationStatus.ACCEPTED), DonationStatus.PENDING, DonationStatus.ACCEPTED));
+        assertThat(donationIds("rice", null)).isEmpty();
+        assertThat(donationIds("bread", DonationStatus.PENDING)).isEmpty();
+        assertThat(donationIds("bread", DonationStatus.ACCEPTED)).containsExactly(1L);
+        
+        searchIndex.onDonationChanged(new DonationChangedEvent(
+                donation(1L, "Bread", DonationStatus.ACCEPTED), DonationStatus.ACCEPTED, null));
+        assertThat(donationIds("bread", null)).isEmpty();
+        assertThat(searchIndex.getSizes()).containsEntry("donations", 0);
+    }
+    
+    @Test
+    void expiredDonationsLeaveTheirStatusFilter() {
+        searchIndex.onDonationChanged(new DonationChangedEvent(
+                donation(1L, "Rice", DonationStatus.PENDING), null, DonationStatus.PENDING));
+        
+        searchIndex.onDonationsExpired(new DonationsExpiredEvent(List.of(1L)));
+        
+        assertThat(donationIds("rice", DonationStatus.PENDING)).isEmpty();
+        assertThat(donationIds("rice", DonationStatus.EXPIRED)).containsExactly(1L);
+    }
+    
+    @Test
+    void requestsAreSearchedByTheirOwnFields() {
+        FoodRequest request = new FoodRequest();
+        request.setId(5L);
+        request.setFoodTypeNeeded("Lentils");
+        request.setDeliveryLocation("Koramangala");
+        request.setStatus(RequestStatus.OPEN);
+        searchIndex.onFoodRequestChanged(new FoodRequestChangedEvent(request, null, RequestStatus.OPEN));
+        
+        assertThat(searchIndex.searchRequests("koramangala", Set.of(SearchIndex.LOCATION), RequestStatus.OPEN, 10))
+                .extracting(TextIndex.Hit::getKey).containsExactly(5L);
+        assertThat(searchIndex.searchRequests("koramangala", Set.of(SearchIndex.FOOD_TYPE), null, 10)).isEmpty();
+    }
+    
+    @Test
+    void deletedUsersLeaveTheIndex() {
+        User user = user(9L, "Asha Rao", UserRole.NGO);
+        searchIndex.onUserChanged(new UserChangedEvent(user, null, UserRole.NGO));
+        assertThat(searchIndex.searchUsers("asha", null, UserRole.NGO, 10))
+                .extracting(TextIndex.Hit::getKey).containsExactly(9L);
+        assertThat(searchIndex.searchUsers("asha", null, UserRole.VOLUNTEER, 10)).isEmpty();
+        
+        searchIndex.onUserChanged(new UserChangedEvent(user, UserRole.NGO, null));
+        
+        assertThat(searchIndex.searchUsers("asha", null, null, 10)).isEmpty();
+    }
+    
+    @Test
+    void rebuildPagesThroughUsersAndReplacesTheIndex() {
+        searchIndex.onUserChanged(new UserChangedEvent(user(1L, "Stale", UserRole.NGO), null, UserRole.NGO));
+        when(userRepository.findPageAfterId(eq(0L), any())).thenReturn(List.of(user(2L, "Asha", UserRole.NGO)));
+        when(userRepository.findPageAfterId(eq(2L), any())).thenReturn(List.of(user(3L, "Ravi", UserRole.VOLUNTEER)));
+        
+        searchIndex.rebuild();
+        
+        assertThat(searchIndex.searchUsers("stale", null, null, 10)).isEmpty();
+        assertThat(searchIndex.searchUsers("asha", null, null, 10)).extracting(TextIndex.Hit::getKey).containsExactly(2L);
+        assertThat(searchIndex.searchUsers("ravi", null, null, 10)).extracting(TextIndex.Hit::getKey).containsExactly(3L);
+    }
+    
+    @Test
+    void rebuildKeepsChangesCommittedWhileItLoads() {
+        when(donationRepository.findFirstPage(any())).thenAnswer(invocation -> {
+            // Committed after the load read its rows; the live index answers meanwhile
+            searchIndex.onDonationChanged(new DonationChangedEvent(
+                    donation(3L, "Bread", DonationStatus.PENDING), null, DonationStatus.PENDING));
+            assertThat(donationIds("bread", null)).containsExactly(3L);
+            return List.of(donation(2L, "Rice", DonationStatus.PENDING));
+        });
+        
+        searchIndex.rebuild();
+        
+        assertThat(donationIds("rice", null)).containsExactly(2L);
+        assertThat(donationIds("bread", null)).containsExactly(3L);
+    }
+    
+    private List<Long> donationIds(String query, DonationStatus status) {
+        return searchIndex.searchDonations(query, null, status, 10).stream().map(TextIndex.Hit::getKey).toList();
+    }
+    
+    private static Donation donation(Long id, String foodType, DonationStatus status) {
+        Donation donation = new Donation();
+        donation.setId(id);
+        donation.setFoodType(foodType);
+        donation.setStatus(status);
+        return donation;
+    }
+    
+    private static User user(Long id, String name, UserRole role) {
+        User user = new User(name, "user" + id, "user" + id + "@example.com", "x", role);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,105 @@
+package com.foodwaste.service;
+
+import com.foodwaste.config.CacheConfig;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Which updates through UserService end the sessions a user already holds.
+// Each call commits on its own, as it does from a controller.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({UserService.class, UserLookup.class, CacheConfig.class, JwtService.class, RefreshTokenService.class,
+         SessionRevocationTest.MetricsTestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SessionRevocationTest {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+    
+    @MockitoBean
+    private PointsLedger pointsLedger;
+    
+    @MockitoBean
+    private SearchIndex searchIndex;
+    
+    private User user;
+    private String accessToken;
+    private String refreshToken;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        user = userRepository.save(new User("Asha", "asha" + suffix, "asha" + suffix + "@example.com",
+                "{bcrypt}old", UserRole.NGO));
+        accessToken = jwtService.issueAccessToken(user);
+        refreshToken = refreshTokenService.issue(user.getId());
+    }
+    
+    @Test
+    void passwordChangeRevokesAccessAndRefreshTokens() {
+        User changed = userService.findById(user.getId()).orElseThrow();
+        changed.setPassword("{bcrypt}new");
+        userService.updateUser(changed);
+        
+        assertThat(jwtService.verify(accessToken)).isNull();
+        assertThat(refreshTokenService.rotate(refreshToken)).isEmpty();
+    }
+    
+    @Test
+    void otherProfileChangesKeepTheSession() {
+        User changed = userService.findById(user.getId()).orElseThrow();
+        changed.setName("Asha Rao");
+        userService.updateUser(changed);
+        
+        assertThat(jwtService.verify(accessToken)).isNotNull();
+        assertThat(refreshTokenService.rotate(refreshToken)).isPresent();
+    }
+    
+    @Test
+    void rehashAfterLoginKeepsTheSession() {
+        userService.upgradePassword(user.getId(), "{bcrypt}rehashed");
+        
+        assertThat(jwtService.verify(accessToken)).isNotNull();
+        assertThat(refreshTokenService.rotate(refreshToken)).isPresent();
+    }
+    
+    // JwtService registers its cache metrics at startup
+    @TestConfiguration
+    static class MetricsTestConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
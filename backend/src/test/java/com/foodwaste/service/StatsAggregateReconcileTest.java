@@ -0,0 +1,88 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationChangedEvent;
+import com.foodwaste.event.FoodRequestChangedEvent;
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.FoodRequest;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.FoodRequestRepository;
+import com.foodwaste.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Events committed while a recount query runs: the recount did not see them,
+// so they have to survive it
+class StatsAggregateReconcileTest {
+    
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final DonationRepository donationRepository = mock(DonationRepository.class);
+    private final FoodRequestRepository foodRequestRepository = mock(FoodRequestRepository.class);
+    private final StatsAggregate statsAggregate = new StatsAggregate();
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(statsAggregate, "userRepository", userRepository);
+        ReflectionTestUtils.setField(statsAggregate, "donationRepository", donationRepository);
+        ReflectionTestUtils.setField(statsAggregate, "foodRequestRepository", foodRequestRepository);
+        when(userRepository.countGroupedByRole()).thenReturn(List.of());
+        when(foodRequestRepository.countGroupedByStatus()).thenReturn(List.of());
+        when(donationRepository.countGroupedByStatus()).thenReturn(List.<Object[]>of(
+                new Object[] {DonationStatus.PENDING, 5L}));
+        when(donationRepository.getTotalFoodSaved()).thenReturn(10.0);
+        when(foodRequestRepository.getTotalPeopleServed()).thenReturn(20L);
+        statsAggregate.reconcile();
+    }
+    
+    @Test
+    void eventsAppliedDuringTheRecountAreKept() {
+        Donation donation = new Donation();
+        donation.setQuantity(3.0);
+        FoodRequest request = new FoodRequest();
+        request.setPeopleServed(4);
+        
+        when(donationRepository.countGroupedByStatus()).thenAnswer(invocation -> {
+            statsAggregate.onDonationChanged(new DonationChangedEvent(donation, DonationStatus.PENDING,
+                    DonationStatus.ACCEPTED));
+            return List.<Object[]>of(new Object[] {DonationStatus.PENDING, 5L});
+        });
+        when(donationRepository.getTotalFoodSaved()).thenAnswer(invocation -> {
+            statsAggregate.onDonationChanged(new DonationChangedEvent(donation, DonationStatus.ACCEPTED,
+                    DonationStatus.DELIVERED));
+            return 10.0;
+        });
+        when(foodRequestRepository.getTotalPeopleServed()).thenAnswer(invocation -> {
+            statsAggregate.onFoodRequestChanged(new FoodRequestChangedEvent(request, RequestStatus.MATCHED,
+                    RequestStatus.FULFILLED));
+            return 20L;
+        });
+        
+        statsAggregate.reconcile();
+        
+        assertThat(statsAggregate.getDonationCount(DonationStatus.PENDING)).isEqualTo(4);
+        assertThat(statsAggregate.getDonationCount(DonationStatus.ACCEPTED)).isZero();
+        assertThat(statsAggregate.getDonationCount(DonationStatus.DELIVERED)).isEqualTo(1);
+        assertThat(statsAggregate.getTotalFoodSaved()).isEqualTo(13.0);
+        assertThat(statsAggregate.getTotalPeopleServed()).isEqualTo(24);
+    }
+    
+    @Test
+    void driftWithoutConcurrentEventsIsCorrected() {
+        statsAggregate.onDonationChanged(new DonationChangedEvent(new Donation(), null, DonationStatus.PENDING));
+        assertThat(statsAggregate.getDonationCount(DonationStatus.PENDING)).isEqualTo(6);
+        
+        statsAggregate.reconcile();
+        
+        assertThat(statsAggregate.getDonationCount(DonationStatus.PENDING)).isEqualTo(5);
+        assertThat(statsAggregate.getTotalFoodSaved()).isEqualTo(10.0);
+        assertThat(statsAggregate.getTotalPeopleServed()).isEqualTo(20);
+    }
+}
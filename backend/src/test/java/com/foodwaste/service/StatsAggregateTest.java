@@ -0,0 +1,146 @@
+package com.foodwaste.service;
+
+import com.foodwaste.model.Donation;
+import com.foodwaste.model.DonationStatus;
+import com.foodwaste.model.RequestStatus;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.DonationRepository;
+import com.foodwaste.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// The counters moved by committed events must land where a full recount does.
+// Each step commits, so the listeners run as they do in production.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({StatsAggregate.class, DonationService.class, DonationReservationService.class,
+         DonationExpiryService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatsAggregateTest {
+    
+    @Autowired
+    private StatsAggregate statsAggregate;
+    
+    @Autowired
+    private DonationService donationService;
+    
+    @Autowired
+    private DonationReservationService reservationService;
+    
+    @Autowired
+    private DonationRepository donationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @MockitoBean
+    private UserService userService;
+    
+    @MockitoBean
+    private SearchIndex searchIndex;
+    
+    private User donor;
+    private User ngo;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        donor = userRepository.save(new User("Donor", "donor" + suffix, "donor" + suffix + "@example.com",
+                "x", UserRole.DONOR));
+        ngo = userRepository.save(new User("NGO", "ngo" + suffix, "ngo" + suffix + "@example.com",
+                "x", UserRole.NGO));
+        when(userService.findById(any())).thenReturn(Optional.of(ngo));
+        statsAggregate.reconcile();
+    }
+    
+    @Test
+    void createdDonationsAreCounted() {
+        long pending = statsAggregate.getDonationCount(DonationStatus.PENDING);
+        
+        donationService.createDonation(donation(10.0, LocalDateTime.now().plusDays(1)));
+        donationService.createDonation(donation(5.0, LocalDateTime.now().plusDays(1)));
+        
+        assertThat(statsAggregate.getDonationCount(DonationStatus.PENDING)).isEqualTo(pending + 2);
+        assertAgreesWithRecount();
+    }
+    
+    @Test
+    void claimedDonationsAreCounted() {
+        Donation partly = donationService.createDonation(donation(10.0, LocalDateTime.now().plusDays(1)));
+        Donation accepted = donationService.createDonation(donation(4.0, LocalDateTime.now().plusDays(1)));
+        
+        reservationService.reserve(partly.getId(), 3.0);
+        donationService.assignToNgo(accepted.getId(), ngo.getId());
+        donationService.markAsPickedUp(accepted.getId());
+        donationService.markAsDelivered(accepted.getId());
+        
+        assertAgreesWithRecount();
+    }
+    
+    @Test
+    void expiredDonationsAreCounted() throws Exception {
+        long expired = statsAggregate.getDonationCount(DonationStatus.EXPIRED);
+        Donation soon = donationService.createDonation(donation(2.0, LocalDateTime.now().plusNanos(200_000_000)));
+        donationService.createDonation(donation(2.0, LocalDateTime.now().plusDays(1)));
+        
+        awaitExpired(expired + 1);
+        
+        assertThat(donationRepository.findById(soon.getId()).orElseThrow().getStatus())
+                .isEqualTo(DonationStatus.EXPIRED);
+        assertAgreesWithRecount();
+    }
+    
+    private Donation donation(double quantity, LocalDateTime expiryTime) {
+        return new Donation(donor, "Bread", quantity, "kg", expiryTime, "Main St", "Fresh");
+    }
+    
+    // The sweeper thread expires the donation and publishes the event after its commit
+    private void awaitExpired(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (statsAggregate.getDonationCount(DonationStatus.EXPIRED) < count) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+    
+    private void assertAgreesWithRecount() {
+        Map<String, Object> incremental = counters();
+        statsAggregate.reconcile();
+        assertThat(incremental).isEqualTo(counters());
+    }
+    
+    private Map<String, Object> counters() {
+        Map<String, Object> counters = new LinkedHashMap<>();
+        for (UserRole role : UserRole.values()) {
+            counters.put(role.name(), statsAggregate.getUserCount(role));
+        }
+        for (DonationStatus status : DonationStatus.values()) {
+            counters.put("donations." + status, statsAggregate.getDonationCount(status));
+        }
+        for (RequestStatus status : RequestStatus.values()) {
+            counters.put("requests." + status, statsAggregate.getRequestCount(status));
+        }
+        counters.put("foodSaved", statsAggregate.getTotalFoodSaved());
+        counters.put("peopleServed", statsAggregate.getTotalPeopleServed());
+        return counters;
+    }
+}
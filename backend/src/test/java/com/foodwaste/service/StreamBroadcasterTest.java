@@ -0,0 +1,156 @@
+package com.foodwaste.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foodwaste.controller.StreamController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Last-Event-ID replay, resync and dropping of subscribers that fall behind,
+// read off /stream the way a client sees it
+class StreamBroadcasterTest {
+    
+    private static final int BUFFER_SIZE = 4;
+    private static final Pattern EVENT_ID = Pattern.compile("(?m)^id:(\\S+)$");
+    
+    private final StreamBroadcaster broadcaster = new StreamBroadcaster();
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(broadcaster, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broadcaster, "bufferSize", BUFFER_SIZE);
+        ReflectionTestUtils.setField(broadcaster, "replaySize", 100);
+        ReflectionTestUtils.setField(broadcaster, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "retryMs", 3000L);
+        ReflectionTestUtils.setField(broadcaster, "senderThreads", 1);
+        broadcaster.start();
+        
+        StreamController controller = new StreamController();
+        ReflectionTestUtils.setField(controller, "broadcaster", broadcaster);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+    
+    @Test
+    void reconnectReplaysOnlyTheEventsAfterLastEventId() throws Exception {
+        MockHttpServletResponse first = open(null);
+        publish(1, 2, 3);
+        List<String> ids = awaitIds(first, 3);
+        
+        MockHttpServletResponse second = open(ids.get(0));
+        awaitIds(second, 2);
+        
+        assertThat(ids(second)).containsExactly(ids.get(1), ids.get(2));
+        assertThat(second.getContentAsString()).doesNotContain("event:resync");
+    }
+    
+    @Test
+    void unknownOrTooOldLastEventIdGetsResync() throws Exception {
+        MockHttpServletResponse first = open(null);
+        publish(1);
+        String oldest = awaitIds(first, 1).get(0);
+        // More missed events than a subscriber queue holds
+        publish(2, 3, 4, 5);
+        
+        MockHttpServletResponse behind = open(oldest);
+        MockHttpServletResponse otherEpoch = open("0-1");
+        
+        for (MockHttpServletResponse response : List.of(behind, otherEpoch)) {
+            await(() -> contains(response, "event:resync"));
+            assertThat(ids(response)).isEmpty();
+        }
+    }
+    
+    @Test
+    void subscriberThatFallsBehindIsDroppedAndCounted() throws Exception {
+        // Hold the only sender thread so nothing drains
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor senders = (ThreadPoolExecutor) ReflectionTestUtils.getField(broadcaster, "senders");
+        senders.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        
+        broadcaster.subscribe(null, null);
+        // The queue already holds the greeting, so this is one event too many
+        publish(1, 2, 3, 4);
+        assertThat(broadcaster.getDroppedCount()).isEqualTo(1);
+        
+        release.countDown();
+        await(() -> broadcaster.getSubscriberCount() == 0);
+        
+        // Others keep receiving
+        MockHttpServletResponse other = open(null);
+        publish(5);
+        awaitIds(other, 1);
+    }
+    
+    private MockHttpServletResponse open(String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder get = get("/stream");
+        if (lastEventId != null) {
+            get.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(get).andExpect(request().asyncStarted()).andReturn().getResponse();
+    }
+    
+    private void publish(long... ids) {
+        for (long id : ids) {
+            broadcaster.publish(StreamBroadcaster.DONATIONS, "donation.updated", Map.of("id", id));
+        }
+    }
+    
+    private List<String> awaitIds(MockHttpServletResponse response, int count) throws Exception {
+        await(() -> ids(response).size() >= count);
+        return ids(response);
+    }
+    
+    private static List<String> ids(MockHttpServletResponse response) {
+        try {
+            return EVENT_ID.matcher(response.getContentAsString()).results().map(match -> match.group(1)).toList();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static boolean contains(MockHttpServletResponse response, String text) {
+        try {
+            return response.getContentAsString().contains(text);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
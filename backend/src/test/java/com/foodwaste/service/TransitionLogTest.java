@@ -0,0 +1,117 @@
+package com.foodwaste.service;
+
+import com.foodwaste.event.DonationClaimedEvent;
+import com.foodwaste.model.StateTransition;
+import com.foodwaste.model.StateTransition.EntityType;
+import com.foodwaste.repository.StateTransitionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransitionLogTest {
+    
+    private static final int BUFFER_SIZE = 4;
+    private static final int RETRY_LIMIT = 6;
+    
+    private final StateTransitionRepository repository = mock(StateTransitionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransitionLog transitionLog;
+    
+    @BeforeEach
+    void setUp() {
+        transitionLog = new TransitionLog(mock(PlatformTransactionManager.class), BUFFER_SIZE);
+        ReflectionTestUtils.setField(transitionLog, "stateTransitionRepository", repository);
+        ReflectionTestUtils.setField(transitionLog, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(transitionLog, "batchSize", 100);
+        ReflectionTestUtils.setField(transitionLog, "retryLimit", RETRY_LIMIT);
+        ReflectionTestUtils.setField(transitionLog, "overflowWaitMs", 5000L);
+        transitionLog.init();
+    }
+    
+    @Test
+    void failedWritesAreKeptUpToTheRetryLimitAndTheRestCounted() {
+        when(repository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        
+        for (long id = 1; id <= 20; id++) {
+            transitionLog.onDonationClaimed(new DonationClaimedEvent(id, 1.0));
+        }
+        
+        // 20 rows: at most RETRY_LIMIT retried plus BUFFER_SIZE in the ring, the rest dropped
+        double dropped = meterRegistry.counter("audit.transitions.dropped").count();
+        assertThat(dropped).isGreaterThanOrEqualTo(20 - RETRY_LIMIT - BUFFER_SIZE);
+        assertThat(ReflectionTestUtils.getField(transitionLog, "retry")).asList().hasSizeLessThanOrEqualTo(RETRY_LIMIT);
+    }
+    
+    @Test
+    void fullRingInsideTransactionWaitsForTheHelperFlushInsteadOfDropping() {
+        AtomicInteger saved = new AtomicInteger();
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAndGet(invocation.<List<?>>getArgument(0).size());
+            return invocation.getArgument(0);
+        });
+        
+        // As in an after-commit listener, which still holds the business connection
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            for (long id = 1; id <= 5 * BUFFER_SIZE; id++) {
+                transitionLog.onDonationClaimed(new DonationClaimedEvent(id, 1.0));
+            }
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        transitionLog.flush();
+        
+        assertThat(saved.get()).isEqualTo(5 * BUFFER_SIZE);
+        assertThat(meterRegistry.counter("audit.transitions.dropped").count()).isZero();
+        assertThat(meterRegistry.counter("audit.transitions.overflows").count()).isPositive();
+    }
+    
+    @Test
+    void rowParkedAfterAFailedWriteIsWrittenAfterTheOlderRowsInTheRing() {
+        ReflectionTestUtils.setField(transitionLog, "batchSize", 2);
+        List<Long> savedIds = new ArrayList<>();
+        when(repository.saveAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenAnswer(invocation -> {
+                    invocation.<List<StateTransition>>getArgument(0)
+                            .forEach(transition -> savedIds.add(transition.getEntityId()));
+                    return invocation.getArgument(0);
+                });
+        
+        // The fifth finds the ring full; the failed write takes only two rows out of it
+        for (long id = 1; id <= BUFFER_SIZE + 1; id++) {
+            transitionLog.onDonationClaimed(new DonationClaimedEvent(id, 1.0));
+        }
+        transitionLog.flush();
+        
+        assertThat(savedIds).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(meterRegistry.counter("audit.transitions.dropped").count()).isZero();
+    }
+    
+    @Test
+    void historyFlushesOnlyForPendingRowsOfThatEntity() {
+        transitionLog.onDonationClaimed(new DonationClaimedEvent(1L, 1.0));
+        
+        transitionLog.history(EntityType.DONATION, 2L);
+        verify(repository, never()).saveAll(anyList());
+        
+        transitionLog.history(EntityType.DONATION, 1L);
+        verify(repository, times(1)).saveAll(anyList());
+    }
+}
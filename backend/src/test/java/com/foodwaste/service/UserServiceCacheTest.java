@@ -0,0 +1,126 @@
+package com.foodwaste.service;
+
+import com.foodwaste.config.CacheConfig;
+import com.foodwaste.dto.UserSnapshot;
+import com.foodwaste.model.User;
+import com.foodwaste.model.UserRole;
+import com.foodwaste.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The id and username caches hold snapshots and are emptied by every write
+// through UserService. Each call commits on its own, as it does from a controller.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({UserService.class, UserLookup.class, CacheConfig.class, UserServiceCacheTest.CacheTestConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserServiceCacheTest {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @MockitoBean
+    private PasswordEncoder passwordEncoder;
+    
+    @MockitoBean
+    private PointsLedger pointsLedger;
+    
+    @MockitoBean
+    private SearchIndex searchIndex;
+    
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        user = userRepository.save(new User("Asha", "asha" + suffix, "asha" + suffix + "@example.com",
+                "{bcrypt}old", UserRole.NGO));
+    }
+    
+    @Test
+    void cacheHoldsASnapshotAndEveryCallerGetsItsOwnCopy() {
+        User first = userService.findById(user.getId()).orElseThrow();
+        first.setName("Changed by one caller");
+        first.setPassword("{bcrypt}tampered");
+        
+        User second = userService.findById(user.getId()).orElseThrow();
+        
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("Asha");
+        assertThat(second.getPassword()).isEqualTo("{bcrypt}old");
+        Cache.ValueWrapper cached = cacheManager.getCache(CacheConfig.USERS_BY_ID).get(user.getId());
+        assertThat(cached).isNotNull();
+        assertThat(cached.get()).isInstanceOf(UserSnapshot.class);
+    }
+    
+    @Test
+    void updateEvictsBothLookups() {
+        warmCaches();
+        
+        User changed = userService.findById(user.getId()).orElseThrow();
+        changed.setName("Asha Rao");
+        userService.updateUser(changed);
+        
+        assertThat(userService.findById(user.getId()).orElseThrow().getName()).isEqualTo("Asha Rao");
+        assertThat(userService.findByUsername(user.getUsername()).orElseThrow().getName()).isEqualTo("Asha Rao");
+    }
+    
+    @Test
+    void passwordUpgradeEvictsBothLookups() {
+        warmCaches();
+        
+        userService.upgradePassword(user.getId(), "{bcrypt}new");
+        
+        assertThat(userService.findByUsername(user.getUsername()).orElseThrow().getPassword()).isEqualTo("{bcrypt}new");
+        assertThat(userService.findById(user.getId()).orElseThrow().getPassword()).isEqualTo("{bcrypt}new");
+    }
+    
+    @Test
+    void deleteEvictsBothLookups() {
+        warmCaches();
+        
+        userService.deleteUser(user.getId());
+        
+        assertThat(userService.findById(user.getId())).isEmpty();
+        assertThat(userService.findByUsername(user.getUsername())).isEmpty();
+    }
+    
+    private void warmCaches() {
+        assertThat(userService.findById(user.getId())).isPresent();
+        assertThat(userService.findByUsername(user.getUsername())).isPresent();
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(user.getId())).isNotNull();
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_USERNAME).get(user.getUsername())).isNotNull();
+    }
+    
+    // @DataJpaTest turns caching off; these tests need the real caches
+    @TestConfiguration
+    static class CacheTestConfig {
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.USERS_BY_ID, CacheConfig.USERS_BY_USERNAME);
+        }
+    }
+}
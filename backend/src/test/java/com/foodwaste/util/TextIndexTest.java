@@ -0,0 +1,141 @@
+package com.foodwaste.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextIndexTest {
+    
+    private final TextIndex<Long> index = new TextIndex<>();
+    
+    @Test
+    void findsExactPrefixAndContainedTokensRankedInThatOrder() {
+        index.put(1L, Map.of("foodType", "Rice"));
+        index.put(2L, Map.of("foodType", "Riced cauliflower"));
+        index.put(3L, Map.of("foodType", "Brown price list"));
+        index.put(4L, Map.of("foodType", "Bread"));
+        
+        assertThat(search("rice")).containsExactly(1L, 2L, 3L);
+    }
+    
+    @Test
+    void toleratesTyposIncludingTranspositions() {
+        index.put(1L, Map.of("foodType", "Bread"));
+        index.put(2L, Map.of("foodType", "Vegetables"));
+        index.put(3L, Map.of("foodType", "Beans"));
+        
+        // "braed" shares only "$br" with "bread"
+        assertThat(search("braed")).containsExactly(1L);
+        assertThat(search("bred")).containsExactly(1L);
+        assertThat(search("vegetabels")).containsExactly(2L);
+        assertThat(search("vgetablez")).containsExactly(2L);
+        // Too far for a five-letter word
+        assertThat(search("brxxd")).isEmpty();
+    }
+    
+    @Test
+    void shortTokensMustMatchExactlyOrBeContained() {
+        index.put(1L, Map.of("foodType", "Tea"));
+        index.put(2L, Map.of("foodType", "Steak"));
+        
+        assertThat(search("tea")).containsExactly(1L, 2L);
+        assertThat(search("tae")).isEmpty();
+    }
+    
+    @Test
+    void everyQueryTokenMustMatchAndScoresAdd() {
+        index.put(1L, Map.of("foodType", "Rice", "location", "Koramangala"));
+        index.put(2L, Map.of("foodType", "Rice", "location", "Indiranagar"));
+        index.put(3L, Map.of("foodType", "Bread", "location", "Koramangala"));
+        
+        List<TextIndex.Hit<Long>> hits = index.search("rice koramangala", null, 10, null);
+        
+        assertThat(hits).extracting(TextIndex.Hit::getKey).containsExactly(1L);
+        assertThat(hits.get(0).getScore()).isEqualTo(2.0);
+    }
+    
+    @Test
+    void fieldsFilterAndLimitNarrowTheHits() {
+        index.put(1L, Map.of("foodType", "Rice", "description", "Plain"));
+        index.put(2L, Map.of("foodType", "Dal", "description", "Goes with rice"));
+        index.put(3L, Map.of("foodType", "Rice"));
+        
+        assertThat(index.search("rice", Set.of("description"), 10, null))
+                .extracting(TextIndex.Hit::getKey).containsExactly(2L);
+        assertThat(index.search("rice", null, 10, key -> key != 1L))
+                .extracting(TextIndex.Hit::getKey).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("rice", null, 2, null)).hasSize(2);
+    }
+    
+    @Test
+    void updateReplacesTheOldTextAndRemoveDropsIt() {
+        index.put(1L, Map.of("foodType", "Rice"));
+        index.put(1L, Map.of("foodType", "Bread"));
+        
+        assertThat(search("rice")).isEmpty();
+        assertThat(search("bread")).containsExactly(1L);
+        assertThat(postings()).containsOnlyKeys("$br", "bre", "rea", "ead", "ad$");
+        
+        index.remove(1L);
+        
+        assertThat(search("bread")).isEmpty();
+        assertThat(index.size()).isZero();
+        assertThat(postings()).isEmpty();
+    }
+    
+    @Test
+    void blankTextRemovesTheDocument() {
+        index.put(1L, Map.of("foodType", "Rice"));
+        index.put(1L, Map.of("foodType", " - "));
+        
+        assertThat(index.size()).isZero();
+        assertThat(postings()).isEmpty();
+    }
+    
+    // Racing updates of one key leave the postings of exactly one version
+    @Test
+    void concurrentUpdatesOfOneKeyLeaveConsistentPostings() throws Exception {
+        List<String> versions = List.of("Rice", "Bread", "Lentils", "Apples");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> writers = versions.stream()
+                        .<Future<?>>map(text -> executor.submit(() -> {
+                            start.await();
+                            index.put(1L, Map.of("foodType", text));
+                            return null;
+                        }))
+                        .toList();
+                start.countDown();
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                
+                long matchingVersions = versions.stream().filter(text -> !search(text).isEmpty()).count();
+                assertThat(matchingVersions).isEqualTo(1);
+                assertThat(postings().values()).allSatisfy(keys -> assertThat(keys).containsExactly(1L));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private List<Long> search(String query) {
+        return index.search(query, null, 10, null).stream().map(TextIndex.Hit::getKey).toList();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Set<Long>> postings() {
+        return (Map<String, Set<Long>>) ReflectionTestUtils.getField(index, "postings");
+    }
+}
@@ -0,0 +1,132 @@
+package com.foodwaste.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TransportationSolverTest {
+    
+    // Donation 0 fits request 0 best, but only donation 0 can reach request 1;
+    // heaviest-edge-first would give donation 0 to request 0 and leave request 1 empty
+    @Test
+    void givesUpTheHeaviestEdgeWhenThatServesMore() {
+        double[] flow = new TransportationSolver(new double[] {5, 5}, new double[] {5, 5},
+                new int[] {0, 0, 1}, new int[] {0, 1, 0}, new double[] {0.9, 0.8, 0.85}).solve();
+        
+        assertThat(flow).containsExactly(new double[] {0, 5, 5}, within(1e-9));
+    }
+    
+    @Test
+    void leavesSupplyUnusedWhenNoEdgeWantsIt() {
+        double[] flow = new TransportationSolver(new double[] {10}, new double[] {4, 3},
+                new int[] {0, 0}, new int[] {0, 1}, new double[] {0.5, 0.2}).solve();
+        
+        assertThat(flow).containsExactly(new double[] {4, 3}, within(1e-9));
+    }
+    
+    @Test
+    void splitsOneDonationAcrossRequests() {
+        double[] flow = new TransportationSolver(new double[] {6, 2}, new double[] {3, 5},
+                new int[] {0, 0, 1}, new int[] {0, 1, 1}, new double[] {0.4, 0.6, 0.9}).solve();
+        
+        assertThat(flow).containsExactly(new double[] {3, 3, 2}, within(1e-9));
+    }
+    
+    @Test
+    void matchesAnExactSolverOnRandomInstances() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            int supplyCount = 1 + random.nextInt(6);
+            int demandCount = 1 + random.nextInt(6);
+            int edgeCount = random.nextInt(supplyCount * demandCount + 1);
+            double[] supply = random.doubles(supplyCount, 0.5, 10).toArray();
+            double[] demand = random.doubles(demandCount, 0.5, 10).toArray();
+            int[] from = random.ints(edgeCount, 0, supplyCount).toArray();
+            int[] to = random.ints(edgeCount, 0, demandCount).toArray();
+            double[] weight = random.doubles(edgeCount).toArray();
+            
+            double[] flow = new TransportationSolver(supply, demand, from, to, weight).solve();
+            
+            double[] shipped = new double[supplyCount];
+            double[] received = new double[demandCount];
+            double total = 0;
+            for (int e = 0; e < edgeCount; e++) {
+                assertThat(flow[e]).isGreaterThanOrEqualTo(-1e-9);
+                shipped[from[e]] += flow[e];
+                received[to[e]] += flow[e];
+                total += flow[e] * weight[e];
+            }
+            for (int s = 0; s < supplyCount; s++) {
+                assertThat(shipped[s]).isLessThanOrEqualTo(supply[s] + 1e-9);
+            }
+            for (int d = 0; d < demandCount; d++) {
+                assertThat(received[d]).isLessThanOrEqualTo(demand[d] + 1e-9);
+            }
+            assertThat(total).isCloseTo(referenceOptimum(supply, demand, from, to, weight), within(1e-7));
+        }
+    }
+    
+    // Successive shortest paths with Bellman-Ford from a super source, stopping
+    // once no path gains anything: slow but obviously exact
+    private static double referenceOptimum(double[] supply, double[] demand, int[] from, int[] to, double[] weight) {
+        int s = supply.length + demand.length;
+        int t = s + 1;
+        int arcs = 2 * (supply.length + demand.length + from.length);
+        int[] tail = new int[arcs];
+        int[] head = new int[arcs];
+        double[] capacity = new double[arcs];
+        double[] cost = new double[arcs];
+        int[] count = {0};
+        Adder add = (u, v, cap, c) -> {
+            int a = count[0];
+            tail[a] = u; head[a] = v; capacity[a] = cap; cost[a] = c;
+            tail[a + 1] = v; head[a + 1] = u; capacity[a + 1] = 0; cost[a + 1] = -c;
+            count[0] += 2;
+        };
+        for (int i = 0; i < supply.length; i++) {
+            add.arc(s, i, supply[i], 0);
+        }
+        for (int i = 0; i < demand.length; i++) {
+            add.arc(supply.length + i, t, demand[i], 0);
+        }
+        for (int e = 0; e < from.length; e++) {
+            add.arc(from[e], supply.length + to[e], Double.MAX_VALUE, -weight[e]);
+        }
+        
+        double total = 0;
+        double[] distance = new double[t + 1];
+        int[] via = new int[t + 1];
+        while (true) {
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            distance[s] = 0;
+            for (int round = 0; round <= t; round++) {
+                for (int a = 0; a < arcs; a++) {
+                    if (capacity[a] > 1e-12 && distance[tail[a]] + cost[a] < distance[head[a]] - 1e-12) {
+                        distance[head[a]] = distance[tail[a]] + cost[a];
+                        via[head[a]] = a;
+                    }
+                }
+            }
+            if (distance[t] >= -1e-12) {
+                return total;
+            }
+            double amount = Double.MAX_VALUE;
+            for (int v = t; v != s; v = tail[via[v]]) {
+                amount = Math.min(amount, capacity[via[v]]);
+            }
+            for (int v = t; v != s; v = tail[via[v]]) {
+                capacity[via[v]] -= amount;
+                capacity[via[v] ^ 1] += amount;
+            }
+            total -= amount * distance[t];
+        }
+    }
+    
+    private interface Adder {
+        void arc(int from, int to, double capacity, double cost);
+    }
+}
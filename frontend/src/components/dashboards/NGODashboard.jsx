@@ -43,7 +43,7 @@ const NGODashboard = () => {
     }
     setCart(cart.map(item =>
       item.id === foodId
-        ? { ...item, requestedQuantity: Math.min(newQuantity, item.quantity) }
+        ? { ...item, requestedQuantity: Math.min(newQuantity, item.remainingQuantity ?? item.quantity) }
         : item
     ));
   };
@@ -111,7 +111,7 @@ const NGODashboard = () => {
     try {
       if (user && user.id) {
         const response = await orderService.getByNgo(user.id);
-        setMyOrders(response.data);
+        setMyOrders(response.data.items);
       }
     } catch (error) {
       console.error('Error loading orders:', error);
@@ -202,8 +202,8 @@ const NGODashboard = () => {
               
               <div className="space-y-2 mb-4">
                 <div className="flex justify-between text-sm">
-                  <span className="text-gray-500">Quantity:</span>
-                  <span className="font-medium">{food.quantity} {food.unit}</span>
+                  <span className="text-gray-500">Available:</span>
+                  <span className="font-medium">{food.remainingQuantity ?? food.quantity} {food.unit}</span>
                 </div>
                 <div className="flex justify-between text-sm">
                   <span className="text-gray-500">Expires:</span>
@@ -326,7 +326,7 @@ const NGODashboard = () => {
                     <div className="space-y-1 text-sm text-gray-600">
                       {order.orderItems && order.orderItems.map((item, index) => (
                         <div key={index} className="flex justify-between">
-                          <span>{item.donation?.foodType || 'Food Item'}</span>
+                          <span>{item.foodType || 'Food Item'}</span>
                           <span>{item.requestedQuantity} {item.unit}</span>
                         </div>
                       ))}
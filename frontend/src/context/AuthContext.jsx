@@ -1,4 +1,5 @@
 import React, { createContext, useContext, useState, useEffect } from 'react';
+import { authService } from '../services/api';
 
 const AuthContext = createContext();
 
@@ -29,6 +30,10 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    if (user?.refreshToken) {
+      // Revoke the refresh token; the access token simply expires
+      authService.logout(user.refreshToken).catch(() => {});
+    }
     setUser(null);
     localStorage.removeItem('user');
   };
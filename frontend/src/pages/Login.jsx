@@ -36,7 +36,11 @@ const Login = () => {
 
     try {
       const response = await authService.login(formData);
-      login(response.data.user);
+      login({
+        ...response.data.user,
+        token: response.data.token,
+        refreshToken: response.data.refreshToken,
+      });
       
       // Redirect to appropriate dashboard based on role
       const role = response.data.user.role;
@@ -28,14 +28,55 @@ api.interceptors.request.use(
   }
 );
 
+// Access tokens are short-lived. On a 401, exchange the refresh token once and
+// retry. Refresh tokens are single-use, so concurrent 401s share one refresh.
+let refreshing = null;
+
+const refreshTokens = () => {
+  if (!refreshing) {
+    const userData = JSON.parse(localStorage.getItem('user'));
+    refreshing = axios
+      .post(`${API_BASE_URL}/auth/refresh`, { refreshToken: userData.refreshToken })
+      .then((response) => {
+        const updated = {
+          ...userData,
+          token: response.data.token,
+          refreshToken: response.data.refreshToken,
+        };
+        localStorage.setItem('user', JSON.stringify(updated));
+        return updated.token;
+      })
+      .finally(() => {
+        refreshing = null;
+      });
+  }
+  return refreshing;
+};
+
 // Add response interceptor
 api.interceptors.response.use(
   (response) => {
     console.log('API Response:', response.status, response.data);
     return response;
   },
-  (error) => {
+  async (error) => {
     console.error('API Response Error:', error.response?.status, error.response?.data);
+    const original = error.config;
+    const user = localStorage.getItem('user');
+    if (error.response?.status === 401 && original && !original._retried
+        && user && JSON.parse(user).refreshToken) {
+      original._retried = true;
+      try {
+        const token = await refreshTokens();
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch (refreshError) {
+        // Refresh token expired or revoked: back to the login page
+        localStorage.removeItem('user');
+        window.location.href = '/login';
+        return Promise.reject(refreshError);
+      }
+    }
     return Promise.reject(error);
   }
 );
@@ -44,6 +85,7 @@ api.interceptors.response.use(
 export const authService = {
   register: (userData) => api.post('/auth/register', userData),
   login: (credentials) => api.post('/auth/login', credentials),
+  logout: (refreshToken) => api.post('/auth/logout', { refreshToken }),
   getProfile: (userId) => api.get(`/auth/profile/${userId}`),
 };
 